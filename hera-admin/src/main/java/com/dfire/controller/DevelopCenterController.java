@@ -7,6 +7,7 @@ import com.dfire.common.entity.model.JsonResponse;
 import com.dfire.common.entity.vo.HeraFileTreeNodeVo;
 import com.dfire.common.service.HeraDebugHistoryService;
 import com.dfire.common.service.HeraFileService;
+import com.dfire.common.vo.LogTailVo;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.netty.worker.WorkClient;
 import com.dfire.logs.MonitorLog;
@@ -228,6 +229,19 @@ public class DevelopCenterController extends BaseHeraController {
         return debugHistoryService.findLogById(id);
     }
 
+    /**
+     * 增量获取日志，只返回offset之后新增的部分
+     *
+     * @param id     运行记录id
+     * @param offset 页面已经获取的日志长度
+     * @return
+     */
+    @RequestMapping(value = "/getLogTail", method = RequestMethod.GET)
+    @ResponseBody
+    public LogTailVo getJobLogTail(Integer id, Integer offset) {
+        return debugHistoryService.findLogTail(id, offset == null ? 0 : offset);
+    }
+
 
     @RequestMapping(value = "/check", method = RequestMethod.GET)
     @ResponseBody
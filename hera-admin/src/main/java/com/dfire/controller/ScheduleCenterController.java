@@ -16,6 +16,7 @@ import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.common.util.StringUtil;
 import com.dfire.common.vo.GroupTaskVo;
+import com.dfire.common.vo.LogTailVo;
 import com.dfire.config.UnCheckLogin;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.netty.worker.WorkClient;
@@ -598,6 +599,19 @@ public class ScheduleCenterController extends BaseHeraController {
         return heraJobHistoryService.findLogById(id);
     }
 
+    /**
+     * 增量获取日志，只返回offset之后新增的部分
+     *
+     * @param id     运行记录id
+     * @param offset 页面已经获取的日志长度
+     * @return
+     */
+    @RequestMapping(value = "getLogTail", method = RequestMethod.GET)
+    @ResponseBody
+    public LogTailVo getJobLogTail(Integer id, Integer offset) {
+        return heraJobHistoryService.findLogTail(id, offset == null ? 0 : offset);
+    }
+
 
     @RequestMapping(value = "/execute", method = RequestMethod.GET)
     @ResponseBody
@@ -75,6 +75,16 @@ CREATE TABLE `hera_action_history` (
   KEY `ind_his_gmtcreate` (`gmt_create`),
   KEY `ind_end_time` (`end_time`)
 ) ENGINE=InnoDB  DEFAULT CHARSET=utf8mb4 COMMENT='Job运行日志表';
+DROP TABLE IF EXISTS `hera_action_log_chunk`;
+CREATE TABLE `hera_action_log_chunk` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `history_id` bigint(20) NOT NULL COMMENT 'hera_action_history的id',
+  `log_offset` int(11) NOT NULL COMMENT '分片在完整日志中的起始位置',
+  `content` mediumtext COMMENT '增量日志内容',
+  `gmt_create` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_history_offset` (`history_id`,`log_offset`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Job运行中的增量日志分片表';
 DROP TABLE IF EXISTS `hera_advice`;
 CREATE TABLE `hera_advice` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
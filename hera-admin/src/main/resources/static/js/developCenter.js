@@ -624,23 +624,28 @@ layui.use("layer", function () {
         //日志
         rightNowLogCon.children().removeClass('show-right-now-log');
         rightNowLogCon.prepend('<div class=\"right-now-log show-right-now-log \" id=\"log' + debugId + '\"></div>');
+        let log = '', logOffset = 0;
         let timer = setInterval(function () {
             $.ajax({
-                url: base_url + "/developCenter/getLog.do",
+                url: base_url + "/developCenter/getLogTail.do",
                 type: "get",
                 data: {
-                    id: debugId
+                    id: debugId,
+                    offset: logOffset
                 },
                 success: function (data) {
+                    //只拉取新增的日志
+                    log += data.log;
+                    logOffset = data.offset;
                     if (data.status !== 'running') {
                         clearInterval(timer);
-                        set('log' + debugId, data.log, true);
+                        set('log' + debugId, log, true);
                     }
                     if (data.status === 'failed') {
                         $('li[his-id=' + debugId + ']').css('color', 'orangered');
-                        set('log' + debugId, data.log, false);
+                        set('log' + debugId, log, false);
                     }
-                    $('#log' + debugId).html(data.log);
+                    $('#log' + debugId).html(log);
 
                 }
             })
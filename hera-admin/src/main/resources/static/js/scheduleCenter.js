@@ -1365,20 +1365,26 @@ let JobLogTable = function (jobId) {
     function scheduleLog() {
 
         $.ajax({
-            url: base_url + "/scheduleCenter/getLog.do",
+            url: base_url + "/scheduleCenter/getLogTail.do",
             type: "get",
             data: {
                 id: actionRow.id,
+                offset: actionRow.logOffset
             },
             success: function (data) {
-                if (data.status != 'running') {
+                if (data.finished) {
                     window.clearInterval(timerHandler);
                 }
+                actionRow.status = data.status;
+                if (actionRow.logOffset !== 0 && data.offset === actionRow.logOffset) {
+                    return;
+                }
+                //只拉取新增的日志，拼接后再渲染，避免html标签被分片截断
+                actionRow.log = actionRow.logOffset === 0 ? data.log : actionRow.log + data.log;
+                actionRow.logOffset = data.offset;
                 let logArea = $('#log_' + actionRow.id);
-                logArea[0].innerHTML = data.log;
+                logArea[0].innerHTML = actionRow.log;
                 logArea.scrollTop(logArea.prop("scrollHeight"), 200);
-                actionRow.log = data.log;
-                actionRow.status = data.status;
             }
         })
     }
@@ -1506,6 +1512,7 @@ let JobLogTable = function (jobId) {
             },
             onExpandRow: function (index, row) {
                 actionRow = row;
+                actionRow.logOffset = 0;
                 if (index != onExpand) {
                     table.bootstrapTable("collapseRow", onExpand);
                 }
@@ -0,0 +1,86 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.mapper.HeraJobActionMapper;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/15.
+ */
+public class HeraJobActionServiceImplTest {
+
+    private HeraAction generate() {
+        HeraAction action = HeraAction.builder().id(201812150300000001L).jobId(1).script("echo 1")
+                .name("job").gmtCreate(new Date()).gmtModified(new Date()).build();
+        action.setAuto(1);
+        return action;
+    }
+
+    @Test
+    public void mergeUnchanged() {
+        HeraAction exist = generate();
+        exist.setStatus(Constants.STATUS_SUCCESS);
+        exist.setHistoryId("10");
+        exist.setGmtCreate(new Date(0));
+        exist.setDependencies("201812150000000002");
+        HeraAction action = generate();
+        assertFalse(HeraJobActionServiceImpl.mergeExist(action, exist));
+        assertEquals(Constants.STATUS_SUCCESS, action.getStatus());
+        assertEquals("10", action.getHistoryId());
+        assertEquals(new Date(0), action.getGmtCreate());
+    }
+
+    @Test
+    public void mergeChanged() {
+        HeraAction exist = generate();
+        HeraAction action = generate();
+        action.setScript("echo 2");
+        assertTrue(HeraJobActionServiceImpl.mergeExist(action, exist));
+
+        exist.setStatus(Constants.STATUS_RUNNING);
+        action = generate();
+        action.setScript("echo 2");
+        assertFalse(HeraJobActionServiceImpl.mergeExist(action, exist));
+        assertEquals("echo 1", action.getScript());
+    }
+
+    @Test
+    public void upsertSql() {
+        Configuration configuration = new Configuration();
+        configuration.addMapper(HeraJobActionMapper.class);
+        Map<String, Object> params = new HashMap<>();
+        params.put("list", Arrays.asList(generate(), generate()));
+        BoundSql sql = configuration.getMappedStatement(HeraJobActionMapper.class.getName() + ".batchUpsert").getBoundSql(params);
+        assertTrue(sql.getSql().contains("on duplicate key update job_id = ifnull(values(job_id), job_id)"));
+        assertFalse(sql.getSql().contains("status = "));
+        assertEquals(2 * HeraAction.class.getDeclaredFields().length, sql.getParameterMappings().size());
+
+        params.put("list", Collections.singletonList(201812150300000001L));
+        sql = configuration.getMappedStatement(HeraJobActionMapper.class.getName() + ".findByIds").getBoundSql(params);
+        assertEquals(1, sql.getParameterMappings().size());
+    }
+
+    @Test
+    public void readyDependencySql() {
+        Configuration configuration = new Configuration();
+        configuration.addMapper(HeraJobActionMapper.class);
+        Map<String, Object> params = new HashMap<>();
+        params.put("list", Arrays.asList(HeraAction.builder().id(201812170300000001L).readyDependency("{}").build(),
+                HeraAction.builder().id(201812170300000002L).readyDependency("{}").build()));
+        BoundSql sql = configuration.getMappedStatement(HeraJobActionMapper.class.getName() + ".batchUpdateReadyDependency").getBoundSql(params);
+        assertTrue(sql.getSql().startsWith("update hera_action set ready_dependency = case id"));
+        assertFalse(sql.getSql().contains("status"));
+        assertEquals(6, sql.getParameterMappings().size());
+    }
+}
@@ -0,0 +1,147 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobLogChunk;
+import com.dfire.common.entity.vo.HeraJobHistoryVo;
+import com.dfire.common.mapper.HeraJobHistoryMapper;
+import com.dfire.common.mapper.HeraJobLogChunkMapper;
+import com.dfire.common.util.BeanConvertUtils;
+import com.dfire.common.vo.LogContent;
+import com.dfire.common.vo.LogTailVo;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/22.
+ */
+public class HeraJobHistoryServiceImplTest {
+
+    private static final String ID = "1";
+
+    private final HeraJobHistoryServiceImpl service = new HeraJobHistoryServiceImpl();
+
+    /**
+     * hera_action_history中的log和status
+     */
+    private String log;
+
+    private String status;
+
+    private final List<HeraJobLogChunk> chunks = new ArrayList<>();
+
+    private static int length(String s) {
+        return s.codePointCount(0, s.length());
+    }
+
+    @Before
+    public void setUp() {
+        // 内存中模拟mapper的sql，位置都按字符(code point)计数
+        HeraJobHistoryMapper historyMapper = (HeraJobHistoryMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HeraJobHistoryMapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "update":
+                            // 动态sql只更新不为null的字段
+                            HeraJobHistory history = (HeraJobHistory) args[0];
+                            log = history.getLog() == null ? log : history.getLog();
+                            status = history.getStatus() == null ? status : history.getStatus();
+                            return 1;
+                        case "updateHeraJobHistoryLogAndStatus":
+                            log = ((HeraJobHistory) args[0]).getLog();
+                            status = ((HeraJobHistory) args[0]).getStatus();
+                            return 1;
+                        case "selectLogById":
+                            return HeraJobHistory.builder().log(log).status(status).build();
+                        case "selectLogTail":
+                            String column = log == null ? "" : log;
+                            int start = Math.min((int) args[1], length(column));
+                            LogTailVo tail = new LogTailVo();
+                            tail.setLog(column.substring(column.offsetByCodePoints(0, start)));
+                            tail.setOffset(length(column));
+                            tail.setStatus(status);
+                            return tail;
+                        case "toString":
+                            return method.getDeclaringClass().getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        HeraJobLogChunkMapper chunkMapper = (HeraJobLogChunkMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HeraJobLogChunkMapper.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "insert":
+                            chunks.add((HeraJobLogChunk) args[0]);
+                            return 1;
+                        case "findByHistoryId":
+                            return chunks.stream().sorted(Comparator.comparing(HeraJobLogChunk::getLogOffset)).collect(Collectors.toList());
+                        case "findByHistoryIdAfter":
+                            int offset = (int) args[1];
+                            return chunks.stream().filter(chunk -> chunk.getLogOffset() + length(chunk.getContent()) > offset)
+                                    .sorted(Comparator.comparing(HeraJobLogChunk::getLogOffset)).collect(Collectors.toList());
+                        case "deleteByHistoryId":
+                            int size = chunks.size();
+                            chunks.clear();
+                            return size;
+                        case "toString":
+                            return method.getDeclaringClass().getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        ReflectionTestUtils.setField(service, "heraJobHistoryMapper", historyMapper);
+        ReflectionTestUtils.setField(service, "heraJobLogChunkMapper", chunkMapper);
+    }
+
+    private void flush(LogContent content) {
+        int offset = content.getFlushedOffset();
+        String chunk = content.pollUnflushed();
+        if (chunk != null) {
+            service.appendHeraJobHistoryLog(ID, offset, chunk);
+        }
+    }
+
+    @Test
+    public void masterWriteMidRun() {
+        // master发送给worker之前写入日志
+        HeraJobHistoryVo master = BeanConvertUtils.convert(HeraJobHistory.builder().id(ID).log("").build());
+        master.getLog().append("开始运行");
+        service.updateHeraJobHistoryLogAndStatus(HeraJobHistory.builder().id(ID)
+                .log(master.getLog().getContent()).status(Constants.STATUS_RUNNING).build());
+
+        // worker以读到的log为起点追加日志分片
+        HeraJobHistoryVo worker = BeanConvertUtils.convert(HeraJobHistory.builder().id(ID).log(log).build());
+        worker.getLog().appendConsole("第一行😀");
+        flush(worker.getLog());
+        LogTailVo first = service.findLogTail(Integer.valueOf(ID), 0);
+        assertEquals(worker.getLog().getContent(), first.getLog());
+
+        // 运行中master取消任务，只更新状态，log为null
+        service.update(HeraJobHistory.builder().id(ID).illustrate(Constants.CANCEL_JOB_MESSAGE)
+                .status(Constants.STATUS_FAILED).build());
+        assertEquals(1, chunks.size());
+        worker.getLog().appendConsole("第二行");
+        flush(worker.getLog());
+        assertEquals(worker.getLog().getContent(), service.findLogById(Integer.valueOf(ID)).getLog());
+        LogTailVo second = service.findLogTail(Integer.valueOf(ID), first.getOffset());
+        assertEquals(first.getLog() + second.getLog(), worker.getLog().getContent());
+        assertEquals(length(worker.getLog().getContent()), second.getOffset());
+
+        // worker最后写入完整日志并清除分片
+        worker.getLog().appendHera("任务被取消");
+        service.updateHeraJobHistoryLogAndStatus(HeraJobHistory.builder().id(ID)
+                .log(worker.getLog().getContent()).status(Constants.STATUS_FAILED).build());
+        assertTrue(chunks.isEmpty());
+        LogTailVo last = service.findLogTail(Integer.valueOf(ID), second.getOffset());
+        assertEquals(worker.getLog().getContent(), first.getLog() + second.getLog() + last.getLog());
+        assertTrue(last.isFinished());
+    }
+}
@@ -0,0 +1,81 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.HeraGroup;
+import com.dfire.common.entity.Judge;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/11.
+ */
+public class MemoryCatalogTest {
+
+    private Map<Integer, HeraGroup> table = new HashMap<>();
+
+    private AtomicInteger infoCount = new AtomicInteger();
+    private AtomicInteger allCount = new AtomicInteger();
+    private AtomicInteger modifiedCount = new AtomicInteger();
+
+    private Date lastModified = new Date(1000000L);
+
+    private MemoryCatalog<HeraGroup> catalog = new MemoryCatalog<>("test_group", () -> {
+        infoCount.incrementAndGet();
+        Judge judge = new Judge();
+        judge.setCount(table.size());
+        judge.setMaxId(table.keySet().stream().max(Integer::compareTo).orElse(null));
+        judge.setLastModified(lastModified);
+        judge.setStamp(new Date(lastModified.getTime() + 5000L));
+        return judge;
+    }, () -> {
+        allCount.incrementAndGet();
+        return new ArrayList<>(table.values());
+    }, since -> {
+        modifiedCount.incrementAndGet();
+        return table.values().stream().filter(group -> !group.getGmtModified().before(since)).collect(Collectors.toList());
+    }, () -> new ArrayList<>(table.keySet()), HeraGroup::getId);
+
+    private void put(int id, String name) {
+        lastModified = new Date(lastModified.getTime() + 10000L);
+        table.put(id, HeraGroup.builder().id(id).name(name).gmtModified(lastModified).build());
+    }
+
+    @Test
+    public void readWithoutQuery() {
+        put(1, "a");
+        put(2, "b");
+        assertEquals(2, catalog.get().size());
+        assertEquals(1, infoCount.get());
+        for (int i = 0; i < 100; i++) {
+            catalog.get();
+        }
+        assertEquals(1, infoCount.get());
+        assertEquals(1, allCount.get());
+    }
+
+    @Test
+    public void invalidateIncremental() {
+        put(1, "a");
+        put(2, "b");
+        catalog.get();
+        put(2, "c");
+        put(3, "d");
+        MemoryCatalog.invalidate("test_group");
+        Map<Integer, HeraGroup> memory = catalog.get();
+        assertEquals(1, allCount.get());
+        assertEquals(1, modifiedCount.get());
+        assertEquals("c", memory.get(2).getName());
+        assertEquals(3, memory.size());
+
+        table.remove(1);
+        MemoryCatalog.invalidate("test_group");
+        memory = catalog.get();
+        assertFalse(memory.containsKey(1));
+        assertEquals(2, memory.size());
+        assertEquals(1, allCount.get());
+    }
+}
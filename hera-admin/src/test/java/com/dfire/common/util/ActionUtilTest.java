@@ -5,6 +5,8 @@ import org.junit.Test;
 
 import java.util.Date;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * Created by xiaosuda on 2018/7/17.
  */
@@ -17,4 +19,15 @@ public class ActionUtilTest {
         System.out.println(dayString.getSource());
         System.out.println(dayString.getTarget());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void nearestAction() {
+        long[] ids = {201812150100000001L, 201812150300000001L, 201812150500000001L};
+        assertEquals(201812150100000001L, ActionUtil.nearestAction(ids, 201812150000000002L));
+        assertEquals(201812150300000001L, ActionUtil.nearestAction(ids, 201812150300000001L));
+        assertEquals(201812150300000001L, ActionUtil.nearestAction(ids, 201812150310000002L));
+        // 距离相同时取较早的版本
+        assertEquals(201812150100000001L, ActionUtil.nearestAction(ids, 201812150200000001L));
+        assertEquals(201812150500000001L, ActionUtil.nearestAction(ids, 201812152300000002L));
+    }
+}
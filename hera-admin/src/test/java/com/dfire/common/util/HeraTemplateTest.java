@@ -0,0 +1,54 @@
+package com.dfire.common.util;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/13.
+ */
+public class HeraTemplateTest {
+
+    private final Date date = HeraDateTool.StringToDate("201812130300", ActionUtil.ACTION_MIN);
+
+    @Test
+    public void renderVariables() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("db", "hera");
+        variables.put("table", "${db}.action");
+        variables.put("a", "${b}");
+        variables.put("b", "${a}");
+        String script = "select * from ${table} where db='${db}' and ${unknown} and ${a}";
+        assertEquals("select * from hera.action where db='hera' and ${unknown} and ${a}",
+                HeraTemplate.compile(script).render(variables, null));
+        assertSame(HeraTemplate.compile(script), HeraTemplate.compile(script));
+    }
+
+    @Test
+    public void renderDate() {
+        String script = "dt=${zdt.addDay(-1).format(\"yyyyMMdd\")} hour=${zdt.add(11, -1).format('HH')}"
+                + " ${yesterday} ${zdt.format(\"yyyy-MM-dd\")} ${zdt.getTime()}";
+        assertEquals("dt=20181212 hour=02 20181212 2018-12-13 " + date.getTime() / 1000,
+                HeraTemplate.compile(script).render(null, date));
+        assertEquals("${yesterday}", HeraTemplate.compile("${yesterday}").render(null, null));
+    }
+
+    @Test
+    public void renderSameAsVelocity() {
+        // 不是直接支持的写法由velocity计算
+        String script = "${zdt.addDay(-2).addDay(1).format(\"yyyyMMdd\")}-${zdt.addDay( -1 ).format(\"MMdd\").substring(0,2)}";
+        assertEquals("20181212-12", HeraTemplate.compile(script).render(null, date));
+        assertEquals("20181212-12", RenderHierarchyProperties.render(script, "201812130300"));
+    }
+
+    @Test
+    public void renderLiteral() {
+        assertEquals("", HeraTemplate.compile(null).render(null, date));
+        assertEquals("echo ${", HeraTemplate.compile("echo ${").render(null, date));
+        assertEquals("${a20181212}", HeraTemplate.compile("${a${yesterday}}").render(null, date));
+    }
+}
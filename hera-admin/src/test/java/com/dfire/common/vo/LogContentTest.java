@@ -0,0 +1,81 @@
+package com.dfire.common.vo;
+
+import com.dfire.common.entity.HeraJobLogChunk;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/10.
+ */
+public class LogContentTest {
+
+    @Test
+    public void pollUnflushed() {
+        LogContent log = LogContent.builder().content(new StringBuffer("start")).flushedLength(5).build();
+        assertNull(log.pollUnflushed());
+        log.append("a");
+        int offset = log.getFlushedLength();
+        String chunk = log.pollUnflushed();
+        assertEquals(5, offset);
+        assertEquals(log.getContent().substring(5), chunk);
+        assertNull(log.pollUnflushed());
+    }
+
+    @Test
+    public void stitch() {
+        List<HeraJobLogChunk> chunks = new ArrayList<>();
+        chunks.add(HeraJobLogChunk.builder().logOffset(3).content("def").build());
+        chunks.add(HeraJobLogChunk.builder().logOffset(6).content("gh").build());
+        assertEquals("abcdefgh", LogContent.stitch("abc", chunks));
+        // 完整日志已经覆盖的分片被跳过
+        assertEquals("abcdefghij", LogContent.stitch("abcdefghij", chunks));
+        // 部分覆盖只拼接未覆盖的部分
+        assertEquals("abcdefgh", LogContent.stitch("abcde", chunks));
+        // 分片缺失时不拼接错位的日志
+        chunks.remove(0);
+        assertEquals("abc", LogContent.stitch("abc", chunks));
+        assertEquals("abc", LogContent.stitch("abc", null));
+    }
+
+    @Test
+    public void stitchFromOffset() {
+        List<HeraJobLogChunk> chunks = new ArrayList<>();
+        chunks.add(HeraJobLogChunk.builder().logOffset(3).content("def").build());
+        chunks.add(HeraJobLogChunk.builder().logOffset(6).content("gh").build());
+        // log字段为"abc"，从位置2开始取
+        assertEquals("cdefgh", LogContent.stitch(2, "c", chunks));
+        // 请求位置超过log字段长度，从log末尾开始拼接
+        assertEquals("defgh", LogContent.stitch(3, "", chunks.subList(0, 2)));
+        assertEquals("gh", LogContent.stitch(6, "", chunks.subList(1, 2)));
+    }
+
+    @Test
+    public void codePointOffset() {
+        // 4字节字符在Java中占2个char，在数据库char_length中算1个字符
+        String emoji = new String(Character.toChars(0x1F600));
+        LogContent log = LogContent.builder().content(new StringBuffer("a" + emoji))
+                .flushedLength(3).flushedOffset(2).build();
+        log.append(emoji + "b");
+        int offset = log.getFlushedOffset();
+        String chunk = log.pollUnflushed();
+        assertEquals(2, offset);
+        assertEquals(log.getContent().length(), log.getFlushedLength());
+        assertEquals(2 + chunk.codePointCount(0, chunk.length()), log.getFlushedOffset());
+
+        List<HeraJobLogChunk> chunks = new ArrayList<>();
+        chunks.add(HeraJobLogChunk.builder().logOffset(2).content(emoji + "cd").build());
+        chunks.add(HeraJobLogChunk.builder().logOffset(5).content("e" + emoji).build());
+        assertEquals("a" + emoji + emoji + "cde" + emoji, LogContent.stitch("a" + emoji, chunks));
+        // log字段已经覆盖分片中的4字节字符
+        assertEquals("a" + emoji + emoji + "cde" + emoji, LogContent.stitch("a" + emoji + emoji, chunks));
+        // 从位置3开始取，位置按字符计数
+        assertEquals("cde" + emoji, LogContent.stitch(3, "", chunks));
+        assertEquals("de" + emoji, LogContent.skip("cde" + emoji, 1));
+        assertEquals("", LogContent.skip(emoji, 1));
+        assertEquals(emoji, LogContent.skip("e" + emoji, 1));
+    }
+}
@@ -0,0 +1,146 @@
+package com.dfire.core.event;
+
+import com.dfire.common.enums.TriggerTypeEnum;
+import com.dfire.core.event.base.ApplicationEvent;
+import com.dfire.core.event.base.Events;
+import com.dfire.core.event.handler.JobHandler;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/18.
+ */
+public class DispatchEventLoopTest {
+
+    @Test
+    public void order() throws InterruptedException {
+        DispatchEventLoop eventLoop = new DispatchEventLoop("test-dispatch", 4, 16);
+        int keys = 8;
+        int events = 2000;
+        List<List<Integer>> received = new ArrayList<>();
+        for (int k = 0; k < keys; k++) {
+            received.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        CountDownLatch latch = new CountDownLatch(keys * events);
+        for (int i = 0; i < events; i++) {
+            for (int k = 0; k < keys; k++) {
+                int key = k, seq = i;
+                eventLoop.execute("20181218030000000" + key, () -> {
+                    received.get(key).add(seq);
+                    latch.countDown();
+                });
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // 同一个key的事件按提交顺序执行
+        for (List<Integer> list : received) {
+            for (int i = 0; i < events; i++) {
+                assertEquals(i, list.get(i).intValue());
+            }
+        }
+        DispatchEventLoop.Metrics metrics = eventLoop.metrics();
+        assertEquals(keys * events, metrics.getSubmitted());
+        assertTrue(metrics.getMaxQueued() <= 16);
+        eventLoop.shutdown();
+    }
+
+    @Test
+    public void backpressure() throws InterruptedException {
+        DispatchEventLoop eventLoop = new DispatchEventLoop("test-dispatch", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<String> nestedThread = new AtomicReference<>();
+        // 占住分区线程
+        eventLoop.execute("1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            // 分区线程提交时不受容量限制直接入队，不会死锁，也不在当前线程抢先执行
+            eventLoop.execute("1", () -> nestedThread.set(Thread.currentThread().getName()));
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        eventLoop.execute("1", () -> {
+        });
+        Thread producer = new Thread(() -> eventLoop.execute("1", () -> {
+        }));
+        producer.start();
+        // 队列满，外部线程阻塞等待
+        long deadline = System.currentTimeMillis() + 10000;
+        while (eventLoop.metrics().getBlocked() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, eventLoop.metrics().getBlocked());
+        assertTrue(producer.isAlive());
+        release.countDown();
+        producer.join(10000);
+        assertFalse(producer.isAlive());
+        while (eventLoop.metrics().getCompleted() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        DispatchEventLoop.Metrics metrics = eventLoop.metrics();
+        assertEquals(4, metrics.getCompleted());
+        assertEquals(0, metrics.getCallerRuns());
+        assertEquals(0, metrics.getQueued());
+        assertTrue(nestedThread.get().startsWith("test-dispatch"));
+
+        // 停止后在提交线程上执行
+        eventLoop.shutdown();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        eventLoop.execute("1", () -> thread.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void partitionKey() {
+        assertEquals("201812180300000012", Dispatcher.partitionKey(HeraScheduleTriggerEvent.builder().jobId("201812180300000012").build()));
+        assertEquals("201812180300000012", Dispatcher.partitionKey(new HeraJobSuccessEvent("201812180300000012", TriggerTypeEnum.SCHEDULE, "1")));
+        assertEquals("201812180300000012", Dispatcher.partitionKey(new HeraJobMaintenanceEvent(Events.UpdateActions, "201812180300000012")));
+        assertNull(Dispatcher.partitionKey(new ApplicationEvent(Events.Initialize)));
+    }
+
+    @Test
+    public void fanOut() throws InterruptedException {
+        DispatchEventLoop eventLoop = new DispatchEventLoop("test-fan-out", 8, 64);
+        Dispatcher dispatcher = new Dispatcher(eventLoop);
+        String downstream = "201812180400000003";
+        List<String> upstreams = Arrays.asList("201812180300000001", "201812180300000002", "201812180300000004");
+        int events = 500;
+        CountDownLatch latch = new CountDownLatch(events * (upstreams.size() + 1));
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        JobHandler handler = new JobHandler(downstream, null, null, null, null, null, null, null, null, null, null) {
+            @Override
+            public void handleEvent(ApplicationEvent event) {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                threads.add(Thread.currentThread().getName());
+                Thread.yield();
+                concurrent.decrementAndGet();
+                latch.countDown();
+            }
+        };
+        dispatcher.addJobHandler(handler);
+        dispatcher.routeUpstream(handler, upstreams);
+        for (int i = 0; i < events; i++) {
+            for (String upstream : upstreams) {
+                dispatcher.forwardEvent(new HeraJobSuccessEvent(upstream, TriggerTypeEnum.SCHEDULE, "1"));
+            }
+            dispatcher.forwardEvent(HeraScheduleTriggerEvent.builder().jobId(downstream).build());
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // 多个上游的成功事件和自己的触发事件都在handler版本id的分区上串行处理
+        assertEquals(1, threads.size());
+        assertEquals(1, maxConcurrent.get());
+        eventLoop.shutdown();
+    }
+}
@@ -0,0 +1,101 @@
+package com.dfire.core.job;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/18.
+ */
+public class ProcessOutputReactorTest {
+
+    private static Process start(String script) throws IOException {
+        return new ProcessBuilder("sh", "-c", script).start();
+    }
+
+    private static List<String> drain(ProcessOutput output) throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        output.drain(lines::add);
+        return lines;
+    }
+
+    @Test
+    public void collect() throws Exception {
+        ProcessOutputReactor reactor = new ProcessOutputReactor("test-output", 2, 1000);
+        List<Process> processes = new ArrayList<>();
+        List<ProcessOutput> outputs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Process process = start("i=1; while [ $i -le 300 ]; do echo out$i; echo err$i 1>&2; i=$((i+1)); done");
+            processes.add(process);
+            outputs.add(reactor.register(process));
+        }
+        for (int i = 0; i < processes.size(); i++) {
+            List<String> lines = drain(outputs.get(i));
+            assertEquals(0, processes.get(i).waitFor());
+            assertNull(outputs.get(i).getError());
+            assertEquals(600, lines.size());
+            int out = 0, err = 0;
+            // 同一个管道的输出保持顺序
+            for (String line : lines) {
+                if (line.startsWith("out")) {
+                    assertEquals("out" + (++out), line);
+                } else {
+                    assertEquals("err" + (++err), line);
+                }
+            }
+        }
+        assertEquals(0, reactor.pipes());
+        reactor.shutdown();
+    }
+
+    @Test
+    public void lines() throws Exception {
+        ProcessOutputReactor reactor = new ProcessOutputReactor("test-output", 1, 1000);
+        // "中文"的utf-8编码
+        Process process = start("printf 'a\\r\\nb\\rc\\n\\n\\344\\270\\255\\346\\226\\207\\nd'");
+        List<String> lines = drain(reactor.register(process));
+        assertEquals(0, process.waitFor());
+        String[] expected = {"a", "b", "c", "", "中文", "d"};
+        assertArrayEquals(expected, lines.toArray());
+        reactor.shutdown();
+    }
+
+    @Test
+    public void backpressure() throws Exception {
+        ProcessOutputReactor reactor = new ProcessOutputReactor("test-output", 1, 10);
+        // 约600KB的输出，超过管道的缓冲区
+        Process process = start("i=1; while [ $i -le 60000 ]; do echo line$i; i=$((i+1)); done");
+        ProcessOutput output = reactor.register(process);
+        Thread.sleep(500);
+        // 不读取时缓冲的行数不超过上限加一次读取的数据量，子进程阻塞在写管道上
+        assertTrue(output.buffered() <= 10 + 8192);
+        assertTrue(process.isAlive());
+        List<String> lines = drain(output);
+        assertEquals(0, process.waitFor());
+        assertEquals(60000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals("line" + (i + 1), lines.get(i));
+        }
+        reactor.shutdown();
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        ProcessOutputReactor reactor = new ProcessOutputReactor("test-output", 1, 1000);
+        Process process = start("echo start; sleep 30");
+        ProcessOutput output = reactor.register(process);
+        output.cancel();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (reactor.pipes() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, reactor.pipes());
+        assertTrue(output.isClosed());
+        process.destroy();
+        reactor.shutdown();
+    }
+}
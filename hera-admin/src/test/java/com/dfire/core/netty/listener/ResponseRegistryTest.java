@@ -0,0 +1,49 @@
+package com.dfire.core.netty.listener;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/3.
+ */
+public class ResponseRegistryTest {
+
+    @Test
+    public void complete() throws Exception {
+        ResponseRegistry<String> registry = new ResponseRegistry<>();
+        CompletableFuture<String> first = registry.register(1, 10, TimeUnit.SECONDS, "timeout 1");
+        CompletableFuture<String> second = registry.register(2, 10, TimeUnit.SECONDS, "timeout 2");
+        assertEquals(2, registry.size());
+
+        assertTrue(registry.complete(2, "two"));
+        assertFalse(registry.complete(2, "again"));
+        assertEquals("two", second.get());
+        assertFalse(first.isDone());
+
+        assertTrue(registry.complete(1, "one"));
+        assertEquals("one", first.get());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void timeout() throws InterruptedException {
+        ResponseRegistry<String> registry = new ResponseRegistry<>();
+        CompletableFuture<String> future = registry.register(3, 200, TimeUnit.MILLISECONDS, "timeout 3");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            fail();
+        }
+        assertEquals(0, registry.size());
+        assertFalse(registry.complete(3, "late"));
+    }
+}
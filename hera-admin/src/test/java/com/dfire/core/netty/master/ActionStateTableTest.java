@@ -0,0 +1,212 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraAction;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/17.
+ */
+public class ActionStateTableTest {
+
+    private static ActionState state(long id) {
+        return ActionState.of(HeraAction.builder().id(id).auto(1).build());
+    }
+
+    private static long actionId(int minute, int jobId) {
+        return (201812170000L + minute) * 1000000 + jobId;
+    }
+
+    @Test
+    public void state() {
+        HeraAction action = HeraAction.builder()
+                .id(201812170300000012L)
+                .auto(1)
+                .status(Constants.STATUS_RUNNING)
+                .historyId("1024")
+                .dependencies("201812170300000001,201812170200000002")
+                .readyDependency("{\"201812170200000002\":\"1545000000000\"}")
+                .build();
+        ActionState state = ActionState.of(action);
+        assertEquals(12, state.getJobId());
+        assertTrue(state.isAuto());
+        assertTrue(state.isStatus(Constants.STATUS_RUNNING));
+        assertEquals("1024", state.getHistoryId());
+        assertFalse(state.isAllReady());
+        assertFalse(state.markReady(201812170300000003L, 1545010000000L));
+        assertTrue(state.markReady(201812170300000001L, 1545010000000L));
+        assertTrue(state.isAllReady());
+        assertEquals("{\"201812170200000002\":\"1545000000000\",\"201812170300000001\":\"1545010000000\"}", state.getReadyDependency());
+        // 只认当天成功的依赖
+        state.clearReadyBefore(1545005000000L);
+        assertFalse(state.isAllReady());
+        assertEquals("{\"201812170300000001\":\"1545010000000\"}", state.getReadyDependency());
+
+        state.setRetryCount(2);
+        // 重新生成时数据库中的依赖就绪信息可能还没写入，保留内存中的
+        state.refresh(HeraAction.builder().id(201812170300000012L)
+                .dependencies("201812170300000001,201812170200000002").readyDependency("{}").build());
+        assertEquals("{\"201812170300000001\":\"1545010000000\"}", state.getReadyDependency());
+        state.refresh(HeraAction.builder().id(201812170300000012L).build());
+        assertEquals(2, state.getRetryCount());
+        assertNull(state.getStatus());
+        assertNull(state.getHistoryId());
+        assertFalse(state.isAuto());
+        assertEquals(0, state.getDependencies().length);
+        state.clearReady();
+        assertEquals("{}", state.getReadyDependency());
+    }
+
+    @Test
+    public void refresh() throws InterruptedException {
+        ActionStateTable table = new ActionStateTable();
+        HeraAction action = HeraAction.builder().id(actionId(1, 100)).auto(1).status(Constants.STATUS_NONE)
+                .dependencies(actionId(0, 1) + "," + actionId(0, 2)).readyDependency("{}").build();
+        ActionState state = table.refresh(action);
+        MasterWorkHolder worker = new MasterWorkHolder(null, new MasterContext());
+        for (int round = 0; round < 200; round++) {
+            state.clearReady();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread marker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignored) {
+                }
+                state.markReady(actionId(0, 1), 1545010000000L);
+                state.setRetryCount(1);
+                state.setWorker(worker);
+            });
+            marker.start();
+            start.countDown();
+            // 数据库中的记录没有并发标记的就绪信息
+            assertSame(state, table.refresh(action));
+            marker.join();
+            assertEquals("{\"" + actionId(0, 1) + "\":\"1545010000000\"}", state.getReadyDependency());
+            assertEquals(1, state.getRetryCount());
+            assertSame(worker, state.getWorker());
+            state.setRetryCount(0);
+            state.setWorker(null);
+        }
+        assertSame(state, table.get(actionId(1, 100)));
+    }
+
+    @Test
+    public void markReadyAndCheck() throws InterruptedException {
+        int upstreams = 8;
+        StringBuilder dependencies = new StringBuilder();
+        for (int i = 1; i <= upstreams; i++) {
+            dependencies.append(i == 1 ? "" : ",").append(actionId(0, i));
+        }
+        for (int round = 0; round < 200; round++) {
+            ActionState state = ActionState.of(HeraAction.builder().id(actionId(1, 100)).auto(1)
+                    .dependencies(dependencies.toString()).build());
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger allReady = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 1; i <= upstreams; i++) {
+                long upstream = actionId(0, i);
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                    if (state.markReadyAndCheck(upstream, 1545010000000L, 1545000000000L)) {
+                        allReady.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            // 多个上游同时成功只触发一次
+            assertEquals(1, allReady.get());
+        }
+        ActionState state = ActionState.of(HeraAction.builder().id(actionId(1, 100)).auto(1)
+                .dependencies(actionId(0, 1) + "," + actionId(0, 2))
+                .readyDependency("{\"" + actionId(0, 2) + "\":\"1545000000000\"}").build());
+        assertFalse(state.markReadyAndCheck(actionId(0, 3), 1545010000000L, 0));
+        // 清除过期的依赖后不再全部就绪
+        assertFalse(state.markReadyAndCheck(actionId(0, 1), 1545010000000L, 1545005000000L));
+        assertTrue(state.markReadyAndCheck(actionId(0, 2), 1545010000000L, 1545005000000L));
+    }
+
+    @Test
+    public void operations() {
+        ActionStateTable table = new ActionStateTable();
+        Map<Long, ActionState> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 50000; i++) {
+            long id = actionId(random.nextInt(200), random.nextInt(500) + 1);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), table.remove(id));
+            } else {
+                ActionState state = state(id);
+                assertSame(expected.put(id, state), table.put(state));
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        expected.forEach((id, state) -> assertSame(state, table.get(id)));
+        Set<Long> ids = new HashSet<>();
+        table.forEach(state -> ids.add(state.getId()));
+        assertEquals(expected.keySet(), ids);
+
+        int removed = table.removeIf(id -> id % 1000000 == 1);
+        expected.keySet().removeIf(id -> id % 1000000 == 1);
+        assertEquals(removed > 0, expected.size() < ids.size());
+        assertEquals(expected.size(), table.size());
+        expected.forEach((id, state) -> assertSame(state, table.get(id)));
+        assertFalse(table.contains(actionId(0, 9999)));
+    }
+
+    @Test
+    public void concurrent() throws InterruptedException {
+        ActionStateTable table = new ActionStateTable();
+        int threads = 4;
+        int perThread = 20000;
+        // 读线程检查始终存在的版本
+        ActionState fixed = state(actionId(0, 999999));
+        table.put(fixed);
+        AtomicBoolean missing = new AtomicBoolean(false);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                if (table.get(fixed.getId()) != fixed) {
+                    missing.set(true);
+                }
+            }
+        });
+        reader.start();
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int jobId = t + 1;
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    table.put(state(actionId(i, jobId)));
+                }
+                for (int i = 0; i < perThread; i += 2) {
+                    table.remove(actionId(i, jobId));
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        stop.set(true);
+        reader.join();
+        assertFalse(missing.get());
+        assertEquals(threads * perThread / 2 + 1, table.size());
+        for (int t = 1; t <= threads; t++) {
+            assertNull(table.get(actionId(0, t)));
+            assertNotNull(table.get(actionId(1, t)));
+        }
+    }
+}
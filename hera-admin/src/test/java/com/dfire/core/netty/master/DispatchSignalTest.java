@@ -0,0 +1,55 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.core.queue.JobElement;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/17.
+ */
+public class DispatchSignalTest {
+
+    @Test
+    public void signal() throws InterruptedException {
+        DispatchSignal signal = new DispatchSignal();
+        assertFalse(signal.await(10, TimeUnit.MILLISECONDS));
+        // 多次信号合并为一次
+        signal.signal();
+        signal.signal();
+        assertTrue(signal.await(10, TimeUnit.SECONDS));
+        assertFalse(signal.await(10, TimeUnit.MILLISECONDS));
+
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            signal.signal();
+        });
+        thread.start();
+        assertTrue(signal.await(10, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    @Test
+    public void wakeUp() throws InterruptedException {
+        MasterContext masterContext = new MasterContext();
+        DispatchSignal signal = masterContext.getDispatchSignal();
+        masterContext.getScheduleQueue().offer(JobElement.builder().jobId("201812170300000012").priorityLevel(3).build());
+        assertTrue(signal.await(10, TimeUnit.MILLISECONDS));
+
+        MasterWorkHolder workHolder = new MasterWorkHolder(null, masterContext);
+        workHolder.reserve();
+        workHolder.getRunning().add(12);
+        workHolder.release();
+        assertEquals(1, workHolder.runningCount());
+        assertFalse(signal.await(10, TimeUnit.MILLISECONDS));
+        // 任务结束释放资源时唤醒
+        workHolder.getRunning().remove(12);
+        assertEquals(0, workHolder.runningCount());
+        assertTrue(signal.await(10, TimeUnit.MILLISECONDS));
+    }
+}
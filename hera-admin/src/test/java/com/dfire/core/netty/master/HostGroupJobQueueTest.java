@@ -0,0 +1,64 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.util.ActionUtil;
+import com.dfire.core.queue.JobElement;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/16.
+ */
+public class HostGroupJobQueueTest {
+
+    private final JobStateIndex index = new JobStateIndex();
+
+    private final HostGroupJobQueue queue = new HostGroupJobQueue(() -> new PriorityBlockingQueue<>(16,
+            Comparator.comparing(JobElement::getPriorityLevel)), index, ActionUtil::getJobId, new DispatchSignal());
+
+    private JobElement element(String actionId, int hostGroupId, int priorityLevel) {
+        return JobElement.builder().jobId(actionId).hostGroupId(hostGroupId).priorityLevel(priorityLevel).build();
+    }
+
+    @Test
+    public void partition() {
+        queue.offer(element("201812160300000001", 1, 3));
+        queue.offer(element("201812160300000002", 1, 1));
+        queue.offer(element("201812160300000003", 2, 3));
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.size(1));
+        // 每个机器组内按优先级排序
+        assertEquals("201812160300000002", queue.peek(1).getJobId());
+        assertEquals("201812160300000003", queue.peek(2).getJobId());
+
+        // 机器组1没有可用worker时不取出，机器组2照常分发
+        assertTrue(queue.remove(2, queue.peek(2)));
+        assertFalse(index.isQueued(3));
+        assertEquals(Arrays.asList(1), queue.hostGroups());
+        assertEquals("201812160300000002", queue.poll(1).getJobId());
+        assertFalse(index.isQueued(2));
+        assertTrue(index.isQueued(1));
+    }
+
+    @Test
+    public void roundRobin() {
+        queue.offer(element("201812160300000001", 1, 3));
+        queue.offer(element("201812160300000002", 2, 3));
+        queue.offer(element("201812160300000003", 3, 3));
+        assertEquals(Arrays.asList(1, 2, 3), queue.hostGroups());
+        assertEquals(Arrays.asList(2, 3, 1), queue.hostGroups());
+        assertEquals(Arrays.asList(3, 1, 2), queue.hostGroups());
+
+        queue.removeIf(element -> element.getHostGroupId() == 2);
+        assertEquals(2, queue.size());
+        assertFalse(index.isQueued(2));
+        assertNotNull(queue.poll());
+        assertNotNull(queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, index.size());
+    }
+}
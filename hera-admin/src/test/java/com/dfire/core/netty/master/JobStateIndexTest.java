@@ -0,0 +1,68 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.core.queue.JobElement;
+import org.junit.Test;
+
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/16.
+ */
+public class JobStateIndexTest {
+
+    private final MasterContext masterContext = new MasterContext();
+
+    private JobElement element(String actionId) {
+        return JobElement.builder().jobId(actionId).priorityLevel(3).build();
+    }
+
+    @Test
+    public void queue() {
+        Queue<JobElement> queue = masterContext.getScheduleQueue();
+        JobStateIndex index = masterContext.getScheduleIndex();
+        queue.offer(element("201812160300000012"));
+        queue.offer(element("201812160400000012"));
+        queue.offer(element("201812160300000013"));
+        assertEquals(2, index.get(12).getQueued());
+        assertTrue(index.isQueued(13));
+        assertFalse(index.isQueued(9999));
+
+        queue.removeIf(element -> element.getJobId().equals("201812160300000013"));
+        assertNull(index.get(13));
+        queue.poll();
+        assertTrue(index.isQueued(12));
+        queue.poll();
+        assertNull(index.get(12));
+        assertEquals(0, index.size());
+        // 不同类型的任务使用各自的索引
+        masterContext.getManualQueue().offer(element("201812160300000012"));
+        assertFalse(index.isQueued(12));
+        assertTrue(masterContext.getManualIndex().isQueued(12));
+    }
+
+    @Test
+    public void running() {
+        JobStateIndex index = masterContext.getScheduleIndex();
+        MasterWorkHolder first = new MasterWorkHolder(null, masterContext);
+        MasterWorkHolder second = new MasterWorkHolder(null, masterContext);
+        first.getRunning().add(12);
+        first.getRunning().add(12);
+        second.getRunning().add(12);
+        first.getManningRunning().add(13);
+        assertSame(first, index.getRunningWorker(12));
+        assertEquals(2, index.get(12).getWorkers().size());
+        assertNull(index.get(13));
+        assertSame(first, masterContext.getManualIndex().getRunningWorker(13));
+
+        first.getRunning().remove(12);
+        assertSame(second, index.getRunningWorker(12));
+        masterContext.getScheduleQueue().offer(element("201812160300000012"));
+        second.clearRunning();
+        assertNull(index.getRunningWorker(12));
+        assertTrue(index.isQueued(12));
+        first.clearRunning();
+        assertNull(masterContext.getManualIndex().get(13));
+    }
+}
@@ -0,0 +1,75 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.service.HeraJobActionService;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/17.
+ */
+public class ReadyDependencyWriterTest {
+
+    private final List<List<HeraAction>> writes = new ArrayList<>();
+
+    private boolean fail;
+
+    @SuppressWarnings("unchecked")
+    private final HeraJobActionService service = (HeraJobActionService) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[]{HeraJobActionService.class}, (proxy, method, args) -> {
+                if (!"batchUpdateReadyDependency".equals(method.getName())) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                if (fail) {
+                    throw new IllegalStateException("db error");
+                }
+                writes.add(new ArrayList<>((List<HeraAction>) args[0]));
+                return ((List<HeraAction>) args[0]).size();
+            });
+
+    private static ActionState state(long id) {
+        return ActionState.of(HeraAction.builder().id(id).auto(1).dependencies("201812170300000001,201812170300000002").build());
+    }
+
+    @Test
+    public void flush() {
+        ReadyDependencyWriter writer = new ReadyDependencyWriter(service, 2);
+        ActionState first = state(201812170400000011L);
+        ActionState second = state(201812170400000012L);
+        ActionState third = state(201812170400000013L);
+        first.markReady(201812170300000001L, 1L);
+        writer.markDirty(first);
+        // 多次登记只写一次，写入最新值
+        first.markReady(201812170300000002L, 2L);
+        writer.markDirty(first);
+        writer.markDirty(second);
+        writer.markDirty(third);
+        assertEquals(3, writer.pending());
+
+        assertEquals(3, writer.flush());
+        assertEquals(2, writes.size());
+        assertEquals(0, writer.pending());
+        HeraAction written = writes.stream().flatMap(List::stream)
+                .filter(action -> action.getId() == 201812170400000011L).findFirst().orElse(null);
+        assertNotNull(written);
+        assertEquals("{\"201812170300000001\":\"1\",\"201812170300000002\":\"2\"}", written.getReadyDependency());
+        assertEquals(0, writer.flush());
+    }
+
+    @Test
+    public void retry() {
+        ReadyDependencyWriter writer = new ReadyDependencyWriter(service, 10);
+        writer.markDirty(state(201812170400000011L));
+        fail = true;
+        assertEquals(0, writer.flush());
+        assertEquals(1, writer.pending());
+        fail = false;
+        assertEquals(1, writer.flush());
+        assertEquals(0, writer.pending());
+    }
+}
@@ -0,0 +1,127 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.core.netty.master.MasterWorkHolder;
+import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/20.
+ */
+public class HeartBeatTrackerTest {
+
+    private final Set<String> running = new LinkedHashSet<>();
+
+    private final Set<String> manualRunning = new LinkedHashSet<>();
+
+    private final Set<String> debugRunning = new LinkedHashSet<>();
+
+    private HeartBeatMessage next(HeartBeatTracker tracker) throws InvalidProtocolBufferException {
+        // 经过序列化，与网络传输一致
+        return HeartBeatMessage.parseFrom(tracker.next(running, manualRunning, debugRunning).setHost("worker").build().toByteArray());
+    }
+
+    private void assertSynced(MasterWorkHolder holder) {
+        assertEquals(running, new HashSet<>(holder.getHeartBeatInfo().getRunning()));
+        assertEquals(manualRunning, new HashSet<>(holder.getHeartBeatInfo().getManualRunning()));
+        assertEquals(debugRunning, new HashSet<>(holder.getHeartBeatInfo().getDebugRunning()));
+    }
+
+    @Test
+    public void delta() throws InvalidProtocolBufferException {
+        HeartBeatTracker tracker = new HeartBeatTracker(100);
+        MasterWorkHolder holder = new MasterWorkHolder(null, new MasterContext());
+        running.addAll(Arrays.asList("1", "2", "3"));
+        manualRunning.add("4");
+        // 没有确认的版本时发送全量
+        HeartBeatMessage full = next(tracker);
+        assertEquals(0, full.getBaseVersion());
+        assertEquals(3, full.getRunningsCount());
+        assertTrue(holder.applyHeartBeat(full));
+        tracker.ack(full.getVersion());
+        assertSynced(holder);
+
+        running.remove("1");
+        running.add("5");
+        manualRunning.clear();
+        debugRunning.add("6");
+        HeartBeatMessage delta = next(tracker);
+        assertEquals(full.getVersion(), delta.getBaseVersion());
+        assertEquals(Collections.singletonList("5"), delta.getRunningsList());
+        assertEquals(Collections.singletonList("1"), delta.getFinishedRunningsList());
+        assertEquals(Collections.singletonList("4"), delta.getFinishedManualRunningsList());
+        assertEquals(Collections.singletonList("6"), delta.getDebugRunningsList());
+        assertTrue(holder.applyHeartBeat(delta));
+        tracker.ack(delta.getVersion());
+        assertSynced(holder);
+
+        // 没有变化时不携带任务
+        HeartBeatMessage empty = next(tracker);
+        assertEquals(0, empty.getRunningsCount() + empty.getFinishedRunningsCount() + empty.getDebugRunningsCount());
+        assertTrue(holder.applyHeartBeat(empty));
+        assertSynced(holder);
+    }
+
+    @Test
+    public void lostAck() throws InvalidProtocolBufferException {
+        HeartBeatTracker tracker = new HeartBeatTracker(100);
+        MasterWorkHolder holder = new MasterWorkHolder(null, new MasterContext());
+        running.add("1");
+        HeartBeatMessage full = next(tracker);
+        assertTrue(holder.applyHeartBeat(full));
+        tracker.ack(full.getVersion());
+
+        running.add("2");
+        // master已经应用，但是确认丢失
+        assertTrue(holder.applyHeartBeat(next(tracker)));
+        running.remove("1");
+        HeartBeatMessage stale = next(tracker);
+        assertEquals(full.getVersion(), stale.getBaseVersion());
+        // 基础版本不一致，拒绝后worker发送全量
+        assertFalse(holder.applyHeartBeat(stale));
+        tracker.reset();
+        HeartBeatMessage resync = next(tracker);
+        assertEquals(0, resync.getBaseVersion());
+        assertTrue(holder.applyHeartBeat(resync));
+        assertSynced(holder);
+        // 过期的确认不影响当前版本
+        tracker.ack(full.getVersion());
+        assertEquals(0, tracker.getAckVersion());
+    }
+
+    @Test
+    public void fullInterval() throws InvalidProtocolBufferException {
+        HeartBeatTracker tracker = new HeartBeatTracker(3);
+        running.add("1");
+        List<Long> baseVersions = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            HeartBeatMessage message = next(tracker);
+            baseVersions.add(message.getBaseVersion());
+            tracker.ack(message.getVersion());
+        }
+        // 第一次和之后每3次为全量心跳
+        assertEquals(Arrays.asList(0L, 1L, 2L, 0L, 4L, 5L, 0L), baseVersions);
+    }
+
+    @Test
+    public void legacyWorker() throws InvalidProtocolBufferException {
+        MasterWorkHolder holder = new MasterWorkHolder(null, new MasterContext());
+        // 旧版本worker没有版本号，每次都是全量
+        assertTrue(holder.applyHeartBeat(HeartBeatMessage.newBuilder().addRunnings("1").addRunnings("2").build()));
+        assertTrue(holder.applyHeartBeat(HeartBeatMessage.newBuilder().addRunnings("2").build()));
+        assertEquals(Collections.singleton("2"), new HashSet<>(holder.getHeartBeatInfo().getRunning()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnly() {
+        MasterWorkHolder holder = new MasterWorkHolder(null, new MasterContext());
+        assertTrue(holder.applyHeartBeat(HeartBeatMessage.newBuilder().addRunnings("1").build()));
+        // 对外只提供只读视图，只能通过心跳修改
+        holder.getHeartBeatInfo().getRunning().remove("1");
+    }
+}
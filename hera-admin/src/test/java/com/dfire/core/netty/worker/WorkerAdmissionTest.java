@@ -0,0 +1,115 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.core.job.JobContext;
+import com.dfire.core.netty.master.MasterWorkHolder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/18.
+ */
+public class WorkerAdmissionTest {
+
+    @Test
+    public void slots() {
+        // 内存: (16000 - 4000) / 500 = 24, cpu: 4 * 8 = 32
+        assertEquals(24, WorkerAdmission.slots(16000, 4000, 500, 4, 8));
+        // cpu: 2 * 8 = 16
+        assertEquals(16, WorkerAdmission.slots(64000, 4000, 500, 2, 8));
+        // 不限制每个核的slot数
+        assertEquals(120, WorkerAdmission.slots(64000, 4000, 500, 2, 0));
+        // 内存不足时至少执行一个任务
+        assertEquals(1, WorkerAdmission.slots(2000, 4000, 500, 4, 8));
+    }
+
+    @Test
+    public void admission() throws Exception {
+        WorkerAdmission admission = new WorkerAdmission(2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int value = i;
+            Future<Integer> future = admission.trySubmit(() -> {
+                release.await();
+                return value;
+            });
+            assertNotNull(future);
+            futures.add(future);
+        }
+        // 2个slot在执行，1个在等待，再提交时拒绝
+        assertNull(admission.trySubmit(() -> 3));
+        assertEquals(1, admission.rejected());
+        assertEquals(1, admission.queued());
+        release.countDown();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get(10, TimeUnit.SECONDS).intValue());
+        }
+        assertEquals(3, admission.trySubmit(() -> 3).get(10, TimeUnit.SECONDS).intValue());
+        admission.shutdown();
+    }
+
+    @Test
+    public void cancelQueued() throws Exception {
+        WorkerAdmission admission = new WorkerAdmission(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> running = admission.trySubmit(() -> release.await(10, TimeUnit.SECONDS));
+        QueuedJob queued = new QueuedJob(new JobContext(JobContext.SCHEDULE_RUN));
+        AtomicBoolean executed = new AtomicBoolean();
+        Future<Boolean> future = admission.trySubmit(() -> {
+            if (queued.start()) {
+                executed.set(true);
+            }
+            return true;
+        });
+        AtomicInteger canceled = new AtomicInteger();
+        queued.onCancel(() -> {
+            assertTrue(admission.remove(future));
+            canceled.incrementAndGet();
+        });
+        assertEquals(1, admission.queued());
+        queued.cancel();
+        queued.cancel();
+        // 排队中的任务被移除，不占用等待队列
+        assertEquals(1, canceled.get());
+        assertTrue(queued.isCanceled());
+        assertEquals(0, admission.queued());
+        assertNotNull(admission.trySubmit(() -> true));
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS));
+        assertFalse(executed.get());
+
+        // 开始执行之后取消不再执行取消处理，由执行中的任务处理
+        QueuedJob started = new QueuedJob(new JobContext(JobContext.SCHEDULE_RUN));
+        assertTrue(started.start());
+        started.onCancel(canceled::incrementAndGet);
+        started.cancel();
+        assertEquals(1, canceled.get());
+        // 登记前已经取消的立即执行
+        QueuedJob early = new QueuedJob(new JobContext(JobContext.SCHEDULE_RUN));
+        early.cancel();
+        assertFalse(early.start());
+        early.onCancel(canceled::incrementAndGet);
+        assertEquals(2, canceled.get());
+        admission.shutdown();
+    }
+
+    @Test
+    public void busy() throws InterruptedException {
+        MasterWorkHolder workHolder = new MasterWorkHolder(null, new MasterContext());
+        assertFalse(workHolder.isBusy());
+        workHolder.markBusy(50);
+        assertTrue(workHolder.isBusy());
+        Thread.sleep(100);
+        assertFalse(workHolder.isBusy());
+    }
+}
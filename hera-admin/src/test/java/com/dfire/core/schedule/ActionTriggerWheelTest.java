@@ -0,0 +1,71 @@
+package com.dfire.core.schedule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/14.
+ */
+public class ActionTriggerWheelTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final List<String> fired = Collections.synchronizedList(new ArrayList<>());
+
+    private final ActionTriggerWheel wheel = new ActionTriggerWheel(4, MINUTE, fired::add);
+
+    @Test
+    public void fireOnce() {
+        long now = System.currentTimeMillis() / MINUTE * MINUTE;
+        assertTrue(wheel.schedule("a", now + MINUTE));
+        assertTrue(wheel.schedule("b", now + 2 * MINUTE));
+        assertTrue(wheel.schedule("c", now + 2 * MINUTE + 10));
+        assertFalse(wheel.schedule("c", now + 3 * MINUTE));
+        assertTrue(wheel.schedule("nextDay", now + TimeUnit.DAYS.toMillis(1) + MINUTE));
+        assertEquals(4, wheel.size());
+
+        wheel.tick(now + 10);
+        assertTrue(fired.isEmpty());
+        wheel.tick(now + MINUTE);
+        assertEquals(Collections.singletonList("a"), fired);
+        // 停顿后补上中间每一分钟
+        wheel.tick(now + 5 * MINUTE);
+        assertEquals(3, fired.size());
+        assertTrue(fired.containsAll(Arrays.asList("b", "c")));
+        wheel.tick(now + 6 * MINUTE);
+        assertEquals(3, fired.size());
+        assertTrue(wheel.contains("nextDay"));
+        wheel.tick(now + TimeUnit.DAYS.toMillis(1) + MINUTE);
+        assertEquals("nextDay", fired.get(3));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancel() {
+        long now = System.currentTimeMillis();
+        assertTrue(wheel.schedule("a", now + MINUTE));
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        wheel.tick(now + 2 * MINUTE);
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    public void misfire() {
+        long now = System.currentTimeMillis();
+        // 超过阈值不登记，由漏跑检测处理
+        assertFalse(wheel.schedule("lost", now - 2 * MINUTE));
+        // 阈值内的在下一个tick补触发
+        wheel.tick(now);
+        assertTrue(wheel.schedule("late", now - MINUTE / 2));
+        wheel.tick(now + MINUTE);
+        assertEquals(Collections.singletonList("late"), fired);
+    }
+}
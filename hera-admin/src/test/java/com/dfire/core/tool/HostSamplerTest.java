@@ -0,0 +1,111 @@
+package com.dfire.core.tool;
+
+import com.dfire.protocol.RpcWorkInfo.ProcessMonitor;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/19.
+ */
+public class HostSamplerTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void parseStat() {
+        String stat = "cpu  100 0 50 800 50 0 0 0 0 0\n" +
+                "cpu0 50 0 25 400 25 0 0 0 0 0\n" +
+                "cpu1 50 0 25 400 25 0 0 0 0 0\n" +
+                "intr 12345\n" +
+                "ctxt 67890\n";
+        assertEquals(2, HostSampler.parseCores(stat));
+        long[] first = HostSampler.parseCpuTicks(stat);
+        assertArrayEquals(new long[]{100, 0, 50, 800, 50, 0, 0, 0}, first);
+        long[] second = HostSampler.parseCpuTicks("cpu  160 20 70 900 50 0 0 0 0 0\n");
+        // 两次采样之间：user+nice 80，system 20，idle 100，总共200
+        float[] percent = HostSampler.cpuPercent(first, second);
+        assertEquals(40f, percent[0], DELTA);
+        assertEquals(10f, percent[1], DELTA);
+        assertEquals(50f, percent[2], DELTA);
+        // 没有变化时视为空闲
+        assertEquals(100f, HostSampler.cpuPercent(second, second)[2], DELTA);
+    }
+
+    @Test
+    public void parseMemInfo() {
+        String memInfo = "MemTotal:       16384000 kB\n" +
+                "MemFree:         1024000 kB\n" +
+                "MemAvailable:    8192000 kB\n" +
+                "Buffers:          102400 kB\n" +
+                "Cached:          4096000 kB\n" +
+                "SwapCached:         1024 kB\n" +
+                "SwapTotal:       2048000 kB\n" +
+                "SwapFree:        1024000 kB\n";
+        assertArrayEquals(new float[]{16000f, 8000f, 2000f, 1000f}, HostSampler.parseMemInfo(memInfo), DELTA);
+        // 没有MemAvailable时使用MemFree+Buffers+Cached，SwapCached不算在Cached中
+        String oldKernel = memInfo.replace("MemAvailable:    8192000 kB\n", "");
+        assertEquals(5100f, HostSampler.parseMemInfo(oldKernel)[1], DELTA);
+        assertEquals(1.5f, HostSampler.parseLoadAvg("1.50 1.20 0.80 2/345 6789\n"), DELTA);
+    }
+
+    @Test
+    public void parseProcessStat() {
+        HostSampler.ProcessStat stat = HostSampler.parseProcessStat(
+                "1234 (java (main) x) S 1 1234 1234 0 -1 4194560 100 0 0 0 250 50 0 0 20 0 30 0 5000 104857600 2560 18446744073709551615");
+        assertEquals("1234", stat.pid);
+        assertEquals("java (main) x", stat.command);
+        assertEquals(300, stat.ticks);
+        assertEquals(5000, stat.startTicks);
+        assertEquals(104857600, stat.vsizeBytes);
+        assertEquals(2560, stat.rssPages);
+        assertEquals("0:03.00", HostSampler.formatTime(stat.ticks));
+        assertEquals("1:01.50", HostSampler.formatTime(6150));
+        assertEquals("512B", HostSampler.humanSize(512));
+        assertEquals("1.5K", HostSampler.humanSize(1536));
+        assertEquals("20G", HostSampler.humanSize(20L * 1024 * 1024 * 1024));
+    }
+
+    @Test
+    public void ring() {
+        HostSampler sampler = new HostSampler(false, 0, 3);
+        HostSample first = sampler.latest();
+        assertNotNull(first);
+        assertEquals(0.1f, first.getMemRate(), DELTA);
+        assertNull(sampler.osInfo());
+        for (int i = 0; i < 4; i++) {
+            sampler.sample();
+        }
+        List<HostSample> history = sampler.history();
+        assertEquals(3, history.size());
+        assertSame(sampler.latest(), history.get(2));
+        // 最早的采样已经被覆盖
+        for (HostSample sample : history) {
+            assertNotSame(first, sample);
+        }
+    }
+
+    @Test
+    public void proc() {
+        if (!System.getProperty("os.name").toLowerCase().startsWith("linux")) {
+            return;
+        }
+        HostSampler sampler = new HostSampler(true, 0, 3);
+        sampler.sample();
+        HostSample sample = sampler.latest();
+        assertTrue(sample.getCores() > 0);
+        assertTrue(sample.getMemTotal() > 0);
+        assertTrue(sample.getMemRate() >= 0 && sample.getMemRate() <= 1);
+        // iowait、steal不统计在内
+        assertTrue(sample.getCpuUser() + sample.getCpuSystem() + sample.getCpuIdle() <= 100.01f);
+        assertNotNull(sampler.osInfo());
+        assertEquals(sample.getDisks().size(), sampler.machineInfo().size());
+        List<ProcessMonitor> processes = sampler.processes(5);
+        assertFalse(processes.isEmpty());
+        assertTrue(processes.size() <= 5);
+        // 第二次查询使用两次查询之间的cpu时间
+        assertFalse(sampler.processes(5).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package com.dfire.core.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/18.
+ */
+public class CommandUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void dos2unix() throws IOException {
+        File file = folder.newFile("job.sh");
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        Files.write(file.toPath(), bom);
+        Files.write(file.toPath(), "echo 中文\r\necho a\rb\r\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertTrue(CommandUtils.dos2unix(file));
+        // 单独的\r不是windows换行符，保留
+        assertEquals("echo 中文\necho a\rb\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        assertFalse(CommandUtils.dos2unix(file));
+    }
+
+    @Test
+    public void changeFileAuthority() throws IOException {
+        File dir = folder.newFolder("work");
+        File sub = new File(dir, "sub");
+        assertTrue(sub.mkdir());
+        File script = new File(sub, "job.sh");
+        Files.write(script.toPath(), "echo".getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(script.toPath(), PosixFilePermissions.fromString("rw-------"));
+        assertEquals(3, CommandUtils.changeFileAuthority(dir));
+        for (File file : new File[]{dir, sub, script}) {
+            assertEquals("rwxrwxrwx", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+        }
+        // 已经是777的不再修改
+        assertEquals(0, CommandUtils.changeFileAuthority(dir));
+    }
+}
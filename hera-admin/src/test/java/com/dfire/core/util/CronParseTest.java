@@ -3,6 +3,7 @@ package com.dfire.core.util;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -18,4 +19,26 @@ public class CronParseTest {
         CronParse.Parser("0 0 0/1 * * ?", "2018-07-18", x);
         x.forEach(System.out::println);
     }
+
+    @Test
+    public void cache() {
+        List<String> fireTimes = CronParse.parse("0 0 3 * * ?", "2018-12-15");
+        assertEquals(Collections.singletonList("2018-12-15 03:00:00"), fireTimes);
+        assertSame(fireTimes, CronParse.parse("0 0 3 * * ?", "2018-12-15"));
+        assertEquals(24, CronParse.parse("0 0 0/1 * * ?", "2018-12-15").size());
+        assertEquals("2018-12-15 00:00:00", CronParse.parse("0 0 0/1 * * ?", "2018-12-15").get(0));
+        assertEquals(CronParse.expand("0 0/5 * * * ?", "2018-12-15"), CronParse.parse("0 0/5 * * * ?", "2018-12-15"));
+        assertTrue(CronParse.parse("0 0 3 1 1 ? 2017", "2018-12-15").isEmpty());
+        assertNull(CronParse.parse("error cron", "2018-12-15"));
+        assertFalse(CronParse.Parser("error cron", "2018-12-15", new ArrayList<>()));
+    }
+
+    @Test
+    public void errorDate() {
+        // 日期错误时返回null，不抛出异常
+        assertNull(CronParse.expand("0 0 3 * * ?", "2018-13-45"));
+        assertNull(CronParse.parse("0 0 3 * * ?", "2018-13-45"));
+        assertNull(CronParse.parse("0 0 3 * * ?", "20181215"));
+        assertFalse(CronParse.Parser("0 0 3 * * ?", "2018/12/15", new ArrayList<>()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.dfire.graph;
+
+import com.dfire.common.entity.HeraJob;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by xiaosuda on 2018/12/12.
+ */
+public class JobDagIndexTest {
+
+    private HeraJob job(int id, String dependencies) {
+        return HeraJob.builder().id(id).name("job" + id).auto(1).dependencies(dependencies).build();
+    }
+
+    @Test
+    public void diamond() {
+        JobDagIndex dagIndex = new JobDagIndex();
+        List<HeraJob> jobs = new ArrayList<>();
+        // 40层菱形依赖，没有访问标记时路径数为2^40
+        jobs.add(job(0, null));
+        int last = 0;
+        for (int layer = 1; layer <= 40; layer++) {
+            int left = layer * 3 - 2, right = layer * 3 - 1, bottom = layer * 3;
+            jobs.add(job(left, String.valueOf(last)));
+            jobs.add(job(right, String.valueOf(last)));
+            jobs.add(job(bottom, left + "," + right));
+            last = bottom;
+        }
+        dagIndex.reload(jobs);
+        assertEquals(120, dagIndex.findStream(0, true).size());
+        assertEquals(120, dagIndex.findStream(last, false).size());
+        assertEquals(new HashSet<>(Arrays.asList(118, 119)), new HashSet<>(dagIndex.getAdjacent(last, false)));
+    }
+
+    @Test
+    public void incremental() {
+        JobDagIndex dagIndex = new JobDagIndex();
+        dagIndex.reload(Arrays.asList(job(1, null), job(2, "1"), job(3, "2,4")));
+        // 4不存在时不出现在上游中
+        assertEquals(Arrays.asList(2, 1), dagIndex.findStream(3, false));
+        dagIndex.put(job(4, null));
+        assertEquals(Collections.singletonList(3), dagIndex.findStream(4, true));
+        // 修改依赖后旧的边被删除
+        dagIndex.put(job(3, "4"));
+        assertEquals(Collections.singletonList(2), dagIndex.findStream(1, true));
+        dagIndex.remove(4);
+        assertTrue(dagIndex.findStream(3, false).isEmpty());
+        assertNull(dagIndex.getGraphNode(4));
+        assertEquals(Integer.valueOf(3), dagIndex.getGraphNode(3).getNodeName());
+    }
+}
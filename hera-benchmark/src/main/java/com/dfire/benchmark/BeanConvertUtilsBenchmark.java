@@ -0,0 +1,81 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.vo.HeraActionVo;
+import com.dfire.common.entity.vo.HeraJobHistoryVo;
+import com.dfire.common.util.BeanConvertUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调度过程中频繁使用的实体转换
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanConvertUtilsBenchmark {
+
+    private HeraAction action;
+
+    private HeraJobHistory history;
+
+    private HeraJobHistoryVo historyVo;
+
+    @Setup
+    public void setup() {
+        action = new HeraAction();
+        action.setId(Long.parseLong(BenchmarkData.actionId(1024)));
+        action.setJobId(1024);
+        action.setAuto(1);
+        action.setName("dw_order_daily");
+        action.setOwner("hera");
+        action.setRunType("hive");
+        action.setScheduleType(1);
+        action.setDependencies(BenchmarkData.actionId(1) + "," + BenchmarkData.actionId(2) + "," + BenchmarkData.actionId(3));
+        action.setJobDependencies("1,2,3");
+        action.setConfigs("{\"run.priority.level\":\"1\",\"roll.back.times\":\"3\",\"roll.back.wait.time\":\"10\"}");
+        action.setScript("select * from dw.t_order where pt = '${zdt.addDay(-1).format(\"yyyyMMdd\")}'");
+        action.setGmtCreate(new Date());
+        action.setGmtModified(new Date());
+
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            log.append("<b>CONSOLE#</b> INFO  : Stage-1 map = 100%,  reduce = 0%, Cumulative CPU 3.47 sec<br>");
+        }
+        history = HeraJobHistory.builder()
+                .id("1")
+                .actionId(String.valueOf(action.getId()))
+                .jobId(1024)
+                .triggerType(1)
+                .operator("hera")
+                .hostGroupId(1)
+                .properties("{\"hera.encode\":\"utf-8\"}")
+                .log(log.toString())
+                .build();
+        historyVo = BeanConvertUtils.convert(history);
+    }
+
+    @Benchmark
+    public HeraActionVo transformAction() {
+        return BeanConvertUtils.transform(action);
+    }
+
+    @Benchmark
+    public HeraJobHistoryVo convertHistory() {
+        return BeanConvertUtils.convert(history);
+    }
+
+    @Benchmark
+    public HeraJobHistory convertHistoryVo() {
+        return BeanConvertUtils.convert(historyVo);
+    }
+}
@@ -0,0 +1,22 @@
+package com.dfire.benchmark;
+
+/**
+ * 基准测试的公共数据
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+class BenchmarkData {
+
+    static final String ACTION_DATE = "201812140300";
+
+    /**
+     * 生成 yyyyMMddHHmm + 6位jobId 格式的版本号
+     *
+     * @param jobId 任务id
+     * @return 版本号
+     */
+    static String actionId(int jobId) {
+        return ACTION_DATE + String.format("%06d", jobId);
+    }
+}
@@ -0,0 +1,46 @@
+package com.dfire.benchmark;
+
+import com.dfire.core.util.CronParse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成版本时按天展开cron表达式
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CronParseBenchmark {
+
+    /**
+     * 每天一次、每小时一次、每5分钟一次
+     */
+    @Param({"0 0 3 * * ?", "0 30 * * * ?", "0 0/5 * * * ?"})
+    private String cron;
+
+    private final String cronDate = "2018-12-14";
+
+    @Benchmark
+    public List<String> parse() {
+        List<String> result = new ArrayList<>();
+        CronParse.Parser(cron, cronDate, result);
+        return result;
+    }
+
+    /**
+     * 不经过缓存，每次解析表达式并计算触发时间
+     */
+    @Benchmark
+    public List<String> expand() {
+        return CronParse.expand(cron, cronDate);
+    }
+}
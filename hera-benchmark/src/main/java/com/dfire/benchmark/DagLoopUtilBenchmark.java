@@ -0,0 +1,52 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.util.DagLoopUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 修改任务依赖时的环检测，每个任务随机依赖3个id更小的任务
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DagLoopUtilBenchmark {
+
+    private static final int PARENTS = 3;
+
+    @Param({"1000", "10000"})
+    private int jobs;
+
+    private int[][] edges;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(jobs);
+        edges = new int[jobs][];
+        for (int child = 1; child < jobs; child++) {
+            edges[child] = new int[Math.min(PARENTS, child)];
+            for (int j = 0; j < edges[child].length; j++) {
+                edges[child][j] = random.nextInt(child);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isLoop() {
+        DagLoopUtil dagLoopUtil = new DagLoopUtil(jobs);
+        for (int child = 1; child < jobs; child++) {
+            for (int parent : edges[child]) {
+                dagLoopUtil.addEdge(child, parent);
+            }
+        }
+        return dagLoopUtil.isLoop();
+    }
+}
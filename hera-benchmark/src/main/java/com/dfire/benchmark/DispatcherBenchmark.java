@@ -0,0 +1,61 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.enums.TriggerTypeEnum;
+import com.dfire.core.event.Dispatcher;
+import com.dfire.core.event.HeraJobSuccessEvent;
+import com.dfire.core.event.base.ApplicationEvent;
+import com.dfire.core.event.base.Events;
+import com.dfire.core.event.handler.JobHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatcher在N个handler下的分发耗时
+ * success: 手动触发的成功事件，按上游索引只路由到依赖它的handler
+ * broadcast: 没有路由规则的事件，需要遍历所有handler
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatcherBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int handlers;
+
+    private Dispatcher dispatcher;
+
+    private HeraJobSuccessEvent successEvent;
+
+    private ApplicationEvent broadcastEvent;
+
+    @Setup
+    public void setup() {
+        dispatcher = new Dispatcher();
+        for (int i = 1; i <= handlers; i++) {
+            JobHandler jobHandler = JobHandler.builder().actionId(BenchmarkData.actionId(i)).build();
+            dispatcher.addJobHandler(jobHandler);
+            // 每个版本依赖前一个版本
+            dispatcher.routeUpstream(jobHandler, i == 1 ? Collections.emptyList() : Collections.singletonList(BenchmarkData.actionId(i - 1)));
+        }
+        successEvent = new HeraJobSuccessEvent(BenchmarkData.actionId(handlers / 2), TriggerTypeEnum.MANUAL, "1");
+        broadcastEvent = new ApplicationEvent(Events.JobSucceed);
+    }
+
+    @Benchmark
+    public void success() {
+        dispatcher.dispatch(successEvent);
+    }
+
+    @Benchmark
+    public void broadcast() {
+        dispatcher.dispatch(broadcastEvent);
+    }
+}
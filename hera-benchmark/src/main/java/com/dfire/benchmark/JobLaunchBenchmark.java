@@ -0,0 +1,102 @@
+package com.dfire.benchmark;
+
+import com.dfire.core.job.ProcessJob;
+import com.dfire.core.util.CommandUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 短任务的启动耗时：写入脚本后执行到脚本结束
+ * chain: 原来的启动方式，依次创建dos2unix、chmod -R 777、sh三个进程
+ * fast: 快速启动，dos2unix和chmod在JVM内完成，只创建执行脚本的进程
+ * 压测机器上没有免密sudo，两种方式都去掉sudo -u，需要安装dos2unix
+ *
+ * @author xiaosuda
+ * @date 2018/12/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JobLaunchBenchmark {
+
+    private static final String SCRIPT = "echo start\r\ndate\r\necho end\r\n";
+
+    /**
+     * 工作目录中已有的文件数(上传的资源、历史脚本等)，影响chmod -R的耗时
+     */
+    @Param({"10", "200"})
+    private int files;
+
+    private File workDir;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("hera-launch").toFile();
+        for (int i = 0; i < files; i++) {
+            Files.write(new File(workDir, "resource-" + i + ".txt").toPath(), "resource".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] children = workDir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                child.delete();
+            }
+        }
+        workDir.delete();
+    }
+
+    @Benchmark
+    public int chain() throws Exception {
+        String shellFilePath = writeScript();
+        List<String> commands = new ArrayList<>();
+        commands.add("dos2unix " + shellFilePath);
+        commands.add(CommandUtils.changeFileAuthority(workDir.getAbsolutePath()));
+        commands.add("sh " + shellFilePath);
+        return run(commands);
+    }
+
+    @Benchmark
+    public int fast() throws Exception {
+        String shellFilePath = writeScript();
+        CommandUtils.dos2unix(new File(shellFilePath));
+        CommandUtils.changeFileAuthority(workDir);
+        List<String> commands = new ArrayList<>();
+        commands.add("sh " + shellFilePath);
+        return run(commands);
+    }
+
+    private String writeScript() throws IOException {
+        File file = new File(workDir, "launch.sh");
+        Files.write(file.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsolutePath();
+    }
+
+    private int run(List<String> commands) throws Exception {
+        int exitCode = 0;
+        for (String command : commands) {
+            Process process = new ProcessBuilder(ProcessJob.partitionCommandLine(command))
+                    .directory(workDir)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null")))
+                    .start();
+            exitCode = process.waitFor();
+            if (exitCode != 0) {
+                return exitCode;
+            }
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,50 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.vo.LogContent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * worker读取任务控制台输出时的日志写入，以及定时刷新时取出未持久化的部分
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogContentBenchmark {
+
+    private static final String[] LINES = {
+            "INFO  : Stage-1 map = 100%,  reduce = 0%, Cumulative CPU 3.47 sec",
+            "INFO  : MapReduce Total cumulative CPU time: 5 seconds 310 msec",
+            "Loading data to table dw.t_order partition (pt=20181213)",
+            "FAILED: SemanticException [Error 10001]: Line 1:14 Table not found 'tmp'",
+    };
+
+    /**
+     * 每次写入的行数，每flushLines行取一次未持久化的日志
+     */
+    @Param({"1000"})
+    private int lines;
+
+    @Param({"100"})
+    private int flushLines;
+
+    @Benchmark
+    public void appendConsole(Blackhole blackhole) {
+        LogContent logContent = LogContent.builder().content(new StringBuffer()).build();
+        for (int i = 0; i < lines; i++) {
+            logContent.appendConsole(LINES[i % LINES.length]);
+            if (i % flushLines == 0) {
+                blackhole.consume(logContent.pollUnflushed());
+            }
+        }
+        blackhole.consume(logContent.getContent());
+    }
+}
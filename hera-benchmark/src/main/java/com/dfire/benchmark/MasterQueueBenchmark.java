@@ -0,0 +1,109 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.entity.vo.HeraHostGroupVo;
+import com.dfire.common.entity.vo.HeraJobHistoryVo;
+import com.dfire.common.enums.TriggerTypeEnum;
+import com.dfire.core.message.HeartBeatInfo;
+import com.dfire.core.netty.master.Master;
+import com.dfire.core.netty.master.MasterContext;
+import com.dfire.core.netty.master.MasterWorkHolder;
+import com.dfire.core.queue.JobElement;
+import com.dfire.core.route.factory.StrategyWorkerEnum;
+import com.dfire.core.route.factory.StrategyWorkerFactory;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * master等待队列的扫描与重复任务检测
+ * scan: 所有worker都没有资源时，调度队列的取出与放回
+ * checkJobExists: 新任务进入队列前的重复检测，任务不在队列中也没有运行
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MasterQueueBenchmark {
+
+    private static final int HOST_GROUP_ID = 1;
+
+    @Param({"100", "1000", "5000"})
+    private int queueSize;
+
+    @Param({"10"})
+    private int workers;
+
+    private Master master;
+
+    private Method checkJobExists;
+
+    private HeraJobHistoryVo history;
+
+    @Setup
+    public void setup() throws Exception {
+        MasterContext masterContext = new MasterContext();
+        for (int i = 1; i <= queueSize; i++) {
+            masterContext.getScheduleQueue().offer(JobElement.builder()
+                    .jobId(BenchmarkData.actionId(i))
+                    .hostGroupId(HOST_GROUP_ID)
+                    .priorityLevel(i % 5)
+                    .build());
+        }
+        List<String> hosts = new ArrayList<>(workers);
+        Map<Channel, MasterWorkHolder> workMap = new HashMap<>(workers);
+        for (int i = 0; i < workers; i++) {
+            String host = "10.0.0." + i;
+            hosts.add(host);
+            MasterWorkHolder workHolder = new MasterWorkHolder(null, masterContext);
+            // 没有内存信息的worker不会被选中
+            workHolder.setHeartBeatInfo(HeartBeatInfo.builder().host(host).build());
+            for (int j = 0; j < queueSize / workers; j++) {
+                workHolder.getRunning().add(10000 + i * queueSize + j);
+            }
+            workMap.put(new EmbeddedChannel(new ChannelInboundHandlerAdapter()), workHolder);
+        }
+        masterContext.setWorkMap(workMap);
+        Map<Integer, HeraHostGroupVo> hostGroupCache = new HashMap<>(1);
+        hostGroupCache.put(HOST_GROUP_ID, HeraHostGroupVo.builder().id(String.valueOf(HOST_GROUP_ID)).hosts(hosts).build());
+        masterContext.setHostGroupCache(hostGroupCache);
+
+        master = new Master();
+        setField("masterContext", masterContext);
+        setField("chooseWorkerStrategy", StrategyWorkerFactory.getStrategyWorker(StrategyWorkerEnum.FIRST));
+        checkJobExists = Master.class.getDeclaredMethod("checkJobExists", HeraJobHistoryVo.class, boolean.class);
+        checkJobExists.setAccessible(true);
+        int jobId = 9999;
+        history = HeraJobHistoryVo.builder()
+                .actionId(BenchmarkData.actionId(jobId))
+                .jobId(jobId)
+                .triggerType(TriggerTypeEnum.SCHEDULE)
+                .build();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = Master.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(master, value);
+    }
+
+    @Benchmark
+    public boolean scan() {
+        return master.scan();
+    }
+
+    @Benchmark
+    public Object checkJobExists() throws Exception {
+        return checkJobExists.invoke(master, history, true);
+    }
+}
@@ -0,0 +1,75 @@
+package com.dfire.benchmark;
+
+import com.dfire.common.util.HeraTemplate;
+import com.dfire.common.util.HierarchyProperties;
+import com.dfire.common.util.RenderHierarchyProperties;
+import com.dfire.core.util.JobUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务配置与脚本的变量替换
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int variables;
+
+    private RenderHierarchyProperties properties;
+
+    private Map<String, String> allProperties;
+
+    private String script;
+
+    @Setup
+    public void setup() {
+        Map<String, String> parent = new HashMap<>(variables);
+        Map<String, String> local = new HashMap<>(variables);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < variables; i++) {
+            if (i % 2 == 0) {
+                parent.put("var" + i, "${zdt.addDay(-" + (i % 7) + ").format(\"yyyyMMdd\")}");
+            } else {
+                local.put("var" + i, "value_" + i);
+            }
+            sb.append("insert overwrite table t").append(i).append(" partition(pt='${var").append(i).append("}')\n")
+                    .append("select * from s").append(i).append(" where dt = '${zdt.addDay(-1).format(\"yyyyMMdd\")}';\n");
+        }
+        properties = new RenderHierarchyProperties(new HierarchyProperties(new HierarchyProperties(parent), local));
+        allProperties = properties.getAllProperties();
+        script = sb.toString();
+    }
+
+    @Benchmark
+    public Map<String, String> getAllProperties() {
+        return properties.getAllProperties();
+    }
+
+    @Benchmark
+    public String replace() {
+        return JobUtils.replace(allProperties, script);
+    }
+
+    @Benchmark
+    public String renderScript() {
+        return RenderHierarchyProperties.render(JobUtils.replace(allProperties, script), BenchmarkData.ACTION_DATE);
+    }
+
+    @Benchmark
+    public String renderTemplate() {
+        return HeraTemplate.compile(script).render(allProperties, new Date());
+    }
+}
@@ -6,8 +6,6 @@ package com.dfire.common.constants;
  */
 public class Constants {
 
-    public final static String HERA_GROUP = "heraGroup";
-
     public final static String GROUP_PREFIX = "group_";
 
     public final static String PRE_ENV = "pre";
@@ -49,6 +47,11 @@ public class Constants {
 
     public final static String CANCEL_JOB_MESSAGE = "任务手动取消";
 
+    /**
+     * worker资源不足拒绝执行任务时返回的错误信息，master收到后把任务重新放回等待队列
+     */
+    public final static String WORKER_BUSY_MESSAGE = "worker繁忙，拒绝执行";
+
     /**
      * jwt  过期时间 单位 天
      */
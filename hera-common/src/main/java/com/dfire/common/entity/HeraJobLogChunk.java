@@ -0,0 +1,31 @@
+package com.dfire.common.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @author xiaosuda
+ * @date 2018/12/10
+ * @desc 任务运行日志分片，运行中的日志按增量追加，logOffset为分片在完整日志中的起始位置
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeraJobLogChunk {
+
+    private Long id;
+
+    private String historyId;
+
+    private Integer logOffset;
+
+    private String content;
+
+    private Date gmtCreate;
+
+}
@@ -5,6 +5,7 @@ import com.dfire.common.mybatis.HeraInsertLangDriver;
 import com.dfire.common.mybatis.HeraListInLangDriver;
 import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
+import com.dfire.common.vo.LogTailVo;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
@@ -51,6 +52,16 @@ public interface HeraDebugHistoryMapper {
     @Update("update hera_debug_history set log = #{log}  where id = #{id}")
     int updateLog(HeraDebugHistory heraDebugHistory);
 
+    /**
+     * 查询offset之后的日志，offset超过log长度时从log末尾开始，返回结果中offset为log字段长度，都按字符(code point)计数
+     *
+     * @param id
+     * @param offset
+     * @return
+     */
+    @Select("select status, substring(ifnull(log,''), least(#{offset}, char_length(ifnull(log,''))) + 1) as log, char_length(ifnull(log,'')) as `offset` from hera_debug_history where id = #{id}")
+    LogTailVo selectLogTail(@Param("id") Integer id, @Param("offset") int offset);
+
     @Select("select * from hera_debug_history where id = #{id}")
     HeraDebugHistory findLogById(Integer id);
 }
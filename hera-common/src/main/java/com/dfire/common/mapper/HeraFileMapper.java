@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -58,9 +59,20 @@ public interface HeraFileMapper {
     int updateFileName(HeraFile heraFile);
 
 
-    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified from hera_file")
+    /**
+     * 查询表信息，stamp为数据库当前时间
+     *
+     * @return
+     */
+    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified, now() stamp from hera_file")
     Judge selectTableInfo();
 
+    @Select("select * from hera_file where gmt_modified >= #{lastModified}")
+    List<HeraFile> selectModifiedSince(@Param("lastModified") Date lastModified);
+
+    @Select("select id from hera_file")
+    List<Integer> selectAllIds();
+
     @Select("select * from hera_file where owner = #{owner} and name='个人文档'")
     HeraFile findDocByOwner(String owner);
 
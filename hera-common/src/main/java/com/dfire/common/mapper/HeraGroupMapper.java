@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -53,9 +54,20 @@ public interface HeraGroupMapper {
     @Select("select id,configs,parent from hera_group where id = #{id}")
     HeraGroup selectConfigById(Integer id);
 
-    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified from hera_group")
+    /**
+     * 查询表信息，stamp为数据库当前时间
+     *
+     * @return
+     */
+    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified, now() stamp from hera_group")
     Judge selectTableInfo();
 
+    @Select("select * from hera_group where gmt_modified >= #{lastModified}")
+    List<HeraGroup> selectModifiedSince(@Param("lastModified") Date lastModified);
+
+    @Select("select id from hera_group")
+    List<Integer> selectAllIds();
+
     @Update("update hera_group set parent = #{parent} where id = #{id}")
     Integer changeParent(@Param("id") Integer id, @Param("parent") Integer parent);
 }
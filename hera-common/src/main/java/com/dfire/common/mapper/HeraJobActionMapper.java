@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import com.dfire.common.mybatis.action.HeraActionBatchInsertDriver;
 import com.dfire.common.mybatis.action.HeraActionBatchUpdateDriver;
+import com.dfire.common.mybatis.action.HeraActionBatchUpsertDriver;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
@@ -29,6 +30,16 @@ public interface HeraJobActionMapper {
     int batchInsert(@Param("list") List<HeraAction> list);
 
 
+    /**
+     * 批量插入，已存在的版本只更新任务定义相关的字段
+     *
+     * @param list 版本集合
+     * @return 影响行数
+     */
+    @Insert("insert into hera_action (#{list})")
+    @Lang(HeraActionBatchUpsertDriver.class)
+    int batchUpsert(@Param("list") List<HeraAction> list);
+
     @Insert("update hera_action (#{list})")
     @Lang(HeraActionBatchUpdateDriver.class)
     int batchUpdate(@Param("list") List<HeraAction> list);
@@ -48,6 +59,10 @@ public interface HeraJobActionMapper {
     HeraAction findById(HeraAction heraAction);
 
 
+    @Select("select * from hera_action where id in (#{list})")
+    @Lang(HeraListInLangDriver.class)
+    List<HeraAction> findByIds(@Param("list") List<Long> list);
+
     @Select("select * from hera_action where job_id = #{jobId} order by id desc limit 1")
     HeraAction findLatestByJobId(String jobId);
 
@@ -60,6 +75,17 @@ public interface HeraJobActionMapper {
     @Update("update hera_action set status = #{status},ready_dependency=#{readyDependency} where id = #{id}")
     Integer updateStatusAndReadDependency(HeraAction heraAction);
 
+    /**
+     * 批量更新依赖就绪信息
+     *
+     * @param list 版本集合，只使用id和readyDependency
+     * @return 影响行数
+     */
+    @Update("<script>update hera_action set ready_dependency = case id " +
+            "<foreach collection=\"list\" item=\"item\"> when #{item.id,jdbcType=BIGINT} then #{item.readyDependency} </foreach> end " +
+            "where id in <foreach collection=\"list\" item=\"item\" separator=\",\" open=\"(\" close=\")\"> #{item.id,jdbcType=BIGINT} </foreach></script>")
+    int batchUpdateReadyDependency(@Param("list") List<HeraAction> list);
+
     @Select("select * from hera_action where id >= #{today}")
     List<HeraAction> selectTodayAction(String today);
 
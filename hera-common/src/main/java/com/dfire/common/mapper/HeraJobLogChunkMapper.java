@@ -0,0 +1,45 @@
+package com.dfire.common.mapper;
+
+import com.dfire.common.entity.HeraJobLogChunk;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * @author xiaosuda
+ * @date 2018/12/10
+ * @desc 任务运行日志分片dao
+ */
+public interface HeraJobLogChunkMapper {
+
+    /**
+     * 追加一个日志分片，同一位置重复写入时忽略
+     *
+     * @param chunk
+     * @return
+     */
+    @Insert("insert ignore into hera_action_log_chunk (history_id,log_offset,content) values (#{historyId},#{logOffset},#{content})")
+    int insert(HeraJobLogChunk chunk);
+
+    /**
+     * 按日志位置顺序查询分片
+     *
+     * @param historyId
+     * @return
+     */
+    @Select("select log_offset,content from hera_action_log_chunk where history_id = #{historyId} order by log_offset")
+    List<HeraJobLogChunk> findByHistoryId(@Param("historyId") String historyId);
+
+    /**
+     * 查询包含offset之后日志的分片
+     *
+     * @param historyId
+     * @param offset
+     * @return
+     */
+    @Select("select log_offset,content from hera_action_log_chunk where history_id = #{historyId} and log_offset + char_length(content) > #{offset} order by log_offset")
+    List<HeraJobLogChunk> findByHistoryIdAfter(@Param("historyId") String historyId, @Param("offset") int offset);
+
+    @Delete("delete from hera_action_log_chunk where history_id = #{historyId}")
+    int deleteByHistoryId(@Param("historyId") String historyId);
+}
@@ -8,6 +8,7 @@ import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -61,9 +62,20 @@ public interface HeraJobMapper {
     @Select("select `name`,id,dependencies,auto from hera_job")
     List<HeraJob> getAllJobRelations();
 
-    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified from hera_job")
+    /**
+     * 查询表信息，stamp为数据库当前时间
+     *
+     * @return
+     */
+    @Select("select count(*) count, max(id) maxId, max(gmt_modified) lastModified, now() stamp from hera_job")
     Judge selectTableInfo();
 
+    @Select("select * from hera_job where gmt_modified >= #{lastModified}")
+    List<HeraJob> selectModifiedSince(@Param("lastModified") Date lastModified);
+
+    @Select("select id from hera_job")
+    List<Integer> selectAllIds();
+
 
     @Update("update hera_job set group_id = #{parentId} where id = #{newId}")
     Integer changeParent(@Param("newId") Integer newId, @Param("parentId") Integer parentId);
@@ -0,0 +1,66 @@
+package com.dfire.common.mybatis.action;
+
+import com.dfire.common.entity.HeraAction;
+import com.google.common.base.CaseFormat;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 仅仅用于heraAction，批量插入，主键已存在时只更新由任务定义生成的字段
+ * 状态、依赖完成情况、运行历史等运行时字段保持数据库中的值，新值为null的字段也不覆盖
+ *
+ * @author xiaosuda
+ * @date 2018/12/15
+ */
+public class HeraActionBatchUpsertDriver extends XMLLanguageDriver implements LanguageDriver {
+
+    /**
+     * 版本生成时由任务定义决定的字段
+     */
+    public static final List<String> GENERATE_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "jobId", "auto", "configs", "cronExpression", "cycle", "dependencies", "jobDependencies",
+            "description", "groupId", "name", "offset", "owner", "postProcessors", "preProcessors",
+            "resources", "runType", "scheduleType", "script", "timezone", "hostGroupId"));
+
+    private final Pattern inPattern = Pattern.compile("\\(#\\{(\\w+)\\}\\)");
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+
+        Matcher matcher = inPattern.matcher(script);
+        if (matcher.find()) {
+            StringBuilder sb = new StringBuilder(" (");
+            StringBuilder tmp = new StringBuilder();
+            for (Field field : HeraAction.class.getDeclaredFields()) {
+                sb.append(toColumn(field.getName())).append(",");
+                tmp.append("#{item.").append(field.getName()).append("},");
+            }
+            sb.deleteCharAt(sb.lastIndexOf(","));
+            tmp.deleteCharAt(tmp.lastIndexOf(","));
+            sb.append(") values <foreach collection=\"$1\" index=\"index\" item=\"item\" separator=\",\"> (")
+                    .append(tmp).append(")</foreach> on duplicate key update ");
+            for (String field : GENERATE_FIELDS) {
+                String column = toColumn(field);
+                sb.append(column).append(" = ifnull(values(").append(column).append("), ").append(column).append("),");
+            }
+            sb.append("gmt_modified = values(gmt_modified)");
+
+            script = matcher.replaceAll(sb.toString());
+            script = "<script>" + script + "</script>";
+        }
+        return super.createSqlSource(configuration, script, parameterType);
+    }
+
+    private static String toColumn(String field) {
+        return CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, field);
+    }
+}
@@ -4,6 +4,7 @@ import com.dfire.common.entity.HeraDebugHistory;
 import com.dfire.common.entity.HeraJobHistory;
 import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.mybatis.HeraInsertLangDriver;
+import com.dfire.common.vo.LogTailVo;
 import com.dfire.common.mybatis.HeraSelectLangDriver;
 import com.dfire.common.mybatis.HeraUpdateLangDriver;
 import org.apache.ibatis.annotations.*;
@@ -35,4 +36,13 @@ public interface HeraDebugHistoryService {
 
 
     HeraDebugHistory findLogById(Integer id);
+
+    /**
+     * 查询offset之后新增的日志
+     *
+     * @param id     运行记录id
+     * @param offset 已经获取的日志长度
+     * @return
+     */
+    LogTailVo findLogTail(Integer id, int offset);
 }
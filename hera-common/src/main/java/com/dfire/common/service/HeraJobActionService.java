@@ -59,6 +59,14 @@ public interface HeraJobActionService {
 
     Integer updateStatusAndReadDependency(HeraAction heraAction);
 
+    /**
+     * 批量更新依赖就绪信息
+     *
+     * @param list 版本集合，只使用id和readyDependency
+     * @return 影响行数
+     */
+    int batchUpdateReadyDependency(List<HeraAction> list);
+
 
     List<HeraAction> getTodayAction();
 
@@ -2,6 +2,7 @@ package com.dfire.common.service;
 
 import com.dfire.common.entity.HeraJobHistory;
 import com.dfire.common.entity.vo.PageHelper;
+import com.dfire.common.vo.LogTailVo;
 
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,18 @@ public interface HeraJobHistoryService {
 
     int updateHeraJobHistoryLog(HeraJobHistory heraJobHistory);
 
+    /**
+     * 追加运行中任务的增量日志，不改写log字段
+     * 增量日志的位置以worker开始执行时读到的log字段为起点，任务发送给worker之后只有worker可以改写log字段，
+     * master在这之后只能更新状态等字段(log为null)，否则拼接时日志会错位
+     *
+     * @param historyId 运行记录id
+     * @param offset    增量日志在完整日志中的起始位置
+     * @param log       增量日志
+     * @return
+     */
+    int appendHeraJobHistoryLog(String historyId, int offset, String log);
+
     int insert(HeraJobHistory heraJobHistory);
 
     int delete(String id);
@@ -42,6 +55,15 @@ public interface HeraJobHistoryService {
 
     HeraJobHistory findLogById(Integer id);
 
+    /**
+     * 查询offset之后新增的日志
+     *
+     * @param id     运行记录id
+     * @param offset 已经获取的日志长度
+     * @return
+     */
+    LogTailVo findLogTail(Integer id, int offset);
+
     Map<String, Object> findLogByPage(PageHelper pageHelper);
 
     List<HeraJobHistory> findTodayJobHistory();
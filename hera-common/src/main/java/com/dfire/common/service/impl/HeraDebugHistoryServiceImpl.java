@@ -5,6 +5,7 @@ import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.mapper.HeraDebugHistoryMapper;
 import com.dfire.common.service.HeraDebugHistoryService;
 import com.dfire.common.util.BeanConvertUtils;
+import com.dfire.common.vo.LogTailVo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -67,5 +68,20 @@ public class HeraDebugHistoryServiceImpl implements HeraDebugHistoryService {
         return heraDebugHistoryMapper.findLogById(id);
     }
 
+    @Override
+    public LogTailVo findLogTail(Integer id, int offset) {
+        LogTailVo tail = heraDebugHistoryMapper.selectLogTail(id, offset);
+        if (tail == null) {
+            return null;
+        }
+        // 下一次的offset直接使用数据库的char_length，与substring使用相同的计数单位
+        if (offset > tail.getOffset()) {
+            tail.setLog("");
+            tail.setOffset(offset);
+        }
+        tail.setFinished(LogTailVo.isFinished(tail.getStatus()));
+        return tail;
+    }
+
 
 }
@@ -1,8 +1,6 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraFile;
-import com.dfire.common.entity.Judge;
-import com.dfire.logs.HeraLog;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -16,29 +14,11 @@ import java.util.stream.Collectors;
 public class HeraFileMemoryServiceImpl extends HeraFileServiceImpl {
 
 
-    private volatile Judge judge;
-
-    private Map<Integer, HeraFile> memoryJob;
+    private final MemoryCatalog<HeraFile> catalog = new MemoryCatalog<>(TABLE, () -> heraFileMapper.selectTableInfo(), () -> heraFileMapper.getAll(),
+            lastModified -> heraFileMapper.selectModifiedSince(lastModified), () -> heraFileMapper.selectAllIds(), HeraFile::getId);
 
     private Map<Integer, HeraFile> getMemoryJob() {
-        Judge newJudge = heraFileMapper.selectTableInfo();
-        if (newJudge.getMaxId() == null || newJudge.getLastModified() == null || newJudge.getCount() == null) {
-            return new HashMap<>(0);
-        }
-        if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-            synchronized (this) {
-                if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-                    HeraLog.info("刷新hera_file库");
-                    judge = newJudge;
-                    List<HeraFile> all = heraFileMapper.getAll();
-                    Map<Integer, HeraFile> jobMap = new HashMap<>(all.size());
-                    all.forEach(file -> jobMap.put(file.getId(), file));
-                    memoryJob = jobMap;
-                }
-            }
-        }
-        judge.setStamp(new Date());
-        return memoryJob;
+        return catalog.get();
     }
 
 
@@ -19,23 +19,30 @@ import java.util.stream.Collectors;
 @Service("heraFileService")
 public class HeraFileServiceImpl implements HeraFileService {
 
+    protected static final String TABLE = "hera_file";
+
     @Autowired
     protected HeraFileMapper heraFileMapper;
 
     @Override
     public Integer insert(HeraFile heraFile) {
         heraFileMapper.insert(heraFile);
+        MemoryCatalog.invalidate(TABLE);
         return heraFile.getId();
     }
 
     @Override
     public int delete(Integer id) {
-        return heraFileMapper.delete(id);
+        int res = heraFileMapper.delete(id);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public int update(HeraFile heraFile) {
-        return heraFileMapper.update(heraFile);
+        int res = heraFileMapper.update(heraFile);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
@@ -91,12 +98,16 @@ public class HeraFileServiceImpl implements HeraFileService {
 
     @Override
     public int updateContent(HeraFile heraFile) {
-        return heraFileMapper.updateContent(heraFile);
+        int res = heraFileMapper.updateContent(heraFile);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public int updateFileName(HeraFile heraFile) {
-        return heraFileMapper.updateFileName(heraFile);
+        int res = heraFileMapper.updateFileName(heraFile);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
@@ -107,6 +118,7 @@ public class HeraFileServiceImpl implements HeraFileService {
     @Override
     public boolean updateParentById(Integer id, Integer parent) {
         Integer update = heraFileMapper.updateParentById(id, parent);
+        MemoryCatalog.invalidate(TABLE);
         return update != null && update > 0;
     }
 
@@ -1,8 +1,6 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraGroup;
-import com.dfire.common.entity.Judge;
-import com.dfire.logs.HeraLog;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -17,31 +15,11 @@ import java.util.stream.Collectors;
 @Service("heraGroupMemoryService")
 public class HeraGroupMemoryServiceImpl extends HeraGroupServiceImpl {
 
-    private volatile Judge judge;
-
-    private final Object lock = new Object();
-
-    private Map<Integer, HeraGroup> memoryJob;
+    private final MemoryCatalog<HeraGroup> catalog = new MemoryCatalog<>(TABLE, () -> heraGroupMapper.selectTableInfo(), () -> heraGroupMapper.getAll(),
+            lastModified -> heraGroupMapper.selectModifiedSince(lastModified), () -> heraGroupMapper.selectAllIds(), HeraGroup::getId);
 
     private Map<Integer, HeraGroup> getMemoryJob() {
-        Judge newJudge = heraGroupMapper.selectTableInfo();
-        if (newJudge.getMaxId() == null || newJudge.getLastModified() == null || newJudge.getCount() == null) {
-            return new HashMap<>(0);
-        }
-        if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-            synchronized (lock) {
-                if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-                    HeraLog.info("刷新hera_group库");
-                    judge = newJudge;
-                    List<HeraGroup> all = heraGroupMapper.getAll();
-                    Map<Integer, HeraGroup> jobMap = new HashMap<>(all.size());
-                    all.forEach(group -> jobMap.put(group.getId(), group));
-                    memoryJob = jobMap;
-                }
-            }
-        }
-        judge.setStamp(new Date());
-        return memoryJob;
+        return catalog.get();
     }
 
     @Override
@@ -24,6 +24,8 @@ import java.util.List;
 @Service("heraGroupService")
 public class HeraGroupServiceImpl implements HeraGroupService {
 
+    protected static final String TABLE = "hera_group";
+
     @Autowired
     protected HeraGroupMapper heraGroupMapper;
 
@@ -64,17 +66,23 @@ public class HeraGroupServiceImpl implements HeraGroupService {
 
     @Override
     public int insert(HeraGroup heraFile) {
-        return heraGroupMapper.insert(heraFile);
+        int res = heraGroupMapper.insert(heraFile);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public int delete(int id) {
-        return heraGroupMapper.delete(id);
+        int res = heraGroupMapper.delete(id);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public int update(HeraGroup heraFile) {
-        return heraGroupMapper.update(heraFile);
+        int res = heraGroupMapper.update(heraFile);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
@@ -111,6 +119,7 @@ public class HeraGroupServiceImpl implements HeraGroupService {
     public boolean changeParent(Integer id, Integer parent) {
 
         Integer update = heraGroupMapper.changeParent(id, parent);
+        MemoryCatalog.invalidate(TABLE);
         return update != null && update > 0;
     }
 
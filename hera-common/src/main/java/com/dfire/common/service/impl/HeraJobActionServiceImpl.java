@@ -6,6 +6,7 @@ import com.dfire.common.entity.model.TablePageForm;
 import com.dfire.common.entity.vo.HeraActionVo;
 import com.dfire.common.kv.Tuple;
 import com.dfire.common.mapper.HeraJobActionMapper;
+import com.dfire.common.mybatis.action.HeraActionBatchUpsertDriver;
 import com.dfire.common.service.HeraJobActionService;
 import com.dfire.common.service.HeraJobHistoryService;
 import com.dfire.common.service.HeraJobService;
@@ -18,7 +19,9 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Field;
 import java.util.*;
 
 /**
@@ -29,6 +32,13 @@ import java.util.*;
 @Service("heraJobActionService")
 public class HeraJobActionServiceImpl implements HeraJobActionService {
 
+    private static final Field[] GENERATE_FIELDS = HeraActionBatchUpsertDriver.GENERATE_FIELDS.stream()
+            .map(name -> {
+                Field field = ReflectionUtils.findField(HeraAction.class, name);
+                ReflectionUtils.makeAccessible(field);
+                return field;
+            }).toArray(Field[]::new);
+
     @Autowired
     private HeraJobActionMapper heraJobActionMapper;
 
@@ -43,23 +53,71 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
     @Override
     public List<HeraAction> batchInsert(List<HeraAction> heraActionList, Long nowAction) {
         ScheduleLog.info("batchInsert-> batch size is :{}", heraActionList.size());
-        List<HeraAction> insertList = new ArrayList<>();
+        if (heraActionList.isEmpty()) {
+            return heraActionList;
+        }
+        List<Long> ids = new ArrayList<>(heraActionList.size());
+        heraActionList.forEach(action -> ids.add(action.getId()));
+        Map<Long, HeraAction> existMap = new HashMap<>(heraActionList.size());
+        heraJobActionMapper.findByIds(ids).forEach(action -> existMap.put(action.getId(), action));
+        //只写入新增的和任务定义发生变化的版本
+        //已存在的版本只更新任务定义相关的字段，不会覆盖其它地方同时修改的状态等字段
+        List<HeraAction> upsertList = new ArrayList<>();
         for (HeraAction heraAction : heraActionList) {
-            //更新时单条更新
-            //原因：批量更新时，在极端情况下，数据会有批量数据处理时间的buff
-            //     此时如果有其它地方修改了某条数据 会数据库中的数据被批量更新的覆盖
-            if (isNeedUpdateAction(heraAction, nowAction)) {
-                update(heraAction);
-            } else {
-                insertList.add(heraAction);
+            HeraAction exist = existMap.get(heraAction.getId());
+            if (exist == null) {
+                markOverdue(heraAction, nowAction);
+                upsertList.add(heraAction);
+            } else if (mergeExist(heraAction, exist)) {
+                upsertList.add(heraAction);
             }
         }
-        if (insertList.size() != 0) {
-            heraJobActionMapper.batchInsert(insertList);
+        ScheduleLog.info("batchInsert-> exist size is :{}, upsert size is :{}", existMap.size(), upsertList.size());
+        if (upsertList.size() != 0) {
+            heraJobActionMapper.batchUpsert(upsertList);
         }
         return heraActionList;
     }
 
+    /**
+     * 用数据库中已存在的版本补全运行时字段
+     *
+     * @param heraAction 新生成的版本
+     * @param exist      数据库中的版本
+     * @return 任务定义相关的字段是否发生变化
+     */
+    static boolean mergeExist(HeraAction heraAction, HeraAction exist) {
+        //运行中的任务保持原样
+        if (Constants.STATUS_RUNNING.equals(exist.getStatus())) {
+            BeanUtils.copyProperties(exist, heraAction);
+            return false;
+        }
+        boolean changed = false;
+        try {
+            for (Field field : GENERATE_FIELDS) {
+                Object value = field.get(heraAction);
+                if (value != null && !value.equals(field.get(exist))) {
+                    changed = true;
+                    break;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            changed = true;
+        }
+        heraAction.setStatus(exist.getStatus());
+        heraAction.setHistoryId(exist.getHistoryId());
+        heraAction.setReadyDependency(exist.getReadyDependency());
+        heraAction.setGmtCreate(exist.getGmtCreate());
+        return changed;
+    }
+
+    private static void markOverdue(HeraAction heraAction, Long nowAction) {
+        if (heraAction.getId() < nowAction) {
+            heraAction.setStatus(Constants.STATUS_FAILED);
+            heraAction.setLastResult("生成action时，任务过时，直接设置为失败");
+        }
+    }
+
     /**
      * 判断是更新该是修改
      *
@@ -81,10 +139,7 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
             }
             return true;
         } else {
-            if (heraAction.getId() < nowAction) {
-                heraAction.setStatus(Constants.STATUS_FAILED);
-                heraAction.setLastResult("生成action时，任务过时，直接设置为失败");
-            }
+            markOverdue(heraAction, nowAction);
         }
         return false;
 
@@ -178,6 +233,14 @@ public class HeraJobActionServiceImpl implements HeraJobActionService {
         return heraJobActionMapper.updateStatusAndReadDependency(heraAction);
     }
 
+    @Override
+    public int batchUpdateReadyDependency(List<HeraAction> list) {
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        return heraJobActionMapper.batchUpdateReadyDependency(list);
+    }
+
     @Override
     public List<HeraAction> getTodayAction() {
         return heraJobActionMapper.selectTodayAction(ActionUtil.getInitActionVersion());
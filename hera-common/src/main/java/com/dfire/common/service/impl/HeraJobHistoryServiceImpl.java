@@ -1,9 +1,13 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraJobHistory;
+import com.dfire.common.entity.HeraJobLogChunk;
 import com.dfire.common.entity.vo.PageHelper;
 import com.dfire.common.mapper.HeraJobHistoryMapper;
+import com.dfire.common.mapper.HeraJobLogChunkMapper;
 import com.dfire.common.service.HeraJobHistoryService;
+import com.dfire.common.vo.LogContent;
+import com.dfire.common.vo.LogTailVo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,11 +24,23 @@ import java.util.Map;
 public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
     @Autowired
     HeraJobHistoryMapper heraJobHistoryMapper;
-
+    @Autowired
+    HeraJobLogChunkMapper heraJobLogChunkMapper;
 
     @Override
     public int updateHeraJobHistoryLog(HeraJobHistory heraJobHistory) {
-        return heraJobHistoryMapper.updateHeraJobHistoryLog(heraJobHistory);
+        int res = heraJobHistoryMapper.updateHeraJobHistoryLog(heraJobHistory);
+        clearLogChunk(heraJobHistory);
+        return res;
+    }
+
+    @Override
+    public int appendHeraJobHistoryLog(String historyId, int offset, String log) {
+        return heraJobLogChunkMapper.insert(HeraJobLogChunk.builder()
+                .historyId(historyId)
+                .logOffset(offset)
+                .content(log)
+                .build());
     }
 
     @Override
@@ -39,12 +55,15 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
 
     @Override
     public int delete(String id) {
+        heraJobLogChunkMapper.deleteByHistoryId(id);
         return heraJobHistoryMapper.delete(id);
     }
 
     @Override
     public int update(HeraJobHistory heraJobHistory) {
-        return heraJobHistoryMapper.update(heraJobHistory);
+        int res = heraJobHistoryMapper.update(heraJobHistory);
+        clearLogChunk(heraJobHistory);
+        return res;
     }
 
     @Override
@@ -64,7 +83,9 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
 
     @Override
     public Integer updateHeraJobHistoryLogAndStatus(HeraJobHistory heraJobHistory) {
-        return heraJobHistoryMapper.updateHeraJobHistoryLogAndStatus(heraJobHistory);
+        Integer res = heraJobHistoryMapper.updateHeraJobHistoryLogAndStatus(heraJobHistory);
+        clearLogChunk(heraJobHistory);
+        return res;
     }
 
     @Override
@@ -74,7 +95,27 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
 
     @Override
     public HeraJobHistory findLogById(Integer id) {
-        return heraJobHistoryMapper.selectLogById(id);
+        HeraJobHistory history = heraJobHistoryMapper.selectLogById(id);
+        if (history != null) {
+            history.setLog(LogContent.stitch(history.getLog(), heraJobLogChunkMapper.findByHistoryId(String.valueOf(id))));
+        }
+        return history;
+    }
+
+    @Override
+    public LogTailVo findLogTail(Integer id, int offset) {
+        LogTailVo tail = heraJobHistoryMapper.selectLogTail(id, offset);
+        if (tail == null) {
+            return null;
+        }
+        // selectLogTail返回的offset为log字段的char_length，超出部分在运行中的日志分片里，位置都按字符(code point)计数
+        int start = Math.min(offset, tail.getOffset());
+        String log = LogContent.stitch(start, tail.getLog(), heraJobLogChunkMapper.findByHistoryIdAfter(String.valueOf(id), start));
+        int end = start + log.codePointCount(0, log.length());
+        tail.setLog(LogContent.skip(log, offset - start));
+        tail.setOffset(Math.max(offset, end));
+        tail.setFinished(LogTailVo.isFinished(tail.getStatus()));
+        return tail;
     }
 
     @Override
@@ -91,4 +132,16 @@ public class HeraJobHistoryServiceImpl implements HeraJobHistoryService {
     public List<HeraJobHistory> findTodayJobHistory() {
         return heraJobHistoryMapper.findTodayJobHistory();
     }
+
+    /**
+     * 任务结束(成功或失败)时worker写入的是完整日志，运行期间追加的分片已经被覆盖，直接删除
+     * 运行中master更新状态时写入的log字段不包含分片，此时删除会使worker之后的分片与log字段之间出现缺口
+     *
+     * @param heraJobHistory
+     */
+    private void clearLogChunk(HeraJobHistory heraJobHistory) {
+        if (heraJobHistory.getLog() != null && heraJobHistory.getId() != null && LogTailVo.isFinished(heraJobHistory.getStatus())) {
+            heraJobLogChunkMapper.deleteByHistoryId(heraJobHistory.getId());
+        }
+    }
 }
@@ -1,8 +1,7 @@
 package com.dfire.common.service.impl;
 
 import com.dfire.common.entity.HeraJob;
-import com.dfire.common.entity.Judge;
-import com.dfire.logs.HeraLog;
+import com.dfire.graph.JobDagIndex;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -16,30 +15,29 @@ import java.util.*;
 @Service("heraJobMemoryService")
 public class HeraJobMemoryServiceImpl extends HeraJobServiceImpl {
 
-    private volatile Judge judge;
+    private final JobDagIndex dagIndex = new JobDagIndex();
 
-    private Map<Integer, HeraJob> memoryJob;
+    private final MemoryCatalog<HeraJob> catalog = new MemoryCatalog<>(TABLE, () -> heraJobMapper.selectTableInfo(), () -> heraJobMapper.getAll(),
+            lastModified -> heraJobMapper.selectModifiedSince(lastModified), () -> heraJobMapper.selectAllIds(), HeraJob::getId)
+            .listen(new MemoryCatalog.Listener<HeraJob>() {
+                @Override
+                public void reload(Collection<HeraJob> all) {
+                    dagIndex.reload(all);
+                }
 
-    private Map<Integer, HeraJob> getMemoryJob() {
-        Judge newJudge = heraJobMapper.selectTableInfo();
+                @Override
+                public void upsert(Collection<HeraJob> modified) {
+                    modified.forEach(dagIndex::put);
+                }
 
-        if (newJudge.getMaxId() == null || newJudge.getLastModified() == null || newJudge.getCount() == null) {
-            return new HashMap<>(0);
-        }
-        if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-            synchronized (this) {
-                if (judge == null || !newJudge.getCount().equals(judge.getCount()) || !newJudge.getLastModified().equals(judge.getLastModified()) || !newJudge.getMaxId().equals(judge.getMaxId())) {
-                    HeraLog.info("刷新hera_job库");
-                    judge = newJudge;
-                    List<HeraJob> all = heraJobMapper.getAll();
-                    Map<Integer, HeraJob> jobMap = new HashMap<>(all.size());
-                    all.forEach(job -> jobMap.put(job.getId(), job));
-                    memoryJob = jobMap;
+                @Override
+                public void remove(Collection<Integer> ids) {
+                    ids.forEach(dagIndex::remove);
                 }
-            }
-        }
-        judge.setStamp(new Date());
-        return memoryJob;
+            });
+
+    private Map<Integer, HeraJob> getMemoryJob() {
+        return catalog.get();
     }
 
 
@@ -57,6 +55,15 @@ public class HeraJobMemoryServiceImpl extends HeraJobServiceImpl {
         return res;
     }
 
+    /**
+     * 依赖关系索引随缓存增量更新，不需要每次重建
+     */
+    @Override
+    protected JobDagIndex getDagIndex() {
+        getMemoryJob();
+        return dagIndex;
+    }
+
     @Override
     public List<HeraJob> getAllJobDependencies() {
         return this.getAll();
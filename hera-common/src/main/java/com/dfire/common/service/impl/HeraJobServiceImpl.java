@@ -11,9 +11,9 @@ import com.dfire.common.service.HeraGroupService;
 import com.dfire.common.service.HeraJobHistoryService;
 import com.dfire.common.service.HeraJobService;
 import com.dfire.common.util.DagLoopUtil;
-import com.dfire.graph.DirectionGraph;
 import com.dfire.graph.Edge;
 import com.dfire.graph.GraphNode;
+import com.dfire.graph.JobDagIndex;
 import com.dfire.graph.JobRelation;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +31,8 @@ import java.util.stream.Collectors;
 @Service("heraJobService")
 public class HeraJobServiceImpl implements HeraJobService {
 
+    protected static final String TABLE = "hera_job";
+
     @Autowired
     protected HeraJobMapper heraJobMapper;
     @Autowired
@@ -45,17 +47,23 @@ public class HeraJobServiceImpl implements HeraJobService {
         heraJob.setGmtCreate(date);
         heraJob.setGmtModified(date);
         heraJob.setAuto(0);
-        return heraJobMapper.insert(heraJob);
+        int res = heraJobMapper.insert(heraJob);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public int delete(int id) {
-        return heraJobMapper.delete(id);
+        int res = heraJobMapper.delete(id);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
     public Integer update(HeraJob heraJob) {
-        return heraJobMapper.update(heraJob);
+        Integer res = heraJobMapper.update(heraJob);
+        MemoryCatalog.invalidate(TABLE);
+        return res;
     }
 
     @Override
@@ -152,6 +160,7 @@ public class HeraJobServiceImpl implements HeraJobService {
     @Override
     public boolean changeSwitch(Integer id, Integer status) {
         Integer res = heraJobMapper.updateSwitch(id, status);
+        MemoryCatalog.invalidate(TABLE);
         return res != null && res > 0;
     }
 
@@ -208,7 +217,7 @@ public class HeraJobServiceImpl implements HeraJobService {
             remark = (String) graphNode1.getRemark();
         }
         GraphNode<Integer> graphNode = new GraphNode<>(nodeJob.getAuto(), nodeJob.getId(), "任务ID：" + jobId + "\n任务名称:" + nodeJob.getName() + remark);
-        return buildCurrJobGraph(historyMap, graphNode, getDirectionGraph(), type);
+        return buildCurrJobGraph(historyMap, graphNode, getDagIndex(), type);
     }
 
     @Override
@@ -268,6 +277,7 @@ public class HeraJobServiceImpl implements HeraJobService {
     @Override
     public boolean changeParent(Integer newId, Integer parentId) {
         Integer update = heraJobMapper.changeParent(newId,parentId);
+        MemoryCatalog.invalidate(TABLE);
         return update != null && update > 0;
     }
 
@@ -305,8 +315,15 @@ public class HeraJobServiceImpl implements HeraJobService {
         return map;
     }
 
-    private DirectionGraph<Integer> getDirectionGraph() {
-        return this.buildJobGraph(this.getJobRelations());
+    /**
+     * 根据当前的任务依赖关系建立索引，缓存实现中索引随任务修改增量维护
+     *
+     * @return JobDagIndex
+     */
+    protected JobDagIndex getDagIndex() {
+        JobDagIndex dagIndex = new JobDagIndex();
+        dagIndex.reload(this.getAllJobDependencies());
+        return dagIndex;
     }
 
 
@@ -319,39 +336,11 @@ public class HeraJobServiceImpl implements HeraJobService {
      */
 
     private List<HeraJob> getStreamTask(Integer jobId, boolean down) {
-        GraphNode<Integer> head = new GraphNode<>();
-        head.setNodeName(jobId);
-        DirectionGraph<Integer> graph = this.getDirectionGraph();
-        Integer headIndex = graph.getNodeIndex(head);
-        Queue<Integer> nodeQueue = new LinkedList<>();
-        if (headIndex != null) {
-            nodeQueue.add(headIndex);
-        }
-        ArrayList<Integer> graphNodes;
-        Map<Integer, GraphNode<Integer>> indexMap = graph.getIndexMap();
-        List<Integer> jobList = new ArrayList<>();
-        while (!nodeQueue.isEmpty()) {
-            headIndex = nodeQueue.remove();
-            if (down) {
-                graphNodes = graph.getTarEdge()[headIndex];
-            } else {
-                graphNodes = graph.getSrcEdge()[headIndex];
-            }
-            if (graphNodes == null || graphNodes.size() == 0) {
-                continue;
-            }
-
-            for (Integer graphNode : graphNodes) {
-                nodeQueue.add(graphNode);
-                jobList.add(indexMap.get(graphNode).getNodeName());
-            }
-        }
-
-        List<HeraJob> res = new ArrayList<>();
-        for (Integer id : jobList) {
-            res.add(this.findById(id));
+        List<Integer> jobList = getDagIndex().findStream(jobId, down);
+        if (jobList.isEmpty()) {
+            return new ArrayList<>(0);
         }
-        return res;
+        return this.findByIds(jobList);
     }
 
     /**
@@ -360,43 +349,35 @@ public class HeraJobServiceImpl implements HeraJobService {
      * @param graph      所有任务的关系图
      * @param type       展示类型  0:任务进度分析   1：影响分析
      */
-    private Map<String, Object> buildCurrJobGraph(Map<String, GraphNode> historyMap, GraphNode<Integer> node, DirectionGraph<Integer> graph, Integer type) {
+    private Map<String, Object> buildCurrJobGraph(Map<String, GraphNode> historyMap, GraphNode<Integer> node, JobDagIndex dagIndex, Integer type) {
         String start = "start_node";
         Map<String, Object> res = new HashMap<>(2);
         List<Edge> edgeList = new ArrayList<>();
         Queue<GraphNode<Integer>> nodeQueue = new LinkedList<>();
         GraphNode headNode = new GraphNode<>(0, start);
         res.put("headNode", headNode);
-        nodeQueue.add(node);
         edgeList.add(new Edge(headNode, node));
-        ArrayList<Integer> graphNodes;
-        Map<Integer, GraphNode<Integer>> indexMap = graph.getIndexMap();
-        GraphNode graphNode;
-        Integer index;
+        if (dagIndex.contains(node.getNodeName())) {
+            nodeQueue.add(node);
+        }
+        Set<Integer> visited = new HashSet<>();
+        visited.add(node.getNodeName());
+        GraphNode<Integer> graphNode;
         while (!nodeQueue.isEmpty()) {
             node = nodeQueue.remove();
-            index = graph.getNodeIndex(node);
-            if (index == null) {
-                break;
-            }
-            if (type == 0) {
-                graphNodes = graph.getSrcEdge()[index];
-            } else {
-                graphNodes = graph.getTarEdge()[index];
-            }
-            if (graphNodes == null) {
-                continue;
-            }
-            for (Integer integer : graphNodes) {
-                graphNode = indexMap.get(integer);
-                GraphNode graphNode1 = historyMap.get(graphNode.getNodeName() + "");
+            for (Integer id : dagIndex.getAdjacent(node.getNodeName(), type != 0)) {
+                graphNode = dagIndex.getGraphNode(id);
+                GraphNode graphNode1 = historyMap.get(id + "");
                 if (graphNode1 == null) {
                     graphNode1 = new GraphNode<>(graphNode.getAuto(), graphNode.getNodeName(), "" + graphNode.getRemark());
                 } else {
                     graphNode1 = new GraphNode<>(graphNode.getAuto(), graphNode.getNodeName(), "" + graphNode.getRemark() + graphNode1.getRemark());
                 }
                 edgeList.add(new Edge(node, graphNode1));
-                nodeQueue.add(graphNode1);
+                //菱形依赖时每个任务只展开一次
+                if (visited.add(id)) {
+                    nodeQueue.add(graphNode1);
+                }
             }
         }
         res.put("edges", edgeList);
@@ -404,24 +385,4 @@ public class HeraJobServiceImpl implements HeraJobService {
     }
 
 
-    /**
-     * 定时调用的任务图
-     *
-     * @param jobRelations 任务之间的关系
-     * @return DirectionGraph
-     */
-
-    public DirectionGraph<Integer> buildJobGraph(List<JobRelation> jobRelations) {
-        DirectionGraph<Integer> directionGraph = new DirectionGraph<>();
-        for (JobRelation jobRelation : jobRelations) {
-            GraphNode<Integer> graphNodeBegin = new GraphNode<>(jobRelation.getAuto(), jobRelation.getId(), "任务ID：" + jobRelation.getId() + "\n任务名称：" + jobRelation.getName() + "\n");
-            GraphNode<Integer> graphNodeEnd = new GraphNode<>(jobRelation.getPAuto(), jobRelation.getPid(), "任务ID：" + jobRelation.getPid() + "\n任务名称：" + jobRelation.getPname() + "\n");
-            directionGraph.addNode(graphNodeBegin);
-            directionGraph.addNode(graphNodeEnd);
-            directionGraph.addEdge(graphNodeBegin, graphNodeEnd);
-        }
-        return directionGraph;
-    }
-
-
 }
@@ -0,0 +1,171 @@
+package com.dfire.common.service.impl;
+
+import com.dfire.common.entity.Judge;
+import com.dfire.logs.HeraLog;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 内存表缓存，读取时不访问数据库
+ * 本进程内的写操作通过invalidate通知刷新，其它机器的修改按CHECK_INTERVAL定期检查表信息，
+ * 只重新查询gmt_modified发生变化的记录，记录数减少时再对比id删除已删除的记录
+ *
+ * @author xiaosuda
+ * @date 2018/12/11
+ */
+class MemoryCatalog<T> {
+
+    /**
+     * 两次检查表信息的最小间隔
+     */
+    private static final long CHECK_INTERVAL = 1000L;
+
+    private static final Map<String, List<MemoryCatalog<?>>> CATALOGS = new ConcurrentHashMap<>();
+
+    private final String table;
+
+    private final Supplier<Judge> tableInfo;
+
+    private final Supplier<List<T>> loadAll;
+
+    private final Function<Date, List<T>> loadModified;
+
+    private final Supplier<List<Integer>> loadIds;
+
+    private final Function<T, Integer> idFunction;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Map<Integer, T> memory;
+
+    private volatile Judge judge;
+
+    private volatile boolean invalid = true;
+
+    private volatile long nextCheck;
+
+    private Listener<T> listener;
+
+    MemoryCatalog(String table, Supplier<Judge> tableInfo, Supplier<List<T>> loadAll, Function<Date, List<T>> loadModified,
+                  Supplier<List<Integer>> loadIds, Function<T, Integer> idFunction) {
+        this.table = table;
+        this.tableInfo = tableInfo;
+        this.loadAll = loadAll;
+        this.loadModified = loadModified;
+        this.loadIds = loadIds;
+        this.idFunction = idFunction;
+        CATALOGS.computeIfAbsent(table, key -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    /**
+     * 设置缓存变化的监听，在刷新的线程中同步调用
+     */
+    MemoryCatalog<T> listen(Listener<T> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 表被本进程修改后调用，下一次读取时刷新
+     *
+     * @param table 表名
+     */
+    static void invalidate(String table) {
+        List<MemoryCatalog<?>> catalogs = CATALOGS.get(table);
+        if (catalogs != null) {
+            catalogs.forEach(catalog -> catalog.invalid = true);
+        }
+    }
+
+    Map<Integer, T> get() {
+        if (invalid || memory == null) {
+            // 本进程修改过或者首次加载，必须读到最新数据
+            lock.lock();
+            try {
+                refresh();
+            } finally {
+                lock.unlock();
+            }
+        } else if (System.currentTimeMillis() >= nextCheck && lock.tryLock()) {
+            // 其它线程正在检查时直接使用当前数据
+            try {
+                if (System.currentTimeMillis() >= nextCheck) {
+                    refresh();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return memory;
+    }
+
+    private void refresh() {
+        invalid = false;
+        nextCheck = System.currentTimeMillis() + CHECK_INTERVAL;
+        Judge newJudge = tableInfo.get();
+        if (newJudge.getCount() == null || newJudge.getCount() == 0) {
+            memory = new ConcurrentHashMap<>(0);
+            judge = newJudge;
+            if (listener != null) {
+                listener.reload(Collections.emptyList());
+            }
+            return;
+        }
+        Judge oldJudge = judge;
+        if (memory == null || oldJudge == null || oldJudge.getLastModified() == null) {
+            HeraLog.info("刷新{}库", table);
+            List<T> all = loadAll.get();
+            Map<Integer, T> newMemory = new ConcurrentHashMap<>(all.size());
+            all.forEach(item -> newMemory.put(idFunction.apply(item), item));
+            memory = newMemory;
+            judge = newJudge;
+            if (listener != null) {
+                listener.reload(all);
+            }
+            return;
+        }
+        Map<Integer, T> current = memory;
+        if (modified(oldJudge, newJudge)) {
+            List<T> modified = loadModified.apply(oldJudge.getLastModified());
+            modified.forEach(item -> current.put(idFunction.apply(item), item));
+            HeraLog.info("增量刷新{}库,{}条记录", table, modified.size());
+            if (listener != null && !modified.isEmpty()) {
+                listener.upsert(modified);
+            }
+        }
+        if (newJudge.getCount() != current.size()) {
+            Set<Integer> ids = new HashSet<>(loadIds.get());
+            List<Integer> removed = current.keySet().stream().filter(id -> !ids.contains(id)).collect(Collectors.toList());
+            removed.forEach(current::remove);
+            if (listener != null && !removed.isEmpty()) {
+                listener.remove(removed);
+            }
+        }
+        judge = newJudge;
+    }
+
+    /**
+     * gmt_modified只精确到秒，上次检查与最后修改在同一秒内时，这一秒内之后的修改不会改变max(gmt_modified)，需要再次增量查询
+     */
+    private boolean modified(Judge oldJudge, Judge newJudge) {
+        return !Objects.equals(oldJudge.getLastModified(), newJudge.getLastModified())
+                || !Objects.equals(oldJudge.getMaxId(), newJudge.getMaxId())
+                || oldJudge.getStamp() == null
+                || !oldJudge.getStamp().after(oldJudge.getLastModified());
+    }
+
+    interface Listener<T> {
+
+        void reload(Collection<T> all);
+
+        void upsert(Collection<T> modified);
+
+        void remove(Collection<Integer> ids);
+    }
+}
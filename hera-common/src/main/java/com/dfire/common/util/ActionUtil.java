@@ -6,6 +6,7 @@ import org.joda.time.DateTime;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -185,5 +186,25 @@ public class ActionUtil {
         return new DateTime().plusDays(1).toString(ACTION_VERSION_INIT);
     }
 
-
+    /**
+     * 在升序排列的版本id中二分查找与target时间最近的版本，距离相同时取较早的版本
+     *
+     * @param sortedIds 升序排列的版本id，不能为空
+     * @param target    基准版本id
+     * @return 最近的版本id
+     */
+    public static long nearestAction(long[] sortedIds, long target) {
+        int index = Arrays.binarySearch(sortedIds, target);
+        if (index >= 0) {
+            return sortedIds[index];
+        }
+        index = -index - 1;
+        if (index == 0) {
+            return sortedIds[0];
+        }
+        if (index == sortedIds.length) {
+            return sortedIds[index - 1];
+        }
+        return target - sortedIds[index - 1] <= sortedIds[index] - target ? sortedIds[index - 1] : sortedIds[index];
+    }
 }
@@ -47,7 +47,11 @@ public class BeanConvertUtils {
         if (StringUtils.isBlank(heraJobHistory.getLog())) {
             heraJobHistoryVo.setLog(LogContent.builder().build());
         } else {
-            heraJobHistoryVo.setLog(LogContent.builder().content(new StringBuffer(heraJobHistory.getLog())).build());
+            heraJobHistoryVo.setLog(LogContent.builder()
+                    .content(new StringBuffer(heraJobHistory.getLog()))
+                    .flushedLength(heraJobHistory.getLog().length())
+                    .flushedOffset(heraJobHistory.getLog().codePointCount(0, heraJobHistory.getLog().length()))
+                    .build());
         }
         heraJobHistoryVo.setProperties(StringUtil.convertStringToMap(heraJobHistory.getProperties()));
         heraJobHistoryVo.setStatusEnum(StatusEnum.parse(heraJobHistory.getStatus()));
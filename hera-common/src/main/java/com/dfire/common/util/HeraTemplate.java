@@ -0,0 +1,366 @@
+package com.dfire.common.util;
+
+import com.dfire.common.constants.TimeFormatConstant;
+import com.dfire.logs.ErrorLog;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.Velocity;
+
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 编译后的脚本/配置模板，按内容缓存
+ * 解析一次得到文本片段和${...}变量节点，渲染时一次遍历完成变量替换和hera时间表达式计算
+ *
+ * @author xiaosuda
+ * @date 2018/12/13
+ */
+public class HeraTemplate {
+
+    private static final String PREFIX = "${";
+
+    private static final String SUFFIX = "}";
+
+    private static final String ZDT = "zdt";
+
+    private static final String YESTERDAY = "yesterday";
+
+    /**
+     * 按模板内容长度计算权重，最多缓存约64M字符
+     */
+    private static final long MAX_CACHE_WEIGHT = 64L * 1024 * 1024;
+
+    private static final Cache<String, HeraTemplate> CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_WEIGHT)
+            .weigher((String key, HeraTemplate value) -> key.length())
+            .build();
+
+    private static final HeraTemplate EMPTY = new HeraTemplate(new Node[0]);
+
+    static {
+        try {
+            Velocity.init();
+        } catch (Exception e) {
+            ErrorLog.error("velocity init fail", e);
+        }
+    }
+
+    private final Node[] nodes;
+
+    private HeraTemplate(Node[] nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * 获得编译后的模板，相同内容只解析一次
+     *
+     * @param content 模板内容
+     * @return 编译后的模板
+     */
+    public static HeraTemplate compile(String content) {
+        if (content == null || content.isEmpty()) {
+            return EMPTY;
+        }
+        if (!content.contains(PREFIX)) {
+            return new HeraTemplate(new Node[]{new Literal(content)});
+        }
+        try {
+            return CACHE.get(content, () -> parse(content));
+        } catch (ExecutionException e) {
+            ErrorLog.error("compile template error", e);
+            return parse(content);
+        }
+    }
+
+    /**
+     * 渲染模板，${key}优先使用variables中的值（值中的变量会继续渲染），
+     * 其次在date不为空时计算${zdt...}表达式和${yesterday}，都不满足时保留原样
+     *
+     * @param variables 变量，可以为空
+     * @param date      hera时间表达式的基准时间，为空时不计算时间表达式
+     * @return 渲染后的内容
+     */
+    public String render(Map<String, String> variables, Date date) {
+        if (nodes.length == 1 && nodes[0] instanceof Literal) {
+            return ((Literal) nodes[0]).text;
+        }
+        StringBuilder out = new StringBuilder();
+        render(out, new Context(variables, date));
+        return out.toString();
+    }
+
+    private void render(StringBuilder out, Context context) {
+        for (Node node : nodes) {
+            node.render(out, context);
+        }
+    }
+
+    static HeraTemplate parse(String content) {
+        List<Node> nodes = new ArrayList<>();
+        int pos = 0;
+        int length = content.length();
+        while (pos < length) {
+            int start = content.indexOf(PREFIX, pos);
+            int end = start < 0 ? -1 : content.indexOf(SUFFIX, start + PREFIX.length());
+            if (end < 0) {
+                nodes.add(new Literal(content.substring(pos)));
+                break;
+            }
+            // ${a${b}} 取最内层的${b}作为变量
+            start = content.lastIndexOf(PREFIX, end);
+            if (start > pos) {
+                nodes.add(new Literal(content.substring(pos, start)));
+            }
+            nodes.add(new Placeholder(content.substring(start, end + 1), content.substring(start + PREFIX.length(), end)));
+            pos = end + 1;
+        }
+        return new HeraTemplate(nodes.toArray(new Node[0]));
+    }
+
+    private static class Context {
+
+        private final Map<String, String> variables;
+
+        private final Date date;
+
+        /**
+         * 正在渲染的变量，防止变量循环引用
+         */
+        private final Set<String> rendering = new HashSet<>();
+
+        private Context(Map<String, String> variables, Date date) {
+            this.variables = variables == null ? Collections.emptyMap() : variables;
+            this.date = date;
+        }
+    }
+
+    private interface Node {
+
+        void render(StringBuilder out, Context context);
+    }
+
+    private static class Literal implements Node {
+
+        private final String text;
+
+        private Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(StringBuilder out, Context context) {
+            out.append(text);
+        }
+    }
+
+    private static class Placeholder implements Node {
+
+        private final String source;
+
+        private final String name;
+
+        private final DateExpression expression;
+
+        private Placeholder(String source, String name) {
+            this.source = source;
+            this.name = name;
+            this.expression = name.startsWith(ZDT) ? DateExpression.compile(source, name) : null;
+        }
+
+        @Override
+        public void render(StringBuilder out, Context context) {
+            String value = context.variables.get(name);
+            if (value != null) {
+                if (!value.contains(PREFIX)) {
+                    out.append(value);
+                } else if (context.rendering.add(name)) {
+                    compile(value).render(out, context);
+                    context.rendering.remove(name);
+                } else {
+                    out.append(source);
+                }
+                return;
+            }
+            if (context.date == null) {
+                out.append(source);
+            } else if (expression != null) {
+                out.append(expression.evaluate(context.date));
+            } else if (YESTERDAY.equals(name)) {
+                out.append(new HeraDateTool(context.date).addDay(-1).format(TimeFormatConstant.YYYYMMDD));
+            } else {
+                out.append(source);
+            }
+        }
+    }
+
+    /**
+     * hera时间表达式，如：${zdt.addDay(-1).format("yyyyMMdd")}
+     * 常用的addDay/add/format/getTime/get方法链直接调用HeraDateTool，其它写法交给velocity计算
+     */
+    private static class DateExpression {
+
+        private final String source;
+
+        private final Call[] calls;
+
+        private DateExpression(String source, Call[] calls) {
+            this.source = source;
+            this.calls = calls;
+        }
+
+        static DateExpression compile(String source, String name) {
+            return new DateExpression(source, parseCalls(name));
+        }
+
+        private static Call[] parseCalls(String name) {
+            List<Call> calls = new ArrayList<>();
+            int pos = ZDT.length();
+            int length = name.length();
+            while (pos < length) {
+                if (name.charAt(pos) != '.') {
+                    return null;
+                }
+                int open = name.indexOf('(', pos);
+                int close = name.indexOf(')', open + 1);
+                if (open < 0 || close < 0) {
+                    return null;
+                }
+                Call call = Call.of(name.substring(pos + 1, open).trim(), name.substring(open + 1, close));
+                if (call == null) {
+                    return null;
+                }
+                calls.add(call);
+                pos = close + 1;
+            }
+            // 只有最后一个方法可以返回非HeraDateTool的值
+            for (int i = 0; i < calls.size() - 1; i++) {
+                if (!calls.get(i).chain) {
+                    return null;
+                }
+            }
+            if (calls.isEmpty() || calls.get(calls.size() - 1).chain) {
+                return null;
+            }
+            return calls.toArray(new Call[0]);
+        }
+
+        String evaluate(Date date) {
+            if (calls == null) {
+                return evaluateByVelocity(date);
+            }
+            try {
+                HeraDateTool tool = new HeraDateTool(date);
+                Object result = tool;
+                for (Call call : calls) {
+                    result = call.invoke(tool);
+                }
+                return String.valueOf(result);
+            } catch (Exception e) {
+                ErrorLog.error("zdt render error", e);
+                return source;
+            }
+        }
+
+        private String evaluateByVelocity(Date date) {
+            StringWriter sw = new StringWriter();
+            try {
+                VelocityContext context = new VelocityContext();
+                context.put(ZDT, new HeraDateTool(date));
+                Velocity.evaluate(context, sw, "", source);
+            } catch (Exception e) {
+                ErrorLog.error("zdt render error", e);
+                return source;
+            }
+            if (source.equals(sw.toString())) {
+                ErrorLog.error("render fail with target:" + source);
+            }
+            return sw.toString();
+        }
+    }
+
+    private static class Call {
+
+        private final String method;
+
+        private final int[] ints;
+
+        private final String str;
+
+        /**
+         * 是否返回HeraDateTool本身
+         */
+        private final boolean chain;
+
+        private Call(String method, int[] ints, String str, boolean chain) {
+            this.method = method;
+            this.ints = ints;
+            this.str = str;
+            this.chain = chain;
+        }
+
+        static Call of(String method, String args) {
+            String trim = args.trim();
+            try {
+                switch (method) {
+                    case "addDay":
+                        return new Call(method, parseInts(trim, 1), null, true);
+                    case "add":
+                        return new Call(method, parseInts(trim, 2), null, true);
+                    case "get":
+                        return new Call(method, parseInts(trim, 1), null, false);
+                    case "getTime":
+                        return trim.isEmpty() ? new Call(method, null, null, false) : null;
+                    case "format":
+                        String pattern = parseString(trim);
+                        return pattern == null ? null : new Call(method, null, pattern, false);
+                    default:
+                        return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static int[] parseInts(String args, int count) {
+            String[] split = args.split(",");
+            if (split.length != count) {
+                throw new IllegalArgumentException(args);
+            }
+            int[] res = new int[count];
+            for (int i = 0; i < count; i++) {
+                res[i] = Integer.parseInt(split[i].trim());
+            }
+            return res;
+        }
+
+        private static String parseString(String arg) {
+            if (arg.length() < 2) {
+                return null;
+            }
+            char quote = arg.charAt(0);
+            if ((quote != '"' && quote != '\'') || arg.charAt(arg.length() - 1) != quote) {
+                return null;
+            }
+            String value = arg.substring(1, arg.length() - 1);
+            return value.indexOf(quote) >= 0 ? null : value;
+        }
+
+        Object invoke(HeraDateTool tool) {
+            switch (method) {
+                case "addDay":
+                    return tool.addDay(ints[0]);
+                case "add":
+                    return tool.add(ints[0], ints[1]);
+                case "get":
+                    return tool.get(ints[0]);
+                case "getTime":
+                    return tool.getTime();
+                default:
+                    return tool.format(str);
+            }
+        }
+    }
+}
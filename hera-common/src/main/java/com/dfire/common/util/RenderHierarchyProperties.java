@@ -1,14 +1,6 @@
 package com.dfire.common.util;
 
-import com.dfire.common.constants.TimeFormatConstant;
-import com.dfire.logs.ErrorLog;
-import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
-
-import java.io.StringWriter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 
@@ -21,16 +13,6 @@ public class RenderHierarchyProperties extends HierarchyProperties {
 
     private HierarchyProperties properties;
 
-    static {
-        try {
-            Velocity.init();
-        } catch (Exception e) {
-            ErrorLog.error("velocity init fail", e);
-        }
-    }
-
-    static Pattern pt = Pattern.compile("\\$\\{zdt.*?\\}");
-
     public RenderHierarchyProperties(HierarchyProperties properties) {
         super(new HashMap<>());
         this.properties = properties;
@@ -42,30 +24,7 @@ public class RenderHierarchyProperties extends HierarchyProperties {
      * @desc hera配置日期变量替换, 如：${zdt.addDay(-2).format("yyyyMMdd")}，${zdt.addDay(-1).format("yyyyMMdd")}
      */
     public static String render(String template) {
-        if (template == null) {
-            return null;
-        }
-        Matcher matcher = pt.matcher(template);
-        while (matcher.find()) {
-            String m = template.substring(matcher.start(), matcher.end());
-            StringWriter sw = new StringWriter();
-            try {
-                VelocityContext context = new VelocityContext();
-                context.put("zdt", new HeraDateTool(new Date()));
-                Velocity.evaluate(context, sw, "", m);
-                if (m.equals(sw.toString())) {
-                    ErrorLog.error("render fail with target:" + m);
-                    break;
-                }
-            } catch (Exception e) {
-                ErrorLog.error("zdt render error", e);
-                break;
-            }
-            template = template.replace(m, sw.toString());
-            matcher = pt.matcher(template);
-        }
-        template = template.replace("${yesterday}", new HeraDateTool(new Date()).addDay(-1).format(TimeFormatConstant.YYYYMMDD));
-        return template;
+        return render(template, new Date());
     }
 
     /**
@@ -74,30 +33,14 @@ public class RenderHierarchyProperties extends HierarchyProperties {
      * @return hera配置日期变量替换,"${yesterday}"为系统变量
      */
     public static String render(String template, String dateStr) {
+        return render(template, HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN));
+    }
+
+    private static String render(String template, Date date) {
         if (template == null) {
             return null;
         }
-        Matcher matcher = pt.matcher(template);
-        while (matcher.find()) {
-            String m = template.substring(matcher.start(), matcher.end());
-            StringWriter sw = new StringWriter();
-            try {
-                VelocityContext context = new VelocityContext();
-                context.put("zdt", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)));
-                Velocity.evaluate(context, sw, "", m);
-                if (m.equals(sw.toString())) {
-                    ErrorLog.error("render fail with target:" + m);
-                    break;
-                }
-            } catch (Exception e) {
-                ErrorLog.error("zdt render error", e);
-                break;
-            }
-            template = template.replace(m, sw.toString());
-            matcher = pt.matcher(template);
-        }
-        template = template.replace("${yesterday}", new HeraDateTool(HeraDateTool.StringToDate(dateStr, ActionUtil.ACTION_MIN)).addDay(-1).format("yyyyMMdd"));
-        return template;
+        return HeraTemplate.compile(template).render(null, date);
     }
 
     @Override
@@ -107,9 +50,7 @@ public class RenderHierarchyProperties extends HierarchyProperties {
 
     @Override
     public Map<String, String> getLocalProperties() {
-        Map<String, String> map = properties.getLocalProperties();
-        Map<String, String> result = properties.getLocalProperties().keySet().stream().collect(Collectors.toMap(v -> v, s -> render(map.get(s)), (t, k) -> k));
-        return result;
+        return renderAll(properties.getLocalProperties());
     }
 
     @Override
@@ -157,8 +98,13 @@ public class RenderHierarchyProperties extends HierarchyProperties {
 
     @Override
     public Map<String, String> getAllProperties() {
-        Map<String, String> map = properties.getAllProperties();
-        Map<String, String> result = properties.getAllProperties().keySet().stream().collect(Collectors.toMap(v -> v, s -> render(map.get(s)), (t, k) -> k));
+        return renderAll(properties.getAllProperties());
+    }
+
+    private Map<String, String> renderAll(Map<String, String> map) {
+        Date now = new Date();
+        Map<String, String> result = new HashMap<>(map.size());
+        map.forEach((key, value) -> result.put(key, render(value, now)));
         return result;
     }
 
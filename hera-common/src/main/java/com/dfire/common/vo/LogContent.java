@@ -1,11 +1,13 @@
 package com.dfire.common.vo;
 
 import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraJobLogChunk;
 import lombok.Builder;
 import lombok.Data;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -22,6 +24,16 @@ public class LogContent {
     private final String HERA = "<b>HERA#</b> ";
     private StringBuffer content;
 
+    /**
+     * 已经持久化的日志长度，定时刷新时只追加之后的部分
+     */
+    private int flushedLength;
+
+    /**
+     * 已经持久化的日志字符数(按code point计数，与数据库char_length一致)，作为下一个日志分片的offset
+     */
+    private int flushedOffset;
+
     private static final int COUNT = 10000;
     private static final String ERROR = "error";
 
@@ -88,4 +100,87 @@ public class LogContent {
         return lines;
     }
 
+    /**
+     * 获取上次刷新之后新增的日志，并标记为已刷新，调用前通过getFlushedOffset获得该分片的起始位置
+     *
+     * @return 新增日志，没有新增时返回null
+     */
+    public String pollUnflushed() {
+        if (content == null) {
+            return null;
+        }
+        synchronized (content) {
+            int length = content.length();
+            if (length <= flushedLength) {
+                return null;
+            }
+            String chunk = content.substring(flushedLength, length);
+            flushedLength = length;
+            flushedOffset += chunk.codePointCount(0, chunk.length());
+            return chunk;
+        }
+    }
+
+    /**
+     * 把日志分片拼接到已持久化的完整日志之后，已经被完整日志覆盖的分片部分会被跳过
+     *
+     * @param log    log字段中的日志
+     * @param chunks 按logOffset排序的日志分片
+     * @return 完整日志
+     */
+    public static String stitch(String log, List<HeraJobLogChunk> chunks) {
+        return stitch(0, log, chunks);
+    }
+
+    /**
+     * 把日志分片拼接到从start位置开始的部分日志之后，位置都按字符(code point)计数，与数据库char_length一致
+     *
+     * @param start  log在完整日志中的起始位置
+     * @param log    从start开始的日志
+     * @param chunks 按logOffset排序的日志分片
+     * @return 从start开始拼接后的日志
+     */
+    public static String stitch(int start, String log, List<HeraJobLogChunk> chunks) {
+        if (chunks == null || chunks.isEmpty()) {
+            return log;
+        }
+        StringBuilder builder = new StringBuilder(log == null ? "" : log);
+        int end = start + builder.codePointCount(0, builder.length());
+        for (HeraJobLogChunk chunk : chunks) {
+            String chunkContent = chunk.getContent();
+            if (chunkContent == null || chunk.getLogOffset() == null) {
+                continue;
+            }
+            int offset = chunk.getLogOffset();
+            if (offset > end) {
+                // 中间分片缺失，保留已有内容，不拼接错位的日志
+                break;
+            }
+            int skip = end - offset;
+            int chunkLength = chunkContent.codePointCount(0, chunkContent.length());
+            if (skip < chunkLength) {
+                builder.append(chunkContent, chunkContent.offsetByCodePoints(0, skip), chunkContent.length());
+                end += chunkLength - skip;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 跳过日志开头的若干字符(code point)
+     *
+     * @param log  日志
+     * @param skip 跳过的字符数
+     * @return 剩余的日志，不足时返回空字符串
+     */
+    public static String skip(String log, int skip) {
+        if (skip <= 0) {
+            return log;
+        }
+        if (skip >= log.codePointCount(0, log.length())) {
+            return "";
+        }
+        return log.substring(log.offsetByCodePoints(0, skip));
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.dfire.common.vo;
+
+import com.dfire.common.enums.StatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author xiaosuda
+ * @date 2018/12/11
+ * @desc 增量查看日志的返回结果，页面轮询时只拉取offset之后新增的日志
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LogTailVo {
+
+    /**
+     * 请求offset之后的日志
+     */
+    private String log;
+
+    /**
+     * 下一次请求使用的offset，按字符(code point)计数，与数据库char_length一致，页面原样回传
+     */
+    private int offset;
+
+    private String status;
+
+    /**
+     * 任务是否已经结束，结束后日志不再增加，页面可以停止轮询
+     */
+    private boolean finished;
+
+    public static boolean isFinished(String status) {
+        StatusEnum statusEnum = StatusEnum.parse(status);
+        return statusEnum == StatusEnum.SUCCESS || statusEnum == StatusEnum.FAILED;
+    }
+}
@@ -0,0 +1,212 @@
+package com.dfire.graph;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraJob;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * 任务依赖关系索引，按任务增量维护上下游邻接表，任务依赖修改时只更新该任务相关的边
+ *
+ * @author xiaosuda
+ * @date 2018/12/12
+ */
+public class JobDagIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 任务id -> 任务节点（包含配置的上游依赖）
+     */
+    private final Map<Integer, JobNode> nodes = new HashMap<>();
+
+    /**
+     * 上游任务id -> 依赖它的下游任务id，上游任务不存在时也保留，上游任务创建后直接可用
+     */
+    private final Map<Integer, Set<Integer>> downstream = new HashMap<>();
+
+    public void reload(Collection<HeraJob> jobs) {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            downstream.clear();
+            jobs.forEach(this::putNode);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(HeraJob job) {
+        lock.writeLock().lock();
+        try {
+            removeNode(job.getId());
+            putNode(job);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer jobId) {
+        lock.writeLock().lock();
+        try {
+            removeNode(jobId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Integer jobId) {
+        lock.readLock().lock();
+        try {
+            return nodes.containsKey(jobId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获得任务在关系图中的节点
+     *
+     * @param jobId 任务id
+     * @return 任务不存在时返回null
+     */
+    public GraphNode<Integer> getGraphNode(Integer jobId) {
+        lock.readLock().lock();
+        try {
+            JobNode node = nodes.get(jobId);
+            if (node == null) {
+                return null;
+            }
+            return new GraphNode<>(node.auto, node.id, "任务ID：" + node.id + "\n任务名称：" + node.name + "\n");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 直接上游或下游任务，只返回存在的任务
+     *
+     * @param jobId 任务id
+     * @param down  是否为下游
+     * @return 任务id
+     */
+    public List<Integer> getAdjacent(Integer jobId, boolean down) {
+        lock.readLock().lock();
+        try {
+            List<Integer> res = new ArrayList<>();
+            forEachAdjacent(jobId, down, res::add);
+            return res;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有的上游或下游任务，每个任务只出现一次
+     *
+     * @param jobId 任务id
+     * @param down  是否为下游
+     * @return 按广度优先顺序排列的任务id，不包含jobId本身
+     */
+    public List<Integer> findStream(Integer jobId, boolean down) {
+        lock.readLock().lock();
+        try {
+            List<Integer> res = new ArrayList<>();
+            if (!nodes.containsKey(jobId)) {
+                return res;
+            }
+            Set<Integer> visited = new HashSet<>();
+            visited.add(jobId);
+            Queue<Integer> queue = new LinkedList<>();
+            queue.add(jobId);
+            while (!queue.isEmpty()) {
+                forEachAdjacent(queue.remove(), down, id -> {
+                    if (visited.add(id)) {
+                        res.add(id);
+                        queue.add(id);
+                    }
+                });
+            }
+            return res;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void forEachAdjacent(Integer jobId, boolean down, IntConsumer consumer) {
+        if (down) {
+            Set<Integer> children = downstream.get(jobId);
+            if (children != null) {
+                children.forEach(consumer::accept);
+            }
+        } else {
+            JobNode node = nodes.get(jobId);
+            if (node != null) {
+                for (int parent : node.upstream) {
+                    if (nodes.containsKey(parent)) {
+                        consumer.accept(parent);
+                    }
+                }
+            }
+        }
+    }
+
+    private void putNode(HeraJob job) {
+        int[] upstream = parseDependencies(job.getDependencies());
+        nodes.put(job.getId(), new JobNode(job.getId(), job.getName(), job.getAuto(), upstream));
+        for (int parent : upstream) {
+            downstream.computeIfAbsent(parent, key -> new LinkedHashSet<>()).add(job.getId());
+        }
+    }
+
+    private void removeNode(Integer jobId) {
+        JobNode old = nodes.remove(jobId);
+        if (old == null) {
+            return;
+        }
+        for (int parent : old.upstream) {
+            Set<Integer> children = downstream.get(parent);
+            if (children != null) {
+                children.remove(jobId);
+                if (children.isEmpty()) {
+                    downstream.remove(parent);
+                }
+            }
+        }
+    }
+
+    private int[] parseDependencies(String dependencies) {
+        if (StringUtils.isBlank(dependencies)) {
+            return EMPTY;
+        }
+        String[] split = dependencies.split(Constants.COMMA);
+        int[] res = new int[split.length];
+        int size = 0;
+        for (String parent : split) {
+            if (StringUtils.isNotBlank(parent)) {
+                res[size++] = Integer.parseInt(parent.trim());
+            }
+        }
+        return size == res.length ? res : Arrays.copyOf(res, size);
+    }
+
+    private static class JobNode {
+
+        private final Integer id;
+        private final String name;
+        private final Integer auto;
+        private final int[] upstream;
+
+        private JobNode(Integer id, String name, Integer auto, int[] upstream) {
+            this.id = id;
+            this.name = name;
+            this.auto = auto;
+            this.upstream = upstream;
+        }
+    }
+}
@@ -39,4 +39,12 @@ public class HeartLog {
         log.warn(format, arguments);
     }
 
+    public static boolean isDebugEnabled() {
+        return log.isDebugEnabled();
+    }
+
+    public static void debug(String format, Object... arguments) {
+        log.debug(format, arguments);
+    }
+
 }
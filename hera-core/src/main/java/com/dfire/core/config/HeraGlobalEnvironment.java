@@ -73,6 +73,43 @@ public class HeraGlobalEnvironment {
     private static String sparkExecutorCores;
     @Getter
     private static String hdfsUploadPath;
+    /**
+     * 子进程输出的收集方式，reactor：少量线程轮询所有子进程的输出；thread：每个子进程两个阻塞读的线程
+     */
+    @Getter
+    private static String processOutputMode = "reactor";
+    @Getter
+    private static Integer processOutputThreads = 2;
+    /**
+     * 快速启动任务：dos2unix、chmod在JVM内完成，只创建执行脚本的进程
+     */
+    @Getter
+    private static boolean fastLaunch = true;
+    /**
+     * worker同时执行的任务数，0表示根据内存和cpu核数计算
+     */
+    @Getter
+    private static Integer workerSlots = 0;
+    /**
+     * 根据cpu核数计算slot时，每个核的slot数
+     */
+    @Getter
+    private static Integer workerSlotsPerCore = 8;
+    /**
+     * worker本地等待执行的任务数，超出时拒绝执行，由master分发给其它worker
+     */
+    @Getter
+    private static Integer workerQueueSize = 20;
+    /**
+     * 采集机器负载(/proc)的间隔，单位：毫秒
+     */
+    @Getter
+    private static Integer sampleInterval = 1000;
+    /**
+     * 每隔多少次心跳发送一次全量心跳，其余心跳只发送开始和结束的任务
+     */
+    @Getter
+    private static Integer heartBeatFullInterval = 10;
 
     @Value("${hera.excludeFile")
     public void setExcludeFile(String excludeFile) {
@@ -214,6 +251,46 @@ public class HeraGlobalEnvironment {
         HeraGlobalEnvironment.sparkExecutorCores = sparkExecutorCores;
     }
 
+    @Value("${hera.processOutputMode:reactor}")
+    public void setProcessOutputMode(String processOutputMode) {
+        HeraGlobalEnvironment.processOutputMode = processOutputMode;
+    }
+
+    @Value("${hera.processOutputThreads:2}")
+    public void setProcessOutputThreads(Integer processOutputThreads) {
+        HeraGlobalEnvironment.processOutputThreads = processOutputThreads;
+    }
+
+    @Value("${hera.fastLaunch:true}")
+    public void setFastLaunch(boolean fastLaunch) {
+        HeraGlobalEnvironment.fastLaunch = fastLaunch;
+    }
+
+    @Value("${hera.workerSlots:0}")
+    public void setWorkerSlots(Integer workerSlots) {
+        HeraGlobalEnvironment.workerSlots = workerSlots;
+    }
+
+    @Value("${hera.workerSlotsPerCore:8}")
+    public void setWorkerSlotsPerCore(Integer workerSlotsPerCore) {
+        HeraGlobalEnvironment.workerSlotsPerCore = workerSlotsPerCore;
+    }
+
+    @Value("${hera.workerQueueSize:20}")
+    public void setWorkerQueueSize(Integer workerQueueSize) {
+        HeraGlobalEnvironment.workerQueueSize = workerQueueSize;
+    }
+
+    @Value("${hera.sampleInterval:1000}")
+    public void setSampleInterval(Integer sampleInterval) {
+        HeraGlobalEnvironment.sampleInterval = sampleInterval;
+    }
+
+    @Value("${hera.heartBeatFullInterval:10}")
+    public void setHeartBeatFullInterval(Integer heartBeatFullInterval) {
+        HeraGlobalEnvironment.heartBeatFullInterval = heartBeatFullInterval;
+    }
+
     /**
      * 判断是否是linux 环境，有些命令不一样
      */
@@ -248,4 +325,8 @@ public class HeraGlobalEnvironment {
     public static boolean isLinuxSystem() {
         return linuxSystem;
     }
+
+    public static boolean isReactorProcessOutput() {
+        return !"thread".equalsIgnoreCase(processOutputMode);
+    }
 }
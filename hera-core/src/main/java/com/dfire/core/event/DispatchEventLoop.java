@@ -0,0 +1,242 @@
+package com.dfire.core.event;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.ScheduleLog;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件分发的异步事件循环：按分区key(版本id)把事件分到固定数量的单线程分区上执行
+ * 同一个版本的事件在同一个线程上按提交顺序执行，慢的handler只阻塞所在分区，不会阻塞提交事件的触发时间轮、netty、调度线程
+ * 外部线程提交的事件数受每个分区的容量限制，超过时阻塞等待(背压)；分区线程提交(分发到handler所在分区)时不受容量限制直接入队，
+ * 既避免分区之间互相等待死锁，也保证同一个key的事件始终在自己的分区上按顺序串行执行
+ *
+ * @author xiaosuda
+ * @date 2018/12/18
+ */
+public class DispatchEventLoop {
+
+    private static final ThreadLocal<DispatchEventLoop> CURRENT = new ThreadLocal<>();
+
+    private final Partition[] partitions;
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param name       线程名前缀
+     * @param partitions 分区数，每个分区一个线程
+     * @param capacity   每个分区允许外部线程提交的排队事件数
+     */
+    public DispatchEventLoop(String name, int partitions, int capacity) {
+        if (partitions <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("partitions and capacity must be positive");
+        }
+        NamedThreadFactory threadFactory = new NamedThreadFactory(name, true);
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(capacity);
+            threadFactory.newThread(this.partitions[i]).start();
+        }
+    }
+
+    /**
+     * 提交事件，分区key相同的事件按提交顺序执行
+     *
+     * @param key  分区key，为null时进入第一个分区
+     * @param task 事件处理
+     */
+    public void execute(String key, Runnable task) {
+        partitions[indexOf(key)].submit(task);
+    }
+
+    public int indexOf(String key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % partitions.length;
+    }
+
+    /**
+     * 停止接收新的事件，分区线程处理完队列中的事件后退出；之后提交的事件在提交线程上执行
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    public Metrics metrics() {
+        int queued = 0, maxQueued = 0;
+        long submitted = 0, completed = 0, blocked = 0, callerRuns = 0, failed = 0;
+        for (Partition partition : partitions) {
+            queued += partition.queue.size();
+            maxQueued = Math.max(maxQueued, partition.maxQueued.get());
+            submitted += partition.submitted.sum();
+            completed += partition.completed.sum();
+            blocked += partition.blocked.sum();
+            callerRuns += partition.callerRuns.sum();
+            failed += partition.failed.sum();
+        }
+        return Metrics.builder()
+                .partitions(partitions.length)
+                .queued(queued)
+                .maxQueued(maxQueued)
+                .submitted(submitted)
+                .completed(completed)
+                .blocked(blocked)
+                .callerRuns(callerRuns)
+                .failed(failed)
+                .build();
+    }
+
+    /**
+     * 事件循环的运行指标，除queued外都是启动以来的累计值
+     */
+    @Data
+    @Builder
+    public static class Metrics {
+        private int partitions;
+        /**
+         * 当前排队的事件数
+         */
+        private int queued;
+        /**
+         * 单个分区出现过的最大排队数
+         */
+        private int maxQueued;
+        private long submitted;
+        private long completed;
+        /**
+         * 队列满时提交线程阻塞等待的次数
+         */
+        private long blocked;
+        /**
+         * 已停止或等待时被中断，在提交线程上直接执行的次数
+         */
+        private long callerRuns;
+        private long failed;
+    }
+
+    private final class Partition implements Runnable {
+
+        private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+
+        /**
+         * 外部线程提交的排队名额，事件出队时归还
+         */
+        private final Semaphore permits;
+
+        private final AtomicInteger maxQueued = new AtomicInteger();
+
+        private final LongAdder submitted = new LongAdder();
+
+        private final LongAdder completed = new LongAdder();
+
+        private final LongAdder blocked = new LongAdder();
+
+        private final LongAdder callerRuns = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private Partition(int capacity) {
+            permits = new Semaphore(capacity);
+        }
+
+        private void submit(Runnable task) {
+            submitted.increment();
+            if (shutdown) {
+                callerRuns.increment();
+                runTask(task);
+                return;
+            }
+            if (CURRENT.get() == DispatchEventLoop.this) {
+                queue.offer(task);
+                recordQueued();
+                return;
+            }
+            if (!permits.tryAcquire()) {
+                blocked.increment();
+                try {
+                    while (!permits.tryAcquire(1, TimeUnit.SECONDS)) {
+                        if (shutdown) {
+                            callerRuns.increment();
+                            runTask(task);
+                            return;
+                        }
+                        ScheduleLog.warn("dispatch event queue is full, waiting, queued:{}", queue.size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    callerRuns.increment();
+                    runTask(task);
+                    return;
+                }
+            }
+            queue.offer(new ExternalTask(task));
+            recordQueued();
+        }
+
+        private void recordQueued() {
+            int size = queue.size();
+            if (size > maxQueued.get()) {
+                maxQueued.accumulateAndGet(size, Math::max);
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(DispatchEventLoop.this);
+            while (!shutdown || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    ErrorLog.warn("dispatch event loop interrupted, pending events:{}", queue.size());
+                    return;
+                }
+                if (task instanceof ExternalTask) {
+                    permits.release();
+                }
+                if (task != null) {
+                    runTask(task);
+                }
+            }
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+                completed.increment();
+            } catch (Throwable e) {
+                failed.increment();
+                ErrorLog.error("dispatch event error", e);
+            }
+        }
+    }
+
+    private static final class ExternalTask implements Runnable {
+
+        private final Runnable task;
+
+        private ExternalTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -1,26 +1,25 @@
 package com.dfire.core.event;
 
+import com.dfire.common.util.ActionUtil;
 import com.dfire.core.event.base.AbstractObservable;
 import com.dfire.core.event.base.ApplicationEvent;
 import com.dfire.core.event.base.EventType;
+import com.dfire.core.event.base.Events;
 import com.dfire.core.event.base.MvcEvent;
 import com.dfire.core.event.handler.AbstractHandler;
 import com.dfire.core.event.handler.JobHandler;
 import com.dfire.core.event.listenter.AbstractListener;
 import com.dfire.logs.ErrorLog;
-import com.dfire.logs.ScheduleLog;
-import com.google.common.collect.Lists;
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
  * @time: Created in 11:00 2018/1/4
- * @desc hera中的任务事件observer,接受事件，全局广播dispatch
+ * @desc hera中的任务事件observer,接受事件，按路由索引分发dispatch
+ * 配置了事件循环时，forwardEvent在事件的分区上执行监听器和路由，每个handler再到自己版本id的分区上处理事件，dispatch始终在调用线程上同步分发
  */
 public class Dispatcher extends AbstractObservable {
 
@@ -28,21 +27,119 @@ public class Dispatcher extends AbstractObservable {
 
     public static final EventType afterDispatch = new EventType();
 
-    @Getter
-    List<AbstractHandler> jobHandlers;
+    /**
+     * actionId -> handler
+     */
+    private final Map<String, JobHandler> actionHandlers = new ConcurrentHashMap<>();
+
+    /**
+     * jobId -> 该任务所有版本的handler
+     */
+    private final Map<Integer, Set<JobHandler>> jobHandlerIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 上游actionId -> 依赖它的handler
+     */
+    private final Map<String, Set<JobHandler>> upstreamHandlerIndex = new ConcurrentHashMap<>();
+
+    /**
+     * handler -> 已经登记的上游actionId
+     */
+    private final Map<JobHandler, Set<String>> handlerUpstreams = new ConcurrentHashMap<>();
+
+    /**
+     * 依赖关系还未加载的handler，成功/失败事件对它们仍然广播
+     */
+    private final Set<JobHandler> unresolvedHandlers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 异步分发的事件循环，为null时forwardEvent同步分发
+     */
+    private final DispatchEventLoop eventLoop;
 
     public Dispatcher() {
-        jobHandlers = new ArrayList<>();
+        this(null);
+    }
+
+    public Dispatcher(DispatchEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    public DispatchEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * 停止事件循环，已经提交的事件会继续处理完
+     */
+    public void shutdown() {
+        if (eventLoop != null) {
+            eventLoop.shutdown();
+        }
+    }
+
+    /**
+     * 返回当前所有handler的快照
+     *
+     * @return List
+     */
+    public List<AbstractHandler> getJobHandlers() {
+        return new ArrayList<>(actionHandlers.values());
+    }
+
+    public JobHandler getJobHandler(String actionId) {
+        return actionHandlers.get(actionId);
     }
 
     public void addJobHandler(JobHandler jobHandler) {
-        if (!jobHandlers.contains(jobHandler)) {
-            jobHandlers.add(jobHandler);
+        if (actionHandlers.putIfAbsent(jobHandler.getActionId(), jobHandler) == null) {
+            Integer jobId = ActionUtil.getJobId(jobHandler.getActionId());
+            if (jobId != null) {
+                jobHandlerIndex.computeIfAbsent(jobId, k -> ConcurrentHashMap.newKeySet()).add(jobHandler);
+            }
+            unresolvedHandlers.add(jobHandler);
         }
     }
 
     public void removeJobHandler(JobHandler jobHandler) {
-        jobHandlers.remove(jobHandler);
+        if (!actionHandlers.remove(jobHandler.getActionId(), jobHandler)) {
+            return;
+        }
+        Integer jobId = ActionUtil.getJobId(jobHandler.getActionId());
+        if (jobId != null) {
+            removeFromIndex(jobHandlerIndex, jobId, jobHandler);
+        }
+        unresolvedHandlers.remove(jobHandler);
+        Set<String> upstreams = handlerUpstreams.remove(jobHandler);
+        if (upstreams != null) {
+            upstreams.forEach(upstream -> removeFromIndex(upstreamHandlerIndex, upstream, jobHandler));
+        }
+    }
+
+    /**
+     * handler加载到版本的依赖关系后登记路由，之后只接收上游版本的成功/失败事件
+     *
+     * @param jobHandler   jobHandler
+     * @param dependencies 上游actionId集合，为null表示依赖关系未知
+     */
+    public void routeUpstream(JobHandler jobHandler, Collection<String> dependencies) {
+        if (actionHandlers.get(jobHandler.getActionId()) != jobHandler) {
+            return;
+        }
+        synchronized (jobHandler) {
+            Set<String> old = handlerUpstreams.remove(jobHandler);
+            if (old != null) {
+                old.forEach(upstream -> removeFromIndex(upstreamHandlerIndex, upstream, jobHandler));
+            }
+            if (dependencies == null) {
+                unresolvedHandlers.add(jobHandler);
+                return;
+            }
+            Set<String> upstreams = new HashSet<>(dependencies);
+            upstreams.forEach(upstream -> upstreamHandlerIndex.computeIfAbsent(upstream, k -> ConcurrentHashMap.newKeySet()).add(jobHandler));
+            handlerUpstreams.put(jobHandler, upstreams);
+            unresolvedHandlers.remove(jobHandler);
+        }
     }
 
     public void addDispatcherListener(AbstractListener listener) {
@@ -52,11 +149,15 @@ public class Dispatcher extends AbstractObservable {
 
 
     public void forwardEvent(ApplicationEvent event) {
-        dispatch(event);
+        if (eventLoop == null) {
+            dispatch(event);
+        } else {
+            eventLoop.execute(partitionKey(event), () -> fanOut(event));
+        }
     }
 
     public void forwardEvent(EventType eventType) {
-        dispatch(eventType);
+        forwardEvent(new ApplicationEvent(eventType));
     }
 
 
@@ -69,7 +170,8 @@ public class Dispatcher extends AbstractObservable {
     }
 
     /**
-     * 事件广播，每次任务状态变化，触发响应事件，全局广播，自动调度successEvent,触发依赖调度一些依赖更新
+     * 事件分发，每次任务状态变化，触发响应事件。定向事件只发给对应版本的handler，
+     * 成功/失败事件只发给依赖该版本的handler，其它事件全局广播
      *
      * @param applicationEvent
      */
@@ -78,14 +180,8 @@ public class Dispatcher extends AbstractObservable {
             MvcEvent mvcEvent = new MvcEvent(this, applicationEvent);
             mvcEvent.setApplicationEvent(applicationEvent);
             if (fireEvent(beforeDispatch, mvcEvent)) {
-                List<AbstractHandler> jobHandlersCopy = Lists.newArrayList(jobHandlers);
-                for (AbstractHandler jobHandler : jobHandlersCopy) {
-                    if (jobHandler.canHandle(applicationEvent)) {
-                        if (!jobHandler.isInitialized()) {
-                            jobHandler.setInitialized(true);
-                        }
-                        jobHandler.handleEvent(applicationEvent);
-                    }
+                for (JobHandler jobHandler : route(applicationEvent)) {
+                    handle(jobHandler, applicationEvent);
                 }
                 fireEvent(afterDispatch, mvcEvent);
             }
@@ -96,4 +192,109 @@ public class Dispatcher extends AbstractObservable {
 
     }
 
+    /**
+     * 异步分发：在事件所在的分区上执行监听器和路由，再把每个handler的处理提交到该handler版本id的分区
+     * 一个handler的触发、维护、丢失事件和所有上游的成功/失败事件都在同一个分区上按顺序处理，不会被多个上游并发执行
+     *
+     * @param applicationEvent 事件
+     */
+    private void fanOut(ApplicationEvent applicationEvent) {
+        MvcEvent mvcEvent = new MvcEvent(this, applicationEvent);
+        mvcEvent.setApplicationEvent(applicationEvent);
+        if (fireEvent(beforeDispatch, mvcEvent)) {
+            for (JobHandler jobHandler : route(applicationEvent)) {
+                eventLoop.execute(jobHandler.getActionId(), () -> handle(jobHandler, applicationEvent));
+            }
+            fireEvent(afterDispatch, mvcEvent);
+        }
+    }
+
+    private static void handle(AbstractHandler jobHandler, ApplicationEvent applicationEvent) {
+        if (jobHandler.canHandle(applicationEvent)) {
+            if (!jobHandler.isInitialized()) {
+                jobHandler.setInitialized(true);
+            }
+            jobHandler.handleEvent(applicationEvent);
+        }
+    }
+
+    /**
+     * 根据事件类型找出可能处理该事件的handler
+     *
+     * @param event 事件
+     * @return handler集合
+     */
+    private Collection<JobHandler> route(ApplicationEvent event) {
+        if (event instanceof HeraScheduleTriggerEvent) {
+            return single(((HeraScheduleTriggerEvent) event).getJobId());
+        }
+        if (event instanceof HeraJobLostEvent) {
+            return single(((HeraJobLostEvent) event).getJobId());
+        }
+        if (event instanceof HeraJobMaintenanceEvent) {
+            HeraJobMaintenanceEvent maintenanceEvent = (HeraJobMaintenanceEvent) event;
+            if (maintenanceEvent.getType() == Events.UpdateActions) {
+                return single(maintenanceEvent.getId());
+            }
+            if (maintenanceEvent.getType() == Events.UpdateJob) {
+                Set<JobHandler> handlers = jobHandlerIndex.get(Integer.parseInt(maintenanceEvent.getId()));
+                return handlers == null ? Collections.emptyList() : new ArrayList<>(handlers);
+            }
+        }
+        if (event instanceof HeraJobSuccessEvent) {
+            return downstream(((HeraJobSuccessEvent) event).getJobId());
+        }
+        if (event instanceof HeraJobFailedEvent) {
+            return downstream(((HeraJobFailedEvent) event).getActionId());
+        }
+        return new ArrayList<>(actionHandlers.values());
+    }
+
+    /**
+     * 事件执行监听器和路由的分区key，与路由使用的id一致；没有id的事件返回null
+     * handler对事件的处理不在这个分区上，而是在handler自己版本id的分区上
+     *
+     * @param event 事件
+     * @return 分区key
+     */
+    static String partitionKey(ApplicationEvent event) {
+        if (event instanceof HeraScheduleTriggerEvent) {
+            return ((HeraScheduleTriggerEvent) event).getJobId();
+        }
+        if (event instanceof HeraJobLostEvent) {
+            return ((HeraJobLostEvent) event).getJobId();
+        }
+        if (event instanceof HeraJobMaintenanceEvent) {
+            return ((HeraJobMaintenanceEvent) event).getId();
+        }
+        if (event instanceof HeraJobSuccessEvent) {
+            return ((HeraJobSuccessEvent) event).getJobId();
+        }
+        if (event instanceof HeraJobFailedEvent) {
+            return ((HeraJobFailedEvent) event).getActionId();
+        }
+        return null;
+    }
+
+    private Collection<JobHandler> single(String actionId) {
+        JobHandler handler = actionId == null ? null : actionHandlers.get(actionId);
+        return handler == null ? Collections.emptyList() : Collections.singletonList(handler);
+    }
+
+    private Collection<JobHandler> downstream(String actionId) {
+        Set<JobHandler> handlers = new LinkedHashSet<>(unresolvedHandlers);
+        Set<JobHandler> routed = actionId == null ? null : upstreamHandlerIndex.get(actionId);
+        if (routed != null) {
+            handlers.addAll(routed);
+        }
+        return handlers;
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<JobHandler>> index, K key, JobHandler jobHandler) {
+        index.computeIfPresent(key, (k, handlers) -> {
+            handlers.remove(jobHandler);
+            return handlers.isEmpty() ? null : handlers;
+        });
+    }
+
 }
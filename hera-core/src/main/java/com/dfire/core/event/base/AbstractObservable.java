@@ -1,23 +1,23 @@
 package com.dfire.core.event.base;
 
 import com.dfire.core.event.listenter.Listener;
-import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
  * @time: Created in 下午2:44 2018/4/23
- * @desc
+ * @desc 监听器很少变化而事件触发频繁并且可能来自多个线程，使用写时复制的列表，触发事件时不再复制
  */
 public class AbstractObservable implements Observable {
 
     private boolean fireEvents = true;
 
-    private Map<String, List<Listener<AbstractEvent>>> listMap;
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Listener<AbstractEvent>>> listMap = new ConcurrentHashMap<>();
 
     private boolean activeEvent;
 
@@ -27,82 +27,59 @@ public class AbstractObservable implements Observable {
         if (listener == null) {
             return;
         }
-        if (listMap == null) {
-            listMap = new HashMap<>(1024);
-        }
-        List<Listener<AbstractEvent>> listeners = listMap.get(eventType.getId());
-        if (listeners == null) {
-            listeners = new ArrayList<>();
-            listeners.add((Listener) listener);
-            listMap.put(eventType.getId(), listeners);
-        } else {
-            if (!listeners.contains(listener)) {
-                listeners.add((Listener) listener);
-            }
-        }
+        @SuppressWarnings("unchecked")
+        Listener<AbstractEvent> eventListener = (Listener<AbstractEvent>) listener;
+        listMap.compute(eventType.getId(), (id, listeners) -> {
+            CopyOnWriteArrayList<Listener<AbstractEvent>> list = listeners == null ? new CopyOnWriteArrayList<>() : listeners;
+            list.addIfAbsent(eventListener);
+            return list;
+        });
 
     }
 
     @Override
     public List<Listener<? extends AbstractEvent>> getListeners(EventType eventType) {
-        if (listMap == null) {
-            return new ArrayList<>();
-        }
         List<Listener<AbstractEvent>> list = listMap.get(eventType.getId());
         if (list == null) {
             return new ArrayList<>();
         }
-        return (List) list;
+        return Collections.unmodifiableList(list);
     }
 
     @Override
     public boolean hasListeners() {
-        return listMap != null && listMap.size() > 0;
+        return listMap.size() > 0;
     }
 
     @Override
     public boolean hasListeners(EventType eventType) {
-        if (listMap != null) {
-            List<Listener<AbstractEvent>> listeners = listMap.get(eventType.getId());
-            if (listeners != null && !listeners.isEmpty()) {
-                return true;
-            }
-        }
-        return false;
+        List<Listener<AbstractEvent>> listeners = listMap.get(eventType.getId());
+        return listeners != null && !listeners.isEmpty();
     }
 
     @Override
     public void removeAllListeners() {
-        if (listMap != null) {
-            listMap.clear();
-        }
+        listMap.clear();
 
     }
 
     @Override
     public void removeAllListeners(EventType eventType, Listener<? extends AbstractEvent> listener) {
-        if (listMap == null) {
-            return;
-        }
-        String id = eventType.getId();
-        List<Listener<AbstractEvent>> listeners = listMap.get(id);
-        if (listeners != null) {
+        listMap.computeIfPresent(eventType.getId(), (id, listeners) -> {
             listeners.remove(listener);
-            if (listeners.isEmpty()) {
-                listMap.remove(id);
-            }
-        }
+            return listeners.isEmpty() ? null : listeners;
+        });
     }
 
     @Override
     public boolean fireEvent(EventType eventType, AbstractEvent abstractEvent) {
-        if (fireEvents && listMap != null) {
+        if (fireEvents) {
             activeEvent = true;
             abstractEvent.setType(eventType);
             List<Listener<AbstractEvent>> listeners = listMap.get(eventType.getId());
             if (listeners != null) {
-                List<Listener<AbstractEvent>> listenersCopy = Lists.newArrayList(listeners);
-                for (Listener<AbstractEvent> listener : listenersCopy) {
+                // CopyOnWriteArrayList的迭代器本身就是快照
+                for (Listener<AbstractEvent> listener : listeners) {
                     callListener(listener, abstractEvent);
                 }
             }
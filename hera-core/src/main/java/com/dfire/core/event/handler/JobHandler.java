@@ -1,6 +1,5 @@
 package com.dfire.core.event.handler;
 
-import com.dfire.common.constants.Constants;
 import com.dfire.common.constants.LogConstant;
 import com.dfire.common.constants.RunningJobKeyConstant;
 import com.dfire.common.entity.HeraAction;
@@ -18,26 +17,24 @@ import com.dfire.common.service.*;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.util.StringUtil;
-import com.dfire.common.vo.JobStatus;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.event.*;
 import com.dfire.core.event.base.ApplicationEvent;
 import com.dfire.core.event.base.Events;
 import com.dfire.core.job.CancelHadoopJob;
 import com.dfire.core.job.JobContext;
+import com.dfire.core.netty.master.ActionState;
 import com.dfire.core.netty.master.Master;
 import com.dfire.core.netty.master.MasterContext;
-import com.dfire.core.quartz.HeraQuartzJob;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.ScheduleLog;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import org.apache.commons.lang.StringUtils;
-import org.quartz.*;
+import org.joda.time.DateTime;
 
 import javax.mail.MessagingException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -61,6 +58,10 @@ public class JobHandler extends AbstractHandler {
     private MasterContext masterContext;
     private HeraUserService heraUserService;
     private HeraJobMonitorService heraJobMonitorService;
+    /**
+     * 最近一次登记到dispatcher路由的版本信息
+     */
+    private HeraActionVo routedActionVo;
 
     public JobHandler(String actionId, Master master, MasterContext masterContext) {
         this.actionId = actionId;
@@ -168,21 +169,13 @@ public class JobHandler extends AbstractHandler {
         }
 
         /**
-         * 如果是定时任务，启动定时程序,独立调度任务，创建quartz调度
+         * 如果是定时任务，启动定时程序,独立调度任务，登记到触发时间轮
          *
          */
-        HeraActionVo heraActionVo = cache.getHeraActionVo();
+        HeraActionVo heraActionVo = getHeraActionVo();
         boolean isSchedule = heraActionVo.getAuto() && Objects.equals(heraActionVo.getScheduleType(), JobScheduleTypeEnum.Independent);
         if (isSchedule) {
-            try {
-                createScheduleJob(masterContext.getDispatcher(), heraActionVo);
-            } catch (Exception e) {
-                if (e instanceof SchedulerException) {
-                    heraActionVo.setAuto(false);
-                    ErrorLog.error("create job quartz schedule error");
-                }
-                throw new RuntimeException(e);
-            }
+            createScheduleJob(heraActionVo);
         }
     }
 
@@ -197,7 +190,7 @@ public class JobHandler extends AbstractHandler {
             return;
         }
         String jobId = event.getJobId();
-        HeraActionVo heraActionVo = cache.getHeraActionVo();
+        HeraActionVo heraActionVo = getHeraActionVo();
         if (heraActionVo == null) {
             autoRecovery();
             return;
@@ -211,37 +204,26 @@ public class JobHandler extends AbstractHandler {
         if (heraActionVo.getDependencies() == null || !heraActionVo.getDependencies().contains(jobId)) {
             return;
         }
-        JobStatus jobStatus;
-        synchronized (this) {
-            jobStatus = heraJobActionService.findJobStatus(actionId);
-            HeraJobBean heraJobBean = heraGroupService.getUpstreamJobBean(actionId);
-            String cycle = heraJobBean.getHierarchyProperties().getProperty(RunningJobKeyConstant.DEPENDENCY_CYCLE);
-            if (StringUtils.isNotBlank(cycle)) {
-                Map<String, String> dependencies = jobStatus.getReadyDependency();
-                if (cycle.equals(RunningJobKeyConstant.DEPENDENCY_CYCLE_VALUE)) {
-                    SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
-                    String now = simpleDateFormat.format(new Date());
-                    for (String key : new HashSet<>(dependencies.keySet())) {
-                        String date = simpleDateFormat.format(new Date(Long.valueOf(dependencies.get(key))));
-                        if (!now.equals(date)) {
-                            jobStatus.getReadyDependency().remove(key);
-                            ScheduleLog.info("remove overwrite dependency");
-                        }
-                    }
+        ActionState state = master.getActionStates().get(Long.parseLong(actionId));
+        boolean allReady;
+        if (state != null) {
+            //今天的版本在内存中更新，异步写入数据库
+            allReady = markReady(state, jobId);
+            master.getReadyDependencyWriter().markDirty(state);
+        } else {
+            //不在内存中的版本，从数据库加载后同步写入
+            synchronized (this) {
+                HeraAction heraAction = heraJobActionService.findById(actionId);
+                if (heraAction == null) {
+                    return;
                 }
+                state = ActionState.of(heraAction);
+                allReady = markReady(state, jobId);
+                heraJobActionService.batchUpdateReadyDependency(Collections.singletonList(HeraAction.builder()
+                        .id(state.getId()).readyDependency(state.getReadyDependency()).build()));
             }
-            ScheduleLog.info("received a success dependency job with actionId = " + jobId);
-            jobStatus.getReadyDependency().put(jobId, String.valueOf(System.currentTimeMillis()));
-            heraJobActionService.updateStatus(jobStatus);
         }
-        boolean allComplete = true;
-        for (String key : heraActionVo.getDependencies()) {
-            if (jobStatus.getReadyDependency().get(key) == null) {
-                allComplete = false;
-                break;
-            }
-        }
-        if (allComplete) {
+        if (allReady) {
             ScheduleLog.info("JobId:" + jobId + " all dependency jobs is ready,run!");
             startNewJob(event.getTriggerType(), heraActionVo);
         } else {
@@ -249,6 +231,21 @@ public class JobHandler extends AbstractHandler {
         }
     }
 
+    /**
+     * 标记上游版本成功，依赖周期为当天时清除当天之前就绪的依赖
+     *
+     * @param state    当前版本的调度状态
+     * @param upstream 成功的上游版本id
+     * @return 本次标记之后所有依赖都已就绪，多个上游同时成功时只有一次返回true
+     */
+    private boolean markReady(ActionState state, String upstream) {
+        HeraJobBean heraJobBean = heraGroupService.getUpstreamJobBean(actionId);
+        String cycle = heraJobBean.getHierarchyProperties().getProperty(RunningJobKeyConstant.DEPENDENCY_CYCLE);
+        long clearBefore = RunningJobKeyConstant.DEPENDENCY_CYCLE_VALUE.equals(cycle) ? new DateTime().withTimeAtStartOfDay().getMillis() : 0;
+        ScheduleLog.info("received a success dependency job with actionId = " + upstream);
+        return state.markReadyAndCheck(Long.parseLong(upstream), System.currentTimeMillis(), clearBefore);
+    }
+
     private void startNewJob(TriggerTypeEnum triggerType, HeraActionVo heraActionVo) {
         HeraJobHistory history = HeraJobHistory.builder().
                 actionId(heraActionVo.getId()).
@@ -276,7 +273,7 @@ public class JobHandler extends AbstractHandler {
      */
     public void handleTriggerEvent(HeraScheduleTriggerEvent event) {
         String jobId = event.getJobId();
-        HeraActionVo heraActionVo = cache.getHeraActionVo();
+        HeraActionVo heraActionVo = getHeraActionVo();
         if (heraActionVo == null) {
             autoRecovery();
             return;
@@ -301,9 +298,24 @@ public class JobHandler extends AbstractHandler {
         master.run(BeanConvertUtils.convert(history));
     }
 
+    /**
+     * 读取版本缓存，依赖关系变化时同步更新dispatcher的路由索引
+     *
+     * @return HeraActionVo
+     */
+    private HeraActionVo getHeraActionVo() {
+        HeraActionVo heraActionVo = cache.getHeraActionVo();
+        if (heraActionVo != routedActionVo) {
+            routedActionVo = heraActionVo;
+            masterContext.getDispatcher().routeUpstream(this, heraActionVo == null ? null :
+                    (heraActionVo.getDependencies() == null ? Collections.emptyList() : heraActionVo.getDependencies()));
+        }
+        return heraActionVo;
+    }
+
     private void autoRecovery() {
         cache.refresh();
-        HeraActionVo heraActionVo = cache.getHeraActionVo();
+        HeraActionVo heraActionVo = getHeraActionVo();
         //任务被删除
         if (heraActionVo == null) {
             masterContext.getDispatcher().removeJobHandler(this);
@@ -319,17 +331,13 @@ public class JobHandler extends AbstractHandler {
 
         /**
          * 如果是依赖任务 原来可能是独立任务，需要尝试删除原来的定时调度
-         * 如果是独立任务,则重新创建quartz调度
+         * 如果是独立任务,则重新登记触发
          *
          */
         if (heraActionVo.getScheduleType() == JobScheduleTypeEnum.Dependent) {
             destroy();
         } else if (heraActionVo.getScheduleType() == JobScheduleTypeEnum.Independent) {
-            try {
-                createScheduleJob(masterContext.getDispatcher(), heraActionVo);
-            } catch (SchedulerException e) {
-                e.printStackTrace();
-            }
+            createScheduleJob(heraActionVo);
         }
     }
 
@@ -350,7 +358,7 @@ public class JobHandler extends AbstractHandler {
      */
     private void handleLostEvent(HeraJobLostEvent event) {
         if (event.getType() == Events.UpdateJob && actionId.equals(event.getJobId())) {
-            HeraActionVo heraActionVo = cache.getHeraActionVo();
+            HeraActionVo heraActionVo = getHeraActionVo();
             if (heraActionVo != null) {
                 HeraAction heraAction = heraJobActionService.findById(actionId);
 
@@ -375,24 +383,16 @@ public class JobHandler extends AbstractHandler {
     }
 
     /**
-     * 创建定时任务
+     * 创建定时任务，触发时间就是版本号中的时间
      *
-     * @param dispatcher   the scheduler
      * @param heraActionVo the job name
      */
 
-    private void createScheduleJob(Dispatcher dispatcher, HeraActionVo heraActionVo) throws SchedulerException {
+    private void createScheduleJob(HeraActionVo heraActionVo) {
         if (!ActionUtil.isCurrActionVersion(actionId)) {
             return;
         }
-        JobKey jobKey = new JobKey(actionId, Constants.HERA_GROUP);
-        if (masterContext.getQuartzSchedulerService().getScheduler().getJobDetail(jobKey) == null) {
-            JobDetail jobDetail = JobBuilder.newJob(HeraQuartzJob.class).withIdentity(jobKey).build();
-            jobDetail.getJobDataMap().put("actionId", heraActionVo.getId());
-            jobDetail.getJobDataMap().put("dispatcher", dispatcher);
-            CronScheduleBuilder scheduleBuilder = CronScheduleBuilder.cronSchedule(heraActionVo.getCronExpression().trim());
-            CronTrigger trigger = TriggerBuilder.newTrigger().withIdentity(actionId, Constants.HERA_GROUP).withSchedule(scheduleBuilder).build();
-            masterContext.getQuartzSchedulerService().getScheduler().scheduleJob(jobDetail, trigger);
+        if (masterContext.getTriggerWheel().schedule(heraActionVo.getId())) {
             ScheduleLog.info("--------------------------- 添加自动调度成功:{}--------------------------", heraActionVo.getId());
         }
     }
@@ -400,7 +400,9 @@ public class JobHandler extends AbstractHandler {
 
     @Override
     public void destroy() {
-        masterContext.getQuartzSchedulerService().deleteJob(actionId);
+        if (masterContext.getTriggerWheel().cancel(actionId)) {
+            ScheduleLog.warn("remove action {} from trigger wheel", actionId);
+        }
     }
 
     @Override
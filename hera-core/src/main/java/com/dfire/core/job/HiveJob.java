@@ -97,8 +97,7 @@ public class HiveJob extends ProcessJob {
         }
 
         if (isDocToUnix) {
-            list.add("dos2unix " + hiveFilePath);
-            log("dos2unix file" + hiveFilePath);
+            dos2unix(hiveFilePath, list);
         }
 
         sb.append(" -f ").append(hiveFilePath);
@@ -125,10 +124,10 @@ public class HiveJob extends ProcessJob {
                         }
                     }
                 }
-                list.add("chmod -R 777 " + jobContext.getWorkDir());
+                changeFileAuthority(jobContext.getWorkDir(), list);
                 list.add(shellPrefix + " sh " + tmpFilePath);
             } else {
-                list.add("chmod -R 777 " + jobContext.getWorkDir());
+                changeFileAuthority(jobContext.getWorkDir(), list);
                 list.add(shellPrefix + " hive " + sb.toString());
             }
 
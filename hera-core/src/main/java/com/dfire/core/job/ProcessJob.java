@@ -5,6 +5,7 @@ import com.dfire.common.constants.Constants;
 import com.dfire.common.util.HierarchyProperties;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.HeraCaughtExceptionHandler;
+import com.dfire.core.util.CommandUtils;
 import com.dfire.logs.HeraLog;
 import com.dfire.logs.TaskLog;
 
@@ -66,21 +67,10 @@ public abstract class ProcessJob extends AbstractJob implements Job {
             } else {
                 threadName = "not-normal-job";
             }
-            CountDownLatch latch = new CountDownLatch(2);
-            Thread inputThread = new StreamThread(process.getInputStream(), threadName, latch);
-            Thread outputThread = new StreamThread(process.getErrorStream(), threadName, latch);
-            inputThread.setUncaughtExceptionHandler(new HeraCaughtExceptionHandler());
-            outputThread.setUncaughtExceptionHandler(new HeraCaughtExceptionHandler());
-            inputThread.start();
-            outputThread.start();
-            try {
-                exitCode = process.waitFor();
-                latch.await();
-            } catch (InterruptedException e) {
-                exitCode = Constants.INTERRUPTED_EXIT_CODE;
-                log(e);
-            } finally {
-                process = null;
+            if (HeraGlobalEnvironment.isReactorProcessOutput()) {
+                waitForReactor(threadName);
+            } else {
+                waitForStreamThreads(threadName);
             }
             if (exitCode != 0) {
                 return exitCode;
@@ -89,6 +79,87 @@ public abstract class ProcessJob extends AbstractJob implements Job {
         return exitCode;
     }
 
+    /**
+     * 转换脚本的换行符，快速启动时在JVM内完成，否则(或JVM内转换失败时)添加dos2unix命令
+     *
+     * @param filePath 脚本路径
+     * @param commands 命令集合
+     */
+    protected void dos2unix(String filePath, List<String> commands) {
+        if (HeraGlobalEnvironment.isFastLaunch()) {
+            try {
+                CommandUtils.dos2unix(new File(filePath));
+                log("dos2unix file:" + filePath);
+                return;
+            } catch (IOException e) {
+                log(e);
+            }
+        }
+        commands.add("dos2unix " + filePath);
+        log("dos2unix file:" + filePath);
+    }
+
+    /**
+     * 修改工作目录权限，快速启动时在JVM内完成，否则(或JVM内修改失败时)添加chmod命令
+     *
+     * @param dir      工作目录
+     * @param commands 命令集合
+     */
+    protected void changeFileAuthority(String dir, List<String> commands) {
+        if (HeraGlobalEnvironment.isFastLaunch()) {
+            try {
+                CommandUtils.changeFileAuthority(new File(dir));
+                return;
+            } catch (IOException e) {
+                log(e);
+            }
+        }
+        commands.add(CommandUtils.changeFileAuthority(dir));
+    }
+
+    /**
+     * 由ProcessOutputReactor的轮询线程读取输出，当前线程写入日志，直到输出读完并且进程退出
+     * 当前线程仍然阻塞等待，每个运行中的任务占用一个线程；子进程退出后其后台进程的输出管道会被关闭，见ProcessOutputReactor
+     */
+    private void waitForReactor(String threadName) {
+        ProcessOutput output = ProcessOutputReactor.getInstance().register(process);
+        try {
+            output.drain(this::logConsole);
+            exitCode = process.waitFor();
+            if (output.getError() != null) {
+                HeraLog.error("接受日志异常:{}", output.getError());
+                log(threadName + ": 接收日志出错，退出日志接收");
+            }
+        } catch (InterruptedException e) {
+            output.cancel();
+            exitCode = Constants.INTERRUPTED_EXIT_CODE;
+            log(e);
+        } finally {
+            process = null;
+        }
+    }
+
+    /**
+     * 每个子进程启动两个线程分别读取stdout、stderr
+     */
+    private void waitForStreamThreads(String threadName) {
+        CountDownLatch latch = new CountDownLatch(2);
+        Thread inputThread = new StreamThread(process.getInputStream(), threadName, latch);
+        Thread outputThread = new StreamThread(process.getErrorStream(), threadName, latch);
+        inputThread.setUncaughtExceptionHandler(new HeraCaughtExceptionHandler());
+        outputThread.setUncaughtExceptionHandler(new HeraCaughtExceptionHandler());
+        inputThread.start();
+        outputThread.start();
+        try {
+            exitCode = process.waitFor();
+            latch.await();
+        } catch (InterruptedException e) {
+            exitCode = Constants.INTERRUPTED_EXIT_CODE;
+            log(e);
+        } finally {
+            process = null;
+        }
+    }
 
     /**
      * @param command
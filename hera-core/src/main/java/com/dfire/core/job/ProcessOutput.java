@@ -0,0 +1,101 @@
+package com.dfire.core.job;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 一个子进程的输出缓冲，由ProcessOutputReactor写入，执行任务的线程读取
+ * 缓冲的行数达到上限时reactor暂停读取该进程的输出，子进程写满管道后阻塞，以此实现背压
+ *
+ * @author xiaosuda
+ * @date 2018/12/18
+ */
+public class ProcessOutput {
+
+    private final LinkedBlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    private final int capacity;
+
+    /**
+     * 还没有读完的管道数
+     */
+    private final AtomicInteger openPipes;
+
+    private volatile boolean closed;
+
+    private volatile boolean cancelled;
+
+    private volatile Exception error;
+
+    ProcessOutput(int capacity, int pipes) {
+        this.capacity = capacity;
+        this.openPipes = new AtomicInteger(pipes);
+    }
+
+    /**
+     * 读取子进程的输出直到所有管道读完
+     *
+     * @param consumer 每一行输出的处理
+     * @throws InterruptedException 等待时被中断，调用方需要cancel
+     */
+    public void drain(Consumer<String> consumer) throws InterruptedException {
+        while (true) {
+            String line = lines.poll(100, TimeUnit.MILLISECONDS);
+            if (line != null) {
+                consumer.accept(line);
+            } else if (closed && lines.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 不再读取子进程的输出，reactor会关闭该进程的管道
+     */
+    public void cancel() {
+        cancelled = true;
+        closed = true;
+        lines.clear();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return 读取输出时的异常，没有异常时为null
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public int buffered() {
+        return lines.size();
+    }
+
+    boolean isFull() {
+        return lines.size() >= capacity;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void offer(String line) {
+        if (!cancelled) {
+            lines.offer(line);
+        }
+    }
+
+    void fail(Exception e) {
+        error = e;
+    }
+
+    void pipeClosed() {
+        if (openPipes.decrementAndGet() == 0) {
+            closed = true;
+        }
+    }
+}
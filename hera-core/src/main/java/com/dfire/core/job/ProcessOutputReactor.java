@@ -0,0 +1,281 @@
+package com.dfire.core.job;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.core.config.HeraGlobalEnvironment;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 子进程输出的收集：固定数量的线程轮询所有子进程的stdout、stderr，替代每个子进程两个阻塞读的线程
+ * jdk8的Process管道不支持非阻塞读，每次只读取available()返回的字节数，保证轮询线程不会阻塞在某一个管道上；
+ * 进程退出并且管道中没有剩余数据时认为读完
+ * <p>
+ * 与每个任务两个线程(thread方式)的区别：jdk8的UNIXProcess在子进程退出时由reaper线程读出管道中剩余的数据并关闭管道的读端，
+ * thread方式下读线程阻塞在read上，reaper要等读线程返回才能关闭；reactor方式从不阻塞在read上，子进程退出后管道立即被关闭。
+ * 脚本中放到后台、比脚本活得更久的孙子进程继续写stdout/stderr时会收到SIGPIPE(或EPIPE)，它们的输出也不会出现在任务日志中。
+ * 关闭由jdk完成，这里无法在不阻塞线程的情况下继续读到EOF，需要后台进程的脚本应把输出重定向到文件，或者使用thread方式
+ *
+ * @author xiaosuda
+ * @date 2018/12/18
+ */
+public class ProcessOutputReactor {
+
+    /**
+     * 每个子进程最多缓冲的行数
+     */
+    public static final int DEFAULT_LINE_CAPACITY = 10000;
+
+    /**
+     * 单行的最大字节数，超过时拆成多行，避免没有换行符的输出占用过多内存
+     */
+    private static final int MAX_LINE_BYTES = 1 << 20;
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /**
+     * 一轮轮询没有读到数据时的等待时间
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static volatile ProcessOutputReactor instance;
+
+    private final Poller[] pollers;
+
+    private final int lineCapacity;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger openPipes = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    public static ProcessOutputReactor getInstance() {
+        if (instance == null) {
+            synchronized (ProcessOutputReactor.class) {
+                if (instance == null) {
+                    instance = new ProcessOutputReactor("process-output", HeraGlobalEnvironment.getProcessOutputThreads(), DEFAULT_LINE_CAPACITY);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param name         线程名前缀
+     * @param threads      轮询线程数
+     * @param lineCapacity 每个子进程最多缓冲的行数
+     */
+    public ProcessOutputReactor(String name, int threads, int lineCapacity) {
+        if (threads <= 0 || lineCapacity <= 0) {
+            throw new IllegalArgumentException("threads and lineCapacity must be positive");
+        }
+        this.lineCapacity = lineCapacity;
+        NamedThreadFactory threadFactory = new NamedThreadFactory(name, true);
+        pollers = new Poller[threads];
+        for (int i = 0; i < threads; i++) {
+            pollers[i] = new Poller();
+            threadFactory.newThread(pollers[i]).start();
+        }
+        HeraLog.info("process output reactor started with {} threads", threads);
+        HeraLog.warn("process output reactor: pipes of a job are closed when its process exits, background processes "
+                + "started by the job get SIGPIPE when writing stdout/stderr afterwards, redirect their output or set hera.processOutputMode to thread");
+    }
+
+    /**
+     * 登记子进程，之后由轮询线程读取它的stdout和stderr
+     *
+     * @param process 子进程
+     * @return 子进程的输出缓冲
+     */
+    public ProcessOutput register(Process process) {
+        if (shutdown) {
+            throw new IllegalStateException("process output reactor is shutdown");
+        }
+        ProcessOutput output = new ProcessOutput(lineCapacity, 2);
+        openPipes.addAndGet(2);
+        Poller poller = pollers[(next.getAndIncrement() & Integer.MAX_VALUE) % pollers.length];
+        poller.added.offer(new Pipe(process, process.getInputStream(), output));
+        poller.added.offer(new Pipe(process, process.getErrorStream(), output));
+        return output;
+    }
+
+    /**
+     * @return 正在读取的管道数
+     */
+    public int pipes() {
+        return openPipes.get();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    private final class Poller implements Runnable {
+
+        private final LinkedBlockingQueue<Pipe> added = new LinkedBlockingQueue<>();
+
+        private final List<Pipe> pipes = new ArrayList<>();
+
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                try {
+                    if (pipes.isEmpty()) {
+                        Pipe pipe = added.poll(1, TimeUnit.SECONDS);
+                        if (pipe == null) {
+                            continue;
+                        }
+                        pipes.add(pipe);
+                    }
+                    added.drainTo(pipes);
+                    if (!poll()) {
+                        LockSupport.parkNanos(IDLE_NANOS);
+                    }
+                } catch (InterruptedException e) {
+                    ErrorLog.warn("process output reactor interrupted, pipes:{}", pipes.size());
+                    break;
+                } catch (Exception e) {
+                    ErrorLog.error("process output reactor error", e);
+                }
+            }
+            pipes.forEach(Pipe::close);
+        }
+
+        /**
+         * 轮询一遍所有管道
+         *
+         * @return 是否读到了数据
+         */
+        private boolean poll() {
+            boolean progress = false;
+            for (Iterator<Pipe> iterator = pipes.iterator(); iterator.hasNext(); ) {
+                Pipe pipe = iterator.next();
+                int read;
+                try {
+                    read = pipe.read(buffer);
+                } catch (Exception e) {
+                    pipe.output.fail(e);
+                    read = -1;
+                }
+                if (read < 0) {
+                    openPipes.decrementAndGet();
+                    pipe.close();
+                    iterator.remove();
+                } else if (read > 0) {
+                    progress = true;
+                }
+            }
+            return progress;
+        }
+    }
+
+    private static final class Pipe {
+
+        private final Process process;
+
+        private final InputStream inputStream;
+
+        private final ProcessOutput output;
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+        /**
+         * 上一个字符是'\r'，紧跟的'\n'不再作为换行
+         */
+        private boolean skipLf;
+
+        private Pipe(Process process, InputStream inputStream, ProcessOutput output) {
+            this.process = process;
+            this.inputStream = inputStream;
+            this.output = output;
+        }
+
+        /**
+         * 读取管道中已有的数据，不会阻塞
+         *
+         * @return 读取的字节数，-1表示已经读完
+         */
+        private int read(byte[] buffer) throws IOException {
+            if (output.isCancelled()) {
+                return -1;
+            }
+            if (output.isFull()) {
+                return 0;
+            }
+            int available = inputStream.available();
+            if (available <= 0) {
+                if (process.isAlive()) {
+                    return 0;
+                }
+                // 进程已经退出，它写入的数据都已经在管道中，再确认一次
+                available = inputStream.available();
+                if (available <= 0) {
+                    endOfStream();
+                    return -1;
+                }
+            }
+            int read = inputStream.read(buffer, 0, Math.min(available, buffer.length));
+            if (read < 0) {
+                endOfStream();
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (b == '\n') {
+                    if (skipLf) {
+                        skipLf = false;
+                    } else {
+                        endLine();
+                    }
+                } else if (b == '\r') {
+                    endLine();
+                    skipLf = true;
+                } else {
+                    skipLf = false;
+                    line.write(b);
+                    if (line.size() >= MAX_LINE_BYTES) {
+                        endLine();
+                    }
+                }
+            }
+            return read;
+        }
+
+        private void endLine() {
+            output.offer(new String(line.toByteArray(), StandardCharsets.UTF_8));
+            line.reset();
+        }
+
+        /**
+         * 最后一行没有换行符时也作为一行
+         */
+        private void endOfStream() {
+            if (line.size() > 0) {
+                endLine();
+            }
+        }
+
+        private void close() {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                ErrorLog.warn("close process output error:{}", e.getMessage());
+            }
+            output.pipeClosed();
+        }
+    }
+}
@@ -93,8 +93,7 @@ public class ShellJob extends ProcessJob {
         }
 
         if (isDocToUnix) {
-            list.add("dos2unix " + shellFilePath);
-            log("dos2unix file:" + shellFilePath);
+            dos2unix(shellFilePath, list);
         }
 
         if (shellPrefix.trim().length() > 0) {
@@ -122,7 +121,7 @@ public class ShellJob extends ProcessJob {
                     }
                 }
             }
-            list.add(CommandUtils.changeFileAuthority(jobContext.getWorkDir()));
+            changeFileAuthority(jobContext.getWorkDir(), list);
             list.add(CommandUtils.getRunShCommand(shellPrefix, tmpFilePath));
         } else {
             list.add("sh " + shellFilePath);
@@ -96,8 +96,7 @@ public class SparkJob extends ProcessJob {
         }
 
         if (isDocToUnix) {
-            list.add("dos2unix " + sparkFilePath);
-            log("dos2unix file" + sparkFilePath);
+            dos2unix(sparkFilePath, list);
         }
 
         sb.append(" -f " + sparkFilePath + " " +
@@ -129,10 +128,10 @@ public class SparkJob extends ProcessJob {
                        }
                    }
                 }
-                list.add("chmod -R 777 " + jobContext.getWorkDir());
+                changeFileAuthority(jobContext.getWorkDir(), list);
                 list.add(shellPrefix + " sh " + tmpFilePath);
             } else {
-                list.add("chmod -R 777 " + jobContext.getWorkDir());
+                changeFileAuthority(jobContext.getWorkDir(), list);
                 list.add(shellPrefix + " /opt/app/spark231/bin/spark-sql " + sb.toString());
             }
 
@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -21,11 +21,14 @@ public class HeartBeatInfo {
 
     private Float memRate;
 
-    private List<String> running;
+    /**
+     * master端为心跳集合的只读视图，随增量心跳更新
+     */
+    private Collection<String> running;
 
-    private List<String> manualRunning;
+    private Collection<String> manualRunning;
 
-    private List<String> debugRunning;
+    private Collection<String> debugRunning;
 
     private Long timestamp;
 
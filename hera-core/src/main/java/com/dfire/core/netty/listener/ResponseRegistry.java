@@ -0,0 +1,106 @@
+package com.dfire.core.netty.listener;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.ErrorLog;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author xiaosuda
+ * @date 2018/12/3
+ * @desc 按request id登记等待中的请求，response到达时O(1)找到对应的future并完成，
+ * 超时由时间轮统一处理，不需要为每个请求占用一个等待线程
+ */
+public class ResponseRegistry<T> {
+
+    private static final HashedWheelTimer TIMEOUT_TIMER = new HashedWheelTimer(
+            new NamedThreadFactory("response-timeout", true), 100, TimeUnit.MILLISECONDS, 512);
+
+    private final Map<Integer, PendingResponse<T>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 登记一个请求，需要在发送请求之前调用，避免response先于登记到达
+     *
+     * @param rid      request id
+     * @param timeout  超时时间
+     * @param unit     时间单位
+     * @param errorMsg 超时时打印的信息
+     * @return 收到response时完成的future，超时则以TimeoutException异常完成
+     */
+    public CompletableFuture<T> register(int rid, long timeout, TimeUnit unit, String errorMsg) {
+        PendingResponse<T> response = new PendingResponse<>();
+        PendingResponse<T> old = pending.put(rid, response);
+        if (old != null) {
+            old.fail(new IllegalStateException("duplicate request id " + rid));
+        }
+        response.timeout = TIMEOUT_TIMER.newTimeout(t -> {
+            if (pending.remove(rid, response)) {
+                ErrorLog.error(errorMsg);
+                response.future.completeExceptionally(new TimeoutException(errorMsg));
+            }
+        }, timeout, unit);
+        return response.future;
+    }
+
+    /**
+     * 收到response时调用
+     *
+     * @param rid      request id
+     * @param response response
+     * @return 是否有等待该response的请求
+     */
+    public boolean complete(int rid, T response) {
+        PendingResponse<T> pendingResponse = pending.remove(rid);
+        if (pendingResponse == null) {
+            return false;
+        }
+        pendingResponse.cancelTimeout();
+        pendingResponse.future.complete(response);
+        return true;
+    }
+
+    /**
+     * 请求发送失败等情况，直接以异常结束等待
+     *
+     * @param rid   request id
+     * @param cause 异常
+     * @return 是否有等待该response的请求
+     */
+    public boolean fail(int rid, Throwable cause) {
+        PendingResponse<T> pendingResponse = pending.remove(rid);
+        if (pendingResponse == null) {
+            return false;
+        }
+        pendingResponse.fail(cause);
+        return true;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private static class PendingResponse<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private volatile Timeout timeout;
+
+        private void cancelTimeout() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+
+        private void fail(Throwable cause) {
+            cancelTimeout();
+            future.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.constants.Constants;
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.enums.StatusEnum;
+import com.dfire.common.util.StringUtil;
+import com.dfire.logs.ErrorLog;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * master内存中版本的调度状态，只保存调度需要的少量可变信息，完整的HeraAction需要时从数据库加载
+ * 状态、历史id等字段可以被多个线程并发读写，依赖就绪信息的读写在对象锁内完成
+ * 重新生成版本时在原对象上刷新，不替换对象，并发的依赖就绪标记、重试次数和worker不会丢失
+ *
+ * @author xiaosuda
+ * @date 2018/12/17
+ */
+public class ActionState {
+
+    private static final String[] STATUS = {null, Constants.STATUS_NONE, StatusEnum.WAIT.toString(),
+            Constants.STATUS_RUNNING, Constants.STATUS_SUCCESS, Constants.STATUS_FAILED};
+
+    private static final long[] NO_DEPENDENCIES = new long[0];
+
+    private final long id;
+
+    private volatile boolean auto;
+
+    /**
+     * 上游依赖的版本id，顺序与hera_action.dependencies一致，刷新时在对象锁内整体替换
+     */
+    private volatile long[] dependencies;
+
+    /**
+     * readyTime[i]大于0表示dependencies[i]已经执行成功，值为成功的时间，只在对象锁内读写
+     */
+    private long[] readyTime;
+
+    private volatile byte status;
+
+    /**
+     * 0表示没有执行记录
+     */
+    private volatile long historyId;
+
+    private volatile int retryCount;
+
+    private volatile MasterWorkHolder worker;
+
+    private ActionState(long id) {
+        this.id = id;
+        this.dependencies = NO_DEPENDENCIES;
+        this.readyTime = new long[0];
+    }
+
+    /**
+     * 根据数据库中的版本创建调度状态
+     *
+     * @param heraAction 版本
+     * @return 调度状态
+     */
+    public static ActionState of(HeraAction heraAction) {
+        ActionState state = new ActionState(heraAction.getId());
+        state.refresh(heraAction);
+        return state;
+    }
+
+    /**
+     * 重新生成版本时用数据库中的版本刷新依赖、状态和历史id，保留重试次数、执行的worker和内存中的依赖就绪信息
+     * 依赖就绪信息异步写入数据库，数据库中的可能不是最新的，合并时保留内存中已经就绪的依赖
+     * 与markReadyAndCheck在同一个锁内完成，刷新期间的就绪标记不会丢失
+     *
+     * @param heraAction 同一个版本在数据库中的记录
+     */
+    public synchronized void refresh(HeraAction heraAction) {
+        long[] dependencies = NO_DEPENDENCIES;
+        if (StringUtils.isNotBlank(heraAction.getDependencies())) {
+            String[] ids = heraAction.getDependencies().split(Constants.COMMA);
+            dependencies = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                dependencies[i] = Long.parseLong(ids[i].trim());
+            }
+        }
+        long[] readyTime = new long[dependencies.length];
+        Map<String, String> ready = dependencies.length > 0 && StringUtils.isNotBlank(heraAction.getReadyDependency())
+                ? StringUtil.convertStringToMap(heraAction.getReadyDependency()) : null;
+        for (int i = 0; i < dependencies.length; i++) {
+            String time = ready == null ? null : ready.get(String.valueOf(dependencies[i]));
+            if (time != null) {
+                readyTime[i] = StringUtils.isNumeric(time) && StringUtils.isNotEmpty(time) ? Long.parseLong(time) : 1L;
+            }
+            readyTime[i] = Math.max(readyTime[i], readyTimeOf(dependencies[i]));
+        }
+        this.readyTime = readyTime;
+        this.dependencies = dependencies;
+        this.auto = heraAction.getAuto() != null && heraAction.getAuto() == 1;
+        setStatus(heraAction.getStatus());
+        setHistoryId(heraAction.getHistoryId());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getJobId() {
+        return (int) (id % 1000000);
+    }
+
+    public boolean isAuto() {
+        return auto;
+    }
+
+    /**
+     * @return 上游依赖的版本id，调用方不能修改
+     */
+    public long[] getDependencies() {
+        return dependencies;
+    }
+
+    public String getStatus() {
+        return STATUS[status];
+    }
+
+    public void setStatus(String status) {
+        this.status = statusCode(status);
+    }
+
+    public boolean isStatus(String status) {
+        return this.status != 0 && this.status == statusCode(status);
+    }
+
+    public String getHistoryId() {
+        long historyId = this.historyId;
+        return historyId == 0 ? null : String.valueOf(historyId);
+    }
+
+    public void setHistoryId(String historyId) {
+        this.historyId = StringUtils.isNumeric(historyId) && StringUtils.isNotEmpty(historyId) ? Long.parseLong(historyId) : 0;
+    }
+
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
+    public MasterWorkHolder getWorker() {
+        return worker;
+    }
+
+    public void setWorker(MasterWorkHolder worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * 标记上游版本执行成功
+     *
+     * @param upstreamId 上游版本id
+     * @param time       成功的时间
+     * @return 上游版本不是该版本的依赖时返回false
+     */
+    public synchronized boolean markReady(long upstreamId, long time) {
+        boolean found = false;
+        for (int i = 0; i < dependencies.length; i++) {
+            if (dependencies[i] == upstreamId) {
+                readyTime[i] = time;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 在同一个锁内清除过期的依赖、标记上游版本成功并检查依赖是否全部就绪
+     * 多个上游同时成功时只有最后标记的一次调用返回true，避免版本被重复触发
+     *
+     * @param upstreamId  上游版本id
+     * @param time        成功的时间
+     * @param clearBefore 清除该时间之前就绪的依赖，小于等于0时不清除
+     * @return 上游版本是该版本的依赖，并且本次标记之后所有依赖都已就绪
+     */
+    public synchronized boolean markReadyAndCheck(long upstreamId, long time, long clearBefore) {
+        if (clearBefore > 0) {
+            clearReadyBefore(clearBefore);
+        }
+        return markReady(upstreamId, time) && isAllReady();
+    }
+
+    public synchronized boolean isAllReady() {
+        for (long time : readyTime) {
+            if (time == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void clearReady() {
+        for (int i = 0; i < readyTime.length; i++) {
+            readyTime[i] = 0;
+        }
+    }
+
+    /**
+     * 清除time之前就绪的依赖，用于只认当天成功的依赖周期
+     */
+    public synchronized void clearReadyBefore(long time) {
+        for (int i = 0; i < readyTime.length; i++) {
+            if (readyTime[i] < time) {
+                readyTime[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return hera_action.ready_dependency的json格式：上游版本id -> 成功时间
+     */
+    public synchronized String getReadyDependency() {
+        Map<String, String> ready = new TreeMap<>();
+        for (int i = 0; i < dependencies.length; i++) {
+            if (readyTime[i] > 0) {
+                ready.put(String.valueOf(dependencies[i]), String.valueOf(readyTime[i]));
+            }
+        }
+        return StringUtil.convertMapToString(ready);
+    }
+
+    private synchronized long readyTimeOf(long upstreamId) {
+        for (int i = 0; i < dependencies.length; i++) {
+            if (dependencies[i] == upstreamId) {
+                return readyTime[i];
+            }
+        }
+        return 0;
+    }
+
+    private static byte statusCode(String status) {
+        if (status == null) {
+            return 0;
+        }
+        for (byte i = 1; i < STATUS.length; i++) {
+            if (STATUS[i].equals(status)) {
+                return i;
+            }
+        }
+        ErrorLog.warn("未知的版本状态:{}", status);
+        return 0;
+    }
+}
@@ -0,0 +1,317 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * 版本id -> 调度状态的并发哈希表，key使用原始long类型，避免Long装箱
+ * 按哈希值分段加锁，每段是一个开放寻址(线性探测)的哈希表；读操作使用乐观读不加锁，写操作只锁所在的段
+ *
+ * @author xiaosuda
+ * @date 2018/12/17
+ */
+public class ActionStateTable {
+
+    /**
+     * 版本id不会为0，用0表示空槽
+     */
+    private static final long EMPTY = 0L;
+
+    private static final int STRIPES = 16;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ActionStateTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public ActionState get(long id) {
+        int hash = hash(id);
+        return stripe(hash).get(id, hash);
+    }
+
+    public boolean contains(long id) {
+        return get(id) != null;
+    }
+
+    /**
+     * @return 该版本之前的状态，没有时返回null
+     */
+    public ActionState put(ActionState state) {
+        if (state.getId() == EMPTY) {
+            throw new IllegalArgumentException("action id can not be " + EMPTY);
+        }
+        int hash = hash(state.getId());
+        return stripe(hash).put(state.getId(), hash, state);
+    }
+
+    /**
+     * @return 已经存在时返回已有的状态并且不替换，否则返回null
+     */
+    public ActionState putIfAbsent(ActionState state) {
+        if (state.getId() == EMPTY) {
+            throw new IllegalArgumentException("action id can not be " + EMPTY);
+        }
+        int hash = hash(state.getId());
+        return stripe(hash).putIfAbsent(state.getId(), hash, state);
+    }
+
+    /**
+     * 用数据库中的版本更新调度状态，已经存在时在原对象上刷新，不存在时创建
+     *
+     * @return 更新后的状态
+     */
+    public ActionState refresh(HeraAction heraAction) {
+        ActionState state = get(heraAction.getId());
+        if (state == null) {
+            state = ActionState.of(heraAction);
+            ActionState existing = putIfAbsent(state);
+            if (existing == null) {
+                return state;
+            }
+            state = existing;
+        }
+        state.refresh(heraAction);
+        return state;
+    }
+
+    public ActionState remove(long id) {
+        int hash = hash(id);
+        return stripe(hash).remove(id, hash);
+    }
+
+    /**
+     * 删除满足条件的版本
+     *
+     * @return 删除的个数
+     */
+    public int removeIf(LongPredicate filter) {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            for (ActionState state : stripe.values()) {
+                if (filter.test(state.getId()) && stripe.remove(state.getId(), hash(state.getId())) != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 遍历所有版本，遍历的是每一段的快照，遍历过程中的修改可能不可见
+     */
+    public void forEach(Consumer<ActionState> action) {
+        for (Stripe stripe : stripes) {
+            for (ActionState state : stripe.values()) {
+                action.accept(state);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes[(hash >>> 28) & (STRIPES - 1)];
+    }
+
+    /**
+     * 版本id的低位是任务id，高位是时间，打散后再取模
+     */
+    private static int hash(long id) {
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        id ^= id >>> 33;
+        return (int) id;
+    }
+
+    private static final class Slots {
+
+        private final long[] keys;
+
+        private final ActionState[] values;
+
+        private final int mask;
+
+        private Slots(int capacity) {
+            keys = new long[capacity];
+            values = new ActionState[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * 装载因子不超过0.5，一定存在空槽，查找最多遍历一次整个数组
+         */
+        private int indexOf(long id, int hash) {
+            for (int i = hash & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                long key = keys[i];
+                if (key == id) {
+                    return i;
+                }
+                if (key == EMPTY) {
+                    return -1 - i;
+                }
+            }
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+
+        private Slots slots = new Slots(INITIAL_CAPACITY);
+
+        private int size;
+
+        private ActionState get(long id, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            ActionState state = find(slots, id, hash);
+            if (lock.validate(stamp)) {
+                return state;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(slots, id, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static ActionState find(Slots slots, long id, int hash) {
+            int index = slots.indexOf(id, hash);
+            return index >= 0 ? slots.values[index] : null;
+        }
+
+        private ActionState put(long id, int hash, ActionState state) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(id, hash);
+                if (index >= 0) {
+                    ActionState previous = slots.values[index];
+                    slots.values[index] = state;
+                    return previous;
+                }
+                index = -1 - index;
+                slots.values[index] = state;
+                slots.keys[index] = id;
+                if (++size > (slots.mask + 1) >> 1) {
+                    resize();
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private ActionState putIfAbsent(long id, int hash, ActionState state) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(id, hash);
+                if (index >= 0) {
+                    return slots.values[index];
+                }
+                index = -1 - index;
+                slots.values[index] = state;
+                slots.keys[index] = id;
+                if (++size > (slots.mask + 1) >> 1) {
+                    resize();
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize() {
+            Slots old = slots;
+            Slots resized = new Slots((old.mask + 1) << 1);
+            for (int i = 0; i <= old.mask; i++) {
+                if (old.keys[i] != EMPTY) {
+                    int index = -1 - resized.indexOf(old.keys[i], hash(old.keys[i]));
+                    resized.keys[index] = old.keys[i];
+                    resized.values[index] = old.values[i];
+                }
+            }
+            slots = resized;
+        }
+
+        /**
+         * 删除后把后面同一探测序列上的元素前移，不使用删除标记
+         */
+        private ActionState remove(long id, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                int index = slots.indexOf(id, hash);
+                if (index < 0) {
+                    return null;
+                }
+                long[] keys = slots.keys;
+                ActionState[] values = slots.values;
+                int mask = slots.mask;
+                ActionState previous = values[index];
+                int hole = index;
+                for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                    int ideal = hash(keys[i]) & mask;
+                    // ideal不在(hole, i]之间时可以移动到hole
+                    boolean movable = hole <= i ? (ideal <= hole || ideal > i) : (ideal <= hole && ideal > i);
+                    if (movable) {
+                        keys[hole] = keys[i];
+                        values[hole] = values[i];
+                        hole = i;
+                    }
+                }
+                keys[hole] = EMPTY;
+                values[hole] = null;
+                size--;
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private List<ActionState> values() {
+            long stamp = lock.readLock();
+            try {
+                List<ActionState> values = new ArrayList<>(size);
+                for (ActionState state : slots.values) {
+                    if (state != null) {
+                        values.add(state);
+                    }
+                }
+                return values;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
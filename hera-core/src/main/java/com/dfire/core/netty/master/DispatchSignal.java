@@ -0,0 +1,53 @@
+package com.dfire.core.netty.master;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 唤醒等待队列扫描线程的信号：任务入队、worker释放资源或收到心跳时发出
+ * 扫描线程没有在等待时发出的信号会保留到下一次等待，多次信号合并为一次
+ *
+ * @author xiaosuda
+ * @date 2018/12/17
+ */
+public class DispatchSignal {
+
+    private final AtomicBoolean signaled = new AtomicBoolean(false);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition condition = lock.newCondition();
+
+    public void signal() {
+        // 已经有未处理的信号时不再加锁
+        if (signaled.getAndSet(true)) {
+            return;
+        }
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待信号，最多等待timeout
+     *
+     * @return 是否收到信号，超时返回false
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!signaled.get() && nanos > 0) {
+                nanos = condition.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return signaled.getAndSet(false);
+    }
+}
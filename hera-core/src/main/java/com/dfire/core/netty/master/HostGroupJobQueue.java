@@ -0,0 +1,206 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.core.queue.JobElement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按机器组分区的任务等待队列，每个机器组一个子队列，入队、出队和删除时同步更新JobStateIndex
+ * 分发时各个机器组独立轮询，某个机器组没有可用worker时不会阻塞其它机器组的任务
+ *
+ * @author xiaosuda
+ * @date 2018/12/16
+ */
+public class HostGroupJobQueue extends AbstractQueue<JobElement> {
+
+    private final Map<Integer, Queue<JobElement>> partitions = new ConcurrentHashMap<>();
+
+    private final Supplier<Queue<JobElement>> partitionFactory;
+
+    private final JobStateIndex index;
+
+    /**
+     * JobElement的id -> 索引中的任务id
+     */
+    private final Function<String, Integer> idFunction;
+
+    /**
+     * 任务入队后唤醒扫描线程
+     */
+    private final DispatchSignal signal;
+
+    /**
+     * 轮询的起始位置，每次获取机器组时后移一位
+     */
+    private int cursor;
+
+    public HostGroupJobQueue(Supplier<Queue<JobElement>> partitionFactory, JobStateIndex index, Function<String, Integer> idFunction,
+                             DispatchSignal signal) {
+        this.partitionFactory = partitionFactory;
+        this.index = index;
+        this.idFunction = idFunction;
+        this.signal = signal;
+    }
+
+    /**
+     * 先登记索引再入队，检测时不会出现在队列中但索引中不存在的情况
+     */
+    @Override
+    public boolean offer(JobElement jobElement) {
+        Integer id = idOf(jobElement);
+        if (id != null) {
+            index.enqueue(id);
+        }
+        if (partitions.computeIfAbsent(jobElement.getHostGroupId(), key -> partitionFactory.get()).offer(jobElement)) {
+            signal.signal();
+            return true;
+        }
+        if (id != null) {
+            index.dequeue(id);
+        }
+        return false;
+    }
+
+    /**
+     * 从排在最前面的机器组中取出任务
+     */
+    @Override
+    public JobElement poll() {
+        for (Integer hostGroupId : hostGroups()) {
+            JobElement jobElement = poll(hostGroupId);
+            if (jobElement != null) {
+                return jobElement;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public JobElement peek() {
+        for (Integer hostGroupId : hostGroups()) {
+            JobElement jobElement = peek(hostGroupId);
+            if (jobElement != null) {
+                return jobElement;
+            }
+        }
+        return null;
+    }
+
+    public JobElement poll(Integer hostGroupId) {
+        Queue<JobElement> partition = partitions.get(hostGroupId);
+        if (partition == null) {
+            return null;
+        }
+        JobElement jobElement = partition.poll();
+        dequeue(jobElement);
+        return jobElement;
+    }
+
+    public JobElement peek(Integer hostGroupId) {
+        Queue<JobElement> partition = partitions.get(hostGroupId);
+        return partition == null ? null : partition.peek();
+    }
+
+    /**
+     * 从机器组的队列中删除指定的任务
+     *
+     * @return 任务已经被其它线程取出时返回false
+     */
+    public boolean remove(Integer hostGroupId, JobElement jobElement) {
+        Queue<JobElement> partition = partitions.get(hostGroupId);
+        if (partition != null && partition.remove(jobElement)) {
+            dequeue(jobElement);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 有任务的机器组，每次调用起始位置后移一位，保证各个机器组轮流优先分发
+     *
+     * @return 机器组id
+     */
+    public synchronized List<Integer> hostGroups() {
+        List<Integer> hostGroups = new ArrayList<>(partitions.size());
+        partitions.forEach((hostGroupId, partition) -> {
+            if (!partition.isEmpty()) {
+                hostGroups.add(hostGroupId);
+            }
+        });
+        if (hostGroups.size() > 1) {
+            Collections.sort(hostGroups);
+            Collections.rotate(hostGroups, -(cursor++ % hostGroups.size()));
+        }
+        return hostGroups;
+    }
+
+    public int size(Integer hostGroupId) {
+        Queue<JobElement> partition = partitions.get(hostGroupId);
+        return partition == null ? 0 : partition.size();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Queue<JobElement> partition : partitions.values()) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<JobElement> iterator() {
+        Iterator<Queue<JobElement>> partitionIterator = partitions.values().iterator();
+        return new Iterator<JobElement>() {
+
+            private Iterator<JobElement> iterator = Collections.emptyIterator();
+
+            private JobElement current;
+
+            @Override
+            public boolean hasNext() {
+                while (!iterator.hasNext() && partitionIterator.hasNext()) {
+                    iterator = partitionIterator.next().iterator();
+                }
+                return iterator.hasNext();
+            }
+
+            @Override
+            public JobElement next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                dequeue(current);
+                current = null;
+            }
+        };
+    }
+
+    private void dequeue(JobElement jobElement) {
+        Integer id = idOf(jobElement);
+        if (id != null) {
+            index.dequeue(id);
+        }
+    }
+
+    private Integer idOf(JobElement jobElement) {
+        if (jobElement == null || jobElement.getJobId() == null) {
+            return null;
+        }
+        try {
+            return idFunction.apply(jobElement.getJobId());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
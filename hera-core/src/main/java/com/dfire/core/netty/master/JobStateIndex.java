@@ -0,0 +1,131 @@
+package com.dfire.core.netty.master;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 等待队列和worker运行中任务的索引：任务id -> 在队列中排队的个数以及正在运行该任务的worker
+ * 随队列的入队出队和worker运行集合的修改同步更新，重复任务检测和取消任务时不再遍历队列和所有worker
+ *
+ * @author xiaosuda
+ * @date 2018/12/16
+ */
+public class JobStateIndex {
+
+    private final ConcurrentHashMap<Integer, JobState> states = new ConcurrentHashMap<>();
+
+    void enqueue(Integer id) {
+        states.compute(id, (key, state) -> state == null ? new JobState(1, Collections.emptyList())
+                : new JobState(state.queued + 1, state.workers));
+    }
+
+    void dequeue(Integer id) {
+        states.computeIfPresent(id, (key, state) -> state.queued <= 1 && state.workers.isEmpty() ? null
+                : new JobState(Math.max(0, state.queued - 1), state.workers));
+    }
+
+    /**
+     * 同一个worker重复添加只记录一次
+     */
+    void addRunning(Integer id, MasterWorkHolder workHolder) {
+        states.compute(id, (key, state) -> {
+            if (state == null) {
+                return new JobState(0, Collections.singletonList(workHolder));
+            }
+            if (indexOf(state.workers, workHolder) >= 0) {
+                return state;
+            }
+            List<MasterWorkHolder> workers = new ArrayList<>(state.workers.size() + 1);
+            workers.addAll(state.workers);
+            workers.add(workHolder);
+            return new JobState(state.queued, workers);
+        });
+    }
+
+    void removeRunning(Integer id, MasterWorkHolder workHolder) {
+        states.computeIfPresent(id, (key, state) -> {
+            int index = indexOf(state.workers, workHolder);
+            if (index < 0) {
+                return state;
+            }
+            if (state.queued == 0 && state.workers.size() == 1) {
+                return null;
+            }
+            List<MasterWorkHolder> workers = new ArrayList<>(state.workers);
+            workers.remove(index);
+            return new JobState(state.queued, workers);
+        });
+    }
+
+    /**
+     * worker按对象本身区分，不使用equals
+     */
+    private static int indexOf(List<MasterWorkHolder> workers, MasterWorkHolder workHolder) {
+        for (int i = 0; i < workers.size(); i++) {
+            if (workers.get(i) == workHolder) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param id 任务id/开发中心任务id
+     * @return 不在队列中也没有在运行时返回null
+     */
+    public JobState get(Integer id) {
+        return id == null ? null : states.get(id);
+    }
+
+    public boolean isQueued(Integer id) {
+        JobState state = get(id);
+        return state != null && state.isQueued();
+    }
+
+    /**
+     * @param id 任务id/开发中心任务id
+     * @return 正在运行该任务的worker，没有运行时返回null
+     */
+    public MasterWorkHolder getRunningWorker(Integer id) {
+        JobState state = get(id);
+        return state == null ? null : state.getWorker();
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    public static class JobState {
+
+        private final int queued;
+
+        private final List<MasterWorkHolder> workers;
+
+        private JobState(int queued, List<MasterWorkHolder> workers) {
+            this.queued = queued;
+            this.workers = workers;
+        }
+
+        public boolean isQueued() {
+            return queued > 0;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public boolean isRunning() {
+            return !workers.isEmpty();
+        }
+
+        public MasterWorkHolder getWorker() {
+            return workers.isEmpty() ? null : workers.get(0);
+        }
+
+        public List<MasterWorkHolder> getWorkers() {
+            return Collections.unmodifiableList(workers);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.dfire.core.route.factory.StrategyWorkerEnum;
 import com.dfire.core.route.factory.StrategyWorkerFactory;
 import com.dfire.core.route.strategy.IStrategyWorker;
 import com.dfire.core.util.CronParse;
+import com.dfire.graph.JobDagIndex;
 import com.dfire.logs.*;
 import com.dfire.protocol.JobExecuteKind;
 import com.dfire.protocol.ResponseStatus;
@@ -43,11 +44,16 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
 
 import static com.dfire.protocol.JobExecuteKind.ExecuteKind.ScheduleKind;
 
@@ -60,21 +66,42 @@ import static com.dfire.protocol.JobExecuteKind.ExecuteKind.ScheduleKind;
 @Order(1)
 public class Master {
 
+    private static final DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter.ofPattern(ActionUtil.DEFAULT_FORMAT);
+    private static final DateTimeFormatter ACTION_MIN_FORMATTER = DateTimeFormatter.ofPattern(ActionUtil.ACTION_MIN);
+    private static final DateTimeFormatter ACTION_CRON_FORMATTER = DateTimeFormatter.ofPattern(ActionUtil.ACTION_CRON);
+
     private MasterContext masterContext;
+    /**
+     * 今天版本的调度状态，完整的版本信息需要时从数据库加载
+     */
+    @Getter
+    private final ActionStateTable actionStates = new ActionStateTable();
     @Getter
-    private Map<Long, HeraAction> heraActionMap = new HashMap<>();
+    private ReadyDependencyWriter readyDependencyWriter;
     private ThreadPoolExecutor executeJobPool;
+    private ThreadPoolExecutor generateActionPool;
 
     private volatile boolean isGenerateActioning = false;
+
+    /**
+     * 上次全量/增量生成版本时使用的任务定义，用于增量生成时找出发生变化的任务
+     */
+    private Map<Integer, HeraJob> generatedJobs;
+    private String generatedCronDate;
+    private long lastFullGenerate;
     private IStrategyWorker chooseWorkerStrategy;
 
 
     public void init(MasterContext masterContext) {
         this.masterContext = masterContext;
+        readyDependencyWriter = new ReadyDependencyWriter(masterContext.getHeraJobActionService(), MasterConstant.READY_DEPENDENCY_BATCH_SIZE);
         chooseWorkerStrategy = StrategyWorkerFactory.getStrategyWorker(StrategyWorkerEnum.FIRST);
         executeJobPool = new ThreadPoolExecutor(HeraGlobalEnvironment.getMaxParallelNum(), HeraGlobalEnvironment.getMaxParallelNum(), 10L, TimeUnit.MINUTES,
                 new LinkedBlockingQueue<>(Integer.MAX_VALUE), new NamedThreadFactory("master-execute-job-thread"), new ThreadPoolExecutor.AbortPolicy());
         executeJobPool.allowCoreThreadTimeOut(true);
+        generateActionPool = new ThreadPoolExecutor(MasterConstant.GENERATE_THREADS, MasterConstant.GENERATE_THREADS, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("master-generate-action", true), new ThreadPoolExecutor.AbortPolicy());
+        generateActionPool.allowCoreThreadTimeOut(true);
         if (HeraGlobalEnvironment.getEnv().equalsIgnoreCase(Constants.PRE_ENV)) {
             masterContext.getDispatcher().addDispatcherListener(new HeraStopScheduleJobListener());
         }
@@ -86,14 +113,14 @@ public class Master {
             masterContext.getDispatcher().addDispatcherListener(new HeraJobSuccessListener(masterContext));
             List<HeraAction> allJobList = masterContext.getHeraJobActionService().getTodayAction();
             HeraLog.info("-----------------------------action size:{}, time {}-----------------------------", allJobList.size(), System.currentTimeMillis());
-            heraActionMap = new HashMap<>(allJobList.size());
             allJobList.forEach(heraAction -> {
                 masterContext.getDispatcher().
                         addJobHandler(new JobHandler(heraAction.getId().toString(), this, masterContext));
-                heraActionMap.put(heraAction.getId(), heraAction);
+                actionStates.refresh(heraAction);
             });
             HeraLog.info("-----------------------------add actions to handler success, time:{}-----------------------------", System.currentTimeMillis());
-            masterContext.getDispatcher().forwardEvent(Events.Initialize);
+            // 初始化所有handler后才开始调度，在当前线程同步分发
+            masterContext.getDispatcher().dispatch(Events.Initialize);
             HeraLog.info("-----------------------------dispatcher actions success, time{}-----------------------------", System.currentTimeMillis());
         });
         masterContext.refreshHostGroupCache();
@@ -106,6 +133,10 @@ public class Master {
         heartCheck();
         // 4.漏跑检测
         lostJobCheck();
+        // 5.依赖就绪信息写入数据库
+        readyDependencyFlush();
+        // 6.事件分发运行指标
+        dispatchMetricsLog();
 
     }
 
@@ -126,7 +157,7 @@ public class Master {
         //只在整点生成版本
         masterContext.masterSchedule.scheduleAtFixedRate(() -> {
             try {
-                generateBatchAction();
+                generateIncrementalAction();
                 if (DateTime.now().getHourOfDay() == MasterConstant.MORNING_TIME) {
                     clearInvalidAction();
                 }
@@ -150,16 +181,15 @@ public class Master {
             String currDate = ActionUtil.getCurrActionVersion();
             Dispatcher dispatcher = masterContext.getDispatcher();
             if (dispatcher != null) {
-                Map<Long, HeraAction> actionMapNew = heraActionMap;
-                if (actionMapNew != null && actionMapNew.size() > 0) {
+                if (!actionStates.isEmpty()) {
                     List<Long> actionIdList = new ArrayList<>();
-                    Long tmp = Long.parseLong(currDate) - MasterConstant.PRE_CHECK_MIN;
-                    for (Long actionId : actionMapNew.keySet()) {
-                        if (actionId < tmp) {
-                            rollBackLostJob(actionId, actionMapNew, actionIdList);
-                            checkLostSingle(actionId, actionMapNew);
+                    long tmp = Long.parseLong(currDate) - MasterConstant.PRE_CHECK_MIN;
+                    actionStates.forEach(state -> {
+                        if (state.getId() < tmp) {
+                            rollBackLostJob(state, actionIdList);
+                            checkLostSingle(state);
                         }
-                    }
+                    });
                     ScheduleLog.info("roll back action count:" + actionIdList.size());
                 }
                 ScheduleLog.info("clear job scheduler ok");
@@ -171,37 +201,30 @@ public class Master {
     /**
      * 漏跑检测
      *
-     * @param actionId     版本id
-     * @param actionMapNew actionMap集合
+     * @param lostJob      版本的调度状态
      * @param actionIdList 重跑的actionId
      */
 
-    private void rollBackLostJob(Long actionId, Map<Long, HeraAction> actionMapNew, List<Long> actionIdList) {
-        HeraAction lostJob = actionMapNew.get(actionId);
-        boolean isCheck = lostJob != null
-                && lostJob.getAuto() == 1
-                && lostJob.getStatus() == null;
+    private void rollBackLostJob(ActionState lostJob, List<Long> actionIdList) {
+        boolean isCheck = lostJob.isAuto() && lostJob.getStatus() == null;
         if (isCheck) {
-            String dependencies = lostJob.getDependencies();
-            if (StringUtils.isNotBlank(dependencies)) {
-                List<String> jobDependList = Arrays.asList(dependencies.split(","));
+            long[] dependencies = lostJob.getDependencies();
+            if (dependencies.length > 0) {
                 boolean isAllComplete = false;
-                HeraAction heraAction;
-                if (jobDependList.size() > 0) {
-                    for (String jobDepend : jobDependList) {
-                        heraAction = actionMapNew.get(Long.parseLong(jobDepend));
-                        if (heraAction != null) {
-                            if (!(isAllComplete = Constants.STATUS_SUCCESS.equals(heraAction.getStatus()))) {
-                                break;
-                            }
+                ActionState upstream;
+                for (long jobDepend : dependencies) {
+                    upstream = actionStates.get(jobDepend);
+                    if (upstream != null) {
+                        if (!(isAllComplete = upstream.isStatus(Constants.STATUS_SUCCESS))) {
+                            break;
                         }
                     }
                 }
                 if (isAllComplete) {
-                    addRollBackJob(actionIdList, actionId);
+                    addRollBackJob(actionIdList, lostJob.getId());
                 }
             } else { //独立任务情况
-                addRollBackJob(actionIdList, actionId);
+                addRollBackJob(actionIdList, lostJob.getId());
             }
         }
     }
@@ -209,16 +232,12 @@ public class Master {
     /**
      * 信号丢失处理
      *
-     * @param actionId     hera_action 表信息id /版本id
-     * @param actionMapNew hera_action 内存信息 /内存保存的今天版本信息
+     * @param checkJob 内存保存的今天版本的调度状态
      */
-    private void checkLostSingle(Long actionId, Map<Long, HeraAction> actionMapNew) {
+    private void checkLostSingle(ActionState checkJob) {
         try {
-            HeraAction checkJob = actionMapNew.get(actionId);
-            if (checkJob == null) {
-                return;
-            }
-            if (Constants.STATUS_RUNNING.equals(checkJob.getStatus())) {
+            long actionId = checkJob.getId();
+            if (checkJob.isStatus(Constants.STATUS_RUNNING)) {
                 HeraJobHistory actionHistory = masterContext.getHeraJobHistoryService().findById(checkJob.getHistoryId());
                 if (actionHistory == null) {
                     return;
@@ -268,33 +287,48 @@ public class Master {
 
     /**
      * 扫描任务等待队列，可获得worker的任务将执行
-     * 对于没有可运行机器的时，manual,debug任务重新offer到原队列
+     * 任务入队、worker释放资源或收到心跳时唤醒扫描，没有信号时队列中有任务按scanRate兜底扫描，否则最多等待10秒
      */
     private void waitingQueueCheck() {
-
-        masterContext.masterSchedule.schedule(new Runnable() {
-            // scan频率递增的步长
-            private final Integer DELAY_TIME = 100;
-            // 最大scan频率
-            private final Integer MAX_DELAY_TIME = 10 * 1000;
-
-            private Integer nextTime = HeraGlobalEnvironment.getScanRate();
-
-            @Override
-            public void run() {
+        // 空队列时的最大等待时间
+        final long maxWaitTime = 10 * 1000L;
+        Thread scanThread = new NamedThreadFactory("master-scan", true).newThread(() -> {
+            DispatchSignal signal = masterContext.getDispatchSignal();
+            while (!masterContext.masterSchedule.isShutdown()) {
                 try {
-                    if (scan()) {
-                        nextTime = HeraGlobalEnvironment.getScanRate();
-                    } else {
-                        nextTime = (nextTime + DELAY_TIME) > MAX_DELAY_TIME ? MAX_DELAY_TIME : nextTime + DELAY_TIME;
-                    }
+                    boolean waiting = scan();
+                    signal.await(waiting ? HeraGlobalEnvironment.getScanRate() : maxWaitTime, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    ScanLog.warn("scan waiting queue thread interrupted");
+                    return;
                 } catch (Exception e) {
                     ScanLog.error("scan waiting queueTask exception", e);
-                } finally {
-                    masterContext.masterSchedule.schedule(this, nextTime, TimeUnit.MILLISECONDS);
                 }
             }
-        }, HeraGlobalEnvironment.getScanRate(), TimeUnit.MILLISECONDS);
+        });
+        scanThread.start();
+    }
+
+    /**
+     * 定时把内存中更新的依赖就绪信息批量写入数据库
+     */
+    private void readyDependencyFlush() {
+        masterContext.masterSchedule.scheduleWithFixedDelay(() -> {
+            try {
+                readyDependencyWriter.flush();
+            } catch (Exception e) {
+                ErrorLog.error("flush ready dependency exception", e);
+            }
+        }, MasterConstant.READY_DEPENDENCY_FLUSH_INTERVAL, MasterConstant.READY_DEPENDENCY_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatchMetricsLog() {
+        DispatchEventLoop eventLoop = masterContext.getDispatcher().getEventLoop();
+        if (eventLoop == null) {
+            return;
+        }
+        masterContext.masterSchedule.scheduleAtFixedRate(() -> ScheduleLog.info("dispatch event loop metrics:{}", eventLoop.metrics()),
+                MasterConstant.DISPATCH_METRICS_INTERVAL, MasterConstant.DISPATCH_METRICS_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -335,6 +369,119 @@ public class Master {
         return flag;
     }
 
+    /**
+     * 增量生成版本，只重新生成上次生成之后定义发生变化的任务以及它们所有下游任务的版本
+     * 首次生成、跨天生成以及距离上次全量生成超过FULL_GENERATE_INTERVAL时执行全量生成
+     */
+    public boolean generateIncrementalAction() {
+        DateTime dateTime = new DateTime();
+        int executeHour = dateTime.getHourOfDay();
+        String cronDate = ActionUtil.getActionVersionByTime(dateTime.toDate());
+        if (generatedJobs == null || executeHour <= ActionUtil.ACTION_CREATE_MIN_HOUR || executeHour >= ActionUtil.ACTION_CREATE_MAX_HOUR
+                || !cronDate.equals(generatedCronDate) || System.currentTimeMillis() - lastFullGenerate >= MasterConstant.FULL_GENERATE_INTERVAL) {
+            return generateBatchAction();
+        }
+        if (isGenerateActioning) {
+            return true;
+        }
+        try {
+            isGenerateActioning = true;
+            long begin = System.currentTimeMillis();
+            List<HeraJob> jobList = masterContext.getHeraJobService().getAll();
+            Set<Integer> changed = new HashSet<>();
+            Set<Integer> removed = new HashSet<>(generatedJobs.keySet());
+            for (HeraJob heraJob : jobList) {
+                removed.remove(heraJob.getId());
+                if (!heraJob.equals(generatedJobs.get(heraJob.getId()))) {
+                    changed.add(heraJob.getId());
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty()) {
+                ScheduleLog.info("增量任务版本生成：任务未发生变化");
+                return true;
+            }
+            JobDagIndex dagIndex = new JobDagIndex();
+            dagIndex.reload(jobList);
+            Set<Integer> affected = new HashSet<>(changed);
+            changed.forEach(id -> affected.addAll(dagIndex.findStream(id, true)));
+            //已删除的任务不在索引中，从它的直接下游开始查找
+            removed.forEach(id -> dagIndex.getAdjacent(id, true).forEach(child -> {
+                affected.add(child);
+                affected.addAll(dagIndex.findStream(child, true));
+            }));
+            ScheduleLog.info("增量任务版本生成：变化任务{}个，删除任务{}个，需要重新生成{}个", changed.size(), removed.size(), affected.size());
+
+            Long nowAction = Long.parseLong(ActionUtil.getCurrActionVersion());
+            Map<Long, HeraAction> actionMap = new HashMap<>();
+            Map<Integer, List<HeraAction>> idMap = new HashMap<>(jobList.size());
+            //未变化任务的版本直接保留，版本id作为下游依赖任务生成版本的依据
+            actionStates.forEach(state -> {
+                int jobId = state.getJobId();
+                if (!affected.contains(jobId) && !removed.contains(jobId)) {
+                    idMap.computeIfAbsent(jobId, key -> new ArrayList<>()).add(HeraAction.builder().id(state.getId()).jobId(jobId).build());
+                }
+            });
+            idMap.values().forEach(actions -> actions.sort(Comparator.comparing(HeraAction::getId)));
+            List<HeraJob> affectedJobs = new ArrayList<>(affected.size());
+            for (HeraJob heraJob : jobList) {
+                if (affected.contains(heraJob.getId())) {
+                    affectedJobs.add(heraJob);
+                }
+            }
+            Map<Integer, HeraJob> jobMap = new HashMap<>(affectedJobs.size());
+            generateScheduleJobAction(affectedJobs, cronDate, actionMap, nowAction, idMap, jobMap);
+            generateDependJobAction(jobMap, actionMap, nowAction, idMap);
+            refreshActionStates(actionMap, id -> {
+                int jobId = (int) (id % 1000000);
+                return affected.contains(jobId) || removed.contains(jobId);
+            });
+            snapshotJobs(jobList, cronDate);
+            Dispatcher dispatcher = masterContext.getDispatcher();
+            if (dispatcher != null) {
+                for (HeraAction action : actionMap.values()) {
+                    dispatcher.addJobHandler(new JobHandler(action.getId().toString(), masterContext.getMaster(), masterContext));
+                    if (action.getId() >= nowAction) {
+                        dispatcher.forwardEvent(new HeraJobMaintenanceEvent(Events.UpdateActions, action.getId().toString()));
+                    }
+                }
+            }
+            ScheduleLog.info("增量生成版本时间:" + (System.currentTimeMillis() - begin) + " ms");
+            return true;
+        } catch (Exception e) {
+            ErrorLog.error("增量生成版本失败", e);
+        } finally {
+            isGenerateActioning = false;
+        }
+        return false;
+    }
+
+    /**
+     * 用新生成的版本更新调度状态，filter匹配但这次没有生成的版本从调度状态中删除
+     *
+     * @param actionMap 新生成的版本
+     * @param filter    重新生成了版本的范围
+     */
+    private void refreshActionStates(Map<Long, HeraAction> actionMap, LongPredicate filter) {
+        for (HeraAction action : actionMap.values()) {
+            actionStates.refresh(action);
+        }
+        actionStates.removeIf(id -> filter.test(id) && !actionMap.containsKey(id));
+    }
+
+    /**
+     * 记录本次生成版本使用的任务定义，复制一份避免缓存中的对象被修改
+     */
+    private void snapshotJobs(List<HeraJob> jobList, String cronDate) {
+        Map<Integer, HeraJob> jobs = new HashMap<>(jobList.size());
+        for (HeraJob heraJob : jobList) {
+            HeraJob copy = new HeraJob();
+            BeanUtils.copyProperties(heraJob, copy);
+            jobs.put(copy.getId(), copy);
+        }
+        generatedJobs = jobs;
+        generatedCronDate = cronDate;
+    }
+
     private boolean generateAction(boolean isSingle, Integer jobId) {
         try {
             if (isGenerateActioning) {
@@ -354,7 +501,7 @@ public class Master {
                     currString = nextDayString.getSource();
                     now = nextDayString.getTarget();
                 }
-                Map<Long, HeraAction> actionMap = new HashMap<>(heraActionMap.size());
+                Map<Long, HeraAction> actionMap = new HashMap<>(actionStates.size());
                 List<HeraJob> jobList = new ArrayList<>();
                 //批量生成
                 if (!isSingle) {
@@ -363,24 +510,19 @@ public class Master {
                 } else { //单个任务生成版本
                     HeraJob heraJob = masterContext.getHeraJobService().findById(jobId);
                     jobList.add(heraJob);
-                    actionMap = heraActionMap;
-                    List<Long> shouldRemove = new ArrayList<>();
-                    for (Long actionId : actionMap.keySet()) {
-                        if (StringUtil.actionIdToJobId(String.valueOf(actionId), String.valueOf(jobId))) {
-                            shouldRemove.add(actionId);
-                        }
-                    }
-                    shouldRemove.forEach(actionMap::remove);
                 }
                 String cronDate = ActionUtil.getActionVersionByTime(now);
                 Map<Integer, List<HeraAction>> idMap = new HashMap<>(jobList.size());
                 Map<Integer, HeraJob> jobMap = new HashMap<>(jobList.size());
                 generateScheduleJobAction(jobList, cronDate, actionMap, nowAction, idMap, jobMap);
-                for (Map.Entry<Integer, HeraJob> entry : jobMap.entrySet()) {
-                    generateDependJobAction(jobMap, entry.getValue(), actionMap, nowAction, idMap);
-                }
-                if (executeHour < ActionUtil.ACTION_CREATE_MAX_HOUR) {
-                    heraActionMap = actionMap;
+                generateDependJobAction(jobMap, actionMap, nowAction, idMap);
+                if (isSingle) {
+                    //单个任务的旧版本全部替换
+                    refreshActionStates(actionMap, id -> StringUtil.actionIdToJobId(String.valueOf(id), String.valueOf(jobId)));
+                } else if (executeHour < ActionUtil.ACTION_CREATE_MAX_HOUR) {
+                    refreshActionStates(actionMap, id -> true);
+                    snapshotJobs(jobList, cronDate);
+                    lastFullGenerate = System.currentTimeMillis();
                 }
                 Dispatcher dispatcher = masterContext.getDispatcher();
                 if (dispatcher != null) {
@@ -414,24 +556,15 @@ public class Master {
      * @param idMap     已经遍历过的idMap
      * @param jobMap    依赖任务map映射
      */
-    public void generateScheduleJobAction(List<HeraJob> jobList, String cronDate, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap, Map<Integer, HeraJob> jobMap) {
-        List<HeraAction> insertActionList = new ArrayList<>();
+    public void generateScheduleJobAction(List<HeraJob> jobList, String cronDate, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap, Map<Integer, HeraJob> jobMap) throws HeraException {
+        List<HeraJob> scheduleJobs = new ArrayList<>();
         for (HeraJob heraJob : jobList) {
             if (heraJob.getScheduleType() != null) {
                 if (heraJob.getScheduleType() == 1) {
                     jobMap.put(heraJob.getId(), heraJob);
                 } else if (heraJob.getScheduleType() == 0) {
-                    String cron = heraJob.getCronExpression();
-                    List<String> list = new ArrayList<>();
-                    if (StringUtils.isNotBlank(cron)) {
-                        boolean isCronExp = CronParse.Parser(cron, cronDate, list);
-                        if (!isCronExp) {
-                            ErrorLog.error("cron parse error,jobId={},cron = {}", heraJob.getId(), cron);
-                            continue;
-                        }
-                        List<HeraAction> heraAction = createHeraAction(list, heraJob);
-                        idMap.put(heraJob.getId(), heraAction);
-                        insertActionList.addAll(heraAction);
+                    if (StringUtils.isNotBlank(heraJob.getCronExpression())) {
+                        scheduleJobs.add(heraJob);
                     }
                 } else {
                     ErrorLog.error("任务{}未知的调度类型{}", heraJob.getId(), heraJob.getScheduleType());
@@ -439,10 +572,65 @@ public class Master {
 
             }
         }
+        List<HeraAction>[] jobActions = expandScheduleJobs(scheduleJobs, cronDate);
+        List<HeraAction> insertActionList = new ArrayList<>();
+        for (int i = 0; i < jobActions.length; i++) {
+            if (jobActions[i] != null) {
+                idMap.put(scheduleJobs.get(i).getId(), jobActions[i]);
+                insertActionList.addAll(jobActions[i]);
+            }
+        }
         batchInsertList(insertActionList, actionMap, nowAction);
 
     }
 
+    /**
+     * 在生成版本线程池中按批并行展开自动调度任务的版本，任务之间互不影响
+     *
+     * @param scheduleJobs 自动调度任务
+     * @param cronDate     日期
+     * @return 与scheduleJobs一一对应的版本集合，cron表达式错误的任务为null
+     */
+    @SuppressWarnings("unchecked")
+    private List<HeraAction>[] expandScheduleJobs(List<HeraJob> scheduleJobs, String cronDate) throws HeraException {
+        int size = scheduleJobs.size();
+        List<HeraAction>[] jobActions = new List[size];
+        int batch = Math.max(MasterConstant.GENERATE_BATCH_SIZE, (size + MasterConstant.GENERATE_THREADS - 1) / MasterConstant.GENERATE_THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < size; start += batch) {
+            int from = start;
+            int to = Math.min(start + batch, size);
+            Runnable task = () -> {
+                for (int i = from; i < to; i++) {
+                    HeraJob heraJob = scheduleJobs.get(i);
+                    List<String> list = CronParse.parse(heraJob.getCronExpression(), cronDate);
+                    if (list == null) {
+                        ErrorLog.error("cron parse error,jobId={},cron = {}", heraJob.getId(), heraJob.getCronExpression());
+                        continue;
+                    }
+                    jobActions[i] = createHeraAction(list, heraJob);
+                }
+            };
+            if (to == size) {
+                //最后一批在当前线程执行
+                task.run();
+            } else {
+                futures.add(generateActionPool.submit(task));
+            }
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HeraException("generate action interrupted", e);
+        } catch (ExecutionException e) {
+            throw new HeraException("generate action error", e.getCause());
+        }
+        return jobActions;
+    }
+
 
     /**
      * 批量插入
@@ -484,8 +672,9 @@ public class Master {
     private List<HeraAction> createHeraAction(List<String> list, HeraJob heraJob) {
         List<HeraAction> heraActionList = new ArrayList<>();
         for (String str : list) {
-            String actionDate = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_MIN);
-            String actionCron = HeraDateTool.StringToDateStr(str, ActionUtil.DEFAULT_FORMAT, ActionUtil.ACTION_CRON) + " ?";
+            LocalDateTime fireTime = LocalDateTime.parse(str, DEFAULT_FORMATTER);
+            String actionDate = ACTION_MIN_FORMATTER.format(fireTime);
+            String actionCron = ACTION_CRON_FORMATTER.format(fireTime) + " ?";
             HeraAction heraAction = new HeraAction();
             BeanUtils.copyProperties(heraJob, heraAction);
             Long actionId = Long.parseLong(actionDate) * 1000000 + Long.parseLong(String.valueOf(heraJob.getId()));
@@ -513,7 +702,6 @@ public class Master {
         Long nextDay = ActionUtil.getLongNextDayActionVersion();
         Long preCheckTime = currDate - MasterConstant.PRE_CHECK_MIN;
 
-        Map<Long, HeraAction> actionMapNew = heraActionMap;
         //移除未生成的调度
         List<AbstractHandler> handlers = dispatcher.getJobHandlers();
         List<JobHandler> shouldRemove = new ArrayList<>();
@@ -523,10 +711,10 @@ public class Master {
                 String actionId = jobHandler.getActionId();
                 Long aid = Long.parseLong(actionId);
                 if (Long.parseLong(actionId) < preCheckTime) {
-                    masterContext.getQuartzSchedulerService().deleteJob(actionId);
+                    masterContext.getTriggerWheel().cancel(actionId);
                 } else if (aid >= currDate && aid < nextDay) {
-                    if (!actionMapNew.containsKey(aid)) {
-                        masterContext.getQuartzSchedulerService().deleteJob(actionId);
+                    if (!actionStates.contains(aid)) {
+                        masterContext.getTriggerWheel().cancel(actionId);
                         masterContext.getHeraJobActionService().delete(actionId);
                         shouldRemove.add(jobHandler);
                     }
@@ -544,146 +732,183 @@ public class Master {
 
 
     /**
-     * 递归生成任务依赖action
+     * 按依赖关系的拓扑顺序生成依赖任务的版本，上游任务的版本都生成之后再生成下游任务的版本
+     * 存在循环依赖的任务无法生成版本，所有版本最后一次批量写入
      *
-     * @param jobMap    任务映射map
-     * @param heraJob   当前生成版本的任务
+     * @param jobMap    依赖调度的任务映射map
      * @param actionMap 版本map
      * @param nowAction 生成版本时间的action
-     * @param idMap     job的id集合  只要已经检测过的id都放入idSet中
+     * @param idMap     任务id -> 已经生成的版本，已经存在的任务不再重新生成
      */
-    private void generateDependJobAction(Map<Integer, HeraJob> jobMap, HeraJob heraJob, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap) {
-        if (heraJob == null || idMap.containsKey(heraJob.getId())) {
-            return;
-        }
-        String jobDependencies = heraJob.getDependencies();
-        if (StringUtils.isNotBlank(jobDependencies)) {
-            Map<String, List<HeraAction>> dependenciesMap = new HashMap<>(1024);
-            String[] dependencies = jobDependencies.split(Constants.COMMA);
-            String actionMinDeps = "";
-            boolean noAction = false;
-            for (String dependentId : dependencies) {
-                Integer dpId = Integer.parseInt(dependentId);
-                //如果idSet不包含依赖任务dpId  则递归查找
-                if (!idMap.containsKey(dpId)) {
-                    generateDependJobAction(jobMap, jobMap.get(dpId), actionMap, nowAction, idMap);
-                }
-                List<HeraAction> dpActions = idMap.get(dpId);
-                dependenciesMap.put(dependentId, dpActions);
-                if (dpActions == null || dpActions.size() == 0) {
-                    ErrorLog.warn("{}今天找不到版本，无法为任务{}生成版本", dependentId, heraJob.getId());
-                    noAction = true;
-                    break;
-                }
-                if (StringUtils.isBlank(actionMinDeps)) {
-                    actionMinDeps = dependentId;
-                }
-                //找到所依赖的任务中版本最少的作为基准版本。
-                if (dependenciesMap.get(actionMinDeps).size() > dependenciesMap.get(dependentId).size()) {
-                    actionMinDeps = dependentId;
-                } else if (dependenciesMap.get(dependentId).size() > 0 && dependenciesMap.get(actionMinDeps).size() == dependenciesMap.get(dependentId).size() &&
-                        dependenciesMap.get(actionMinDeps).get(0).getId() < dependenciesMap.get(dependentId).get(0).getId()) {
-                    //如果两个版本的个数一样  那么应该找一个时间较大的
-                    actionMinDeps = dependentId;
+    private void generateDependJobAction(Map<Integer, HeraJob> jobMap, Map<Long, HeraAction> actionMap, Long nowAction, Map<Integer, List<HeraAction>> idMap) {
+        Map<Integer, Integer> inDegree = new HashMap<>(jobMap.size());
+        Map<Integer, List<Integer>> children = new HashMap<>(jobMap.size());
+        Queue<Integer> queue = new LinkedList<>();
+        for (HeraJob heraJob : jobMap.values()) {
+            if (idMap.containsKey(heraJob.getId())) {
+                continue;
+            }
+            Set<Integer> pending = new HashSet<>();
+            if (StringUtils.isNotBlank(heraJob.getDependencies())) {
+                for (String dependentId : heraJob.getDependencies().split(Constants.COMMA)) {
+                    Integer dpId = Integer.parseInt(dependentId);
+                    //还需要生成版本的上游任务
+                    if (jobMap.containsKey(dpId) && !idMap.containsKey(dpId) && pending.add(dpId)) {
+                        children.computeIfAbsent(dpId, key -> new ArrayList<>()).add(heraJob.getId());
+                    }
                 }
             }
-            if (noAction) {
-                idMap.put(heraJob.getId(), null);
-            } else {
-                List<HeraAction> actionMinList = dependenciesMap.get(actionMinDeps);
-                if (actionMinList != null && actionMinList.size() > 0) {
-                    List<HeraAction> insertList = new ArrayList<>();
-                    for (HeraAction action : actionMinList) {
-                        StringBuilder actionDependencies = new StringBuilder(action.getId().toString());
-                        Long longActionId = Long.parseLong(actionDependencies.toString());
-                        for (String dependency : dependencies) {
-                            if (!dependency.equals(actionMinDeps)) {
-                                List<HeraAction> otherAction = dependenciesMap.get(dependency);
-                                if (otherAction == null || otherAction.size() == 0) {
-                                    continue;
-                                }
-                                //找到一个离基准版本时间最近的action，添加为该任务的依赖
-                                String otherActionId = otherAction.get(0).getId().toString();
-                                for (HeraAction o : otherAction) {
-                                    if (Math.abs(o.getId() - longActionId) < Math.abs(Long.parseLong(otherActionId) - longActionId)) {
-                                        otherActionId = o.getId().toString();
-                                    }
-                                }
-                                actionDependencies.append(",");
-                                actionDependencies.append(Long.parseLong(otherActionId) / 1000000 * 1000000 + Long.parseLong(dependency));
-                            }
-                        }
-                        HeraAction actionNew = new HeraAction();
-                        BeanUtils.copyProperties(heraJob, actionNew);
-                        Long actionId = longActionId / 1000000 * 1000000 + Long.parseLong(String.valueOf(heraJob.getId()));
-                        actionNew.setId(actionId);
-                        actionNew.setGmtCreate(new Date());
-                        actionNew.setDependencies(actionDependencies.toString());
-                        actionNew.setJobDependencies(heraJob.getDependencies());
-                        actionNew.setJobId(heraJob.getId());
-                        actionNew.setAuto(heraJob.getAuto());
-                        actionNew.setHostGroupId(heraJob.getHostGroupId());
-                        masterContext.getHeraJobActionService().insert(actionNew, nowAction);
-                        actionMap.put(actionNew.getId(), actionNew);
-                        insertList.add(actionNew);
+            inDegree.put(heraJob.getId(), pending.size());
+            if (pending.isEmpty()) {
+                queue.add(heraJob.getId());
+            }
+        }
+        List<HeraAction> insertActionList = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Integer jobId = queue.remove();
+            inDegree.remove(jobId);
+            List<HeraAction> actions = createDependAction(jobMap.get(jobId), idMap);
+            if (actions != null) {
+                insertActionList.addAll(actions);
+            }
+            List<Integer> next = children.get(jobId);
+            if (next != null) {
+                for (Integer child : next) {
+                    if (inDegree.merge(child, -1, Integer::sum) == 0) {
+                        queue.add(child);
                     }
-                    idMap.put(heraJob.getId(), insertList);
                 }
             }
         }
-
+        inDegree.keySet().forEach(jobId -> {
+            ErrorLog.warn("任务{}存在循环依赖，无法生成版本", jobId);
+            idMap.put(jobId, null);
+        });
+        batchInsertList(insertActionList, actionMap, nowAction);
     }
 
-
     /**
-     * 扫描任务等待队列，取出任务去执行
+     * 以依赖任务中版本最少的任务作为基准版本，为每个基准版本找到其它依赖任务中时间最近的版本作为依赖
+     *
+     * @param heraJob 当前生成版本的任务，所有上游任务的版本都已经在idMap中
+     * @param idMap   任务id -> 已经生成的版本
+     * @return 生成的版本，无法生成时返回null
      */
-    public boolean scan() {
-        boolean hasTask = false;
-        if (!masterContext.getScheduleQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getScheduleQueue().poll();
-            if (jobElement != null) {
-                MasterWorkHolder workHolder = getRunnableWork(jobElement);
-                if (workHolder == null) {
-                    masterContext.getScheduleQueue().offer(jobElement);
-                    ScheduleLog.warn("can not get work to execute Schedule job in master,job is:{}", jobElement.toString());
-                } else {
-                    runScheduleJob(workHolder, jobElement.getJobId());
-                    hasTask = true;
-                }
+    private List<HeraAction> createDependAction(HeraJob heraJob, Map<Integer, List<HeraAction>> idMap) {
+        String jobDependencies = heraJob.getDependencies();
+        if (StringUtils.isBlank(jobDependencies)) {
+            return null;
+        }
+        String[] dependencies = jobDependencies.split(Constants.COMMA);
+        Map<String, List<HeraAction>> dependenciesMap = new HashMap<>(dependencies.length);
+        String actionMinDeps = null;
+        for (String dependentId : dependencies) {
+            List<HeraAction> dpActions = idMap.get(Integer.parseInt(dependentId));
+            if (dpActions == null || dpActions.size() == 0) {
+                ErrorLog.warn("{}今天找不到版本，无法为任务{}生成版本", dependentId, heraJob.getId());
+                idMap.put(heraJob.getId(), null);
+                return null;
+            }
+            dependenciesMap.put(dependentId, dpActions);
+            if (actionMinDeps == null) {
+                actionMinDeps = dependentId;
+            }
+            List<HeraAction> minActions = dependenciesMap.get(actionMinDeps);
+            //找到所依赖的任务中版本最少的作为基准版本。
+            if (minActions.size() > dpActions.size()) {
+                actionMinDeps = dependentId;
+            } else if (minActions.size() == dpActions.size() && minActions.get(0).getId() < dpActions.get(0).getId()) {
+                //如果两个版本的个数一样  那么应该找一个时间较大的
+                actionMinDeps = dependentId;
             }
         }
-
-        if (!masterContext.getManualQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getManualQueue().poll();
-            if (jobElement != null) {
-                MasterWorkHolder selectWork = getRunnableWork(jobElement);
-                if (selectWork == null) {
-                    masterContext.getManualQueue().offer(jobElement);
-                    ScheduleLog.warn("can not get work to execute ManualQueue job in master,job is:{}", jobElement.toString());
-                } else {
-                    runManualJob(selectWork, jobElement.getJobId());
-                    hasTask = true;
-                }
+        //其它依赖任务的版本id排序后二分查找
+        Map<String, long[]> otherActionIds = new HashMap<>(dependencies.length);
+        for (String dependency : dependencies) {
+            if (!dependency.equals(actionMinDeps)) {
+                otherActionIds.computeIfAbsent(dependency, key -> dependenciesMap.get(key).stream().mapToLong(HeraAction::getId).sorted().toArray());
             }
         }
-
-        if (!masterContext.getDebugQueue().isEmpty()) {
-            JobElement jobElement = masterContext.getDebugQueue().poll();
-            if (jobElement != null) {
-                MasterWorkHolder selectWork = getRunnableWork(jobElement);
-                if (selectWork == null) {
-                    masterContext.getDebugQueue().offer(jobElement);
-                    ScheduleLog.warn("can not get work to execute DebugQueue job in master,job is:{}", jobElement.toString());
-                } else {
-                    runDebugJob(selectWork, jobElement.getJobId());
-                    hasTask = true;
+        List<HeraAction> actionMinList = dependenciesMap.get(actionMinDeps);
+        List<HeraAction> insertList = new ArrayList<>(actionMinList.size());
+        for (HeraAction action : actionMinList) {
+            long longActionId = action.getId();
+            StringBuilder actionDependencies = new StringBuilder(action.getId().toString());
+            for (String dependency : dependencies) {
+                if (!dependency.equals(actionMinDeps)) {
+                    //找到一个离基准版本时间最近的action，添加为该任务的依赖
+                    long otherActionId = ActionUtil.nearestAction(otherActionIds.get(dependency), longActionId);
+                    actionDependencies.append(",");
+                    actionDependencies.append(otherActionId / 1000000 * 1000000 + Long.parseLong(dependency));
                 }
             }
+            HeraAction actionNew = new HeraAction();
+            BeanUtils.copyProperties(heraJob, actionNew);
+            Long actionId = longActionId / 1000000 * 1000000 + Long.parseLong(String.valueOf(heraJob.getId()));
+            actionNew.setId(actionId);
+            actionNew.setGmtCreate(new Date());
+            actionNew.setDependencies(actionDependencies.toString());
+            actionNew.setJobDependencies(heraJob.getDependencies());
+            actionNew.setJobId(heraJob.getId());
+            actionNew.setAuto(heraJob.getAuto());
+            actionNew.setHostGroupId(heraJob.getHostGroupId());
+            insertList.add(actionNew);
+        }
+        idMap.put(heraJob.getId(), insertList);
+        return insertList;
+    }
 
+
+    /**
+     * 扫描任务等待队列，取出任务去执行，一次扫描分发到所有worker都没有空闲资源为止
+     *
+     * @return 队列中是否还有等待的任务
+     */
+    public boolean scan() {
+        int count = dispatch(masterContext.getScheduleQueue(), this::runScheduleJob, "Schedule");
+        count += dispatch(masterContext.getManualQueue(), this::runManualJob, "ManualQueue");
+        count += dispatch(masterContext.getDebugQueue(), this::runDebugJob, "DebugQueue");
+        if (count > 0) {
+            ScanLog.info("dispatch {} jobs in one scan", count);
         }
-        return hasTask;
+        return !masterContext.getScheduleQueue().isEmpty() || !masterContext.getManualQueue().isEmpty()
+                || !masterContext.getDebugQueue().isEmpty();
+    }
 
+    /**
+     * 按机器组轮流分发，每轮每个机器组分发队首的任务，直到机器组没有任务或者没有可用worker
+     * 机器组没有可用worker时任务留在队首，本次扫描不再分发该机器组，不影响其它机器组
+     * 选中的worker先预占资源，同一次扫描中不会超出worker的任务上限
+     *
+     * @param queue  任务等待队列
+     * @param runner 执行任务
+     * @param name   队列名称
+     * @return 分发的任务数
+     */
+    private int dispatch(HostGroupJobQueue queue, BiConsumer<MasterWorkHolder, JobElement> runner, String name) {
+        int count = 0;
+        List<Integer> hostGroups = queue.hostGroups();
+        while (!hostGroups.isEmpty()) {
+            Iterator<Integer> iterator = hostGroups.iterator();
+            while (iterator.hasNext()) {
+                Integer hostGroupId = iterator.next();
+                JobElement jobElement = queue.peek(hostGroupId);
+                if (jobElement == null) {
+                    iterator.remove();
+                    continue;
+                }
+                MasterWorkHolder workHolder = getRunnableWork(jobElement);
+                if (workHolder == null) {
+                    ScheduleLog.warn("can not get work to execute {} job in master,job is:{}", name, jobElement.toString());
+                    iterator.remove();
+                } else if (queue.remove(hostGroupId, jobElement)) {
+                    workHolder.reserve();
+                    runner.accept(workHolder, jobElement);
+                    count++;
+                }
+            }
+        }
+        return count;
     }
 
     public void printThreadPoolLog() {
@@ -696,121 +921,127 @@ public class Master {
     }
 
     /**
-     * 手动执行任务调度器执行逻辑，向master的channel写manual任务执行请求
+     * 手动执行任务调度器执行逻辑，向master的channel写manual任务执行请求，work返回结果后回调处理
      *
      * @param selectWork selectWork 所选机器
-     * @param actionId   actionId
+     * @param element    队列中的任务
      */
-    private void runManualJob(MasterWorkHolder selectWork, String actionId) {
+    private void runManualJob(MasterWorkHolder selectWork, JobElement element) {
         final MasterWorkHolder workHolder = selectWork;
+        final String actionId = element.getJobId();
         SocketLog.info("start run manual job, actionId = {}", actionId);
 
         this.executeJobPool.execute(() -> {
-            HeraAction heraAction = masterContext.getHeraJobActionService().findById(actionId);
-            HeraJobHistory history = masterContext.getHeraJobHistoryService().findById(heraAction.getHistoryId());
-            HeraJobHistoryVo historyVo = BeanConvertUtils.convert(history);
-            historyVo.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
-            heraAction.setStatus(Constants.STATUS_RUNNING);
-            historyVo.setStatusEnum(StatusEnum.RUNNING);
-            HeraAction cacheAction = heraActionMap.get(Long.parseLong(actionId));
-            if (cacheAction != null) {
-                cacheAction.setStatus(Constants.STATUS_RUNNING);
-                cacheAction.setHistoryId(heraAction.getHistoryId());
-            }
-            masterContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(BeanConvertUtils.convert(historyVo));
-
-            Exception exception = null;
-            RpcResponse.Response response = null;
-            Future<RpcResponse.Response> future = null;
             try {
-                future = new MasterExecuteJob().executeJob(masterContext, workHolder,
-                        JobExecuteKind.ExecuteKind.ManualKind, actionId);
-                response = future.get();
-            } catch (Exception e) {
-                exception = e;
-                if (future != null) {
-                    future.cancel(true);
+                HeraAction heraAction = masterContext.getHeraJobActionService().findById(actionId);
+                HeraJobHistory history = masterContext.getHeraJobHistoryService().findById(heraAction.getHistoryId());
+                HeraJobHistoryVo historyVo = BeanConvertUtils.convert(history);
+                historyVo.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
+                heraAction.setStatus(Constants.STATUS_RUNNING);
+                historyVo.setStatusEnum(StatusEnum.RUNNING);
+                ActionState state = actionStates.get(Long.parseLong(actionId));
+                if (state != null) {
+                    state.setStatus(Constants.STATUS_RUNNING);
+                    state.setHistoryId(heraAction.getHistoryId());
+                    state.setWorker(workHolder);
                 }
-                ErrorLog.error("manual job run error {}", e);
+                // 发送给worker之前写入日志，worker以此为起点追加日志分片
+                masterContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(BeanConvertUtils.convert(historyVo));
+                new MasterExecuteJob().executeJob(masterContext, workHolder, JobExecuteKind.ExecuteKind.ManualKind, actionId)
+                        .whenCompleteAsync((response, exception) -> {
+                            if (!requeueIfRejected(workHolder, element, masterContext.getManualQueue(), response)) {
+                                manualJobComplete(actionId, heraAction, history, historyVo, response, exception);
+                            }
+                        }, executeJobPool);
+            } finally {
+                workHolder.release();
             }
-            boolean success = response != null && response.getStatusEnum() != null && response.getStatusEnum() == ResponseStatus.Status.OK;
-            if (response != null) {
-                ScheduleLog.info("actionId 执行结果" + actionId + "---->" + response.getStatusEnum());
+        });
+    }
+
+    /**
+     * 手动任务执行结束的回调
+     */
+    private void manualJobComplete(String actionId, HeraAction heraAction, HeraJobHistory history, HeraJobHistoryVo historyVo,
+                                   RpcResponse.Response response, Throwable exception) {
+        if (exception != null) {
+            ErrorLog.error("manual job run error {}", exception);
+        }
+        boolean success = response != null && response.getStatusEnum() != null && response.getStatusEnum() == ResponseStatus.Status.OK;
+        if (response != null) {
+            ScheduleLog.info("actionId 执行结果" + actionId + "---->" + response.getStatusEnum());
+        }
+        ApplicationEvent event;
+        if (!success) {
+            if (exception != null) {
+                HeraException heraException = new HeraException(exception);
+                ErrorLog.error("manual actionId = {} error, {}", history.getActionId(), heraException.getMessage());
             }
-            ApplicationEvent event;
-            if (!success) {
-                if (exception != null) {
-                    HeraException heraException = new HeraException(exception);
-                    ErrorLog.error("manual actionId = {} error, {}", history.getActionId(), heraException.getMessage());
-                }
-                ScheduleLog.info("actionId = {} manual execute failed", history.getActionId());
-                heraAction.setStatus(Constants.STATUS_FAILED);
-                HeraJobHistory jobHistory = masterContext.getHeraJobHistoryService().findById(history.getId());
-                if (LogConstant.CANCEL_JOB_LOG.equals(jobHistory.getIllustrate())) {
-                    event = null;
-                } else {
-                    HeraJobHistoryVo jobHistoryVo = BeanConvertUtils.convert(jobHistory);
-                    event = new HeraJobFailedEvent(history.getActionId(), jobHistoryVo.getTriggerType(), jobHistoryVo);
-                }
+            ScheduleLog.info("actionId = {} manual execute failed", history.getActionId());
+            heraAction.setStatus(Constants.STATUS_FAILED);
+            HeraJobHistory jobHistory = masterContext.getHeraJobHistoryService().findById(history.getId());
+            if (LogConstant.CANCEL_JOB_LOG.equals(jobHistory.getIllustrate())) {
+                event = null;
             } else {
-                heraAction.setStatus(Constants.STATUS_SUCCESS);
-                event = new HeraJobSuccessEvent(history.getActionId(), historyVo.getTriggerType(), history.getId());
-            }
-            cacheAction = heraActionMap.get(Long.parseLong(actionId));
-            if (cacheAction != null) {
-                cacheAction.setStatus(heraAction.getStatus());
-            }
-            heraAction.setStatisticEndTime(new Date());
-            masterContext.getHeraJobActionService().update(heraAction);
-            if (event != null) {
-                masterContext.getDispatcher().forwardEvent(event);
+                HeraJobHistoryVo jobHistoryVo = BeanConvertUtils.convert(jobHistory);
+                event = new HeraJobFailedEvent(history.getActionId(), jobHistoryVo.getTriggerType(), jobHistoryVo);
             }
-        });
+        } else {
+            heraAction.setStatus(Constants.STATUS_SUCCESS);
+            event = new HeraJobSuccessEvent(history.getActionId(), historyVo.getTriggerType(), history.getId());
+        }
+        ActionState state = actionStates.get(Long.parseLong(actionId));
+        if (state != null) {
+            state.setStatus(heraAction.getStatus());
+            state.setWorker(null);
+        }
+        heraAction.setStatisticEndTime(new Date());
+        masterContext.getHeraJobActionService().update(heraAction);
+        if (event != null) {
+            masterContext.getDispatcher().forwardEvent(event);
+        }
     }
 
     /**
      * 调度任务执行前，先获取任务的执行重试时间间隔和重试次数
      *
      * @param workHolder 所选机器
-     * @param actionId   actionId
+     * @param element    队列中的任务
      */
-    private void runScheduleJob(MasterWorkHolder workHolder, String actionId) {
+    private void runScheduleJob(MasterWorkHolder workHolder, JobElement element) {
         this.executeJobPool.execute(() -> {
-            int runCount = 0;
-            int retryCount = 0;
-            int retryWaitTime = 1;
-            HeraActionVo heraActionVo = masterContext.getHeraJobActionService().findHeraActionVo(actionId).getSource();
-            Map<String, String> properties = heraActionVo.getConfigs();
-            if (properties != null && properties.size() > 0) {
-                retryCount = Integer.parseInt(properties.get("roll.back.times") == null ? "0" : properties.get("roll.back.times"));
-                retryWaitTime = Integer.parseInt(properties.get("roll.back.wait.time") == null ? "0" : properties.get("roll.back.wait.time"));
+            try {
+                String actionId = element.getJobId();
+                int runCount = 0;
+                int retryCount = 0;
+                int retryWaitTime = 1;
+                HeraActionVo heraActionVo = masterContext.getHeraJobActionService().findHeraActionVo(actionId).getSource();
+                Map<String, String> properties = heraActionVo.getConfigs();
+                if (properties != null && properties.size() > 0) {
+                    retryCount = Integer.parseInt(properties.get("roll.back.times") == null ? "0" : properties.get("roll.back.times"));
+                    retryWaitTime = Integer.parseInt(properties.get("roll.back.wait.time") == null ? "0" : properties.get("roll.back.wait.time"));
+                }
+                runScheduleJobContext(workHolder, element, runCount, retryCount, retryWaitTime);
+            } finally {
+                workHolder.release();
             }
-            runScheduleJobContext(workHolder, actionId, runCount, retryCount, retryWaitTime);
         });
     }
 
     /**
-     * 自动调度任务开始执行入口，向master端的channel写请求任务执行请求
+     * 自动调度任务开始执行入口，向master端的channel写请求任务执行请求，work返回结果后回调处理
      *
      * @param workHolder    workHolder
-     * @param actionId      actionId
-     * @param runCount      runCount
+     * @param element       队列中的任务
+     * @param lastRunCount  已经执行的次数
      * @param retryCount    retryCount
      * @param retryWaitTime retryWaitTime
      */
-    private void runScheduleJobContext(MasterWorkHolder workHolder, String actionId, int runCount, int retryCount, int retryWaitTime) {
+    private void runScheduleJobContext(MasterWorkHolder workHolder, JobElement element, int lastRunCount, int retryCount, int retryWaitTime) {
+        String actionId = element.getJobId();
 
         DebugLog.info("重试次数：{},重试时间：{},actionId:{}", retryCount, retryWaitTime, actionId);
-        runCount++;
-        boolean isCancelJob = false;
-        if (runCount > 1) {
-            DebugLog.info("任务重试，睡眠：{}秒", retryWaitTime);
-            try {
-                Thread.sleep(retryWaitTime * 60 * 1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        int runCount = lastRunCount + 1;
         HeraJobHistoryVo heraJobHistoryVo;
         HeraJobHistory heraJobHistory;
         TriggerTypeEnum triggerType;
@@ -841,24 +1072,35 @@ public class Master {
             heraJobHistoryVo.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 第" + (runCount - 1) + "次重试运行\n");
             triggerType = heraJobHistoryVo.getTriggerType();
         }
-        HeraAction cacheAction = heraActionMap.get(Long.parseLong(actionId));
-        if (cacheAction != null) {
-            cacheAction.setStatus(Constants.STATUS_RUNNING);
-            cacheAction.setHistoryId(heraJobHistory.getId());
+        ActionState state = actionStates.get(Long.parseLong(actionId));
+        if (state != null) {
+            state.setStatus(Constants.STATUS_RUNNING);
+            state.setHistoryId(heraJobHistory.getId());
+            state.setRetryCount(runCount - 1);
+            state.setWorker(workHolder);
         }
         heraJobHistoryVo.setStatusEnum(StatusEnum.RUNNING);
+        // 发送给worker之前写入日志，worker以此为起点追加日志分片
         masterContext.getHeraJobHistoryService().updateHeraJobHistoryLogAndStatus(BeanConvertUtils.convert(heraJobHistoryVo));
-        RpcResponse.Response response = null;
-        Future<RpcResponse.Response> future = null;
-        try {
-            future = new MasterExecuteJob().executeJob(masterContext, workHolder,
-                    ScheduleKind, actionId);
-            response = future.get(HeraGlobalEnvironment.getTaskTimeout(), TimeUnit.HOURS);
-        } catch (Exception e) {
-            ErrorLog.error("schedule job run error :" + actionId, e);
-            if (future != null) {
-                future.cancel(true);
-            }
+        new MasterExecuteJob().executeJob(masterContext, workHolder, ScheduleKind, actionId)
+                .whenCompleteAsync((response, exception) -> {
+                    if (!requeueIfRejected(workHolder, element, masterContext.getScheduleQueue(), response)) {
+                        scheduleJobComplete(workHolder, element, runCount, retryCount, retryWaitTime,
+                                heraAction, heraJobHistory, heraJobHistoryVo, triggerType, response, exception);
+                    }
+                }, executeJobPool);
+    }
+
+    /**
+     * 自动调度任务执行结束的回调，失败时通过定时器延迟重试，不占用线程等待
+     */
+    private void scheduleJobComplete(MasterWorkHolder workHolder, JobElement element, int runCount, int retryCount, int retryWaitTime,
+                                     HeraAction heraAction, HeraJobHistory heraJobHistory, HeraJobHistoryVo heraJobHistoryVo,
+                                     TriggerTypeEnum triggerType, RpcResponse.Response response, Throwable exception) {
+        String actionId = element.getJobId();
+        boolean isCancelJob = false;
+        if (exception != null) {
+            ErrorLog.error("schedule job run error :" + actionId, exception);
             heraAction.setStatus(Constants.STATUS_FAILED);
             heraJobHistoryVo.setStatusEnum(StatusEnum.FAILED);
             masterContext.getHeraJobHistoryService().updateHeraJobHistoryStatus(BeanConvertUtils.convert(heraJobHistoryVo));
@@ -887,15 +1129,20 @@ public class Master {
             HeraJobSuccessEvent successEvent = new HeraJobSuccessEvent(actionId, triggerType, heraJobHistory.getId());
             masterContext.getDispatcher().forwardEvent(successEvent);
         }
-        cacheAction = heraActionMap.get(Long.parseLong(actionId));
-        if (cacheAction != null) {
-            cacheAction.setStatus(heraAction.getStatus());
+        ActionState state = actionStates.get(Long.parseLong(actionId));
+        if (state != null) {
+            state.setStatus(heraAction.getStatus());
+            state.setWorker(null);
+            if (success && JobScheduleTypeEnum.Dependent.getType().equals(heraAction.getScheduleType())) {
+                state.clearReady();
+            }
         }
         heraAction.setStatisticEndTime(new Date());
         masterContext.getHeraJobActionService().update(heraAction);
         if (runCount < (retryCount + 1) && !success && !isCancelJob) {
-            DebugLog.info("--------------------------失败任务，准备重试--------------------------");
-            runScheduleJobContext(workHolder, actionId, runCount, retryCount, retryWaitTime);
+            DebugLog.info("--------------------------失败任务，{}分钟后重试--------------------------", retryWaitTime);
+            masterContext.masterSchedule.schedule(() -> executeJobPool.execute(() ->
+                    runScheduleJobContext(workHolder, element, runCount, retryCount, retryWaitTime)), retryWaitTime, TimeUnit.MINUTES);
         }
     }
 
@@ -903,49 +1150,84 @@ public class Master {
      * 开发中心脚本执行逻辑
      *
      * @param selectWork 所选机器
-     * @param debugId    debugId
+     * @param element    队列中的任务
      */
-    private void runDebugJob(MasterWorkHolder selectWork, String debugId) {
+    private void runDebugJob(MasterWorkHolder selectWork, JobElement element) {
         final MasterWorkHolder workHolder = selectWork;
+        final String debugId = element.getJobId();
         this.executeJobPool.execute(() -> {
-            HeraDebugHistoryVo history = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-            history.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
-            masterContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
-            Exception exception = null;
-            RpcResponse.Response response = null;
-            Future<RpcResponse.Response> future = null;
             try {
-                future = new MasterExecuteJob().executeJob(masterContext, workHolder, JobExecuteKind.ExecuteKind.DebugKind, debugId);
-                response = future.get(HeraGlobalEnvironment.getTaskTimeout(), TimeUnit.HOURS);
-            } catch (Exception e) {
-                exception = e;
-                if (future != null) {
-                    future.cancel(true);
-                }
-                DebugLog.error(String.format("debugId:%s run failed", debugId), e);
-            }
-            boolean success = response != null && response.getStatusEnum() == ResponseStatus.Status.OK;
-            if (!success) {
-                exception = new HeraException(String.format("fileId:%s run failed ", history.getFileId()), exception);
-                TaskLog.info("8.Master: debug job error");
-                history = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-                HeraDebugFailEvent failEvent = HeraDebugFailEvent.builder()
-                        .debugHistory(BeanConvertUtils.convert(history))
-                        .throwable(exception)
-                        .fileId(history.getFileId())
-                        .build();
-                masterContext.getDispatcher().forwardEvent(failEvent);
-            } else {
-                TaskLog.info("7.Master: debug success");
-                HeraDebugSuccessEvent successEvent = HeraDebugSuccessEvent.builder()
-                        .fileId(history.getFileId())
-                        .history(BeanConvertUtils.convert(history))
-                        .build();
-                masterContext.getDispatcher().forwardEvent(successEvent);
+                HeraDebugHistoryVo history = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
+                history.getLog().append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + " 开始运行");
+                masterContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
+                new MasterExecuteJob().executeJob(masterContext, workHolder, JobExecuteKind.ExecuteKind.DebugKind, debugId)
+                        .whenCompleteAsync((response, exception) -> {
+                            if (!requeueIfRejected(workHolder, element, masterContext.getDebugQueue(), response)) {
+                                debugJobComplete(debugId, history, response, exception);
+                            }
+                        }, executeJobPool);
+            } finally {
+                workHolder.release();
             }
         });
     }
 
+    /**
+     * 开发中心任务执行结束的回调
+     */
+    private void debugJobComplete(String debugId, HeraDebugHistoryVo history, RpcResponse.Response response, Throwable exception) {
+        if (exception != null) {
+            DebugLog.error(String.format("debugId:%s run failed", debugId), exception);
+        }
+        boolean success = response != null && response.getStatusEnum() == ResponseStatus.Status.OK;
+        if (!success) {
+            HeraException heraException = new HeraException(String.format("fileId:%s run failed ", history.getFileId()), exception);
+            TaskLog.info("8.Master: debug job error");
+            HeraDebugHistoryVo debugHistory = masterContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
+            HeraDebugFailEvent failEvent = HeraDebugFailEvent.builder()
+                    .debugHistory(BeanConvertUtils.convert(debugHistory))
+                    .throwable(heraException)
+                    .fileId(debugHistory.getFileId())
+                    .build();
+            masterContext.getDispatcher().forwardEvent(failEvent);
+        } else {
+            TaskLog.info("7.Master: debug success");
+            HeraDebugSuccessEvent successEvent = HeraDebugSuccessEvent.builder()
+                    .fileId(history.getFileId())
+                    .history(BeanConvertUtils.convert(history))
+                    .build();
+            masterContext.getDispatcher().forwardEvent(successEvent);
+        }
+    }
+
+    /**
+     * worker资源不足拒绝执行时任务没有开始运行，不算执行失败：任务重新进入等待队列分发给其它worker，
+     * 该worker在一个心跳周期内不再分配任务
+     *
+     * @param workHolder 拒绝执行的worker
+     * @param element    任务
+     * @param queue      任务所在的等待队列
+     * @param response   worker的返回
+     * @return 是否是拒绝执行的返回
+     */
+    private boolean requeueIfRejected(MasterWorkHolder workHolder, JobElement element, HostGroupJobQueue queue, RpcResponse.Response response) {
+        if (response == null || response.getStatusEnum() != ResponseStatus.Status.ERROR
+                || !Constants.WORKER_BUSY_MESSAGE.equals(response.getErrorText())) {
+            return false;
+        }
+        workHolder.markBusy(HeraGlobalEnvironment.getHeartBeat() * 1000L);
+        if (queue != masterContext.getDebugQueue()) {
+            ActionState state = actionStates.get(Long.parseLong(element.getJobId()));
+            if (state != null) {
+                state.setWorker(null);
+            }
+        }
+        boolean offered = queue.offer(element);
+        ScheduleLog.warn("worker {} is busy, job {} back to queue:{}", workHolder.getHeartBeatInfo() == null ? null : workHolder.getHeartBeatInfo().getHost(),
+                element.getJobId(), offered);
+        return true;
+    }
+
     /**
      * 获取hostGroupId中可以分发任务的worker
      *
@@ -1012,74 +1294,54 @@ public class Master {
 
 
     private boolean checkJobExists(HeraJobHistoryVo heraJobHistory, boolean checkOnly) {
-        // TODO 任务检测，不要使用for循环，后面改成hash查找
         String actionId = heraJobHistory.getActionId();
-        Integer jobId = heraJobHistory.getJobId();
+        Integer jobId = heraJobHistory.getJobId() != null ? heraJobHistory.getJobId() : ActionUtil.getJobId(actionId);
+        boolean manual = heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL;
+        JobStateIndex index;
+        String queueLog;
         if (heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL_RECOVER || heraJobHistory.getTriggerType() == TriggerTypeEnum.SCHEDULE) {
-            // check调度器等待队列是否有此任务在排队
-            for (JobElement jobElement : masterContext.getScheduleQueue()) {
-                if (ActionUtil.jobEquals(jobElement.getJobId(), actionId)) {
-                    if (!checkOnly) {
-                        heraJobHistory.getLog().append(LogConstant.CHECK_QUEUE_LOG);
-                        heraJobHistory.setStartTime(new Date());
-                        heraJobHistory.setEndTime(new Date());
-                        heraJobHistory.setStatusEnum(StatusEnum.FAILED);
-                        masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
-                    }
-                    TaskLog.warn("调度队列已存在该任务，添加失败 {}", actionId);
-                    return true;
-                }
-            }
-            // check所有的worker中是否有此任务的id在执行，如果有，不进入队列等待
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getRunning().contains(jobId)) {
-                    if (!checkOnly) {
-                        heraJobHistory.getLog().append(LogConstant.CHECK_QUEUE_LOG + "执行worker ip " + workHolder.getChannel().getLocalAddress());
-                        heraJobHistory.setStartTime(new Date());
-                        heraJobHistory.setEndTime(new Date());
-                        heraJobHistory.setStatusEnum(StatusEnum.FAILED);
-                        masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
-                    }
-                    TaskLog.warn("该任务正在执行，添加失败 {}", actionId);
-                    return true;
-
-                }
-            }
-
-        } else if (heraJobHistory.getTriggerType() == TriggerTypeEnum.MANUAL) {
-
-            for (JobElement jobElement : masterContext.getManualQueue()) {
-                if (ActionUtil.jobEquals(jobElement.getJobId(), actionId)) {
-                    if (!checkOnly) {
-                        heraJobHistory.getLog().append(LogConstant.CHECK_MANUAL_QUEUE_LOG);
-                        heraJobHistory.setStartTime(new Date());
-                        heraJobHistory.setEndTime(new Date());
-                        heraJobHistory.setStatusEnum(StatusEnum.FAILED);
-                        masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
-                    }
-                    TaskLog.warn("手动任务队列已存在该任务，添加失败 {}", actionId);
-                    return true;
-                }
+            index = masterContext.getScheduleIndex();
+            queueLog = LogConstant.CHECK_QUEUE_LOG;
+        } else if (manual) {
+            index = masterContext.getManualIndex();
+            queueLog = LogConstant.CHECK_MANUAL_QUEUE_LOG;
+        } else {
+            return false;
+        }
+        JobStateIndex.JobState state = index.get(jobId);
+        if (state == null) {
+            return false;
+        }
+        if (state.isQueued()) {
+            // 等待队列中已有此任务在排队
+            if (!checkOnly) {
+                heraJobHistory.getLog().append(queueLog);
+                failExistsJob(heraJobHistory);
             }
-
-            for (MasterWorkHolder workHolder : masterContext.getWorkMap().values()) {
-                if (workHolder.getManningRunning().contains(jobId)) {
-                    if (!checkOnly) {
-                        heraJobHistory.getLog().append(LogConstant.CHECK_MANUAL_QUEUE_LOG + "执行worker ip " + workHolder.getChannel().getLocalAddress());
-                        heraJobHistory.setStartTime(new Date());
-                        heraJobHistory.setEndTime(new Date());
-                        heraJobHistory.setStatusEnum(StatusEnum.FAILED);
-                        masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
-                    }
-                    TaskLog.warn("该任务正在执行，添加失败 {}", actionId);
-                    return true;
-                }
+            TaskLog.warn(manual ? "手动任务队列已存在该任务，添加失败 {}" : "调度队列已存在该任务，添加失败 {}", actionId);
+            return true;
+        }
+        // worker中有此任务在执行，不进入队列等待
+        MasterWorkHolder workHolder = state.getWorker();
+        if (workHolder != null) {
+            if (!checkOnly) {
+                heraJobHistory.getLog().append(queueLog + "执行worker ip " + workHolder.getChannel().getLocalAddress());
+                failExistsJob(heraJobHistory);
             }
+            TaskLog.warn("该任务正在执行，添加失败 {}", actionId);
+            return true;
         }
         return false;
 
     }
 
+    private void failExistsJob(HeraJobHistoryVo heraJobHistory) {
+        heraJobHistory.setStartTime(new Date());
+        heraJobHistory.setEndTime(new Date());
+        heraJobHistory.setStatusEnum(StatusEnum.FAILED);
+        masterContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(heraJobHistory));
+    }
+
     /**
      * work断开的处理
      *
@@ -1091,9 +1353,14 @@ public class Master {
         MasterWorkHolder workHolder = masterContext.getWorkMap().get(channel);
         masterContext.getWorkMap().remove(channel);
         if (workHolder != null) {
-            List<String> scheduleTask = workHolder.getHeartBeatInfo().getRunning();
+            workHolder.clearRunning();
+            if (workHolder.getHeartBeatInfo() == null) {
+                return;
+            }
+            // 心跳集合在worker重连前不再更新，这里复制一份用于十分钟后的检查
+            List<String> scheduleTask = new ArrayList<>(workHolder.getHeartBeatInfo().getRunning());
 
-            if (scheduleTask == null || scheduleTask.size() == 0) {
+            if (scheduleTask.size() == 0) {
                 return;
             }
             //十分钟后开始检查 work是否重连成功
@@ -1147,7 +1414,7 @@ public class Master {
                                     newBeatInfo = masterContext.getWorkMap().get(newChannel).getHeartBeatInfo();
                                 }
                                 if (newBeatInfo != null) {
-                                    List<String> newRunning = newBeatInfo.getRunning();
+                                    Collection<String> newRunning = newBeatInfo.getRunning();
                                     //如果work新的心跳信息 包含该任务的信息 work继续执行即可
                                     if (newRunning.contains(action)) {
                                         SocketLog.warn("任务{}还在运行中，并且work重连后心跳信息存在，等待work执行完成", action);
@@ -1184,7 +1451,11 @@ public class Master {
 
     private void startNewJob(HeraJobHistory heraJobHistory, String illustrate) {
         heraJobHistory.setStatus(StatusEnum.FAILED.toString());
-        masterContext.getHeraJobHistoryService().update(heraJobHistory);
+        // 断开的worker可能还在追加日志分片，只更新状态，不用内存中的旧日志覆盖log字段
+        masterContext.getHeraJobHistoryService().update(HeraJobHistory.builder()
+                .id(heraJobHistory.getId())
+                .status(heraJobHistory.getStatus())
+                .build());
         HeraJobHistory newHistory = HeraJobHistory.builder().
                 actionId(heraJobHistory.getActionId()).
                 illustrate(illustrate).
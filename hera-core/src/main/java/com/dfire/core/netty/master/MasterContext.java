@@ -2,12 +2,15 @@ package com.dfire.core.netty.master;
 
 import com.dfire.common.entity.vo.HeraHostGroupVo;
 import com.dfire.common.service.*;
+import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.core.config.HeraGlobalEnvironment;
+import com.dfire.core.event.DispatchEventLoop;
 import com.dfire.core.event.Dispatcher;
-import com.dfire.core.quartz.QuartzSchedulerService;
+import com.dfire.core.event.HeraScheduleTriggerEvent;
+import com.dfire.core.netty.master.constant.MasterConstant;
 import com.dfire.core.queue.JobElement;
-import com.dfire.logs.ErrorLog;
+import com.dfire.core.schedule.ActionTriggerWheel;
 import com.dfire.logs.HeraLog;
 import io.netty.channel.Channel;
 import lombok.AllArgsConstructor;
@@ -20,7 +23,6 @@ import org.springframework.stereotype.Component;
 
 import java.util.Comparator;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.*;
 
 /**
@@ -46,8 +48,6 @@ public class MasterContext {
     @Qualifier("heraFileMemoryService")
     private HeraFileService heraFileService;
     @Autowired
-    private QuartzSchedulerService quartzSchedulerService;
-    @Autowired
     @Qualifier("heraGroupMemoryService")
     private HeraGroupService heraGroupService;
     @Autowired
@@ -67,10 +67,22 @@ public class MasterContext {
     private EmailService emailService;
 
     private Dispatcher dispatcher;
+    private ActionTriggerWheel triggerWheel;
     private Map<Integer, HeraHostGroupVo> hostGroupCache;
-    private Queue<JobElement> scheduleQueue = new PriorityBlockingQueue<>(10000, Comparator.comparing(JobElement::getPriorityLevel));
-    private Queue<JobElement> debugQueue = new LinkedBlockingQueue<>(1000);
-    private Queue<JobElement> manualQueue = new LinkedBlockingQueue<>(1000);
+    /**
+     * 队列中排队和worker上运行中的任务索引，分别对应调度(包括恢复)、手动、开发中心任务
+     */
+    private final JobStateIndex scheduleIndex = new JobStateIndex();
+    private final JobStateIndex manualIndex = new JobStateIndex();
+    private final JobStateIndex debugIndex = new JobStateIndex();
+    /**
+     * 任务入队、worker释放资源、收到心跳时唤醒等待队列的扫描线程
+     */
+    private final DispatchSignal dispatchSignal = new DispatchSignal();
+    private HostGroupJobQueue scheduleQueue = new HostGroupJobQueue(() -> new PriorityBlockingQueue<>(10000, Comparator.comparing(JobElement::getPriorityLevel)),
+            scheduleIndex, ActionUtil::getJobId, dispatchSignal);
+    private HostGroupJobQueue debugQueue = new HostGroupJobQueue(() -> new LinkedBlockingQueue<>(1000), debugIndex, Integer::valueOf, dispatchSignal);
+    private HostGroupJobQueue manualQueue = new HostGroupJobQueue(() -> new LinkedBlockingQueue<>(1000), manualIndex, ActionUtil::getJobId, dispatchSignal);
 
     private MasterHandler handler;
     private MasterServer masterServer;
@@ -88,8 +100,10 @@ public class MasterContext {
         masterSchedule = new ScheduledThreadPoolExecutor(5, new NamedThreadFactory("master-schedule", false));
         masterSchedule.setKeepAliveTime(5, TimeUnit.MINUTES);
         masterSchedule.allowCoreThreadTimeOut(true);
-        this.getQuartzSchedulerService().start();
-        dispatcher = new Dispatcher();
+        dispatcher = new Dispatcher(new DispatchEventLoop("master-dispatch", MasterConstant.DISPATCH_PARTITIONS, MasterConstant.DISPATCH_QUEUE_CAPACITY));
+        triggerWheel = new ActionTriggerWheel(MasterConstant.TRIGGER_THREADS, MasterConstant.MISFIRE_THRESHOLD,
+                actionId -> dispatcher.forwardEvent(HeraScheduleTriggerEvent.builder().jobId(actionId).build()));
+        triggerWheel.start();
         handler = new MasterHandler(this);
         masterServer = new MasterServer(handler);
         masterServer.start(HeraGlobalEnvironment.getConnectPort());
@@ -98,19 +112,22 @@ public class MasterContext {
     }
 
     public void destroy() {
+        // 停止前写入还没有持久化的依赖就绪信息
+        if (master != null && master.getReadyDependencyWriter() != null) {
+            master.getReadyDependencyWriter().flush();
+        }
         threadPool.shutdown();
         masterSchedule.shutdown();
+        dispatchSignal.signal();
         if (masterServer != null) {
             masterServer.shutdown();
         }
-        if (quartzSchedulerService != null) {
-            try {
-                quartzSchedulerService.shutdown();
-                HeraLog.info("quartz schedule shutdown success");
-            } catch (Exception e) {
-                e.printStackTrace();
-                ErrorLog.error("quartz schedule shutdown error");
-            }
+        if (triggerWheel != null) {
+            triggerWheel.shutdown();
+            HeraLog.info("trigger wheel shutdown success");
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
         }
         HeraLog.info("destroy master context success");
     }
@@ -3,7 +3,7 @@ package com.dfire.core.netty.master;
 import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.core.netty.HeraChannel;
 import com.dfire.core.netty.NettyChannel;
-import com.dfire.core.netty.listener.ResponseListener;
+import com.dfire.core.netty.listener.ResponseRegistry;
 import com.dfire.core.netty.master.response.MasterHandleRequest;
 import com.dfire.core.netty.master.response.MasterHandlerWebResponse;
 import com.dfire.logs.ErrorLog;
@@ -21,7 +21,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
 import java.net.SocketAddress;
-import java.util.List;
 import java.util.concurrent.*;
 
 /**
@@ -79,7 +78,8 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                 Request request = Request.newBuilder().mergeFrom(socketMessage.getBody()).build();
                 switch (request.getOperate()) {
                     case HeartBeat:
-                        masterContext.getThreadPool().execute(() -> MasterHandleRequest.handleHeartBeat(masterContext, channel, request));
+                        // 增量心跳只做少量集合操作，在io线程中处理，同一个worker的心跳按顺序应用
+                        MasterHandleRequest.handleHeartBeat(masterContext, channel, request);
                         break;
                     case SetWorkInfo:
                         masterContext.getThreadPool().execute(() -> MasterHandleRequest.setWorkInfo(masterContext, channel, request));
@@ -132,8 +132,8 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
                         response = Response.newBuilder().mergeFrom(socketMessage.getBody()).build();
 
                         SocketLog.info("6.MasterHandler:receiver socket info from work {}, response is {}", ctx.channel().remoteAddress(), response.getRid());
-                        for (ResponseListener listener : listeners) {
-                            listener.onResponse(response);
+                        if (!responseRegistry.complete(response.getRid(), response)) {
+                            SocketLog.warn("6.MasterHandler:no request is waiting for response {}, maybe timeout", response.getRid());
                         }
                     } catch (InvalidProtocolBufferException e) {
                         e.printStackTrace();
@@ -142,18 +142,7 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
 
                 break;
             case WEB_RESPONSE:
-                masterContext.getThreadPool().execute(() -> {
-                    WebResponse webResponse = null;
-                    try {
-                        webResponse = WebResponse.newBuilder().mergeFrom(socketMessage.getBody()).build();
-                    } catch (InvalidProtocolBufferException e) {
-                        e.printStackTrace();
-                    }
-                    SocketLog.info("6.MasterHandler:receiver socket info from work {}, webResponse is {}", ctx.channel().remoteAddress(), webResponse.getRid());
-                    for (ResponseListener listener : listeners) {
-                        listener.onWebResponse(webResponse);
-                    }
-                });
+                SocketLog.warn("6.MasterHandler:master does not send web request, ignore web response from {}", ctx.channel().remoteAddress());
                 break;
             default:
                 ErrorLog.error("unknown request type : {}", socketMessage.getKind());
@@ -165,7 +154,7 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
     public void channelRegistered(ChannelHandlerContext ctx) {
         masterContext.getThreadPool().execute(() -> {
             Channel channel = ctx.channel();
-            masterContext.getWorkMap().put(channel, new MasterWorkHolder(new NettyChannel(ctx.channel())));
+            masterContext.getWorkMap().put(channel, new MasterWorkHolder(new NettyChannel(ctx.channel()), masterContext));
             SocketAddress remoteAddress = channel.remoteAddress();
             SocketLog.info("worker client channel registered connect success : {}", remoteAddress.toString());
         });
@@ -195,14 +184,13 @@ public class MasterHandler extends ChannelInboundHandlerAdapter {
         return SocketMessage.newBuilder().setKind(SocketMessage.Kind.WEB_RESPONSE).setBody(response.toByteString()).build();
     }
 
-    private List<ResponseListener> listeners = new CopyOnWriteArrayList<>();
-
-    public void addListener(ResponseListener listener) {
-        listeners.add(listener);
-    }
+    /**
+     * 等待work返回的请求，按request id登记
+     */
+    private ResponseRegistry<Response> responseRegistry = new ResponseRegistry<>();
 
-    public void removeListener(ResponseListener listener) {
-        listeners.remove(listener);
+    public ResponseRegistry<Response> getResponseRegistry() {
+        return responseRegistry;
     }
 
 
@@ -2,11 +2,18 @@ package com.dfire.core.netty.master;
 
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.HeraChannel;
+import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
 import com.dfire.protocol.RpcWorkInfo.WorkInfo;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -22,22 +29,136 @@ public class MasterWorkHolder {
     /**
      * 存放的jobId
      */
-    private Set<Integer> running = new HashSet<>();
+    private final Set<Integer> running;
     /**
      * 存放的jobId
      */
-    private Set<Integer> manningRunning = new HashSet<>();
+    private final Set<Integer> manningRunning;
     /**
      * 存放的debugId
      */
-    private Set<Integer> debugRunning = new HashSet<>();
+    private final Set<Integer> debugRunning;
 
-    private HeartBeatInfo heartBeatInfo;
+    private volatile HeartBeatInfo heartBeatInfo;
+
+    /**
+     * 心跳上报的正在运行的任务，增量心跳直接在集合上增删，只通过heartBeatInfo对外提供只读视图
+     */
+    @Getter(AccessLevel.NONE)
+    private final Set<String> reportedRunning = ConcurrentHashMap.newKeySet();
+
+    @Getter(AccessLevel.NONE)
+    private final Set<String> reportedManualRunning = ConcurrentHashMap.newKeySet();
+
+    @Getter(AccessLevel.NONE)
+    private final Set<String> reportedDebugRunning = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 最近一次应用的心跳版本
+     */
+    private long heartBeatVersion;
 
     private volatile WorkInfo workInfo;
 
-    public MasterWorkHolder(HeraChannel channel) {
+    /**
+     * 已经分配给该worker但还没有加入运行集合的任务数
+     */
+    private final AtomicInteger dispatching = new AtomicInteger(0);
+
+    /**
+     * worker拒绝执行任务后，在这个时间之前不再分配任务
+     */
+    private volatile long busyUntil;
+
+    public MasterWorkHolder(HeraChannel channel, MasterContext masterContext) {
         this.channel = channel;
+        this.running = new RunningSet(masterContext.getScheduleIndex(), this, masterContext.getDispatchSignal());
+        this.manningRunning = new RunningSet(masterContext.getManualIndex(), this, masterContext.getDispatchSignal());
+        this.debugRunning = new RunningSet(masterContext.getDebugIndex(), this, masterContext.getDispatchSignal());
+    }
+
+    /**
+     * worker断开后清空运行中的任务，同时从索引中移除
+     */
+    public void clearRunning() {
+        running.clear();
+        manningRunning.clear();
+        debugRunning.clear();
+    }
+
+    /**
+     * 分配任务时预占资源，任务加入运行集合后释放，避免同一轮扫描在心跳更新前重复分配
+     */
+    public void reserve() {
+        dispatching.incrementAndGet();
+    }
+
+    public void release() {
+        dispatching.decrementAndGet();
+    }
+
+    /**
+     * worker返回繁忙时调用，一段时间内不再向该worker分配任务
+     *
+     * @param millis 暂停分配的毫秒数
+     */
+    public void markBusy(long millis) {
+        busyUntil = System.currentTimeMillis() + millis;
+    }
+
+    public boolean isBusy() {
+        return busyUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * 应用worker的心跳：全量心跳替换运行任务集合，增量心跳在上一次应用的版本上增删
+     *
+     * @param message 心跳
+     * @return 增量心跳的基础版本与最近一次应用的版本不一致时返回false，不做修改，需要worker发送全量心跳
+     */
+    public synchronized boolean applyHeartBeat(HeartBeatMessage message) {
+        if (message.getBaseVersion() == 0) {
+            replace(reportedRunning, message.getRunningsList());
+            replace(reportedManualRunning, message.getManualRunningsList());
+            replace(reportedDebugRunning, message.getDebugRunningsList());
+        } else if (message.getBaseVersion() == heartBeatVersion) {
+            reportedRunning.addAll(message.getRunningsList());
+            reportedRunning.removeAll(message.getFinishedRunningsList());
+            reportedManualRunning.addAll(message.getManualRunningsList());
+            reportedManualRunning.removeAll(message.getFinishedManualRunningsList());
+            reportedDebugRunning.addAll(message.getDebugRunningsList());
+            reportedDebugRunning.removeAll(message.getFinishedDebugRunningsList());
+        } else {
+            return false;
+        }
+        heartBeatVersion = message.getVersion();
+        heartBeatInfo = HeartBeatInfo.builder()
+                .host(message.getHost())
+                .memRate(message.getMemRate())
+                .memTotal(message.getMemTotal())
+                .cpuLoadPerCore(message.getCpuLoadPerCore())
+                .running(Collections.unmodifiableSet(reportedRunning))
+                .manualRunning(Collections.unmodifiableSet(reportedManualRunning))
+                .debugRunning(Collections.unmodifiableSet(reportedDebugRunning))
+                .timestamp(message.getTimestamp())
+                .cores(message.getCores())
+                .build();
+        return true;
+    }
+
+    /**
+     * 先删除再添加，集合不会出现短暂的空集
+     */
+    private static void replace(Set<String> set, List<String> ids) {
+        set.retainAll(new HashSet<>(ids));
+        set.addAll(ids);
+    }
+
+    /**
+     * master端记录的该worker上的任务数，包括已分配还未开始运行的任务
+     */
+    public int runningCount() {
+        return running.size() + manningRunning.size() + debugRunning.size() + dispatching.get();
     }
 
 }
@@ -0,0 +1,76 @@
+package com.dfire.core.netty.master;
+
+import com.dfire.common.entity.HeraAction;
+import com.dfire.common.service.HeraJobActionService;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.ScheduleLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 依赖就绪信息的异步持久化：上游任务成功时只更新内存中的调度状态并登记，定时批量写入hera_action.ready_dependency
+ * 同一个版本多次登记只写一次，写入的是写入时内存中的最新值；写入失败的版本重新登记，下次再写
+ *
+ * @author xiaosuda
+ * @date 2018/12/17
+ */
+public class ReadyDependencyWriter {
+
+    /**
+     * 等待写入的版本
+     */
+    private final ActionStateTable dirty = new ActionStateTable();
+
+    private final HeraJobActionService heraJobActionService;
+
+    private final int batchSize;
+
+    public ReadyDependencyWriter(HeraJobActionService heraJobActionService, int batchSize) {
+        this.heraJobActionService = heraJobActionService;
+        this.batchSize = batchSize;
+    }
+
+    public void markDirty(ActionState state) {
+        dirty.put(state);
+    }
+
+    public int pending() {
+        return dirty.size();
+    }
+
+    /**
+     * 把登记的版本批量写入数据库
+     *
+     * @return 写入的版本数
+     */
+    public int flush() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        List<ActionState> states = new ArrayList<>(dirty.size());
+        dirty.forEach(state -> {
+            // 只有移除成功的才写入，移除后再次登记的下次写入
+            if (dirty.remove(state.getId()) != null) {
+                states.add(state);
+            }
+        });
+        int count = 0;
+        for (int from = 0; from < states.size(); from += batchSize) {
+            List<ActionState> batch = states.subList(from, Math.min(from + batchSize, states.size()));
+            List<HeraAction> actions = new ArrayList<>(batch.size());
+            for (ActionState state : batch) {
+                actions.add(HeraAction.builder().id(state.getId()).readyDependency(state.getReadyDependency()).build());
+            }
+            try {
+                heraJobActionService.batchUpdateReadyDependency(actions);
+                count += batch.size();
+            } catch (Exception e) {
+                ErrorLog.error("write ready dependency error, retry next time", e);
+                batch.forEach(dirty::putIfAbsent);
+            }
+        }
+        ScheduleLog.info("write ready dependency of {} actions", count);
+        return count;
+    }
+}
@@ -0,0 +1,88 @@
+package com.dfire.core.netty.master;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * worker上正在运行的任务id集合，添加和删除时同步更新JobStateIndex
+ *
+ * @author xiaosuda
+ * @date 2018/12/16
+ */
+class RunningSet extends AbstractSet<Integer> {
+
+    private final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+    private final JobStateIndex index;
+
+    private final MasterWorkHolder workHolder;
+
+    /**
+     * 任务结束释放worker资源后唤醒扫描线程
+     */
+    private final DispatchSignal signal;
+
+    RunningSet(JobStateIndex index, MasterWorkHolder workHolder, DispatchSignal signal) {
+        this.index = index;
+        this.workHolder = workHolder;
+        this.signal = signal;
+    }
+
+    /**
+     * 先登记索引再加入集合，检测时不会出现在运行但索引中不存在的情况
+     */
+    @Override
+    public boolean add(Integer id) {
+        index.addRunning(id, workHolder);
+        return ids.add(id);
+    }
+
+    @Override
+    public boolean remove(Object id) {
+        if (ids.remove(id)) {
+            index.removeRunning((Integer) id, workHolder);
+            signal.signal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object id) {
+        return ids.contains(id);
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        Iterator<Integer> iterator = ids.iterator();
+        return new Iterator<Integer>() {
+
+            private Integer current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                index.removeRunning(current, workHolder);
+                current = null;
+            }
+        };
+    }
+}
@@ -13,4 +13,34 @@ public class MasterConstant {
 
     /** 向前15分钟检查,尽量选择确定漏跑的任务，15分钟作为一个界限 */
     public static final long PRE_CHECK_MIN =  15000000;
+
+    /** 自动调度触发线程数 */
+    public static final int TRIGGER_THREADS = 40;
+
+    /** 超过触发时间60秒算作错过触发 */
+    public static final long MISFIRE_THRESHOLD = 60000L;
+
+    /** 并行展开自动调度任务版本的线程数 */
+    public static final int GENERATE_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /** 并行展开版本时每批至少的任务数 */
+    public static final int GENERATE_BATCH_SIZE = 200;
+
+    /** 增量生成版本时，距离上次全量生成超过6小时执行一次全量生成作为兜底 */
+    public static final long FULL_GENERATE_INTERVAL = 6 * 60 * 60 * 1000L;
+
+    /** 依赖就绪信息异步写入数据库的间隔(毫秒) */
+    public static final long READY_DEPENDENCY_FLUSH_INTERVAL = 1000L;
+
+    /** 依赖就绪信息每批写入的版本数 */
+    public static final int READY_DEPENDENCY_BATCH_SIZE = 500;
+
+    /** 事件异步分发的分区数，每个分区一个线程 */
+    public static final int DISPATCH_PARTITIONS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /** 事件分发每个分区允许外部线程提交的排队事件数，超过时提交事件的线程阻塞等待 */
+    public static final int DISPATCH_QUEUE_CAPACITY = 10000;
+
+    /** 事件分发运行指标的打印间隔(毫秒) */
+    public static final long DISPATCH_METRICS_INTERVAL = 60 * 1000L;
 }
@@ -7,6 +7,8 @@ import com.dfire.common.entity.vo.HeraDebugHistoryVo;
 import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.core.config.HeraGlobalEnvironment;
+import com.dfire.core.netty.master.ActionState;
+import com.dfire.core.netty.master.JobStateIndex;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.core.queue.JobElement;
@@ -14,8 +16,10 @@ import com.dfire.logs.SocketLog;
 import com.dfire.protocol.*;
 
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -30,21 +34,17 @@ public class MasterCancelJob {
         RpcWebResponse.WebResponse webResponse = null;
         Integer debugId = Integer.parseInt(request.getId());
         HeraDebugHistoryVo debugHistory = context.getHeraDebugHistoryService().findById(debugId);
-        for (JobElement element : context.getDebugQueue()) {
-            if (element.getJobId().equals(String.valueOf(debugId))) {
-                webResponse = RpcWebResponse.WebResponse.newBuilder()
-                        .setRid(request.getRid())
-                        .setOperate(request.getOperate())
-                        .setStatus(ResponseStatus.Status.OK)
-                        .build();
-                debugHistory.getLog().appendHera("任务取消");
-                context.getHeraDebugHistoryService().update(BeanConvertUtils.convert(debugHistory));
-                break;
-
-            }
+        if (context.getDebugIndex().isQueued(debugId)) {
+            webResponse = RpcWebResponse.WebResponse.newBuilder()
+                    .setRid(request.getRid())
+                    .setOperate(request.getOperate())
+                    .setStatus(ResponseStatus.Status.OK)
+                    .build();
+            debugHistory.getLog().appendHera("任务取消");
+            context.getHeraDebugHistoryService().update(BeanConvertUtils.convert(debugHistory));
         }
 
-        for (MasterWorkHolder workHolder : context.getWorkMap().values()) {
+        for (MasterWorkHolder workHolder : runningWorkers(context.getDebugIndex(), debugId)) {
             if (workHolder.getDebugRunning().contains(debugId)) {
                 Future<RpcResponse.Response> future = new MasterHandleCancelJob().cancel(context,
                         workHolder.getChannel(), JobExecuteKind.ExecuteKind.DebugKind, String.valueOf(debugId));
@@ -82,6 +82,19 @@ public class MasterCancelJob {
 
     }
 
+    /**
+     * 取消时只更新状态、说明和结束时间，不写log字段：
+     * heraJobHistory是取消前读出的日志，worker取消时已经写入了完整日志，运行中的日志分片也是以worker读到的log为起点拼接的
+     */
+    private static HeraJobHistory withoutLog(HeraJobHistory heraJobHistory) {
+        return HeraJobHistory.builder()
+                .id(heraJobHistory.getId())
+                .illustrate(heraJobHistory.getIllustrate())
+                .endTime(heraJobHistory.getEndTime())
+                .status(heraJobHistory.getStatus())
+                .build();
+    }
+
     public static RpcWebResponse.WebResponse handleManualCancel(MasterContext context, RpcWebRequest.WebRequest request) {
         RpcWebResponse.WebResponse webResponse = null;
         String historyId = request.getId();
@@ -89,7 +102,7 @@ public class MasterCancelJob {
         String actionId = heraJobHistory.getActionId();
         Integer jobId = heraJobHistory.getJobId();
         //手动执行队列 查找该job是否存在
-        if (remove(context.getManualQueue().iterator(), actionId)) {
+        if (context.getManualIndex().isQueued(jobId) && remove(context.getManualQueue().iterator(), actionId)) {
             webResponse = RpcWebResponse.WebResponse.newBuilder()
                     .setRid(request.getRid())
                     .setOperate(request.getOperate())
@@ -98,7 +111,7 @@ public class MasterCancelJob {
 
             SocketLog.info("任务仍在手动队列中，从队列删除该任务{}", heraJobHistory.getJobId());
         } else {
-            for (MasterWorkHolder workHolder : context.getWorkMap().values()) {
+            for (MasterWorkHolder workHolder : runningWorkers(context.getManualIndex(), jobId)) {
                 if (workHolder.getManningRunning().contains(jobId)) {
                     Future<RpcResponse.Response> future = new MasterHandleCancelJob().cancel(context,
                             workHolder.getChannel(), JobExecuteKind.ExecuteKind.ManualKind, historyId);
@@ -130,10 +143,10 @@ public class MasterCancelJob {
         heraJobHistory.setIllustrate(Constants.CANCEL_JOB_MESSAGE);
         heraJobHistory.setEndTime(new Date());
         heraJobHistory.setStatus(StatusEnum.FAILED.toString());
-        context.getHeraJobHistoryService().update(heraJobHistory);
-        HeraAction heraAction = context.getMaster().getHeraActionMap().get(Long.parseLong(actionId));
-        if (heraAction != null) {
-            heraAction.setStatus(Constants.STATUS_FAILED);
+        context.getHeraJobHistoryService().update(withoutLog(heraJobHistory));
+        ActionState state = context.getMaster().getActionStates().get(Long.parseLong(actionId));
+        if (state != null) {
+            state.setStatus(Constants.STATUS_FAILED);
         }
         context.getHeraJobActionService().updateStatus(HeraAction.builder().id(Long.parseLong(actionId)).status(Constants.STATUS_FAILED).build());
         return webResponse;
@@ -146,7 +159,7 @@ public class MasterCancelJob {
         Integer jobId = heraJobHistory.getJobId();
         String actionId = heraJobHistory.getActionId();
 
-        if (remove(context.getScheduleQueue().iterator(), actionId)) {
+        if (context.getScheduleIndex().isQueued(jobId) && remove(context.getScheduleQueue().iterator(), actionId)) {
             webResponse = RpcWebResponse.WebResponse.newBuilder()
                     .setRid(request.getRid())
                     .setOperate(request.getOperate())
@@ -155,7 +168,7 @@ public class MasterCancelJob {
             SocketLog.info("任务仍在调度队列中，从队列删除该任务{}", actionId);
 
         } else {
-            for (MasterWorkHolder workHolder : context.getWorkMap().values()) {
+            for (MasterWorkHolder workHolder : runningWorkers(context.getScheduleIndex(), jobId)) {
                 if (workHolder.getRunning().contains(jobId)) {
                     Future<RpcResponse.Response> future = new MasterHandleCancelJob().cancel(context,
                             workHolder.getChannel(), JobExecuteKind.ExecuteKind.ScheduleKind, historyId);
@@ -187,16 +200,24 @@ public class MasterCancelJob {
         heraJobHistory.setEndTime(new Date());
         heraJobHistory.setStatus(Constants.STATUS_FAILED);
         heraJobHistory.setIllustrate(Constants.CANCEL_JOB_MESSAGE);
-        HeraAction heraAction = context.getMaster().getHeraActionMap().get(Long.parseLong(actionId));
-        if (heraAction != null) {
-            heraAction.setStatus(Constants.STATUS_FAILED);
+        ActionState state = context.getMaster().getActionStates().get(Long.parseLong(actionId));
+        if (state != null) {
+            state.setStatus(Constants.STATUS_FAILED);
         }
-        context.getHeraJobHistoryService().update(heraJobHistory);
+        context.getHeraJobHistoryService().update(withoutLog(heraJobHistory));
         context.getHeraJobActionService().updateStatus(HeraAction.builder().id(Long.parseLong(actionId)).status(StatusEnum.FAILED.toString()).build());
         return webResponse;
     }
 
 
+    /**
+     * 从索引中获得正在运行该任务的worker
+     */
+    private static List<MasterWorkHolder> runningWorkers(JobStateIndex index, Integer id) {
+        JobStateIndex.JobState state = index.get(id);
+        return state == null ? Collections.emptyList() : state.getWorkers();
+    }
+
     private static boolean remove(Iterator<JobElement> iterator, String id) {
         JobElement jobElement;
         while (iterator.hasNext()) {
@@ -4,7 +4,6 @@ import com.dfire.common.enums.TriggerTypeEnum;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.RemotingException;
-import com.dfire.core.netty.listener.MasterResponseListener;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.core.netty.util.AtomicIncrease;
@@ -18,8 +17,7 @@ import com.dfire.protocol.RpcRequest.Request;
 import com.dfire.protocol.RpcResponse.Response;
 import com.dfire.protocol.RpcSocketMessage.SocketMessage;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,7 +26,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class MasterExecuteJob {
 
-    public Future<Response> executeJob(final MasterContext context, final MasterWorkHolder holder, ExecuteKind kind, final String id) {
+    public CompletableFuture<Response> executeJob(final MasterContext context, final MasterWorkHolder holder, ExecuteKind kind, final String id) {
         switch (kind) {
             case ScheduleKind:
                 return executeScheduleJob(context, holder, id);
@@ -37,7 +35,9 @@ public class MasterExecuteJob {
             case DebugKind:
                 return executeDebugJob(context, holder, id);
             default:
-                return null;
+                CompletableFuture<Response> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalArgumentException("unknown execute kind " + kind));
+                return future;
         }
     }
 
@@ -50,7 +50,7 @@ public class MasterExecuteJob {
      * @param actionId   String
      * @return Future
      */
-    private Future<Response> executeManualJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
+    private CompletableFuture<Response> executeManualJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
         Integer jobId = ActionUtil.getJobId(actionId);
         workHolder.getManningRunning().add(jobId);
         return buildFuture(context, Request.newBuilder()
@@ -72,7 +72,7 @@ public class MasterExecuteJob {
      * @param actionId   String
      * @return Future
      */
-    private Future<Response> executeScheduleJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
+    private CompletableFuture<Response> executeScheduleJob(MasterContext context, MasterWorkHolder workHolder, String actionId) {
         Integer jobId = ActionUtil.getJobId(actionId);
         workHolder.getRunning().add(jobId);
         return buildFuture(context, Request.newBuilder()
@@ -95,7 +95,7 @@ public class MasterExecuteJob {
      * @param id         String
      * @return Future
      */
-    private Future<Response> executeDebugJob(MasterContext context, MasterWorkHolder workHolder, String id) {
+    private CompletableFuture<Response> executeDebugJob(MasterContext context, MasterWorkHolder workHolder, String id) {
         Integer debugId = Integer.parseInt(id);
         workHolder.getDebugRunning().add(debugId);
         return buildFuture(context, Request.newBuilder()
@@ -110,7 +110,7 @@ public class MasterExecuteJob {
     }
 
     /**
-     * 向work发送执行任务的命令 并等待work返回结果
+     * 向work发送执行任务的命令，work返回结果或超时时future完成，不占用等待线程
      *
      * @param context  MasterContext
      * @param request  Request
@@ -121,36 +121,27 @@ public class MasterExecuteJob {
      * @return Future
      */
 
-    private Future<Response> buildFuture(MasterContext context, Request request, MasterWorkHolder holder, String actionId, TriggerTypeEnum typeEnum, Integer jobId) {
-        final CountDownLatch latch = new CountDownLatch(1);
-        MasterResponseListener responseListener = new MasterResponseListener(request, false, latch, null);
-        context.getHandler().addListener(responseListener);
-        Future<Response> future = context.getThreadPool().submit(() -> {
-            try {
-                latch.await(HeraGlobalEnvironment.getTaskTimeout(), TimeUnit.HOURS);
-                if (!responseListener.getReceiveResult()) {
-                    ErrorLog.error("任务({})信号丢失，3小时未收到work返回：{}", typeEnum.toName(), actionId);
-                }
-            } finally {
-                context.getHandler().removeListener(responseListener);
-                switch (typeEnum) {
-                    case MANUAL:
-                        holder.getManningRunning().remove(jobId);
-                        break;
-                    case SCHEDULE:
-                        holder.getRunning().remove(jobId);
-                        break;
-                    case MANUAL_RECOVER:
-                        holder.getRunning().remove(jobId);
-                        break;
-                    case DEBUG:
-                        holder.getDebugRunning().remove(jobId);
-                        break;
-                    default:
-                        ErrorLog.error("未识别的任务执行类型{}", typeEnum);
-                }
+    private CompletableFuture<Response> buildFuture(MasterContext context, Request request, MasterWorkHolder holder, String actionId, TriggerTypeEnum typeEnum, Integer jobId) {
+        CompletableFuture<Response> response = context.getHandler().getResponseRegistry().register(request.getRid(),
+                HeraGlobalEnvironment.getTaskTimeout(), TimeUnit.HOURS,
+                "任务(" + typeEnum.toName() + ")信号丢失，" + HeraGlobalEnvironment.getTaskTimeout() + "小时未收到work返回：" + actionId);
+        CompletableFuture<Response> future = response.whenComplete((r, e) -> {
+            switch (typeEnum) {
+                case MANUAL:
+                    holder.getManningRunning().remove(jobId);
+                    break;
+                case SCHEDULE:
+                    holder.getRunning().remove(jobId);
+                    break;
+                case MANUAL_RECOVER:
+                    holder.getRunning().remove(jobId);
+                    break;
+                case DEBUG:
+                    holder.getDebugRunning().remove(jobId);
+                    break;
+                default:
+                    ErrorLog.error("未识别的任务执行类型{}", typeEnum);
             }
-            return responseListener.getResponse();
         });
         try {
             holder.getChannel().writeAndFlush(SocketMessage
@@ -161,7 +152,7 @@ public class MasterExecuteJob {
             TaskLog.info("5.MasterExecuteJob:master send debug command to worker,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress());
         } catch (RemotingException e) {
             e.printStackTrace();
-            context.getHandler().removeListener(responseListener);
+            context.getHandler().getResponseRegistry().fail(request.getRid(), e);
             ErrorLog.error("5.MasterExecuteJob:master send debug command to worker exception,rid = " + request.getRid() + ",actionId = " + actionId + ",address " + holder.getChannel().getRemoteAddress());
         }
         return future;
@@ -3,14 +3,12 @@ package com.dfire.core.netty.master.response;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.RemotingException;
 import com.dfire.core.netty.HeraChannel;
-import com.dfire.core.netty.listener.MasterResponseListener;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.util.AtomicIncrease;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.SocketLog;
 import com.dfire.protocol.*;
 
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -35,22 +33,14 @@ public class MasterHandleCancelJob {
                 .setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST)
                 .setBody(request.toByteString())
                 .build();
-        final CountDownLatch latch = new CountDownLatch(1);
-        MasterResponseListener responseListener = new MasterResponseListener(request, false, latch, null);
-        context.getHandler().addListener(responseListener);
-        Future<RpcResponse.Response> future = context.getThreadPool().submit(() -> {
-            latch.await(HeraGlobalEnvironment.getRequestTimeout(), TimeUnit.SECONDS);
-            if (!responseListener.getReceiveResult()) {
-                ErrorLog.error("取消任务信号消失，三小时未收到work返回：{}", jobId);
-            }
-            context.getHandler().removeListener(responseListener);
-            return responseListener.getResponse();
-        });
+        Future<RpcResponse.Response> future = context.getHandler().getResponseRegistry().register(request.getRid(),
+                HeraGlobalEnvironment.getRequestTimeout(), TimeUnit.SECONDS, "取消任务信号消失，未收到work返回：" + jobId);
         try {
             SocketLog.info("send cancel job success {}", request.getRid());
             channel.writeAndFlush(socketMessage);
         } catch (RemotingException e) {
             e.printStackTrace();
+            context.getHandler().getResponseRegistry().fail(request.getRid(), e);
             ErrorLog.error("send cancel job exception {}", request.getRid());
         }
         return future;
@@ -1,13 +1,18 @@
 package com.dfire.core.netty.master.response;
 
 import com.alibaba.fastjson.JSONObject;
-import com.dfire.core.message.HeartBeatInfo;
+import com.dfire.core.exception.RemotingException;
+import com.dfire.core.netty.NettyChannel;
 import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.logs.HeartLog;
 import com.dfire.logs.HeraLog;
+import com.dfire.protocol.ResponseStatus;
 import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
+import com.dfire.protocol.RpcOperate;
 import com.dfire.protocol.RpcRequest.Request;
+import com.dfire.protocol.RpcResponse.Response;
+import com.dfire.protocol.RpcSocketMessage.SocketMessage;
 import com.dfire.protocol.RpcWorkInfo.WorkInfo;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.channel.Channel;
@@ -19,24 +24,47 @@ import io.netty.channel.Channel;
  */
 public class MasterHandleRequest {
 
+    private static final String HEART_BEAT_VERSION_MISMATCH = "增量心跳的基础版本不一致，需要全量心跳";
+
+    /**
+     * 应用worker的心跳，新版本worker的心跳(version大于0)返回确认，worker之后只发送增量
+     * 在io线程中执行，info日志只记录版本和增量的大小，完整的任务集合只在debug级别序列化
+     */
     public static void handleHeartBeat(MasterContext masterContext, Channel channel, Request request) {
         MasterWorkHolder workHolder = masterContext.getWorkMap().get(channel);
-        HeartBeatInfo heartBeatInfo = new HeartBeatInfo();
-        HeartBeatMessage heartBeatMessage;
+        if (workHolder == null) {
+            HeartLog.warn("received heart beat from unregistered channel {}", channel.remoteAddress());
+            return;
+        }
         try {
-            heartBeatMessage = HeartBeatMessage.newBuilder().mergeFrom(request.getBody()).build();
-            heartBeatInfo.setHost(heartBeatMessage.getHost());
-            heartBeatInfo.setMemRate(heartBeatMessage.getMemRate());
-            heartBeatInfo.setMemTotal(heartBeatMessage.getMemTotal());
-            heartBeatInfo.setCpuLoadPerCore(heartBeatMessage.getCpuLoadPerCore());
-            heartBeatInfo.setRunning(heartBeatMessage.getRunningsList());
-            heartBeatInfo.setDebugRunning(heartBeatMessage.getDebugRunningsList());
-            heartBeatInfo.setManualRunning(heartBeatMessage.getManualRunningsList());
-            heartBeatInfo.setTimestamp(heartBeatMessage.getTimestamp());
-            heartBeatInfo.setCores(heartBeatMessage.getCores());
-            workHolder.setHeartBeatInfo(heartBeatInfo);
-            HeartLog.info("received heart beat from {} : {}", heartBeatMessage.getHost(), JSONObject.toJSONString(heartBeatInfo));
-        } catch (InvalidProtocolBufferException e) {
+            HeartBeatMessage heartBeatMessage = HeartBeatMessage.parseFrom(request.getBody());
+            boolean applied = workHolder.applyHeartBeat(heartBeatMessage);
+            if (applied) {
+                masterContext.getDispatchSignal().signal();
+                HeartLog.info("received heart beat {} from {}, base version {}, running +{}/-{}, manual +{}/-{}, debug +{}/-{}",
+                        heartBeatMessage.getVersion(), heartBeatMessage.getHost(), heartBeatMessage.getBaseVersion(),
+                        heartBeatMessage.getRunningsCount(), heartBeatMessage.getFinishedRunningsCount(),
+                        heartBeatMessage.getManualRunningsCount(), heartBeatMessage.getFinishedManualRunningsCount(),
+                        heartBeatMessage.getDebugRunningsCount(), heartBeatMessage.getFinishedDebugRunningsCount());
+                if (HeartLog.isDebugEnabled()) {
+                    HeartLog.debug("heart beat info of {} : {}", heartBeatMessage.getHost(), JSONObject.toJSONString(workHolder.getHeartBeatInfo()));
+                }
+            } else {
+                HeartLog.warn("reject heart beat {} from {}, base version {} but master is {}", heartBeatMessage.getVersion(),
+                        heartBeatMessage.getHost(), heartBeatMessage.getBaseVersion(), workHolder.getHeartBeatVersion());
+            }
+            if (heartBeatMessage.getVersion() > 0) {
+                new NettyChannel(channel).writeAndFlush(SocketMessage.newBuilder()
+                        .setKind(SocketMessage.Kind.RESPONSE)
+                        .setBody(Response.newBuilder()
+                                .setRid(request.getRid())
+                                .setOperate(RpcOperate.Operate.HeartBeat)
+                                .setStatusEnum(applied ? ResponseStatus.Status.OK : ResponseStatus.Status.ERROR)
+                                .setErrorText(applied ? "" : HEART_BEAT_VERSION_MISMATCH)
+                                .build().toByteString())
+                        .build());
+            }
+        } catch (InvalidProtocolBufferException | RemotingException e) {
             e.printStackTrace();
         }
     }
@@ -14,8 +14,8 @@ import com.dfire.core.netty.master.MasterContext;
 import com.dfire.core.netty.master.MasterWorkHolder;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.core.queue.JobElement;
-import com.dfire.core.tool.CpuLoadPerCoreJob;
-import com.dfire.core.tool.MemUseRateJob;
+import com.dfire.core.tool.HostSample;
+import com.dfire.core.tool.HostSampler;
 import com.dfire.logs.HeraLog;
 import com.dfire.logs.TaskLog;
 import com.dfire.protocol.JobExecuteKind.ExecuteKind;
@@ -213,21 +213,18 @@ public class MasterHandlerWebResponse {
         List<String> masterManualQueue = new ArrayList<>(context.getManualQueue().size());
         context.getManualQueue().forEach(jobElement -> masterManualQueue.add(jobElement.getJobId()));
 
-        MemUseRateJob memUseRateJob = new MemUseRateJob(1);
-        memUseRateJob.readMemUsed();
-        CpuLoadPerCoreJob loadPerCoreJob = new CpuLoadPerCoreJob();
-        loadPerCoreJob.run();
+        HostSample sample = HostSampler.getInstance().latest();
 
         allInfo.put(Constants.MASTER_PREFIX + WorkContext.host, HeartBeatMessage.newBuilder()
                 .addAllDebugRunnings(masterDebugQueue)
                 .addAllRunnings(masterScheduleQueue)
                 .addAllManualRunnings(masterManualQueue)
-                .setMemRate(memUseRateJob.getRate())
-                .setMemTotal(memUseRateJob.getMemTotal())
-                .setCpuLoadPerCore(loadPerCoreJob.getLoadPerCore())
+                .setMemRate(sample.getMemRate())
+                .setMemTotal(sample.getMemTotal())
+                .setCpuLoadPerCore(sample.getLoadPerCore())
                 .setTimestamp(System.currentTimeMillis())
                 .setHost(WorkContext.host)
-                .setCores(WorkContext.cpuCoreNum)
+                .setCores(sample.getCores())
                 .build());
 
         return WebResponse.newBuilder()
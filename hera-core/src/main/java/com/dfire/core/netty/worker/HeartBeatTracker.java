@@ -0,0 +1,125 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.protocol.RpcHeartBeatMessage.HeartBeatMessage;
+
+import java.util.*;
+
+/**
+ * worker端的增量心跳：记录master最近一次确认的运行任务集合，心跳只携带确认之后开始和结束的任务
+ * 没有确认的版本、每隔fullInterval次心跳、master拒绝增量或者重新连接之后发送全量心跳
+ *
+ * @author xiaosuda
+ * @date 2018/12/20
+ */
+public class HeartBeatTracker {
+
+    /**
+     * 最多保留的未确认版本，master不返回确认时(旧版本master)一直发送全量心跳
+     */
+    private static final int MAX_PENDING = 8;
+
+    private final int fullInterval;
+
+    private long version;
+
+    private long ackVersion;
+
+    private Snapshot acked;
+
+    private final TreeMap<Long, Snapshot> pending = new TreeMap<>();
+
+    private int sinceFull;
+
+    /**
+     * @param fullInterval 每隔多少次心跳发送一次全量心跳，小于等于1时全部为全量心跳
+     */
+    public HeartBeatTracker(int fullInterval) {
+        this.fullInterval = fullInterval;
+    }
+
+    /**
+     * 生成下一次心跳的任务信息，资源信息由调用方设置
+     *
+     * @param running       正在运行的自动调度任务
+     * @param manualRunning 正在运行的手动任务
+     * @param debugRunning  正在运行的开发中心任务
+     * @return 设置了版本和任务列表的心跳
+     */
+    public synchronized HeartBeatMessage.Builder next(Collection<String> running, Collection<String> manualRunning, Collection<String> debugRunning) {
+        Snapshot current = new Snapshot(running, manualRunning, debugRunning);
+        HeartBeatMessage.Builder builder = HeartBeatMessage.newBuilder().setVersion(++version);
+        if (acked == null || ++sinceFull >= fullInterval) {
+            sinceFull = 0;
+            builder.addAllRunnings(current.running)
+                    .addAllManualRunnings(current.manualRunning)
+                    .addAllDebugRunnings(current.debugRunning);
+        } else {
+            builder.setBaseVersion(ackVersion)
+                    .addAllRunnings(difference(current.running, acked.running))
+                    .addAllFinishedRunnings(difference(acked.running, current.running))
+                    .addAllManualRunnings(difference(current.manualRunning, acked.manualRunning))
+                    .addAllFinishedManualRunnings(difference(acked.manualRunning, current.manualRunning))
+                    .addAllDebugRunnings(difference(current.debugRunning, acked.debugRunning))
+                    .addAllFinishedDebugRunnings(difference(acked.debugRunning, current.debugRunning));
+        }
+        pending.put(version, current);
+        while (pending.size() > MAX_PENDING) {
+            pending.pollFirstEntry();
+        }
+        return builder;
+    }
+
+    /**
+     * master已经应用了该版本的心跳，之后的增量以该版本为基础
+     *
+     * @param version 心跳版本
+     */
+    public synchronized void ack(long version) {
+        Snapshot snapshot = pending.get(version);
+        if (snapshot == null || version <= ackVersion) {
+            return;
+        }
+        acked = snapshot;
+        ackVersion = version;
+        pending.headMap(version, true).clear();
+    }
+
+    /**
+     * master拒绝增量心跳或者重新连接后调用，下一次发送全量心跳
+     */
+    public synchronized void reset() {
+        acked = null;
+        ackVersion = 0;
+        sinceFull = 0;
+        pending.clear();
+    }
+
+    public synchronized long getAckVersion() {
+        return ackVersion;
+    }
+
+    private static List<String> difference(Set<String> from, Set<String> remove) {
+        List<String> result = new ArrayList<>();
+        for (String id : from) {
+            if (!remove.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static class Snapshot {
+
+        private final Set<String> running;
+
+        private final Set<String> manualRunning;
+
+        private final Set<String> debugRunning;
+
+        private Snapshot(Collection<String> running, Collection<String> manualRunning, Collection<String> debugRunning) {
+            this.running = new LinkedHashSet<>(running);
+            this.manualRunning = new LinkedHashSet<>(manualRunning);
+            this.debugRunning = new LinkedHashSet<>(debugRunning);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.core.job.JobContext;
+
+/**
+ * 已经被worker接收、还在等待队列中的任务，登记在WorkContext的排队任务表中，心跳和取消同时查询运行任务表和排队任务表
+ * 开始执行前被取消时执行登记的取消处理(从等待队列中移除并返回结果)，开始执行后先登记真正的job再从排队任务表中移除
+ *
+ * @author xiaosuda
+ * @date 2018/12/21
+ */
+public class QueuedJob {
+
+    private final JobContext jobContext;
+
+    private boolean started;
+
+    private boolean canceled;
+
+    private Runnable onCancel;
+
+    public QueuedJob(JobContext jobContext) {
+        this.jobContext = jobContext;
+    }
+
+    /**
+     * 从等待队列中取出开始执行时调用
+     *
+     * @return 已经被取消时返回false
+     */
+    public synchronized boolean start() {
+        if (canceled) {
+            return false;
+        }
+        started = true;
+        return true;
+    }
+
+    /**
+     * 登记开始执行前被取消时的处理，已经被取消时立即执行
+     *
+     * @param onCancel 取消处理
+     */
+    public synchronized void onCancel(Runnable onCancel) {
+        if (canceled) {
+            if (!started) {
+                onCancel.run();
+            }
+        } else {
+            this.onCancel = onCancel;
+        }
+    }
+
+    /**
+     * 取消排队中的任务，还没有开始执行时执行登记的取消处理
+     */
+    public synchronized void cancel() {
+        if (canceled) {
+            return;
+        }
+        canceled = true;
+        if (!started && onCancel != null) {
+            onCancel.run();
+        }
+    }
+
+    public synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    public JobContext getJobContext() {
+        return jobContext;
+    }
+}
@@ -7,12 +7,14 @@ import com.dfire.common.enums.StatusEnum;
 import com.dfire.common.util.ActionUtil;
 import com.dfire.common.util.BeanConvertUtils;
 import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.common.vo.LogContent;
 import com.dfire.common.vo.MachineInfoVo;
 import com.dfire.common.vo.OSInfoVo;
 import com.dfire.common.vo.ProcessMonitorVo;
 import com.dfire.common.vo.WorkInfoVo;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.job.Job;
+import com.dfire.core.job.JobContext;
 import com.dfire.core.message.HeartBeatInfo;
 import com.dfire.core.netty.NettyChannel;
 import com.dfire.core.netty.worker.request.WorkerHandleWebRequest;
@@ -194,13 +196,33 @@ public class WorkClient {
                 }
             }
 
+            /**
+             * 只追加上次刷新之后新增的日志，失败时回退刷新位置，下次重试
+             * @param history
+             */
+            private void appendScheduleLog(HeraJobHistoryVo history) {
+                LogContent log = history.getLog();
+                int length = log.getFlushedLength();
+                int offset = log.getFlushedOffset();
+                String chunk = log.pollUnflushed();
+                if (chunk == null) {
+                    return;
+                }
+                try {
+                    workContext.getHeraJobHistoryService().appendHeraJobHistoryLog(history.getId(), offset, chunk);
+                } catch (Exception e) {
+                    log.setFlushedLength(length);
+                    log.setFlushedOffset(offset);
+                    throw e;
+                }
+            }
+
             @Override
             public void run() {
                 try {
                     for (Job job : workContext.getRunning().values()) {
                         try {
-                            HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
-                            workContext.getHeraJobHistoryService().updateHeraJobHistoryLog(BeanConvertUtils.convert(history));
+                            appendScheduleLog(job.getJobContext().getHeraJobHistory());
                         } catch (Exception e) {
                             printScheduleLog(job, e);
                         }
@@ -208,8 +230,7 @@ public class WorkClient {
 
                     for (Job job : workContext.getManualRunning().values()) {
                         try {
-                            HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
-                            workContext.getHeraJobHistoryService().updateHeraJobHistoryLog(BeanConvertUtils.convert(history));
+                            appendScheduleLog(job.getJobContext().getHeraJobHistory());
                         } catch (Exception e) {
                             printScheduleLog(job, e);
                         }
@@ -274,16 +295,39 @@ public class WorkClient {
         SocketLog.info("connect server success");
     }
 
+    /**
+     * 取消排队中或者运行中的任务，排队任务先从排队任务表中移除，与开始执行时的移除只有一个成功
+     *
+     * @param running 运行任务表
+     * @param queued  排队任务表
+     * @param id      任务id
+     * @return 被取消任务的context，任务已经结束时返回null
+     */
+    private JobContext cancel(Map<String, Job> running, Map<String, QueuedJob> queued, String id) {
+        QueuedJob queuedJob = queued.remove(id);
+        if (queuedJob != null) {
+            queuedJob.cancel();
+            return queuedJob.getJobContext();
+        }
+        Job job = running.remove(id);
+        if (job == null) {
+            return null;
+        }
+        job.cancel();
+        return job.getJobContext();
+    }
+
     /**
      * 取消执行开发中心任务
      *
      * @param debugId
      */
     public void cancelDebugJob(String debugId) {
-        Job job = workContext.getDebugRunning().get(debugId);
-        job.cancel();
-        workContext.getDebugRunning().remove(debugId);
-        HeraDebugHistoryVo history = job.getJobContext().getDebugHistory();
+        JobContext jobContext = cancel(workContext.getDebugRunning(), workContext.getDebugQueued(), debugId);
+        if (jobContext == null) {
+            return;
+        }
+        HeraDebugHistoryVo history = jobContext.getDebugHistory();
         history.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
         history.setStatus(StatusEnum.FAILED);
         workContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(history));
@@ -298,10 +342,11 @@ public class WorkClient {
      * @param actionId
      */
     public void cancelManualJob(String actionId) {
-        Job job = workContext.getManualRunning().get(actionId);
-        workContext.getManualRunning().remove(actionId);
-        job.cancel();
-        HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
+        JobContext jobContext = cancel(workContext.getManualRunning(), workContext.getManualQueued(), actionId);
+        if (jobContext == null) {
+            return;
+        }
+        HeraJobHistoryVo history = jobContext.getHeraJobHistory();
         history.setEndTime(new Date());
         String illustrate = history.getIllustrate();
         if (illustrate != null && illustrate.trim().length() > 0) {
@@ -321,11 +366,11 @@ public class WorkClient {
      * @param actionId
      */
     public void cancelScheduleJob(String actionId) {
-        Job job = workContext.getRunning().get(actionId);
-        workContext.getRunning().remove(actionId);
-        job.cancel();
-
-        HeraJobHistoryVo history = job.getJobContext().getHeraJobHistory();
+        JobContext jobContext = cancel(workContext.getRunning(), workContext.getScheduleQueued(), actionId);
+        if (jobContext == null) {
+            return;
+        }
+        HeraJobHistoryVo history = jobContext.getHeraJobHistory();
         history.setEndTime(new Date());
         String illustrate = history.getIllustrate();
         if (illustrate != null && illustrate.trim().length() > 0) {
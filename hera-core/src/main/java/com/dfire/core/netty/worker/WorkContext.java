@@ -5,7 +5,8 @@ import com.dfire.common.util.NamedThreadFactory;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.job.Job;
 import com.dfire.core.netty.HeraChannel;
-import com.dfire.core.tool.RunShell;
+import com.dfire.core.tool.HostSample;
+import com.dfire.core.tool.HostSampler;
 import com.dfire.core.util.NetUtils;
 import com.dfire.logs.HeraLog;
 import lombok.Data;
@@ -15,7 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -44,48 +44,78 @@ public class WorkContext {
     @Autowired
     private HeraProfileService heraProfileService;
     public static String host;
-    public static Integer cpuCoreNum;
     public String serverHost;
     private HeraChannel serverChannel;
     private Map<String, Job> running = new ConcurrentHashMap<>();
     private Map<String, Job> manualRunning = new ConcurrentHashMap<>();
     private Map<String, Job> debugRunning = new ConcurrentHashMap<>();
+    /**
+     * 已经接收、还在等待队列中的任务，开始执行时移到对应的运行任务表
+     */
+    private Map<String, QueuedJob> scheduleQueued = new ConcurrentHashMap<>();
+    private Map<String, QueuedJob> manualQueued = new ConcurrentHashMap<>();
+    private Map<String, QueuedJob> debugQueued = new ConcurrentHashMap<>();
     private WorkHandler handler;
     private WorkClient workClient;
     /**
-     * 处理web 异步请求
+     * 处理web异步请求、取消任务、查询worker信息以及任务提交前的查询等短任务
+     * 提交线程是netty的IO线程，队列满时拒绝，由提交方回复繁忙或者丢弃，不在IO线程中执行
      */
-    private ExecutorService workWebThreadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.MINUTES,
-            new SynchronousQueue<>(), new NamedThreadFactory("worker-web"), new ThreadPoolExecutor.AbortPolicy());
+    private ExecutorService workWebThreadPool = new ThreadPoolExecutor(WEB_THREADS, WEB_THREADS, 1L, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(1000), new NamedThreadFactory("worker-web"), new ThreadPoolExecutor.AbortPolicy());
 
     /**
-     * 执行任务
+     * 执行任务，第一次执行任务时根据配置和机器资源创建
      */
-    private ExecutorService workExecuteThreadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.MINUTES,
-            new SynchronousQueue<>(), new NamedThreadFactory("worker-execute"), new ThreadPoolExecutor.AbortPolicy());
+    private volatile WorkerAdmission admission;
 
+    /**
+     * 增量心跳的版本信息
+     */
+    private volatile HeartBeatTracker heartBeatTracker;
 
-    private static final String loadStr = "cat /proc/cpuinfo |grep processor | wc -l";
+    private static final int WEB_THREADS = 8;
 
-    static {
-        host = NetUtils.getLocalAddress();
+    public WorkerAdmission getAdmission() {
+        if (admission == null) {
+            synchronized (this) {
+                if (admission == null) {
+                    int slots = HeraGlobalEnvironment.getWorkerSlots();
+                    if (slots <= 0) {
+                        HostSample sample = HostSampler.getInstance().latest();
+                        slots = WorkerAdmission.slots(sample.getMemTotal(), HeraGlobalEnvironment.getSystemMemUsed(),
+                                HeraGlobalEnvironment.getPerTaskUseMem(), sample.getCores(), HeraGlobalEnvironment.getWorkerSlotsPerCore());
+                    }
+                    admission = new WorkerAdmission(slots, HeraGlobalEnvironment.getWorkerQueueSize());
+                }
+            }
+        }
+        return admission;
+    }
 
-        HeraLog.info("-----------------------------当前机器的IP为:{}-----------------------------", host);
-        if (HeraGlobalEnvironment.isLinuxSystem()) {
-            RunShell shell = new RunShell(loadStr);
-            Integer exitCode = shell.run();
-            if (exitCode == 0) {
-                try {
-                    cpuCoreNum = Integer.parseInt(shell.getResult());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    cpuCoreNum = 4;
+    public HeartBeatTracker getHeartBeatTracker() {
+        if (heartBeatTracker == null) {
+            synchronized (this) {
+                if (heartBeatTracker == null) {
+                    heartBeatTracker = new HeartBeatTracker(HeraGlobalEnvironment.getHeartBeatFullInterval());
                 }
             }
-        } else {
-            cpuCoreNum = 4;
         }
+        return heartBeatTracker;
+    }
+
+    /**
+     * 连接变化后master端没有之前的心跳版本，下一次发送全量心跳
+     */
+    public void setServerChannel(HeraChannel serverChannel) {
+        this.serverChannel = serverChannel;
+        getHeartBeatTracker().reset();
+    }
 
+    static {
+        host = NetUtils.getLocalAddress();
+
+        HeraLog.info("-----------------------------当前机器的IP为:{}-----------------------------", host);
     }
 
 
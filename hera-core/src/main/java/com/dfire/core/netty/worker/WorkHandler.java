@@ -1,14 +1,16 @@
 package com.dfire.core.netty.worker;
 
-import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.common.constants.Constants;
 import com.dfire.core.exception.RemotingException;
-import com.dfire.core.netty.listener.ResponseListener;
+import com.dfire.core.netty.HeraChannel;
+import com.dfire.core.netty.listener.ResponseRegistry;
 import com.dfire.core.netty.worker.request.WorkExecuteJob;
 import com.dfire.core.netty.worker.request.WorkHandleCancel;
 import com.dfire.core.netty.worker.request.WorkHandlerRequest;
 import com.dfire.logs.ErrorLog;
 import com.dfire.logs.SocketLog;
 import com.dfire.logs.TaskLog;
+import com.dfire.protocol.ResponseStatus;
 import com.dfire.protocol.RpcRequest.Request;
 import com.dfire.protocol.RpcResponse.Response;
 import com.dfire.protocol.RpcSocketMessage.SocketMessage;
@@ -17,8 +19,8 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
@@ -30,46 +32,90 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
 
     private WorkHandlerRequest handlerRequest = new WorkHandlerRequest();
 
-    private CompletionService<Response> completionService = new ExecutorCompletionService<>(
-            new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L,
-                    TimeUnit.SECONDS,
-                    new SynchronousQueue<>(),
-                    new NamedThreadFactory("worker-send:", false),
-                    new ThreadPoolExecutor.AbortPolicy()));
-
     private WorkContext workContext;
 
     public WorkHandler(final WorkContext workContext) {
         this.workContext = workContext;
         workContext.setHandler(this);
-        Executor executor = Executors.newSingleThreadExecutor();
-
-        executor.execute(() -> {
-            Response response = null;
-            Future<Response> future;
-            while (true) {
-                try {
-                    future = completionService.take();
-                    response = future.get();
-                    workContext.getServerChannel().writeAndFlush(wrapper(response));
-                    TaskLog.info("1.WorkHandler: worker send response,rid={}", response.getRid());
-                } catch (InterruptedException | ExecutionException | RemotingException e) {
-                    e.printStackTrace();
-                    ErrorLog.error("1.WorkHandler: worker send response timeout,rid={}", response == null ? null : response.getRid());
-                }
+    }
+
+    /**
+     * 任务执行完成后在执行线程中回复master，不占用额外的线程等待结果
+     *
+     * @param request 请求
+     * @param future  执行结果
+     */
+    private void reply(Request request, CompletableFuture<Response> future) {
+        if (future == null) {
+            ErrorLog.error("1.WorkHandler: can not handle request,rid={}", request.getRid());
+            return;
+        }
+        future.whenComplete((response, e) -> {
+            if (e != null) {
+                ErrorLog.error("1.WorkHandler: worker execute request exception,rid=" + request.getRid(), e);
+                return;
             }
+            send(response);
         });
     }
 
+    /**
+     * 提交到worker的web线程池，线程池繁忙时拒绝，不在netty的IO线程中执行
+     *
+     * @param task 任务
+     * @param kind 请求类型，用于日志
+     * @return 被拒绝时返回false
+     */
+    private boolean execute(Runnable task, Object kind) {
+        try {
+            workContext.getWorkWebThreadPool().execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            SocketLog.warn("WorkHandler:worker web thread pool is busy, reject {}", kind);
+            return false;
+        }
+    }
+
+    private Response busy(Request request) {
+        return Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(request.getOperate())
+                .setStatusEnum(ResponseStatus.Status.ERROR)
+                .setErrorText(Constants.WORKER_BUSY_MESSAGE)
+                .build();
+    }
+
+    private void send(Response response) {
+        HeraChannel channel = workContext.getServerChannel();
+        if (channel == null) {
+            ErrorLog.error("1.WorkHandler: server channel is closed, drop response,rid={}", response.getRid());
+            return;
+        }
+        try {
+            channel.writeAndFlush(wrapper(response));
+            TaskLog.info("1.WorkHandler: worker send response,rid={}", response.getRid());
+        } catch (RemotingException e) {
+            ErrorLog.error("1.WorkHandler: worker send response failed,rid=" + response.getRid(), e);
+        }
+    }
+
 
-    private List<ResponseListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * 等待master返回的web请求，按request id登记
+     */
+    private ResponseRegistry<WebResponse> webResponseRegistry = new ResponseRegistry<>();
 
-    public void addListener(ResponseListener listener) {
-        listeners.add(listener);
+    public ResponseRegistry<WebResponse> getWebResponseRegistry() {
+        return webResponseRegistry;
     }
 
-    public void removeListener(ResponseListener listener) {
-        listeners.add(listener);
+    /**
+     * 等待master确认的请求(心跳)，按request id登记
+     */
+    private ResponseRegistry<Response> responseRegistry = new ResponseRegistry<>();
+
+    public ResponseRegistry<Response> getResponseRegistry() {
+        return responseRegistry;
     }
 
     public SocketMessage wrapper(Response response) {
@@ -89,38 +135,39 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
                     case Schedule:
                     case Manual:
                     case Debug:
-                        completionService.submit(() ->
-                                new WorkExecuteJob().execute(workContext, request).get());
+                        if (!execute(() -> reply(request, new WorkExecuteJob().execute(workContext, request)), request.getOperate())) {
+                            send(busy(request));
+                        }
                         break;
                     case Cancel:
-                        completionService.submit(() ->
-                                new WorkHandleCancel().handleCancel(workContext, request).get());
+                        boolean accepted = execute(() -> {
+                            Response response = new WorkHandleCancel().handleCancel(workContext, request);
+                            if (response != null) {
+                                send(response);
+                            }
+                        }, request.getOperate());
+                        if (!accepted) {
+                            send(busy(request));
+                        }
                         break;
                     case GetWorkInfo:
-                        workContext.getWorkExecuteThreadPool().execute(() -> handlerRequest.getWorkInfo(ctx.channel()));
+                        //master下次查询时会重新请求
+                        execute(() -> handlerRequest.getWorkInfo(ctx.channel()), request.getOperate());
                         break;
                     default:
                         ErrorLog.error("unknow operate value {}", request.getOperateValue());
                         break;
                 }
+                break;
             case RESPONSE:
-                workContext.getWorkWebThreadPool().execute(() -> {
-                    Response response = null;
-                    try {
-                        response = Response.newBuilder().mergeFrom(socketMessage.getBody()).build();
-                    } catch (InvalidProtocolBufferException e) {
-                        e.printStackTrace();
-                    }
-                    TaskLog.info("4.WorkHandler:receiver: socket info from master {}, response is {}", ctx.channel().remoteAddress(), response.getRid());
-                    for (ResponseListener listener : listeners) {
-
-                        listener.onResponse(response);
-                    }
-                });
-
+                Response response = Response.newBuilder().mergeFrom(socketMessage.getBody()).build();
+                if (!responseRegistry.complete(response.getRid(), response)) {
+                    SocketLog.warn("WorkHandler:no request is waiting for response {} from {}, maybe timeout", response.getRid(), ctx.channel().remoteAddress());
+                }
                 break;
             case WEB_RESPONSE:
-                workContext.getWorkWebThreadPool().execute(() -> {
+                //丢弃时等待的web请求超时
+                execute(() -> {
                     WebResponse webResponse = null;
                     try {
                         webResponse = WebResponse.newBuilder().mergeFrom(socketMessage.getBody()).build();
@@ -128,10 +175,10 @@ public class WorkHandler extends SimpleChannelInboundHandler<SocketMessage> {
                         e.printStackTrace();
                     }
                     TaskLog.info("4.WorkHandler:receiver socket info from master {}, webResponse is {}", ctx.channel().remoteAddress(), webResponse.getRid());
-                    for (ResponseListener listener : listeners) {
-                        listener.onWebResponse(webResponse);
+                    if (!webResponseRegistry.complete(webResponse.getRid(), webResponse)) {
+                        SocketLog.warn("4.WorkHandler:no request is waiting for web response {}, maybe timeout", webResponse.getRid());
                     }
-                });
+                }, socketMessage.getKind());
                 break;
             default:
                 ErrorLog.error("WorkHandler:can not recognition ");
@@ -0,0 +1,107 @@
+package com.dfire.core.netty.worker;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.HeraLog;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * worker端的任务准入控制：同时执行的任务数不超过slot数，超出的任务在有界队列中等待，队列满时拒绝
+ * master看到的worker负载来自几秒一次的心跳，突发分配时可能超出机器的承受能力，由worker自己兜底
+ *
+ * @author xiaosuda
+ * @date 2018/12/18
+ */
+public class WorkerAdmission {
+
+    private final int slots;
+
+    private final int queueSize;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param slots     同时执行的任务数
+     * @param queueSize 等待执行的任务数
+     */
+    public WorkerAdmission(int slots, int queueSize) {
+        if (slots <= 0 || queueSize < 0) {
+            throw new IllegalArgumentException("slots must be positive and queueSize can not be negative");
+        }
+        this.slots = slots;
+        this.queueSize = queueSize;
+        BlockingQueue<Runnable> queue = queueSize == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueSize);
+        executor = new ThreadPoolExecutor(slots, slots, 1L, TimeUnit.MINUTES, queue,
+                new NamedThreadFactory("worker-execute"), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        HeraLog.info("worker admission slots:{}, queue size:{}", slots, queueSize);
+    }
+
+    /**
+     * 根据内存和cpu核数计算slot数：每个任务预留perTaskMem的内存，每个核最多slotsPerCore个任务
+     *
+     * @param memTotal     总内存(M)
+     * @param systemMem    系统预留内存(M)
+     * @param perTaskMem   每个任务使用的内存(M)
+     * @param cores        cpu核数
+     * @param slotsPerCore 每个核的slot数
+     * @return slot数，至少为1
+     */
+    public static int slots(float memTotal, float systemMem, float perTaskMem, int cores, int slotsPerCore) {
+        int memSlots = perTaskMem > 0 ? (int) ((memTotal - systemMem) / perTaskMem) : Integer.MAX_VALUE;
+        int cpuSlots = cores > 0 && slotsPerCore > 0 ? cores * slotsPerCore : Integer.MAX_VALUE;
+        return Math.max(1, Math.min(memSlots, cpuSlots));
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @return 任务的future，没有空闲slot并且等待队列已满时返回null
+     */
+    public <T> Future<T> trySubmit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return null;
+        }
+    }
+
+    /**
+     * 从等待队列中移除还没有开始执行的任务
+     *
+     * @param future trySubmit返回的future
+     * @return 任务还在等待队列中并且被移除时返回true
+     */
+    public boolean remove(Future<?> future) {
+        return future instanceof Runnable && executor.remove((Runnable) future);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int running() {
+        return executor.getActiveCount();
+    }
+
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
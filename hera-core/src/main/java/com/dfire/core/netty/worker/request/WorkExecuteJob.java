@@ -13,7 +13,9 @@ import com.dfire.common.vo.JobStatus;
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.job.Job;
 import com.dfire.core.job.JobContext;
+import com.dfire.core.netty.worker.QueuedJob;
 import com.dfire.core.netty.worker.WorkContext;
+import com.dfire.core.netty.worker.WorkerAdmission;
 import com.dfire.core.util.JobUtils;
 import com.dfire.logs.ScheduleLog;
 import com.dfire.logs.SocketLog;
@@ -23,6 +25,9 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 /**
@@ -32,7 +37,16 @@ import java.util.concurrent.Future;
  */
 public class WorkExecuteJob {
 
-    public Future<RpcResponse.Response> execute(final WorkContext workContext, final RpcRequest.Request request) {
+    private static final String QUEUE_CANCELED_MESSAGE = "任务在等待队列中被取消";
+
+    /**
+     * 查询任务信息后提交到worker的任务执行线程池，不等待任务执行完成
+     *
+     * @param workContext workContext
+     * @param request     执行请求
+     * @return 任务执行完成、被拒绝或者在等待队列中被取消时完成，请求无法解析时为null
+     */
+    public CompletableFuture<RpcResponse.Response> execute(final WorkContext workContext, final RpcRequest.Request request) {
         if (request.getOperate() == RpcOperate.Operate.Debug) {
             return debug(workContext, request);
         } else if (request.getOperate() == RpcOperate.Operate.Manual) {
@@ -53,7 +67,7 @@ public class WorkExecuteJob {
      */
 
 
-    private Future<RpcResponse.Response> manual(WorkContext workContext, RpcRequest.Request request) {
+    private CompletableFuture<RpcResponse.Response> manual(WorkContext workContext, RpcRequest.Request request) {
         RpcExecuteMessage.ExecuteMessage message;
         try {
             message = RpcExecuteMessage.ExecuteMessage.newBuilder().mergeFrom(request.getBody()).build();
@@ -65,7 +79,10 @@ public class WorkExecuteJob {
         SocketLog.info("worker received master request to run manual job, actionId = {}", actionId);
         HeraAction heraAction = workContext.getHeraJobActionService().findById(actionId);
         final HeraJobHistoryVo history = BeanConvertUtils.convert(workContext.getHeraJobHistoryService().findById(heraAction.getHistoryId()));
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
+        JobContext queuedContext = new JobContext(JobContext.MANUAL_RUN);
+        queuedContext.setHeraJobHistory(history);
+        QueuedJob queued = new QueuedJob(queuedContext);
+        return submit(workContext, request, actionId, workContext.getManualQueued(), queued, () -> {
             history.setExecuteHost(WorkContext.host);
             history.setStartTime(new Date());
             workContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(history));
@@ -79,7 +96,9 @@ public class WorkExecuteJob {
             HeraJobBean jobBean = workContext.getHeraGroupService().getUpstreamJobBean(history.getActionId());
             final Job job = JobUtils.createScheduleJob(new JobContext(JobContext.SCHEDULE_RUN),
                     jobBean, history, directory.getAbsolutePath(), workContext);
-            workContext.getManualRunning().put(actionId, job);
+            if (!promote(workContext.getManualRunning(), workContext.getManualQueued(), actionId, queued, job)) {
+                return error(request, QUEUE_CANCELED_MESSAGE);
+            }
 
             Integer exitCode = -1;
             Exception exception = null;
@@ -129,7 +148,7 @@ public class WorkExecuteJob {
      * @return
      */
 
-    private Future<RpcResponse.Response> schedule(WorkContext workContext, RpcRequest.Request request) {
+    private CompletableFuture<RpcResponse.Response> schedule(WorkContext workContext, RpcRequest.Request request) {
         RpcExecuteMessage.ExecuteMessage message = null;
         try {
             message = RpcExecuteMessage.ExecuteMessage.newBuilder().mergeFrom(request.getBody()).build();
@@ -142,7 +161,10 @@ public class WorkExecuteJob {
         final JobStatus jobStatus = workContext.getHeraJobActionService().findJobStatus(jobId);
         final HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(jobStatus.getHistoryId());
         HeraJobHistoryVo history = BeanConvertUtils.convert(heraJobHistory);
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
+        JobContext queuedContext = new JobContext(JobContext.SCHEDULE_RUN);
+        queuedContext.setHeraJobHistory(history);
+        QueuedJob queued = new QueuedJob(queuedContext);
+        return submit(workContext, request, jobId, workContext.getScheduleQueued(), queued, () -> {
             history.setExecuteHost(WorkContext.host);
             history.setStartTime(new Date());
             workContext.getHeraJobHistoryService().update(BeanConvertUtils.convert(history));
@@ -156,7 +178,9 @@ public class WorkExecuteJob {
             }
 
             final Job job = JobUtils.createScheduleJob(new JobContext(JobContext.SCHEDULE_RUN), jobBean, history, directory.getAbsolutePath(), workContext);
-            workContext.getRunning().put(jobId, job);
+            if (!promote(workContext.getRunning(), workContext.getScheduleQueued(), jobId, queued, job)) {
+                return error(request, QUEUE_CANCELED_MESSAGE);
+            }
 
             Integer exitCode = -1;
             Exception exception = null;
@@ -205,7 +229,7 @@ public class WorkExecuteJob {
      * @param request
      * @return
      */
-    private Future<RpcResponse.Response> debug(WorkContext workContext, RpcRequest.Request request) {
+    private CompletableFuture<RpcResponse.Response> debug(WorkContext workContext, RpcRequest.Request request) {
         RpcDebugMessage.DebugMessage debugMessage = null;
         try {
             debugMessage = RpcDebugMessage.DebugMessage.newBuilder().mergeFrom(request.getBody()).build();
@@ -214,10 +238,15 @@ public class WorkExecuteJob {
         }
         String debugId = debugMessage.getDebugId();
         HeraDebugHistoryVo history = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
+        JobContext queuedContext = new JobContext(JobContext.DEBUG_RUN);
+        queuedContext.setDebugHistory(history);
+        QueuedJob queued = new QueuedJob(queuedContext);
+        return submit(workContext, request, debugId, workContext.getDebugQueued(), queued, () -> {
             int exitCode = -1;
             Exception exception = null;
-            ResponseStatus.Status status;
+            ResponseStatus.Status status = ResponseStatus.Status.ERROR;
+            boolean canceled = false;
+            Job job = null;
             try {
 
                 history.setExecuteHost(WorkContext.host);
@@ -228,27 +257,35 @@ public class WorkExecuteJob {
                 if (!directory.exists()) {
                     directory.mkdirs();
                 }
-                Job job = JobUtils.createDebugJob(new JobContext(JobContext.DEBUG_RUN), BeanConvertUtils.convert(history),
+                job = JobUtils.createDebugJob(new JobContext(JobContext.DEBUG_RUN), BeanConvertUtils.convert(history),
                         directory.getAbsolutePath(), workContext);
-                workContext.getDebugRunning().putIfAbsent(debugId, job);
-                exitCode = job.run();
+                canceled = !promote(workContext.getDebugRunning(), workContext.getDebugQueued(), debugId, queued, job);
+                if (!canceled) {
+                    exitCode = job.run();
+                }
             } catch (Exception e) {
                 exception = e;
                 history.getLog().appendHeraException(e);
             } finally {
-                HeraDebugHistoryVo heraDebugHistoryVo = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
-                heraDebugHistoryVo.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
-                if (exitCode == 0) {
-                    status = ResponseStatus.Status.OK;
-                    heraDebugHistoryVo.setStatus(StatusEnum.SUCCESS);
-                } else {
-                    status = ResponseStatus.Status.ERROR;
-                    heraDebugHistoryVo.setStatus(StatusEnum.FAILED);
+                if (!canceled) {
+                    HeraDebugHistoryVo heraDebugHistoryVo = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
+                    heraDebugHistoryVo.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+                    if (exitCode == 0) {
+                        status = ResponseStatus.Status.OK;
+                        heraDebugHistoryVo.setStatus(StatusEnum.SUCCESS);
+                    } else {
+                        status = ResponseStatus.Status.ERROR;
+                        heraDebugHistoryVo.setStatus(StatusEnum.FAILED);
+                    }
+                    workContext.getHeraDebugHistoryService().updateStatus(BeanConvertUtils.convert(heraDebugHistoryVo));
+                    //创建job失败时没有job的日志
+                    HeraDebugHistoryVo debugHistory = job == null ? history : job.getJobContext().getDebugHistory();
+                    workContext.getHeraDebugHistoryService().updateLog(BeanConvertUtils.convert(debugHistory));
+                    workContext.getDebugRunning().remove(debugId);
                 }
-                workContext.getHeraDebugHistoryService().updateStatus(BeanConvertUtils.convert(heraDebugHistoryVo));
-                HeraDebugHistoryVo debugHistory = workContext.getDebugRunning().get(debugId).getJobContext().getDebugHistory();
-                workContext.getHeraDebugHistoryService().updateLog(BeanConvertUtils.convert(debugHistory));
-                workContext.getDebugRunning().remove(debugId);
+            }
+            if (canceled) {
+                return error(request, QUEUE_CANCELED_MESSAGE);
             }
             String errorText = "";
             if (exception != null && exception.getMessage() != null) {
@@ -263,4 +300,73 @@ public class WorkExecuteJob {
         });
     }
 
+    /**
+     * 提交到worker的任务执行线程池，没有空闲slot并且等待队列已满时直接返回繁忙，master会把任务分发给其它worker
+     * 提交前把任务登记到排队任务表，排队中的任务也能在心跳中上报和被取消，开始执行时由task调用promote移到运行任务表
+     *
+     * @param workContext workContext
+     * @param request     执行请求
+     * @param id          版本id或开发中心任务id
+     * @param queuedJobs  登记的排队任务表
+     * @param queued      排队中的任务
+     * @param task        执行任务
+     * @return 执行结果
+     */
+    private CompletableFuture<RpcResponse.Response> submit(WorkContext workContext, RpcRequest.Request request, String id,
+                                                           Map<String, QueuedJob> queuedJobs, QueuedJob queued, Callable<RpcResponse.Response> task) {
+        WorkerAdmission admission = workContext.getAdmission();
+        CompletableFuture<RpcResponse.Response> result = new CompletableFuture<>();
+        queuedJobs.put(id, queued);
+        Future<?> future = admission.trySubmit(() -> {
+            if (!queued.start()) {
+                return null;
+            }
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                //创建job失败时没有移出排队任务表
+                queuedJobs.remove(id, queued);
+            }
+            return null;
+        });
+        if (future != null) {
+            queued.onCancel(() -> {
+                admission.remove(future);
+                queuedJobs.remove(id, queued);
+                SocketLog.info("cancel queued job {}", id);
+                result.complete(error(request, QUEUE_CANCELED_MESSAGE));
+            });
+            return result;
+        }
+        queuedJobs.remove(id, queued);
+        SocketLog.warn("worker is busy, reject job {}, slots:{}, running:{}, queued:{}", id, admission.getSlots(), admission.running(), admission.queued());
+        return CompletableFuture.completedFuture(error(request, Constants.WORKER_BUSY_MESSAGE));
+    }
+
+    /**
+     * 开始执行时把任务从排队任务表移到运行任务表，先登记job再移除排队任务，心跳中不会漏掉任务
+     * 与取消时的移除只有一个成功，取消先成功时撤销登记
+     *
+     * @return 排队时已经被取消返回false
+     */
+    private static boolean promote(Map<String, Job> running, Map<String, QueuedJob> queuedJobs, String id, QueuedJob queued, Job job) {
+        running.put(id, job);
+        if (queuedJobs.remove(id, queued)) {
+            return true;
+        }
+        running.remove(id, job);
+        return false;
+    }
+
+    private static RpcResponse.Response error(RpcRequest.Request request, String errorText) {
+        return RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(request.getOperate())
+                .setStatusEnum(ResponseStatus.Status.ERROR)
+                .setErrorText(errorText)
+                .build();
+    }
+
 }
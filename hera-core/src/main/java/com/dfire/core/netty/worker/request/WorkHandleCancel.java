@@ -13,16 +13,15 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.concurrent.Future;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
  * @time: Created in 下午10:57 2018/5/11
- * @desc worker端执行接受到master hander端的取消任务指令的时候，开始执行取消任务逻辑
+ * @desc worker端执行接受到master hander端的取消任务指令的时候，开始执行取消任务逻辑，在worker的web线程池中同步执行
  */
 public class WorkHandleCancel {
 
-    public Future<RpcResponse.Response> handleCancel(final WorkContext workContext, final RpcRequest.Request request) {
+    public RpcResponse.Response handleCancel(final WorkContext workContext, final RpcRequest.Request request) {
         try {
             RpcCancelMessage.CancelMessage cancelMessage = RpcCancelMessage.CancelMessage.newBuilder()
                     .mergeFrom(request.getBody())
@@ -48,26 +47,15 @@ public class WorkHandleCancel {
      * @param historyId
      * @return
      */
-    private Future<RpcResponse.Response> cancelManual(WorkContext workContext, RpcRequest.Request request, String historyId) {
+    private RpcResponse.Response cancelManual(WorkContext workContext, RpcRequest.Request request, String historyId) {
         HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(historyId);
         final String actionId = heraJobHistory.getActionId();
         SocketLog.info("worker receive cancel manual job, actionId =" + actionId);
-        if (!workContext.getManualRunning().containsKey(actionId)) {
-            return workContext.getWorkExecuteThreadPool().submit(() -> RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Cancel)
-                    .setStatusEnum(ResponseStatus.Status.ERROR)
-                    .setErrorText("运行任务中查无此任务")
-                    .build());
+        if (!workContext.getManualRunning().containsKey(actionId) && !workContext.getManualQueued().containsKey(actionId)) {
+            return notFound(request);
         }
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
-            workContext.getWorkClient().cancelManualJob(actionId);
-            return RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Cancel)
-                    .setStatusEnum(ResponseStatus.Status.OK)
-                    .build();
-        });
+        workContext.getWorkClient().cancelManualJob(actionId);
+        return ok(request);
     }
 
     /**
@@ -78,26 +66,15 @@ public class WorkHandleCancel {
      * @param historyId
      * @return
      */
-    private Future<RpcResponse.Response> cancelSchedule(WorkContext workContext, RpcRequest.Request request, String historyId) {
+    private RpcResponse.Response cancelSchedule(WorkContext workContext, RpcRequest.Request request, String historyId) {
         HeraJobHistory heraJobHistory = workContext.getHeraJobHistoryService().findById(historyId);
         String actionId = heraJobHistory.getActionId();
         SocketLog.info("worker receive cancel schedule job, actionId =" + actionId);
-        if (!workContext.getRunning().containsKey(actionId)) {
-            return workContext.getWorkExecuteThreadPool().submit(() -> RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Cancel)
-                    .setStatusEnum(ResponseStatus.Status.ERROR)
-                    .setErrorText("运行任务中查无此任务")
-                    .build());
+        if (!workContext.getRunning().containsKey(actionId) && !workContext.getScheduleQueued().containsKey(actionId)) {
+            return notFound(request);
         }
-        return workContext.getWorkExecuteThreadPool().submit(() -> {
-            workContext.getWorkClient().cancelScheduleJob(actionId);
-            return RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Cancel)
-                    .setStatusEnum(ResponseStatus.Status.OK)
-                    .build();
-        });
+        workContext.getWorkClient().cancelScheduleJob(actionId);
+        return ok(request);
     }
 
     /**
@@ -108,30 +85,33 @@ public class WorkHandleCancel {
      * @param debugId
      * @return
      */
-    private Future<RpcResponse.Response> cancelDebug(WorkContext workContext, RpcRequest.Request request, String debugId) {
-        Future<RpcResponse.Response> future;
-        if (!workContext.getDebugRunning().containsKey(debugId)) {
-            future = workContext.getWorkExecuteThreadPool().submit(() -> RpcResponse.Response.newBuilder()
-                    .setRid(request.getRid())
-                    .setOperate(RpcOperate.Operate.Cancel)
-                    .setStatusEnum(ResponseStatus.Status.ERROR)
-                    .setErrorText("运行任务中查无此任务")
-                    .build());
+    private RpcResponse.Response cancelDebug(WorkContext workContext, RpcRequest.Request request, String debugId) {
+        if (!workContext.getDebugRunning().containsKey(debugId) && !workContext.getDebugQueued().containsKey(debugId)) {
             HeraDebugHistoryVo debugHistory = workContext.getHeraDebugHistoryService().findById(Integer.parseInt(debugId));
             debugHistory.setStatus(StatusEnum.FAILED);
             debugHistory.setEndTime(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
             workContext.getHeraDebugHistoryService().update(BeanConvertUtils.convert(debugHistory));
-        } else {
-            future = workContext.getWorkExecuteThreadPool().submit(() -> {
-                workContext.getWorkClient().cancelDebugJob(debugId);
-                return RpcResponse.Response.newBuilder()
-                        .setRid(request.getRid())
-                        .setOperate(RpcOperate.Operate.Cancel)
-                        .setStatusEnum(ResponseStatus.Status.OK)
-                        .build();
-            });
+            return notFound(request);
         }
-        return future;
+        workContext.getWorkClient().cancelDebugJob(debugId);
+        return ok(request);
+    }
+
+    private static RpcResponse.Response ok(RpcRequest.Request request) {
+        return RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(RpcOperate.Operate.Cancel)
+                .setStatusEnum(ResponseStatus.Status.OK)
+                .build();
+    }
+
+    private static RpcResponse.Response notFound(RpcRequest.Request request) {
+        return RpcResponse.Response.newBuilder()
+                .setRid(request.getRid())
+                .setOperate(RpcOperate.Operate.Cancel)
+                .setStatusEnum(ResponseStatus.Status.ERROR)
+                .setErrorText("运行任务中查无此任务")
+                .build();
     }
 
 }
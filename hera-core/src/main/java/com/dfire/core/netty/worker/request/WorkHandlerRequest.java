@@ -1,7 +1,9 @@
 package com.dfire.core.netty.worker.request;
 
+import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.RemotingException;
 import com.dfire.core.netty.NettyChannel;
+import com.dfire.core.tool.HostSampler;
 import com.dfire.core.tool.OsProcessJob;
 import com.dfire.protocol.RpcOperate;
 import com.dfire.protocol.RpcRequest.Request;
@@ -15,27 +17,43 @@ import io.netty.channel.Channel;
  */
 public class WorkHandlerRequest {
 
+    /**
+     * 进程列表的最大数量
+     */
+    private static final int PROCESS_LIMIT = 30;
+
     public void getWorkInfo(Channel channel) {
-        OsProcessJob processJob = new OsProcessJob();
-        Integer exitCode = processJob.run();
-        if (exitCode == 0) {
-            try {
-                new NettyChannel(channel).writeAndFlush(
-                        SocketMessage.newBuilder()
-                                .setKind(SocketMessage.Kind.REQUEST)
-                                .setBody(Request.newBuilder()
-                                        .setBody(WorkInfo.newBuilder()
-                                                .setOSInfo(processJob.getOsInfo())
-                                                .addAllProcessMonitor(processJob.getProcessMonitors())
-                                                .build().toByteString())
-                                        .setOperate(RpcOperate.Operate.SetWorkInfo)
-                                        .build()
-                                        .toByteString())
-                                .build());
-            } catch (RemotingException e) {
-                e.printStackTrace();
+        WorkInfo workInfo;
+        if (HeraGlobalEnvironment.isLinuxSystem()) {
+            // linux直接使用采样数据和/proc，不再执行top
+            HostSampler sampler = HostSampler.getInstance();
+            workInfo = WorkInfo.newBuilder()
+                    .setOSInfo(sampler.osInfo())
+                    .addAllMachineInfo(sampler.machineInfo())
+                    .addAllProcessMonitor(sampler.processes(PROCESS_LIMIT))
+                    .build();
+        } else {
+            OsProcessJob processJob = new OsProcessJob();
+            if (processJob.run() != 0) {
+                return;
             }
+            workInfo = WorkInfo.newBuilder()
+                    .setOSInfo(processJob.getOsInfo())
+                    .addAllProcessMonitor(processJob.getProcessMonitors())
+                    .build();
+        }
+        try {
+            new NettyChannel(channel).writeAndFlush(
+                    SocketMessage.newBuilder()
+                            .setKind(SocketMessage.Kind.REQUEST)
+                            .setBody(Request.newBuilder()
+                                    .setBody(workInfo.toByteString())
+                                    .setOperate(RpcOperate.Operate.SetWorkInfo)
+                                    .build()
+                                    .toByteString())
+                            .build());
+        } catch (RemotingException e) {
+            e.printStackTrace();
         }
-
     }
 }
@@ -2,7 +2,6 @@ package com.dfire.core.netty.worker.request;
 
 import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.RemotingException;
-import com.dfire.core.netty.listener.WorkResponseListener;
 import com.dfire.core.netty.util.AtomicIncrease;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.logs.ErrorLog;
@@ -13,7 +12,6 @@ import com.dfire.protocol.RpcWebOperate.WebOperate;
 import com.dfire.protocol.RpcWebRequest.WebRequest;
 import com.dfire.protocol.RpcWebResponse.WebResponse;
 
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -75,17 +73,8 @@ public class WorkerHandleWebRequest {
     }
 
     private static Future<WebResponse> buildMessage(WebRequest request, WorkContext workContext, String errorMsg) {
-        CountDownLatch latch = new CountDownLatch(1);
-        WorkResponseListener responseListener = new WorkResponseListener(request, false, latch, null);
-        workContext.getHandler().addListener(responseListener);
-        Future<WebResponse> future = workContext.getWorkWebThreadPool().submit(() -> {
-            latch.await(HeraGlobalEnvironment.getRequestTimeout(), TimeUnit.SECONDS);
-            if (!responseListener.getReceiveResult()) {
-                ErrorLog.error(errorMsg);
-            }
-            workContext.getHandler().removeListener(responseListener);
-            return responseListener.getWebResponse();
-        });
+        Future<WebResponse> future = workContext.getHandler().getWebResponseRegistry().register(request.getRid(),
+                HeraGlobalEnvironment.getRequestTimeout(), TimeUnit.SECONDS, errorMsg);
         try {
             workContext.getServerChannel().writeAndFlush(SocketMessage.newBuilder()
                     .setKind(SocketMessage.Kind.WEB_REQUEST)
@@ -94,7 +83,7 @@ public class WorkerHandleWebRequest {
             SocketLog.info("1.WorkerHandleWebRequest: send web request to master requestId ={}", request.getRid());
         } catch (RemotingException e) {
             e.printStackTrace();
-            workContext.getHandler().removeListener(responseListener);
+            workContext.getHandler().getWebResponseRegistry().fail(request.getRid(), e);
             ErrorLog.error("1.WorkerHandleWebRequest: send web request to master exception requestId ={}", request.getRid());
         }
         return future;
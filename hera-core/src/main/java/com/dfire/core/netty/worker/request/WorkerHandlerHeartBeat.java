@@ -1,15 +1,26 @@
 package com.dfire.core.netty.worker.request;
 
+import com.dfire.core.config.HeraGlobalEnvironment;
 import com.dfire.core.exception.RemotingException;
+import com.dfire.core.job.Job;
 import com.dfire.core.netty.util.AtomicIncrease;
+import com.dfire.core.netty.worker.HeartBeatTracker;
+import com.dfire.core.netty.worker.QueuedJob;
 import com.dfire.core.netty.worker.WorkContext;
-import com.dfire.core.tool.CpuLoadPerCoreJob;
-import com.dfire.core.tool.MemUseRateJob;
+import com.dfire.core.tool.HostSample;
+import com.dfire.core.tool.HostSampler;
+import com.dfire.logs.HeartLog;
+import com.dfire.protocol.ResponseStatus;
 import com.dfire.protocol.RpcHeartBeatMessage;
 import com.dfire.protocol.RpcOperate;
 import com.dfire.protocol.RpcRequest;
 import com.dfire.protocol.RpcSocketMessage;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author xiaosuda
  * @date 2018/4/12
@@ -17,33 +28,57 @@ import com.dfire.protocol.RpcSocketMessage;
 public class WorkerHandlerHeartBeat {
 
 
+    /**
+     * 运行中和排队中的任务id，开始执行时先登记job再移除排队任务，先读排队任务表不会漏掉正在开始执行的任务
+     */
+    private static Set<String> ids(Map<String, Job> running, Map<String, QueuedJob> queued) {
+        Set<String> ids = new HashSet<>(queued.keySet());
+        ids.addAll(running.keySet());
+        return ids;
+    }
+
+    /**
+     * 发送心跳，任务列表由HeartBeatTracker生成，master确认之后只发送增量
+     */
     public boolean send(WorkContext context) {
+        int rid = AtomicIncrease.getAndIncrement();
         try {
-            MemUseRateJob memUseRateJob = new MemUseRateJob(1);
-            memUseRateJob.readMemUsed();
-            CpuLoadPerCoreJob loadPerCoreJob = new CpuLoadPerCoreJob();
-            loadPerCoreJob.run();
-            RpcHeartBeatMessage.HeartBeatMessage hbm = RpcHeartBeatMessage.HeartBeatMessage.newBuilder()
+            HostSample sample = HostSampler.getInstance().latest();
+            HeartBeatTracker tracker = context.getHeartBeatTracker();
+            RpcHeartBeatMessage.HeartBeatMessage hbm = tracker.next(ids(context.getRunning(), context.getScheduleQueued()),
+                    ids(context.getManualRunning(), context.getManualQueued()), ids(context.getDebugRunning(), context.getDebugQueued()))
                     .setHost(WorkContext.host)
-                    .setMemTotal(memUseRateJob.getMemTotal())
-                    .setMemRate(memUseRateJob.getRate())
-                    .setCpuLoadPerCore(loadPerCoreJob.getLoadPerCore())
+                    .setMemTotal(sample.getMemTotal())
+                    .setMemRate(sample.getMemRate())
+                    .setCpuLoadPerCore(sample.getLoadPerCore())
                     .setTimestamp(System.currentTimeMillis())
-                    .addAllDebugRunnings(context.getDebugRunning().keySet())
-                    .addAllManualRunnings(context.getManualRunning().keySet())
-                    .addAllRunnings(context.getRunning().keySet())
-                    .setCores(WorkContext.cpuCoreNum)
+                    .setCores(sample.getCores())
                     .build();
+            long version = hbm.getVersion();
+            context.getHandler().getResponseRegistry()
+                    .register(rid, HeraGlobalEnvironment.getHeartBeat(), TimeUnit.SECONDS, "heart beat " + version + " is not acknowledged by master")
+                    .whenComplete((response, e) -> {
+                        if (e != null) {
+                            return;
+                        }
+                        if (response.getStatusEnum() == ResponseStatus.Status.OK) {
+                            tracker.ack(version);
+                        } else {
+                            HeartLog.warn("master reject heart beat {}:{}, send full heart beat next time", version, response.getErrorText());
+                            tracker.reset();
+                        }
+                    });
             context.getServerChannel().writeAndFlush(RpcSocketMessage.SocketMessage.newBuilder().
                     setKind(RpcSocketMessage.SocketMessage.Kind.REQUEST).
                     setBody(RpcRequest.Request.newBuilder().
-                            setRid(AtomicIncrease.getAndIncrement()).
+                            setRid(rid).
                             setOperate(RpcOperate.Operate.HeartBeat).
                             setBody(hbm.toByteString()).
                             build().toByteString()).
                     build());
         } catch (RemotingException e) {
             e.printStackTrace();
+            context.getHandler().getResponseRegistry().fail(rid, e);
             return false;
         }
         return true;
@@ -12,7 +12,8 @@ public enum ResultReason {
     MEM_LIMIT("内存超过限制"),
     LOAD_LIMIT("CPU LOAD 超过限制"),
     HOSTS_ERROR("hosts 不匹配"),
-    TASK_LIMIT("运行任务数量超过限制");
+    TASK_LIMIT("运行任务数量超过限制"),
+    WORKER_BUSY("worker繁忙，暂停分配任务");
 
     private  String msg;
 
@@ -31,6 +31,10 @@ public abstract class AbstractChooseWorkerStrategy implements IStrategyWorker {
             return false;
         }
         HeartBeatInfo heartBeatInfo = worker.getHeartBeatInfo();
+        if (worker.isBusy()) {
+            MasterLog.warn(ResultReason.WORKER_BUSY.getMsg() + ", host:{}", heartBeatInfo.getHost());
+            return false;
+        }
         if (!heartBeatInfo.getHost().equals(host.trim())) {
             MasterLog.warn(ResultReason.HOSTS_ERROR.getMsg() + "{},{}", heartBeatInfo.getHost(), host.trim());
             return false;
@@ -47,7 +51,9 @@ public abstract class AbstractChooseWorkerStrategy implements IStrategyWorker {
 
         // 配置计算数量
         Float assignTaskNum = (heartBeatInfo.getMemTotal() - HeraGlobalEnvironment.getSystemMemUsed()) / HeraGlobalEnvironment.getPerTaskUseMem();
-        int sum = heartBeatInfo.getDebugRunning().size() + heartBeatInfo.getManualRunning().size() + heartBeatInfo.getRunning().size();
+        // 心跳上报的任务数在两次心跳之间不会更新，同时参考master端分配的任务数
+        int sum = Math.max(heartBeatInfo.getDebugRunning().size() + heartBeatInfo.getManualRunning().size() + heartBeatInfo.getRunning().size(),
+                worker.runningCount());
         if (sum > assignTaskNum.intValue()) {
             MasterLog.warn(ResultReason.TASK_LIMIT.getMsg() + ":{}, host:{}", sum, heartBeatInfo.getHost());
             return false;
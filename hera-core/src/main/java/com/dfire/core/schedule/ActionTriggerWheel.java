@@ -0,0 +1,233 @@
+package com.dfire.core.schedule;
+
+import com.dfire.common.util.ActionUtil;
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.ScheduleLog;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 自动调度版本的触发器，每个版本只在版本号中的时间点触发一次
+ * 按分钟划分的时间轮，一圈为一天，登记和取消都是O(1)，每个tick把到期的版本分批交给触发线程池
+ *
+ * @author xiaosuda
+ * @date 2018/12/14
+ */
+public class ActionTriggerWheel {
+
+    /**
+     * 一圈1440个槽，每个槽对应一分钟
+     */
+    private static final int WHEEL_SIZE = 24 * 60;
+
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 检查是否进入下一分钟的间隔，决定了触发的最大延迟
+     */
+    private static final long CHECK_MILLIS = 500L;
+
+    private static final int ACTION_MIN_LENGTH = ActionUtil.ACTION_MIN.length();
+
+    private static final DateTimeFormatter ACTION_MIN_FORMATTER = DateTimeFormatter.ofPattern(ActionUtil.ACTION_MIN);
+
+    /**
+     * 槽内保存 actionId -> 触发的分钟数，分钟数大于当前tick的属于后面几圈
+     */
+    private final Map<String, Long>[] wheel;
+
+    private final Map<String, Long> triggerMinutes = new ConcurrentHashMap<>();
+
+    private final long misfireThreshold;
+
+    private final int fireThreads;
+
+    private final Consumer<String> trigger;
+
+    /**
+     * 保证登记和tick处理同一个槽时不会漏掉
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ScheduledExecutorService tickExecutor;
+
+    private ExecutorService firePool;
+
+    /**
+     * 最后一次处理完成的分钟数
+     */
+    private volatile long lastTick;
+
+    /**
+     * @param fireThreads      触发线程数
+     * @param misfireThreshold 超过触发时间多少毫秒算作错过触发
+     * @param trigger          触发版本的回调
+     */
+    @SuppressWarnings("unchecked")
+    public ActionTriggerWheel(int fireThreads, long misfireThreshold, Consumer<String> trigger) {
+        this.fireThreads = fireThreads;
+        this.misfireThreshold = misfireThreshold;
+        this.trigger = trigger;
+        this.wheel = new Map[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentHashMap<>(4);
+        }
+        this.lastTick = minuteOf(System.currentTimeMillis()) - 1;
+    }
+
+    public void start() {
+        firePool = new ThreadPoolExecutor(fireThreads, fireThreads, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("master-trigger"), new ThreadPoolExecutor.AbortPolicy());
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("master-trigger-tick", true));
+        tickExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                tick(System.currentTimeMillis());
+            } catch (Exception e) {
+                ErrorLog.error("trigger wheel tick error", e);
+            }
+        }, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        ScheduleLog.info("start action trigger wheel");
+    }
+
+    public void shutdown() {
+        if (tickExecutor != null) {
+            tickExecutor.shutdownNow();
+        }
+        if (firePool != null) {
+            firePool.shutdown();
+        }
+    }
+
+    /**
+     * 按版本号中的时间登记触发
+     *
+     * @param actionId 版本id
+     * @return 触发时间已经超过misfireThreshold时不登记，返回false，由漏跑检测处理
+     */
+    public boolean schedule(String actionId) {
+        LocalDateTime time = LocalDateTime.parse(actionId.substring(0, ACTION_MIN_LENGTH), ACTION_MIN_FORMATTER);
+        return schedule(actionId, time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * 登记触发，已经登记过的版本保持原来的触发时间
+     *
+     * @param actionId    版本id
+     * @param triggerTime 触发时间
+     * @return 是否登记
+     */
+    public boolean schedule(String actionId, long triggerTime) {
+        if (triggerTime < System.currentTimeMillis() - misfireThreshold) {
+            return false;
+        }
+        long minute = minuteOf(triggerTime);
+        lock.lock();
+        try {
+            if (triggerMinutes.putIfAbsent(actionId, minute) != null) {
+                return false;
+            }
+            // tick已经处理过该分钟时放到下一个tick补触发
+            wheel[slotOf(Math.max(minute, lastTick + 1))].put(actionId, minute);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消触发，补触发槽中残留的记录在tick时因为triggerMinutes中不存在而被丢弃
+     *
+     * @param actionId 版本id
+     * @return 是否登记过
+     */
+    public boolean cancel(String actionId) {
+        Long minute = triggerMinutes.remove(actionId);
+        if (minute == null) {
+            return false;
+        }
+        wheel[slotOf(minute)].remove(actionId, minute);
+        return true;
+    }
+
+    public boolean contains(String actionId) {
+        return triggerMinutes.containsKey(actionId);
+    }
+
+    public int size() {
+        return triggerMinutes.size();
+    }
+
+    /**
+     * 处理上一次tick之后到now为止的每一分钟，停顿超过一圈时每个槽只需要处理一次
+     *
+     * @param now 当前时间
+     */
+    void tick(long now) {
+        long current = minuteOf(now);
+        long from = Math.max(lastTick + 1, current - WHEEL_SIZE + 1);
+        for (long minute = from; minute <= current; minute++) {
+            List<String> batch = new ArrayList<>();
+            lock.lock();
+            try {
+                Map<String, Long> slot = wheel[slotOf(minute)];
+                for (Map.Entry<String, Long> entry : slot.entrySet()) {
+                    long triggerMinute = entry.getValue();
+                    if (triggerMinute <= minute && slot.remove(entry.getKey(), triggerMinute)
+                            && triggerMinutes.remove(entry.getKey(), triggerMinute)) {
+                        if (now - triggerMinute * TICK_MILLIS > misfireThreshold) {
+                            ScheduleLog.warn("action {} misfire, trigger now", entry.getKey());
+                        }
+                        batch.add(entry.getKey());
+                    }
+                }
+                lastTick = minute;
+            } finally {
+                lock.unlock();
+            }
+            fire(batch);
+        }
+    }
+
+    /**
+     * 同一分钟到期的版本平均分给触发线程
+     */
+    private void fire(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ScheduleLog.info("trigger {} actions", batch.size());
+        int size = (batch.size() + fireThreads - 1) / fireThreads;
+        for (int start = 0; start < batch.size(); start += size) {
+            List<String> part = batch.subList(start, Math.min(start + size, batch.size()));
+            Runnable task = () -> part.forEach(actionId -> {
+                try {
+                    trigger.accept(actionId);
+                } catch (Exception e) {
+                    ErrorLog.error("trigger action " + actionId + " error", e);
+                }
+            });
+            if (firePool == null) {
+                task.run();
+            } else {
+                firePool.execute(task);
+            }
+        }
+    }
+
+    private static long minuteOf(long millis) {
+        return millis / TICK_MILLIS;
+    }
+
+    private static int slotOf(long minute) {
+        return (int) (minute % WHEEL_SIZE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.dfire.core.tool;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一次机器负载采样，由{@link HostSampler}定时生成，生成后不再修改
+ *
+ * @author xiaosuda
+ * @date 2018/12/19
+ */
+@Data
+@Builder
+public class HostSample {
+
+    private long timestamp;
+
+    /**
+     * cpu核数
+     */
+    private int cores;
+
+    /**
+     * 最近1分钟的平均负载
+     */
+    private float loadAvg;
+
+    /**
+     * 每个核的平均负载
+     */
+    private float loadPerCore;
+
+    /**
+     * 总内存(M)
+     */
+    private float memTotal;
+
+    /**
+     * 可用内存(M)
+     */
+    private float memAvailable;
+
+    /**
+     * 内存使用率 0~1
+     */
+    private float memRate;
+
+    /**
+     * swap使用率 0~1
+     */
+    private float swapRate;
+
+    /**
+     * 两次采样之间用户态cpu百分比
+     */
+    private float cpuUser;
+
+    /**
+     * 两次采样之间内核态cpu百分比
+     */
+    private float cpuSystem;
+
+    /**
+     * 两次采样之间cpu空闲百分比
+     */
+    private float cpuIdle;
+
+    /**
+     * 磁盘分区的使用情况
+     */
+    private List<Disk> disks;
+
+    @Data
+    @Builder
+    public static class Disk {
+
+        private String filesystem;
+
+        private String type;
+
+        private String mountedOn;
+
+        private long total;
+
+        private long used;
+
+        private long avail;
+    }
+}
@@ -0,0 +1,503 @@
+package com.dfire.core.tool;
+
+import com.dfire.common.util.NamedThreadFactory;
+import com.dfire.core.config.HeraGlobalEnvironment;
+import com.dfire.logs.ErrorLog;
+import com.dfire.logs.HeraLog;
+import com.dfire.protocol.RpcWorkInfo.MachineInfo;
+import com.dfire.protocol.RpcWorkInfo.OSInfo;
+import com.dfire.protocol.RpcWorkInfo.ProcessMonitor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 机器负载采样：后台线程定时直接读取/proc/loadavg、/proc/meminfo、/proc/stat和分区的statvfs，
+ * 结果写入环形缓冲区，心跳和机器信息查询读取最近一次的采样，不再创建uptime、top、cat等进程
+ * 非linux系统没有/proc，使用固定值
+ *
+ * @author xiaosuda
+ * @date 2018/12/19
+ */
+public class HostSampler {
+
+    /**
+     * 环形缓冲区保留的采样数
+     */
+    public static final int DEFAULT_CAPACITY = 60;
+
+    /**
+     * 分区的变化很少，每隔一段时间才重新统计
+     */
+    private static final long DISK_SAMPLE_INTERVAL = 60 * 1000L;
+
+    /**
+     * 内核的时钟频率(USER_HZ)，/proc中cpu时间的单位
+     */
+    private static final int CLOCK_TICKS = 100;
+
+    private static final long PAGE_SIZE = 4096L;
+
+    private static final Path PROC = Paths.get("/proc");
+
+    private static volatile HostSampler instance;
+
+    private final boolean linux;
+
+    private final AtomicReferenceArray<HostSample> ring;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 上一次采样时/proc/stat的cpu时间，只在采样线程中使用
+     */
+    private long[] lastCpuTicks;
+
+    private List<HostSample.Disk> disks = Collections.emptyList();
+
+    private long lastDiskTime;
+
+    /**
+     * 上一次查询进程时每个进程的cpu时间，用来计算两次查询之间的cpu使用率
+     */
+    private Map<String, Long> lastProcessTicks = Collections.emptyMap();
+
+    private long lastProcessTime;
+
+    public HostSampler(long intervalMillis, int capacity) {
+        this(HeraGlobalEnvironment.isLinuxSystem(), intervalMillis, capacity);
+    }
+
+    HostSampler(boolean linux, long intervalMillis, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.linux = linux;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        // 先同步采样一次，保证latest()不为空
+        sample();
+        if (intervalMillis > 0) {
+            executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("host-sampler", true));
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    sample();
+                } catch (Exception e) {
+                    ErrorLog.error("采样机器负载失败", e);
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            executor = null;
+        }
+    }
+
+    public static HostSampler getInstance() {
+        if (instance == null) {
+            synchronized (HostSampler.class) {
+                if (instance == null) {
+                    instance = new HostSampler(HeraGlobalEnvironment.getSampleInterval(), DEFAULT_CAPACITY);
+                    HeraLog.info("host sampler started, interval:{}ms", HeraGlobalEnvironment.getSampleInterval());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return 最近一次的采样
+     */
+    public HostSample latest() {
+        long seq = sequence.get();
+        return ring.get((int) ((seq - 1) % ring.length()));
+    }
+
+    /**
+     * @return 缓冲区中的采样，按时间从旧到新
+     */
+    public List<HostSample> history() {
+        long seq = sequence.get();
+        int size = (int) Math.min(seq, ring.length());
+        List<HostSample> samples = new ArrayList<>(size);
+        for (long i = seq - size; i < seq; i++) {
+            HostSample sample = ring.get((int) (i % ring.length()));
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    synchronized HostSample sample() {
+        HostSample sample = linux ? readProc() : defaultSample();
+        long seq = sequence.get();
+        ring.set((int) (seq % ring.length()), sample);
+        sequence.set(seq + 1);
+        return sample;
+    }
+
+    private HostSample defaultSample() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return HostSample.builder()
+                .timestamp(System.currentTimeMillis())
+                .cores(cores)
+                .loadAvg(cores)
+                .loadPerCore(1f)
+                .memTotal(10240f)
+                .memAvailable(10240f * 0.9f)
+                .memRate(0.1f)
+                .cpuIdle(100f)
+                .disks(Collections.emptyList())
+                .build();
+    }
+
+    private HostSample readProc() {
+        HostSample.HostSampleBuilder builder = HostSample.builder().timestamp(System.currentTimeMillis());
+        int cores = Runtime.getRuntime().availableProcessors();
+        try {
+            String stat = read(PROC.resolve("stat"));
+            int statCores = parseCores(stat);
+            if (statCores > 0) {
+                cores = statCores;
+            }
+            long[] ticks = parseCpuTicks(stat);
+            float[] percent = cpuPercent(lastCpuTicks, ticks);
+            lastCpuTicks = ticks;
+            builder.cpuUser(percent[0]).cpuSystem(percent[1]).cpuIdle(percent[2]);
+        } catch (IOException e) {
+            ErrorLog.error("读取/proc/stat失败", e);
+        }
+        builder.cores(cores);
+        try {
+            float load = parseLoadAvg(read(PROC.resolve("loadavg")));
+            builder.loadAvg(load).loadPerCore(load / cores);
+        } catch (IOException e) {
+            ErrorLog.error("读取/proc/loadavg失败", e);
+        }
+        try {
+            float[] mem = parseMemInfo(read(PROC.resolve("meminfo")));
+            builder.memTotal(mem[0])
+                    .memAvailable(mem[1])
+                    .memRate(mem[0] > 0 ? (mem[0] - mem[1]) / mem[0] : 0f)
+                    .swapRate(mem[2] > 0 ? (mem[2] - mem[3]) / mem[2] : 0f);
+        } catch (IOException e) {
+            ErrorLog.error("读取/proc/meminfo失败", e);
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastDiskTime >= DISK_SAMPLE_INTERVAL) {
+            disks = readDisks();
+            lastDiskTime = now;
+        }
+        return builder.disks(disks).build();
+    }
+
+    private static List<HostSample.Disk> readDisks() {
+        List<HostSample.Disk> disks = new ArrayList<>();
+        for (FileStore store : FileSystems.getDefault().getFileStores()) {
+            try {
+                long total = store.getTotalSpace();
+                // 与df一致，不统计大小为0的虚拟文件系统
+                if (total == 0) {
+                    continue;
+                }
+                long avail = store.getUsableSpace();
+                String mountedOn = store.toString();
+                int index = mountedOn.lastIndexOf(" (");
+                disks.add(HostSample.Disk.builder()
+                        .filesystem(store.name())
+                        .type(store.type())
+                        .mountedOn(index > 0 ? mountedOn.substring(0, index) : mountedOn)
+                        .total(total)
+                        .used(total - store.getUnallocatedSpace())
+                        .avail(avail)
+                        .build());
+            } catch (IOException e) {
+                // 没有权限或者已经卸载的分区
+            }
+        }
+        return Collections.unmodifiableList(disks);
+    }
+
+    /**
+     * @return 最近一次采样转换的机器信息，非linux系统返回null
+     */
+    public OSInfo osInfo() {
+        if (!linux) {
+            return null;
+        }
+        HostSample sample = latest();
+        return OSInfo.newBuilder()
+                .setUser(sample.getCpuUser())
+                .setSystem(sample.getCpuSystem())
+                .setCpu(sample.getCpuIdle())
+                .setMem(sample.getMemRate() * 100f)
+                .setSwap(sample.getSwapRate() * 100f)
+                .build();
+    }
+
+    public List<MachineInfo> machineInfo() {
+        List<HostSample.Disk> disks = latest().getDisks();
+        List<MachineInfo> machineInfos = new ArrayList<>(disks.size());
+        for (HostSample.Disk disk : disks) {
+            long usable = disk.getUsed() + disk.getAvail();
+            machineInfos.add(MachineInfo.newBuilder()
+                    .setFilesystem(disk.getFilesystem())
+                    .setType(disk.getType())
+                    .setSize(humanSize(disk.getTotal()))
+                    .setUsed(humanSize(disk.getUsed()))
+                    .setAvail(humanSize(disk.getAvail()))
+                    .setUse(usable > 0 ? (disk.getUsed() * 100 + usable - 1) / usable + "%" : "0%")
+                    .setMountedOn(disk.getMountedOn())
+                    .build());
+        }
+        return machineInfos;
+    }
+
+    /**
+     * 读取/proc/[pid]/stat，按cpu使用率排序取前limit个进程，字段格式与top一致
+     * cpu使用率为与上一次查询之间的平均值，第一次查询时为进程启动以来的平均值
+     *
+     * @param limit 进程数
+     * @return 进程列表，非linux系统返回null
+     */
+    public synchronized List<ProcessMonitor> processes(int limit) {
+        if (!linux) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        float uptime;
+        try {
+            uptime = Float.parseFloat(read(PROC.resolve("uptime")).trim().split("\\s+")[0]);
+        } catch (IOException | RuntimeException e) {
+            ErrorLog.error("读取/proc/uptime失败", e);
+            return Collections.emptyList();
+        }
+        float elapsed = lastProcessTime > 0 ? (now - lastProcessTime) / 1000f : 0f;
+        float memTotalKb = latest().getMemTotal() * 1024;
+        Map<String, Long> currentTicks = new HashMap<>(lastProcessTicks.size() + 16);
+        List<ProcessStat> stats = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(PROC, HostSampler::isPid)) {
+            for (Path dir : dirs) {
+                ProcessStat stat;
+                try {
+                    stat = parseProcessStat(read(dir.resolve("stat")));
+                } catch (IOException | RuntimeException e) {
+                    // 进程已经退出
+                    continue;
+                }
+                currentTicks.put(stat.pid, stat.ticks);
+                Long last = lastProcessTicks.get(stat.pid);
+                if (last != null && elapsed > 0) {
+                    stat.cpu = (stat.ticks - last) * 100f / (elapsed * CLOCK_TICKS);
+                } else {
+                    float alive = uptime - stat.startTicks / (float) CLOCK_TICKS;
+                    stat.cpu = alive > 0 ? stat.ticks * 100f / (alive * CLOCK_TICKS) : 0f;
+                }
+                stats.add(stat);
+            }
+        } catch (IOException e) {
+            ErrorLog.error("读取进程列表失败", e);
+        }
+        lastProcessTicks = currentTicks;
+        lastProcessTime = now;
+        stats.sort((a, b) -> Float.compare(b.cpu, a.cpu));
+        List<ProcessMonitor> monitors = new ArrayList<>(Math.min(limit, stats.size()));
+        for (ProcessStat stat : stats.subList(0, Math.min(limit, stats.size()))) {
+            long resKb = stat.rssPages * PAGE_SIZE / 1024;
+            monitors.add(ProcessMonitor.newBuilder()
+                    .setPid(stat.pid)
+                    .setUser(owner(stat.pid))
+                    .setViri(String.valueOf(stat.vsizeBytes / 1024))
+                    .setRes(String.valueOf(resKb))
+                    .setCpu(String.format("%.1f", stat.cpu))
+                    .setMem(String.format("%.1f", memTotalKb > 0 ? resKb * 100f / memTotalKb : 0f))
+                    .setTime(formatTime(stat.ticks))
+                    .setCommand(stat.command)
+                    .build());
+        }
+        return monitors;
+    }
+
+    private static boolean isPid(Path path) {
+        String name = path.getFileName().toString();
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return !name.isEmpty();
+    }
+
+    private static String owner(String pid) {
+        try {
+            return Files.getOwner(PROC.resolve(pid)).getName();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return /proc/stat中cpuN的行数
+     */
+    static int parseCores(String stat) {
+        int cores = 0;
+        for (String line : stat.split("\n")) {
+            if (line.startsWith("cpu") && line.length() > 3 && Character.isDigit(line.charAt(3))) {
+                cores++;
+            }
+        }
+        return cores;
+    }
+
+    /**
+     * @return /proc/stat第一行的cpu时间：user nice system idle iowait irq softirq steal
+     */
+    static long[] parseCpuTicks(String stat) {
+        int end = stat.indexOf('\n');
+        String[] words = (end < 0 ? stat : stat.substring(0, end)).trim().split("\\s+");
+        long[] ticks = new long[8];
+        for (int i = 0; i < ticks.length && i + 1 < words.length; i++) {
+            ticks[i] = Long.parseLong(words[i + 1]);
+        }
+        return ticks;
+    }
+
+    /**
+     * @return 两次采样之间的cpu百分比：用户态(user+nice)、内核态(system+irq+softirq)、空闲(idle)，没有上一次采样时按开机以来计算
+     */
+    static float[] cpuPercent(long[] last, long[] current) {
+        long[] delta = new long[current.length];
+        long total = 0;
+        for (int i = 0; i < current.length; i++) {
+            delta[i] = last == null ? current[i] : current[i] - last[i];
+            total += delta[i];
+        }
+        if (total <= 0) {
+            return new float[]{0f, 0f, 100f};
+        }
+        return new float[]{
+                (delta[0] + delta[1]) * 100f / total,
+                (delta[2] + delta[5] + delta[6]) * 100f / total,
+                delta[3] * 100f / total};
+    }
+
+    static float parseLoadAvg(String loadAvg) {
+        return Float.parseFloat(loadAvg.trim().split("\\s+")[0]);
+    }
+
+    /**
+     * 内核3.14之前没有MemAvailable，使用MemFree+Buffers+Cached
+     *
+     * @return MemTotal、MemAvailable、SwapTotal、SwapFree，单位：M
+     */
+    static float[] parseMemInfo(String memInfo) {
+        float total = 0f, available = -1f, free = 0f, buffers = 0f, cached = 0f, swapTotal = 0f, swapFree = 0f;
+        for (String line : memInfo.split("\n")) {
+            int index = line.indexOf(':');
+            if (index <= 0) {
+                continue;
+            }
+            String key = line.substring(0, index);
+            String[] words = line.substring(index + 1).trim().split("\\s+");
+            float value;
+            try {
+                value = Float.parseFloat(words[0]) / 1024;
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (key) {
+                case "MemTotal":
+                    total = value;
+                    break;
+                case "MemAvailable":
+                    available = value;
+                    break;
+                case "MemFree":
+                    free = value;
+                    break;
+                case "Buffers":
+                    buffers = value;
+                    break;
+                case "Cached":
+                    cached = value;
+                    break;
+                case "SwapTotal":
+                    swapTotal = value;
+                    break;
+                case "SwapFree":
+                    swapFree = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (available < 0) {
+            available = free + buffers + cached;
+        }
+        return new float[]{total, available, swapTotal, swapFree};
+    }
+
+    /**
+     * 解析/proc/[pid]/stat，进程名可能包含空格和括号，以最后一个')'为界
+     */
+    static ProcessStat parseProcessStat(String stat) {
+        int start = stat.indexOf('(');
+        int end = stat.lastIndexOf(')');
+        ProcessStat processStat = new ProcessStat();
+        processStat.pid = stat.substring(0, start).trim();
+        processStat.command = stat.substring(start + 1, end);
+        // 从第3个字段state开始
+        String[] words = stat.substring(end + 2).trim().split("\\s+");
+        processStat.ticks = Long.parseLong(words[11]) + Long.parseLong(words[12]);
+        processStat.startTicks = Long.parseLong(words[19]);
+        processStat.vsizeBytes = Long.parseLong(words[20]);
+        processStat.rssPages = Long.parseLong(words[21]);
+        return processStat;
+    }
+
+    /**
+     * 与top的TIME+格式一致：分:秒.百分秒
+     */
+    static String formatTime(long ticks) {
+        long hundredths = ticks * 100 / CLOCK_TICKS;
+        return String.format("%d:%02d.%02d", hundredths / 6000, hundredths / 100 % 60, hundredths % 100);
+    }
+
+    static String humanSize(long bytes) {
+        String[] units = {"B", "K", "M", "G", "T", "P"};
+        double size = bytes;
+        int unit = 0;
+        while (size >= 1024 && unit < units.length - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return unit == 0 ? bytes + units[0] : String.format(size >= 10 ? "%.0f%s" : "%.1f%s", size, units[unit]);
+    }
+
+    static class ProcessStat {
+        String pid;
+        String command;
+        long ticks;
+        long startTicks;
+        long vsizeBytes;
+        long rssPages;
+        float cpu;
+    }
+}
@@ -2,6 +2,19 @@ package com.dfire.core.util;
 
 import com.dfire.core.config.HeraGlobalEnvironment;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
 /**
  *
  * @author xiaosuda
@@ -12,6 +25,8 @@ public class CommandUtils {
     public static final String CHANGE_AUTHORITY = "chmod -R 777 ";
     public static final String RUN_SH_COMMAND = " sh ";
 
+    private static final Set<PosixFilePermission> ALL_PERMISSIONS = PosixFilePermissions.fromString("rwxrwxrwx");
+
     /**
      * 修改文件权限命令
      * @param filePath  文件路径
@@ -33,4 +48,75 @@ public class CommandUtils {
         }
         return  prefix + RUN_SH_COMMAND + shellFilePath;
     }
+
+    /**
+     * 在JVM内完成dos2unix：windows换行符转换为unix换行符，并去掉utf-8 bom，省去一次进程创建
+     *
+     * @param file 文件
+     * @return 文件是否被修改
+     * @throws IOException 读写文件失败
+     */
+    public static boolean dos2unix(File file) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        int from = content.length >= 3 && (content[0] & 0xff) == 0xEF && (content[1] & 0xff) == 0xBB && (content[2] & 0xff) == 0xBF ? 3 : 0;
+        byte[] converted = new byte[content.length - from];
+        int length = 0;
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == '\r' && i + 1 < content.length && content[i + 1] == '\n') {
+                continue;
+            }
+            converted[length++] = content[i];
+        }
+        if (length == content.length) {
+            return false;
+        }
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(converted, 0, length);
+        }
+        return true;
+    }
+
+    /**
+     * 在JVM内完成chmod -R 777，已经是777的文件不再修改，省去一次进程创建
+     *
+     * @param dir 目录
+     * @return 修改权限的文件数
+     * @throws IOException 修改权限失败
+     */
+    public static int changeFileAuthority(File dir) throws IOException {
+        Path root = dir.toPath();
+        boolean posix = Files.getFileAttributeView(root, PosixFileAttributeView.class) != null;
+        int[] changed = {0};
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+                change(path);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isSymbolicLink()) {
+                    change(path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            private void change(Path path) throws IOException {
+                if (posix) {
+                    if (!Files.getPosixFilePermissions(path).equals(ALL_PERMISSIONS)) {
+                        Files.setPosixFilePermissions(path, ALL_PERMISSIONS);
+                        changed[0]++;
+                    }
+                } else {
+                    File file = path.toFile();
+                    file.setReadable(true, false);
+                    file.setWritable(true, false);
+                    file.setExecutable(true, false);
+                    changed[0]++;
+                }
+            }
+        });
+        return changed[0];
+    }
 }
@@ -1,63 +1,113 @@
 package com.dfire.core.util;
 
 import com.dfire.common.util.ActionUtil;
+import com.dfire.logs.ErrorLog;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.quartz.CronExpression;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author: <a href="mailto:lingxiao@2dfire.com">凌霄</a>
  * @time: Created in 上午10:15 2018/5/10
  * @desc cron表达式解析工具，返回解析result
+ * 同一天内相同cron表达式的触发时间只计算一次，结果按 日期+表达式 缓存
  */
 public class CronParse {
 
+    private static final DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter.ofPattern(ActionUtil.DEFAULT_FORMAT);
+
+    /**
+     * 解析失败的表达式也缓存，避免每次生成版本都重复解析
+     */
+    private static final List<String> INVALID = Collections.emptyList();
+
+    private static final Cache<String, List<String>> FIRE_TIMES = CacheBuilder.newBuilder()
+            .maximumSize(20000)
+            .expireAfterAccess(2, TimeUnit.DAYS)
+            .build();
+
     public static boolean Parser(String cronExpression, String cronDate, List<String> result) {
+        List<String> fireTimes = parse(cronExpression, cronDate);
+        if (fireTimes == null) {
+            return false;
+        }
+        result.addAll(fireTimes);
+        return true;
+    }
+
+    /**
+     * 获得cron表达式在某一天内的所有触发时间
+     *
+     * @param cronExpression cron表达式
+     * @param cronDate       日期，格式：yyyy-MM-dd
+     * @return 不可修改的触发时间集合，格式：yyyy-MM-dd HH:mm:ss，表达式或日期错误时返回null
+     */
+    public static List<String> parse(String cronExpression, String cronDate) {
         if (cronExpression == null || cronExpression.length() < 1
                 || cronDate == null || cronDate.length() < 1) {
-            return false;
-        } else {
-            CronExpression exp;
-            try {
-                // 初始化cron表达式解析器
-                exp = new CronExpression(cronExpression);
-            } catch (ParseException e) {
-                e.printStackTrace();
-                return false;
-            }
-            // 定义生成时间范围
-            // 定义开始时间，前一天的23点59分59秒
-            Calendar c = Calendar.getInstance();
-            String sStart = cronDate + " 00:00:00";
-            SimpleDateFormat sdf = new java.text.SimpleDateFormat(
-                    ActionUtil.DEFAULT_FORMAT);
-            Date dStart = null;
-            try {
-                dStart = sdf.parse(sStart);
-            } catch (ParseException e) {
-                e.printStackTrace();
-            }
-            c.setTime(dStart);
-            c.add(Calendar.SECOND, -1);
-            dStart = c.getTime();
-
-            // 定义结束时间，当天的23点59分59秒
-            c.add(Calendar.DATE, 1);
-            Date dEnd = c.getTime();
-
-            // 生成时间序列
-            Date dd = dStart;
+            return null;
+        }
+        List<String> fireTimes;
+        try {
+            fireTimes = FIRE_TIMES.get(cronDate + "|" + cronExpression, () -> {
+                List<String> res = expand(cronExpression, cronDate);
+                return res == null ? INVALID : Collections.unmodifiableList(res);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            //计算时的运行时异常被包装为UncheckedExecutionException，不能影响同一批的其它任务
+            ErrorLog.error("cron parse error:" + cronExpression + ", date:" + cronDate, e);
+            return null;
+        }
+        return fireTimes == INVALID ? null : fireTimes;
+    }
+
+    /**
+     * 不使用缓存，直接计算cron表达式在某一天内的所有触发时间
+     *
+     * @param cronExpression cron表达式
+     * @param cronDate       日期，格式：yyyy-MM-dd
+     * @return 触发时间集合，表达式或日期错误时返回null
+     */
+    public static List<String> expand(String cronExpression, String cronDate) {
+        CronExpression exp;
+        try {
+            // 初始化cron表达式解析器
+            exp = new CronExpression(cronExpression);
+        } catch (ParseException e) {
+            ErrorLog.error("cron parse error:" + cronExpression, e);
+            return null;
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(cronDate);
+        } catch (DateTimeParseException e) {
+            ErrorLog.error("cron date parse error:" + cronDate, e);
+            return null;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        // 定义生成时间范围
+        // 定义开始时间，前一天的23点59分59秒
+        long start = date.atStartOfDay(zone).toInstant().toEpochMilli() - 1000L;
+        // 定义结束时间，当天的23点59分59秒
+        long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1000L;
+
+        // 生成时间序列
+        List<String> result = new ArrayList<>();
+        Date dd = exp.getNextValidTimeAfter(new Date(start));
+        while (dd != null && dd.getTime() >= start && dd.getTime() <= end) {
+            result.add(DEFAULT_FORMATTER.format(dd.toInstant().atZone(zone)));
             dd = exp.getNextValidTimeAfter(dd);
-            while ((dd.getTime() >= dStart.getTime())
-                    && (dd.getTime() <= dEnd.getTime())) {
-                result.add(sdf.format(dd));
-                dd = exp.getNextValidTimeAfter(dd);
-            }
         }
-        return true;
+        return result;
     }
 }
@@ -6,18 +6,13 @@ import com.dfire.common.entity.model.HeraJobBean;
 import com.dfire.common.entity.vo.HeraJobHistoryVo;
 import com.dfire.common.entity.vo.HeraProfileVo;
 import com.dfire.common.enums.JobRunTypeEnum;
-import com.dfire.common.util.BeanConvertUtils;
-import com.dfire.common.util.HierarchyProperties;
-import com.dfire.common.util.RenderHierarchyProperties;
+import com.dfire.common.util.*;
 import com.dfire.core.job.*;
 import com.dfire.core.netty.worker.WorkContext;
 import com.dfire.logs.HeraLog;
 import org.apache.commons.lang.StringUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -97,8 +92,8 @@ public class JobUtils {
             script = resolveScriptResource(resource, script, workContext);
         }
         jobContext.setResources(resource);
-        script = replace(jobContext.getProperties().getAllProperties(), script);
-        script = RenderHierarchyProperties.render(script, history.getActionId().substring(0, 12));
+        Date actionDate = HeraDateTool.StringToDate(history.getActionId().substring(0, 12), ActionUtil.ACTION_MIN);
+        script = HeraTemplate.compile(script).render(jobContext.getProperties().getAllProperties(), actionDate);
         hierarchyProperties.setProperty(RunningJobKeyConstant.JOB_SCRIPT, script);
 
         List<Job> pres = new ArrayList<>();
@@ -120,22 +115,18 @@ public class JobUtils {
     }
 
 
+    /**
+     * 替换脚本中的${key}变量，不计算hera时间表达式
+     *
+     * @param allProperties 变量
+     * @param script        脚本内容
+     * @return 替换后的脚本
+     */
     public static String replace(Map<String, String> allProperties, String script) {
         if (script == null) {
             return null;
         }
-        Map<String, String> varMap = new HashMap<>(allProperties.size());
-        for (Map.Entry<String, String> entry : allProperties.entrySet()) {
-            varMap.put("${" + entry.getKey() + "}", entry.getValue());
-        }
-        String old;
-        for (Map.Entry<String, String> entry : varMap.entrySet()) {
-            do {
-                old = script;
-                script = script.replace(entry.getKey(), entry.getValue());
-            } while (!old.equals(script));
-        }
-        return script;
+        return HeraTemplate.compile(script).render(allProperties, null);
     }
 
     /**
@@ -877,6 +877,129 @@ public final class RpcHeartBeatMessage {
      * <code>int32 cores = 8;</code>
      */
     int getCores();
+
+    /**
+     * <pre>
+     *心跳版本，每次心跳加1，0表示不支持增量心跳的worker
+     * </pre>
+     *
+     * <code>int64 version = 9;</code>
+     */
+    long getVersion();
+
+    /**
+     * <pre>
+     *增量心跳基于的版本，即master最近一次确认的版本，0表示全量心跳
+     * </pre>
+     *
+     * <code>int64 base_version = 10;</code>
+     */
+    long getBaseVersion();
+
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    java.util.List<String>
+        getFinishedRunningsList();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    int getFinishedRunningsCount();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    String getFinishedRunnings(int index);
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    com.google.protobuf.ByteString
+        getFinishedRunningsBytes(int index);
+
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    java.util.List<String>
+        getFinishedDebugRunningsList();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    int getFinishedDebugRunningsCount();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    String getFinishedDebugRunnings(int index);
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    com.google.protobuf.ByteString
+        getFinishedDebugRunningsBytes(int index);
+
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    java.util.List<String>
+        getFinishedManualRunningsList();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    int getFinishedManualRunningsCount();
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    String getFinishedManualRunnings(int index);
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    com.google.protobuf.ByteString
+        getFinishedManualRunningsBytes(int index);
   }
   /**
    * Protobuf type {@code HeartBeatMessage}
@@ -900,6 +1023,11 @@ public final class RpcHeartBeatMessage {
       cpuLoadPerCore_ = 0F;
       memTotal_ = 0F;
       cores_ = 0;
+      version_ = 0L;
+      baseVersion_ = 0L;
+      finishedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      finishedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      finishedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
     }
 
     @Override
@@ -986,6 +1114,43 @@ public final class RpcHeartBeatMessage {
               cores_ = input.readInt32();
               break;
             }
+            case 72: {
+
+              version_ = input.readInt64();
+              break;
+            }
+            case 80: {
+
+              baseVersion_ = input.readInt64();
+              break;
+            }
+            case 90: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                finishedRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              finishedRunnings_.add(s);
+              break;
+            }
+            case 98: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+                finishedDebugRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000010;
+              }
+              finishedDebugRunnings_.add(s);
+              break;
+            }
+            case 106: {
+              String s = input.readStringRequireUtf8();
+              if (!((mutable_bitField0_ & 0x00000020) == 0x00000020)) {
+                finishedManualRunnings_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000020;
+              }
+              finishedManualRunnings_.add(s);
+              break;
+            }
             case 32773: {
 
               memTotal_ = input.readFloat();
@@ -1008,6 +1173,15 @@ public final class RpcHeartBeatMessage {
         if (((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
           manualRunnings_ = manualRunnings_.getUnmodifiableView();
         }
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          finishedRunnings_ = finishedRunnings_.getUnmodifiableView();
+        }
+        if (((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+          finishedDebugRunnings_ = finishedDebugRunnings_.getUnmodifiableView();
+        }
+        if (((mutable_bitField0_ & 0x00000020) == 0x00000020)) {
+          finishedManualRunnings_ = finishedManualRunnings_.getUnmodifiableView();
+        }
         this.unknownFields = unknownFields.build();
         makeExtensionsImmutable();
       }
@@ -1263,6 +1437,167 @@ public final class RpcHeartBeatMessage {
       return cores_;
     }
 
+    public static final int VERSION_FIELD_NUMBER = 9;
+    private long version_;
+    /**
+     * <pre>
+     *心跳版本，每次心跳加1，0表示不支持增量心跳的worker
+     * </pre>
+     *
+     * <code>int64 version = 9;</code>
+     */
+    public long getVersion() {
+      return version_;
+    }
+
+    public static final int BASE_VERSION_FIELD_NUMBER = 10;
+    private long baseVersion_;
+    /**
+     * <pre>
+     *增量心跳基于的版本，即master最近一次确认的版本，0表示全量心跳
+     * </pre>
+     *
+     * <code>int64 base_version = 10;</code>
+     */
+    public long getBaseVersion() {
+      return baseVersion_;
+    }
+
+    public static final int FINISHEDRUNNINGS_FIELD_NUMBER = 11;
+    private com.google.protobuf.LazyStringList finishedRunnings_;
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getFinishedRunningsList() {
+      return finishedRunnings_;
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    public int getFinishedRunningsCount() {
+      return finishedRunnings_.size();
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    public String getFinishedRunnings(int index) {
+      return finishedRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+     * </pre>
+     *
+     * <code>repeated string finishedRunnings = 11;</code>
+     */
+    public com.google.protobuf.ByteString
+        getFinishedRunningsBytes(int index) {
+      return finishedRunnings_.getByteString(index);
+    }
+
+    public static final int FINISHEDDEBUGRUNNINGS_FIELD_NUMBER = 12;
+    private com.google.protobuf.LazyStringList finishedDebugRunnings_;
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getFinishedDebugRunningsList() {
+      return finishedDebugRunnings_;
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    public int getFinishedDebugRunningsCount() {
+      return finishedDebugRunnings_.size();
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    public String getFinishedDebugRunnings(int index) {
+      return finishedDebugRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的文件脚本job列表
+     * </pre>
+     *
+     * <code>repeated string finishedDebugRunnings = 12;</code>
+     */
+    public com.google.protobuf.ByteString
+        getFinishedDebugRunningsBytes(int index) {
+      return finishedDebugRunnings_.getByteString(index);
+    }
+
+    public static final int FINISHEDMANUALRUNNINGS_FIELD_NUMBER = 13;
+    private com.google.protobuf.LazyStringList finishedManualRunnings_;
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    public com.google.protobuf.ProtocolStringList
+        getFinishedManualRunningsList() {
+      return finishedManualRunnings_;
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    public int getFinishedManualRunningsCount() {
+      return finishedManualRunnings_.size();
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    public String getFinishedManualRunnings(int index) {
+      return finishedManualRunnings_.get(index);
+    }
+    /**
+     * <pre>
+     *增量心跳：上次确认之后结束的手动执行job列表
+     * </pre>
+     *
+     * <code>repeated string finishedManualRunnings = 13;</code>
+     */
+    public com.google.protobuf.ByteString
+        getFinishedManualRunningsBytes(int index) {
+      return finishedManualRunnings_.getByteString(index);
+    }
+
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
@@ -1299,6 +1634,21 @@ public final class RpcHeartBeatMessage {
       if (cores_ != 0) {
         output.writeInt32(8, cores_);
       }
+      if (version_ != 0L) {
+        output.writeInt64(9, version_);
+      }
+      if (baseVersion_ != 0L) {
+        output.writeInt64(10, baseVersion_);
+      }
+      for (int i = 0; i < finishedRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 11, finishedRunnings_.getRaw(i));
+      }
+      for (int i = 0; i < finishedDebugRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 12, finishedDebugRunnings_.getRaw(i));
+      }
+      for (int i = 0; i < finishedManualRunnings_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 13, finishedManualRunnings_.getRaw(i));
+      }
       if (memTotal_ != 0F) {
         output.writeFloat(4096, memTotal_);
       }
@@ -1353,6 +1703,38 @@ public final class RpcHeartBeatMessage {
         size += com.google.protobuf.CodedOutputStream
           .computeInt32Size(8, cores_);
       }
+      if (version_ != 0L) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(9, version_);
+      }
+      if (baseVersion_ != 0L) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(10, baseVersion_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < finishedRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(finishedRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getFinishedRunningsList().size();
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < finishedDebugRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(finishedDebugRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getFinishedDebugRunningsList().size();
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < finishedManualRunnings_.size(); i++) {
+          dataSize += computeStringSizeNoTag(finishedManualRunnings_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getFinishedManualRunningsList().size();
+      }
       if (memTotal_ != 0F) {
         size += com.google.protobuf.CodedOutputStream
           .computeFloatSize(4096, memTotal_);
@@ -1397,6 +1779,16 @@ public final class RpcHeartBeatMessage {
               other.getMemTotal()));
       result = result && (getCores()
           == other.getCores());
+      result = result && (getVersion()
+          == other.getVersion());
+      result = result && (getBaseVersion()
+          == other.getBaseVersion());
+      result = result && getFinishedRunningsList()
+          .equals(other.getFinishedRunningsList());
+      result = result && getFinishedDebugRunningsList()
+          .equals(other.getFinishedDebugRunningsList());
+      result = result && getFinishedManualRunningsList()
+          .equals(other.getFinishedManualRunningsList());
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
@@ -1436,6 +1828,24 @@ public final class RpcHeartBeatMessage {
           getMemTotal());
       hash = (37 * hash) + CORES_FIELD_NUMBER;
       hash = (53 * hash) + getCores();
+      hash = (37 * hash) + VERSION_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          getVersion());
+      hash = (37 * hash) + BASE_VERSION_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          getBaseVersion());
+      if (getFinishedRunningsCount() > 0) {
+        hash = (37 * hash) + FINISHEDRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getFinishedRunningsList().hashCode();
+      }
+      if (getFinishedDebugRunningsCount() > 0) {
+        hash = (37 * hash) + FINISHEDDEBUGRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getFinishedDebugRunningsList().hashCode();
+      }
+      if (getFinishedManualRunningsCount() > 0) {
+        hash = (37 * hash) + FINISHEDMANUALRUNNINGS_FIELD_NUMBER;
+        hash = (53 * hash) + getFinishedManualRunningsList().hashCode();
+      }
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -1583,6 +1993,16 @@ public final class RpcHeartBeatMessage {
 
         cores_ = 0;
 
+        version_ = 0L;
+
+        baseVersion_ = 0L;
+
+        finishedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        finishedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        finishedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
         return this;
       }
 
@@ -1628,6 +2048,23 @@ public final class RpcHeartBeatMessage {
         result.cpuLoadPerCore_ = cpuLoadPerCore_;
         result.memTotal_ = memTotal_;
         result.cores_ = cores_;
+        result.version_ = version_;
+        result.baseVersion_ = baseVersion_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          finishedRunnings_ = finishedRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.finishedRunnings_ = finishedRunnings_;
+        if (((bitField0_ & 0x00000010) == 0x00000010)) {
+          finishedDebugRunnings_ = finishedDebugRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000010);
+        }
+        result.finishedDebugRunnings_ = finishedDebugRunnings_;
+        if (((bitField0_ & 0x00000020) == 0x00000020)) {
+          finishedManualRunnings_ = finishedManualRunnings_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000020);
+        }
+        result.finishedManualRunnings_ = finishedManualRunnings_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -1719,6 +2156,42 @@ public final class RpcHeartBeatMessage {
         if (other.getCores() != 0) {
           setCores(other.getCores());
         }
+        if (other.getVersion() != 0L) {
+          setVersion(other.getVersion());
+        }
+        if (other.getBaseVersion() != 0L) {
+          setBaseVersion(other.getBaseVersion());
+        }
+        if (!other.finishedRunnings_.isEmpty()) {
+          if (finishedRunnings_.isEmpty()) {
+            finishedRunnings_ = other.finishedRunnings_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureFinishedRunningsIsMutable();
+            finishedRunnings_.addAll(other.finishedRunnings_);
+          }
+          onChanged();
+        }
+        if (!other.finishedDebugRunnings_.isEmpty()) {
+          if (finishedDebugRunnings_.isEmpty()) {
+            finishedDebugRunnings_ = other.finishedDebugRunnings_;
+            bitField0_ = (bitField0_ & ~0x00000010);
+          } else {
+            ensureFinishedDebugRunningsIsMutable();
+            finishedDebugRunnings_.addAll(other.finishedDebugRunnings_);
+          }
+          onChanged();
+        }
+        if (!other.finishedManualRunnings_.isEmpty()) {
+          if (finishedManualRunnings_.isEmpty()) {
+            finishedManualRunnings_ = other.finishedManualRunnings_;
+            bitField0_ = (bitField0_ & ~0x00000020);
+          } else {
+            ensureFinishedManualRunningsIsMutable();
+            finishedManualRunnings_.addAll(other.finishedManualRunnings_);
+          }
+          onChanged();
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -2403,6 +2876,472 @@ public final class RpcHeartBeatMessage {
         onChanged();
         return this;
       }
+
+      private long version_ ;
+      /**
+       * <pre>
+       *心跳版本，每次心跳加1，0表示不支持增量心跳的worker
+       * </pre>
+       *
+       * <code>int64 version = 9;</code>
+       */
+      public long getVersion() {
+        return version_;
+      }
+      /**
+       * <pre>
+       *心跳版本，每次心跳加1，0表示不支持增量心跳的worker
+       * </pre>
+       *
+       * <code>int64 version = 9;</code>
+       */
+      public Builder setVersion(long value) {
+        
+        version_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *心跳版本，每次心跳加1，0表示不支持增量心跳的worker
+       * </pre>
+       *
+       * <code>int64 version = 9;</code>
+       */
+      public Builder clearVersion() {
+        
+        version_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long baseVersion_ ;
+      /**
+       * <pre>
+       *增量心跳基于的版本，即master最近一次确认的版本，0表示全量心跳
+       * </pre>
+       *
+       * <code>int64 base_version = 10;</code>
+       */
+      public long getBaseVersion() {
+        return baseVersion_;
+      }
+      /**
+       * <pre>
+       *增量心跳基于的版本，即master最近一次确认的版本，0表示全量心跳
+       * </pre>
+       *
+       * <code>int64 base_version = 10;</code>
+       */
+      public Builder setBaseVersion(long value) {
+        
+        baseVersion_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳基于的版本，即master最近一次确认的版本，0表示全量心跳
+       * </pre>
+       *
+       * <code>int64 base_version = 10;</code>
+       */
+      public Builder clearBaseVersion() {
+        
+        baseVersion_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList finishedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureFinishedRunningsIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          finishedRunnings_ = new com.google.protobuf.LazyStringArrayList(finishedRunnings_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getFinishedRunningsList() {
+        return finishedRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public int getFinishedRunningsCount() {
+        return finishedRunnings_.size();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public String getFinishedRunnings(int index) {
+        return finishedRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public com.google.protobuf.ByteString
+          getFinishedRunningsBytes(int index) {
+        return finishedRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public Builder setFinishedRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedRunningsIsMutable();
+        finishedRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public Builder addFinishedRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedRunningsIsMutable();
+        finishedRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public Builder addAllFinishedRunnings(
+          Iterable<String> values) {
+        ensureFinishedRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, finishedRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public Builder clearFinishedRunnings() {
+        finishedRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的自动调度job列表，新开始的job在runnings中
+       * </pre>
+       *
+       * <code>repeated string finishedRunnings = 11;</code>
+       */
+      public Builder addFinishedRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureFinishedRunningsIsMutable();
+        finishedRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList finishedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureFinishedDebugRunningsIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          finishedDebugRunnings_ = new com.google.protobuf.LazyStringArrayList(finishedDebugRunnings_);
+          bitField0_ |= 0x00000010;
+         }
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getFinishedDebugRunningsList() {
+        return finishedDebugRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public int getFinishedDebugRunningsCount() {
+        return finishedDebugRunnings_.size();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public String getFinishedDebugRunnings(int index) {
+        return finishedDebugRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public com.google.protobuf.ByteString
+          getFinishedDebugRunningsBytes(int index) {
+        return finishedDebugRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public Builder setFinishedDebugRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedDebugRunningsIsMutable();
+        finishedDebugRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public Builder addFinishedDebugRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedDebugRunningsIsMutable();
+        finishedDebugRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public Builder addAllFinishedDebugRunnings(
+          Iterable<String> values) {
+        ensureFinishedDebugRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, finishedDebugRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public Builder clearFinishedDebugRunnings() {
+        finishedDebugRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的文件脚本job列表
+       * </pre>
+       *
+       * <code>repeated string finishedDebugRunnings = 12;</code>
+       */
+      public Builder addFinishedDebugRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureFinishedDebugRunningsIsMutable();
+        finishedDebugRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList finishedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureFinishedManualRunningsIsMutable() {
+        if (!((bitField0_ & 0x00000020) == 0x00000020)) {
+          finishedManualRunnings_ = new com.google.protobuf.LazyStringArrayList(finishedManualRunnings_);
+          bitField0_ |= 0x00000020;
+         }
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public com.google.protobuf.ProtocolStringList
+          getFinishedManualRunningsList() {
+        return finishedManualRunnings_.getUnmodifiableView();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public int getFinishedManualRunningsCount() {
+        return finishedManualRunnings_.size();
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public String getFinishedManualRunnings(int index) {
+        return finishedManualRunnings_.get(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public com.google.protobuf.ByteString
+          getFinishedManualRunningsBytes(int index) {
+        return finishedManualRunnings_.getByteString(index);
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public Builder setFinishedManualRunnings(
+          int index, String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedManualRunningsIsMutable();
+        finishedManualRunnings_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public Builder addFinishedManualRunnings(
+          String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureFinishedManualRunningsIsMutable();
+        finishedManualRunnings_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public Builder addAllFinishedManualRunnings(
+          Iterable<String> values) {
+        ensureFinishedManualRunningsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, finishedManualRunnings_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public Builder clearFinishedManualRunnings() {
+        finishedManualRunnings_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       *增量心跳：上次确认之后结束的手动执行job列表
+       * </pre>
+       *
+       * <code>repeated string finishedManualRunnings = 13;</code>
+       */
+      public Builder addFinishedManualRunningsBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        ensureFinishedManualRunningsIsMutable();
+        finishedManualRunnings_.add(value);
+        onChanged();
+        return this;
+      }
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
         return super.setUnknownFieldsProto3(unknownFields);
@@ -2479,14 +3418,17 @@ public final class RpcHeartBeatMessage {
       "\n\007x.proto\"\221\001\n\027AllHeartBeatInfoMessage\0224\n" +
       "\006values\030\001 \003(\0132$.AllHeartBeatInfoMessage." +
       "ValuesEntry\032@\n\013ValuesEntry\022\013\n\003key\030\001 \001(\t\022" +
-      " \n\005value\030\002 \001(\0132\021.HeartBeatMessage:\0028\001\"\304\001" +
+      " \n\005value\030\002 \001(\0132\021.HeartBeatMessage:\0028\001\"\304\002" +
       "\n\020HeartBeatMessage\022\020\n\010runnings\030\001 \003(\t\022\025\n\r" +
       "debugRunnings\030\002 \003(\t\022\026\n\016manualRunnings\030\003 " +
       "\003(\t\022\021\n\ttimestamp\030\004 \001(\003\022\020\n\010mem_rate\030\005 \001(\002" +
       "\022\014\n\004host\030\006 \001(\t\022\031\n\021cpu_load_per_core\030\007 \001(" +
-      "\002\022\022\n\tmem_total\030\200  \001(\002\022\r\n\005cores\030\010 \001(\005B+\n\022" +
-      "com.dfire.protocolB\023RpcHeartBeatMessageH" +
-      "\001b\006proto3"
+      "\002\022\022\n\tmem_total\030\200  \001(\002\022\r\n\005cores\030\010 \001(\005\022\017\n\007" +
+      "version\030\t \001(\003\022\024\n\014base_version\030\n \001(\003\022\030\n\020f" +
+      "inishedRunnings\030\013 \003(\t\022\035\n\025finishedDebugRu" +
+      "nnings\030\014 \003(\t\022\036\n\026finishedManualRunnings\030\r" +
+      " \003(\tB+\n\022com.dfire.protocolB\023RpcHeartBeat" +
+      "MessageH\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -2517,7 +3459,7 @@ public final class RpcHeartBeatMessage {
     internal_static_HeartBeatMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_HeartBeatMessage_descriptor,
-        new String[] { "Runnings", "DebugRunnings", "ManualRunnings", "Timestamp", "MemRate", "Host", "CpuLoadPerCore", "MemTotal", "Cores", });
+        new String[] { "Runnings", "DebugRunnings", "ManualRunnings", "Timestamp", "MemRate", "Host", "CpuLoadPerCore", "MemTotal", "Cores", "Version", "BaseVersion", "FinishedRunnings", "FinishedDebugRunnings", "FinishedManualRunnings", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)